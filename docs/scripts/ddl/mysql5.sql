@@ -154,6 +154,8 @@ CREATE TABLE oc_job (
   parent BIGINT,
   root BIGINT,
   job_load FLOAT NOT NULL DEFAULT 1.0,
+  cpu_time BIGINT,
+  peak_memory BIGINT,
   PRIMARY KEY (id),
   CONSTRAINT FK_oc_job_creator_service FOREIGN KEY (creator_service) REFERENCES oc_service_registration (id) ON DELETE CASCADE,
   CONSTRAINT FK_oc_job_processor_service FOREIGN KEY (processor_service) REFERENCES oc_service_registration (id) ON DELETE CASCADE,
@@ -172,6 +174,10 @@ CREATE INDEX IX_oc_job_date_completed ON oc_job (date_completed);
 CREATE INDEX IX_oc_job_dispatchable ON oc_job (dispatchable);
 CREATE INDEX IX_oc_job_operation ON oc_job (operation);
 CREATE INDEX IX_oc_job_statistics ON oc_job (processor_service, status, queue_time, run_time);
+CREATE INDEX IX_oc_job_dispatchable_status ON oc_job (dispatchable, status, date_created);
+CREATE INDEX IX_oc_job_status_date_created ON oc_job (status, date_created);
+CREATE INDEX IX_oc_job_creator_service_status ON oc_job (creator_service, status, operation);
+CREATE INDEX IX_oc_job_operation_date_created ON oc_job (operation, date_created);
 
 CREATE TABLE oc_job_argument (
   id BIGINT NOT NULL,
@@ -343,6 +349,21 @@ CREATE INDEX IX_oc_user_action_outpoint ON oc_user_action (outpoint);
 CREATE INDEX IX_oc_user_action_mediapackage_id ON oc_user_action (mediapackage);
 CREATE INDEX IX_oc_user_action_type ON oc_user_action (type);
 
+CREATE TABLE oc_user_footprint_histogram (
+  mediapackage VARCHAR(128) NOT NULL,
+  user_id VARCHAR(255) NOT NULL,
+  complete TINYINT(1) DEFAULT 0,
+  histogram MEDIUMBLOB,
+  PRIMARY KEY (mediapackage, user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE oc_user_views (
+  mediapackage VARCHAR(128) NOT NULL,
+  views BIGINT DEFAULT 0,
+  complete TINYINT(1) DEFAULT 0,
+  PRIMARY KEY (mediapackage)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 CREATE TABLE oc_oaipmh_harvesting (
   url VARCHAR(255) NOT NULL,
   last_harvested datetime,
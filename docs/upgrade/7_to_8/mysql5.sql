@@ -0,0 +1,25 @@
+-- Composite indexes for dispatching jobs and computing the job statistics without scanning the job table
+CREATE INDEX IX_oc_job_dispatchable_status ON oc_job (dispatchable, status, date_created);
+CREATE INDEX IX_oc_job_status_date_created ON oc_job (status, date_created);
+CREATE INDEX IX_oc_job_creator_service_status ON oc_job (creator_service, status, operation);
+CREATE INDEX IX_oc_job_operation_date_created ON oc_job (operation, date_created);
+
+-- Pre-aggregated footprint views, built on demand from oc_user_action
+CREATE TABLE oc_user_footprint_histogram (
+  mediapackage VARCHAR(128) NOT NULL,
+  user_id VARCHAR(255) NOT NULL,
+  complete TINYINT(1) DEFAULT 0,
+  histogram MEDIUMBLOB,
+  PRIMARY KEY (mediapackage, user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE oc_user_views (
+  mediapackage VARCHAR(128) NOT NULL,
+  views BIGINT DEFAULT 0,
+  complete TINYINT(1) DEFAULT 0,
+  PRIMARY KEY (mediapackage)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Measured resource usage of finished jobs, used to learn job loads for dispatching
+ALTER TABLE oc_job ADD COLUMN cpu_time BIGINT;
+ALTER TABLE oc_job ADD COLUMN peak_memory BIGINT;
@@ -106,6 +106,14 @@ public abstract class AbstractAssetManager implements AssetManager {
   /** Return the organization ID of the currently executing thread. */
   protected abstract String getCurrentOrgId();
 
+  /** Media packages decoded from snapshots, shared by all queries. */
+  private final MediaPackageCache mediaPackageCache = new MediaPackageCache(MediaPackageCache.DEFAULT_SIZE);
+
+  /** Return the cache of media packages decoded from snapshots. */
+  public MediaPackageCache getMediaPackageCache() {
+    return mediaPackageCache;
+  }
+
   /* ------------------------------------------------------------------------------------------------------------------ */
 
   @Override
@@ -0,0 +1,112 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.assetmanager.impl;
+
+import org.opencastproject.assetmanager.api.Availability;
+import org.opencastproject.assetmanager.api.Snapshot;
+import org.opencastproject.assetmanager.api.Version;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageSupport;
+
+import java.util.Date;
+
+/**
+ * A snapshot that decodes its media package and prepares it for delivery only when it is accessed.
+ * <p>
+ * Queries often select many snapshots but only look at some of their media packages, if at all.
+ * Decoding happens at most once per snapshot; the result is a private copy that callers may modify.
+ */
+public final class LazySnapshot implements Snapshot {
+  private final long id;
+  private final Version version;
+  private final String organizationId;
+  private final Date archivalDate;
+  private final Availability availability;
+  private final String storageId;
+  private final String owner;
+  private final String mediaPackageId;
+  private final MediaPackageCache cache;
+  private final HttpAssetProvider httpAssetProvider;
+  /** The media package XML. Released once the media package has been decoded. */
+  private String mediaPackageXml;
+  private MediaPackage mediaPackage;
+
+  public LazySnapshot(
+          long id,
+          Version version,
+          String organizationId,
+          Date archivalDate,
+          Availability availability,
+          String storageId,
+          String owner,
+          String mediaPackageId,
+          String mediaPackageXml,
+          MediaPackageCache cache,
+          HttpAssetProvider httpAssetProvider) {
+    this.id = id;
+    this.version = version;
+    this.organizationId = organizationId;
+    this.archivalDate = archivalDate;
+    this.availability = availability;
+    this.storageId = storageId;
+    this.owner = owner;
+    this.mediaPackageId = mediaPackageId;
+    this.mediaPackageXml = mediaPackageXml;
+    this.cache = cache;
+    this.httpAssetProvider = httpAssetProvider;
+  }
+
+  @Override public Version getVersion() {
+    return version;
+  }
+
+  @Override public String getOrganizationId() {
+    return organizationId;
+  }
+
+  @Override public Date getArchivalDate() {
+    return archivalDate;
+  }
+
+  @Override public Availability getAvailability() {
+    return availability;
+  }
+
+  @Override public String getStorageId() {
+    return storageId;
+  }
+
+  @Override public String getOwner() {
+    return owner;
+  }
+
+  @Override public synchronized MediaPackage getMediaPackage() {
+    if (mediaPackage == null) {
+      final MediaPackage decoded = cache.get(id, mediaPackageId, version, mediaPackageXml);
+      final MediaPackage prepared = httpAssetProvider.prepareForDelivery(new SnapshotImpl(
+              id, version, organizationId, archivalDate, availability, storageId, owner, decoded)).getMediaPackage();
+      // the decoded media package is shared with other snapshots and must not be handed out
+      mediaPackage = prepared != decoded ? prepared : MediaPackageSupport.copy(decoded);
+      mediaPackageXml = null;
+    }
+    return mediaPackage;
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.assetmanager.impl;
+
+import org.opencastproject.assetmanager.api.Version;
+import org.opencastproject.assetmanager.impl.persistence.Conversions;
+import org.opencastproject.mediapackage.MediaPackage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded cache of the media packages decoded from snapshots, keyed by media package ID and version.
+ * <p>
+ * A version of a media package never changes once it has been archived, so a decoded media package can be reused by
+ * every query fetching the same snapshot. The cached media packages are shared, so they must be neither modified nor
+ * handed out to clients.
+ */
+public final class MediaPackageCache {
+  /** The default maximum number of cached media packages. */
+  public static final long DEFAULT_SIZE = 1000;
+
+  private final Cache<String, Entry> cache;
+
+  public MediaPackageCache(long maxSize) {
+    this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+  }
+
+  /**
+   * Get the decoded media package of a snapshot, decoding <code>xml</code> if it has not been cached yet.
+   *
+   * @param snapshotId
+   *          the database ID of the snapshot, which guards against versions being reused after a media package
+   *          has been deleted
+   * @param mediaPackageId
+   *          the media package ID
+   * @param version
+   *          the snapshot version
+   * @param xml
+   *          the media package XML of the snapshot
+   * @return the shared media package, which must not be modified
+   */
+  public MediaPackage get(long snapshotId, String mediaPackageId, Version version, String xml) {
+    final String key = mediaPackageId + "/" + version;
+    final Entry cached = cache.getIfPresent(key);
+    if (cached != null && cached.snapshotId == snapshotId) {
+      return cached.mediaPackage;
+    }
+    final MediaPackage mediaPackage = Conversions.toMediaPackage(xml);
+    cache.put(key, new Entry(snapshotId, mediaPackage));
+    return mediaPackage;
+  }
+
+  /** Return the ratio of requests served from the cache. */
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+
+  private static final class Entry {
+    private final long snapshotId;
+    private final MediaPackage mediaPackage;
+
+    Entry(long snapshotId, MediaPackage mediaPackage) {
+      this.snapshotId = snapshotId;
+      this.mediaPackage = mediaPackage;
+    }
+  }
+}
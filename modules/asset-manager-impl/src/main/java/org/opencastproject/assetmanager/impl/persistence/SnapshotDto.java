@@ -24,6 +24,9 @@ import static org.opencastproject.util.data.functions.Functions.chuck;
 
 import org.opencastproject.assetmanager.api.Availability;
 import org.opencastproject.assetmanager.api.Snapshot;
+import org.opencastproject.assetmanager.impl.HttpAssetProvider;
+import org.opencastproject.assetmanager.impl.LazySnapshot;
+import org.opencastproject.assetmanager.impl.MediaPackageCache;
 import org.opencastproject.assetmanager.impl.SnapshotImpl;
 import org.opencastproject.assetmanager.impl.VersionImpl;
 import org.opencastproject.mediapackage.MediaPackage;
@@ -192,6 +195,29 @@ public class SnapshotDto {
             Conversions.toMediaPackage(mediaPackageXml));
   }
 
+  /**
+   * Like {@link #toSnapshot()} but decodes the media package only when it is accessed and prepares it for delivery.
+   *
+   * @param cache
+   *          the cache of decoded media packages
+   * @param httpAssetProvider
+   *          the provider rewriting the asset URIs of the media package
+   */
+  public Snapshot toSnapshot(MediaPackageCache cache, HttpAssetProvider httpAssetProvider) {
+    return new LazySnapshot(
+            getId(),
+            Conversions.toVersion(version),
+            organizationId,
+            archivalDate,
+            Availability.valueOf(availability),
+            storageId,
+            owner,
+            mediaPackageId,
+            mediaPackageXml,
+            cache,
+            httpAssetProvider);
+  }
+
   /**
    * Check if any snapshot with the given media package exists.
    *
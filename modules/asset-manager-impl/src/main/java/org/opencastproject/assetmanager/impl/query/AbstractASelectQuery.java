@@ -54,7 +54,10 @@ import com.mysema.query.types.expr.BooleanExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -194,76 +197,54 @@ public abstract class AbstractASelectQuery implements ASelectQuery, SelectQueryC
         fetch = r.fetch.append(MandatoryFetch.fetch).toList();
       }
     }
-    // Run the query and transform the result into records
-    final Stream<ARecordImpl> records;
+    // Run the query and transform the result into records.
+    // Records are created in a single pass over the result. Their snapshots are not decoded before they are accessed.
+    final List<ARecord> records = new ArrayList<>();
     {
       // run query
       am.getDb().logQuery(q);
       final List<Tuple> result = q.list(JpaFns.toExpressionArray(fetch));
       logger.debug("Pure query ms " + (System.nanoTime() - startTime) / 1000000);
+      final Fn<Tuple, ARecordImpl> toARecord = toARecord(r);
       // map result based on the fact whether properties have been fetched or not
       if (!toFetchProperties) {
         // No properties have been fetched -> each result row (tuple) is a distinct record (snapshot).
-        records = $($(result).map(toARecord(r))).map(new Fn<ARecordImpl, ARecordImpl>() {
-          @Override
-          public ARecordImpl apply(ARecordImpl record) {
-            Opt<Snapshot> snapshotOpt = record.getSnapshot();
-            Snapshot snapshot = null;
-            if (snapshotOpt.isSome()) {
-              // make sure the delivered media package has valid URIs
-              snapshot = am.getHttpAssetProvider().prepareForDelivery(snapshotOpt.get());
-            }
-            return new ARecordImpl(
-                    record.getSnapshotId(),
-                    record.getMediaPackageId(),
-                    record.getProperties(),
-                    snapshot);
-          }
-        });
+        for (final Tuple tuple : result) {
+          records.add(toARecord.apply(tuple));
+        }
       } else {
         logger.trace("Fetched properties");
         // Properties have been fetched -> there may be multiple rows (tuples) per snapshot because of the join with the property table.
-        // Extract records and properties and link them together.
-
-        // group properties after their media package ID and make sure that no duplicate properties occur
-        final Map<String, Set<Property>> propertiesPerMp = $(result).bind(toProperty)
-                .foldl(new HashMap<String, Set<Property>>(), new Fn2<Map<String, Set<Property>>, Property, Map<String, Set<Property>>>() {
-                  @Override
-                  public Map<String, Set<Property>> apply(Map<String, Set<Property>> sum, Property p) {
-                    final String mpId = p.getId().getMediaPackageId();
-                    final Set<Property> props = sum.get(mpId);
-                    if (props != null) {
-                      props.add(p);
-                    } else {
-                      sum.put(mpId, SetB.MH.mk(p));
-                    }
-                    return sum;
-                  }
-                });
-        // group records after their media package ID
-        final Map<String, List<ARecordImpl>> distinctRecords = $($(result).map(toARecord(r)).toSet()).groupMulti(ARecordImpl.getMediaPackageId);
-        records = $(distinctRecords.values()).bind(new Fn<List<ARecordImpl>, Iterable<ARecordImpl>>() {
-          @Override public Iterable<ARecordImpl> apply(List<ARecordImpl> records) {
-            return $(records).map(new Fn<ARecordImpl, ARecordImpl>() {
-              @Override public ARecordImpl apply(ARecordImpl record) {
-                final Set<Property> properties = propertiesPerMp.get(record.getMediaPackageId());
-                final Stream<Property> p = properties != null ? $(properties) : Stream.<Property>empty();
-                Snapshot snapshot = null;
-                Opt<Snapshot> snapshotOpt = record.getSnapshot();
-                if (snapshotOpt.isSome()) {
-                  // make sure the delivered media package has valid URIs
-                  snapshot = am.getHttpAssetProvider().prepareForDelivery(snapshotOpt.get());
-                }
-                return new ARecordImpl(record.getSnapshotId(), record.getMediaPackageId(), p, snapshot);
-              }
-            });
+        // Extract records and properties and link them together, keeping the order of the result.
+        final Map<Long, ARecordImpl> distinctRecords = new LinkedHashMap<>();
+        final Map<String, Set<Property>> propertiesPerMp = new HashMap<>();
+        for (final Tuple tuple : result) {
+          final ARecordImpl record = toARecord.apply(tuple);
+          if (!distinctRecords.containsKey(record.getSnapshotId())) {
+            distinctRecords.put(record.getSnapshotId(), record);
+          }
+          // make sure that no duplicate properties occur
+          for (final Property p : toProperty.apply(tuple)) {
+            final String mpId = p.getId().getMediaPackageId();
+            Set<Property> props = propertiesPerMp.get(mpId);
+            if (props == null) {
+              props = new HashSet<>();
+              propertiesPerMp.put(mpId, props);
+            }
+            props.add(p);
           }
-        });
+        }
+        for (final ARecordImpl record : distinctRecords.values()) {
+          final Set<Property> properties = propertiesPerMp.get(record.getMediaPackageId());
+          final Stream<Property> p = properties != null ? $(properties) : Stream.<Property>empty();
+          records.add(new ARecordImpl(record.getSnapshotId(), record.getMediaPackageId(), p,
+                  record.getSnapshot().orNull()));
+        }
       }
     }
     final long searchTime = (System.nanoTime() - startTime) / 1000000;
     logger.debug("Complete query ms " + searchTime);
-    return new AResultImpl(AbstractASelectQuery.<ARecord>vary(records), sizeOf(records), r.offset.getOr(0), r.limit.getOr(-1), searchTime);
+    return new AResultImpl($(records), records.size(), r.offset.getOr(0), r.limit.getOr(-1), searchTime);
   }
 
   /**
@@ -274,19 +255,21 @@ public abstract class AbstractASelectQuery implements ASelectQuery, SelectQueryC
     return new Fn<Tuple, ARecordImpl>() {
       @Override public ARecordImpl apply(Tuple tuple) {
         final String mediaPackageId;
-        SnapshotDto snapshotDto = null;
+        Snapshot snapshot = null;
         final long id;
         // Only fetch the snapshot if it is in the fetch list.
         if (c.fetch.exists(Booleans.<Expression<?>>eq(Q_SNAPSHOT))) {
-          snapshotDto = RequireUtil.notNull(tuple.get(Q_SNAPSHOT), "[BUG] snapshot table data");
+          final SnapshotDto snapshotDto = RequireUtil.notNull(tuple.get(Q_SNAPSHOT), "[BUG] snapshot table data");
           id = snapshotDto.getId();
           mediaPackageId = snapshotDto.getMediaPackageId();
+          // make sure the delivered media package has valid URIs
+          snapshot = snapshotDto.toSnapshot(am.getMediaPackageCache(), am.getHttpAssetProvider());
         } else {
           // The media package ID and the snapshot's database ID must always be fetched.
           id = RequireUtil.notNull(tuple.get(Q_SNAPSHOT.id), "[BUG] snapshot table id");
           mediaPackageId = RequireUtil.notNull(tuple.get(Q_SNAPSHOT.mediaPackageId), "[BUG] snapshot table media package id");
         }
-        return new ARecordImpl(id, mediaPackageId, Stream.<Property>empty(), snapshotDto);
+        return new ARecordImpl(id, mediaPackageId, Stream.<Property>empty(), snapshot);
       }
     };
   }
@@ -309,16 +292,4 @@ public abstract class AbstractASelectQuery implements ASelectQuery, SelectQueryC
 
     static final Stream<Expression<?>> fetch = Stream.<Expression<?>>mk(Q_SNAPSHOT.mediaPackageId, Q_SNAPSHOT.id);
   }
-
-  private static <A> Stream<A> vary(Stream<? extends A> a) {
-    return (Stream<A>) a;
-  }
-
-  private static <A> int sizeOf(Stream<A> stream) {
-    int count = 0;
-    for (A ignore : stream) {
-      count++;
-    }
-    return count;
-  }
 }
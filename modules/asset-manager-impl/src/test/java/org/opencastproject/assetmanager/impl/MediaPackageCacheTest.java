@@ -0,0 +1,49 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.assetmanager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageParser;
+
+import org.junit.Test;
+
+public class MediaPackageCacheTest {
+  @Test
+  public void testCachedByIdAndVersion() throws Exception {
+    final MediaPackage mp = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    final String xml = MediaPackageParser.getAsXml(mp);
+    final String id = mp.getIdentifier().toString();
+    final MediaPackageCache cache = new MediaPackageCache(10);
+    final MediaPackage decoded = cache.get(1L, id, VersionImpl.mk(0L), xml);
+    assertEquals(id, decoded.getIdentifier().toString());
+    assertSame(decoded, cache.get(1L, id, VersionImpl.mk(0L), xml));
+    assertEquals(0.5, cache.getHitRate(), 0.0);
+    // another version of the same media package
+    assertNotSame(decoded, cache.get(2L, id, VersionImpl.mk(1L), xml));
+    // the same version reused by a new snapshot after the media package has been deleted
+    assertNotSame(decoded, cache.get(3L, id, VersionImpl.mk(0L), xml));
+  }
+}
@@ -25,12 +25,12 @@ import static org.opencastproject.mediapackage.MediaPackageElements.XACML_POLICY
 import static org.opencastproject.mediapackage.MediaPackageElements.XACML_POLICY_SERIES;
 import static org.opencastproject.util.data.Tuple.tuple;
 
+import org.opencastproject.authorization.xacml.XACMLPolicyCache.CompiledAcl;
 import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageElementBuilderFactory;
 import org.opencastproject.mediapackage.MediaPackageElementFlavor;
 import org.opencastproject.mediapackage.MediaPackageException;
-import org.opencastproject.security.api.AccessControlEntry;
 import org.opencastproject.security.api.AccessControlList;
 import org.opencastproject.security.api.AclScope;
 import org.opencastproject.security.api.AuthorizationService;
@@ -53,8 +53,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Dictionary;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -82,6 +84,15 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
 
   private static final String CONFIG_MERGE_MODE = "merge.mode";
 
+  /** Configuration key for the maximum number of cached access control entries */
+  private static final String CONFIG_CACHE_SIZE = "cache.size";
+
+  /** Configuration key for the time in seconds for which policies without checksum are cached */
+  private static final String CONFIG_CACHE_TTL = "cache.ttl";
+
+  /** The cache of parsed policies and resolved access control lists */
+  private final XACMLPolicyCache cache = new XACMLPolicyCache();
+
   /** Definition of how merging of series and episode ACLs work */
   private static MergeMode mergeMode = MergeMode.OVERRIDE;
 
@@ -102,6 +113,8 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
   public synchronized void updated(Dictionary<String, ?> properties) {
     if (properties == null) {
       mergeMode = MergeMode.OVERRIDE;
+      cache.setMaxSize(XACMLPolicyCache.DEFAULT_MAX_SIZE);
+      cache.setTtl(XACMLPolicyCache.DEFAULT_TTL);
       logger.debug("Merge mode set to {}", mergeMode);
       return;
     }
@@ -114,6 +127,17 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
       mergeMode = MergeMode.OVERRIDE;
     }
     logger.debug("Merge mode set to {}", mergeMode);
+
+    final String cacheSize = StringUtils.trimToNull((String) properties.get(CONFIG_CACHE_SIZE));
+    final String cacheTtl = StringUtils.trimToNull((String) properties.get(CONFIG_CACHE_TTL));
+    try {
+      cache.setMaxSize(cacheSize == null ? XACMLPolicyCache.DEFAULT_MAX_SIZE : Integer.parseInt(cacheSize));
+      cache.setTtl(cacheTtl == null ? XACMLPolicyCache.DEFAULT_TTL : Long.parseLong(cacheTtl) * 1000L);
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid value set for ACL cache size or time to live, using defaults");
+      cache.setMaxSize(XACMLPolicyCache.DEFAULT_MAX_SIZE);
+      cache.setTtl(XACMLPolicyCache.DEFAULT_TTL);
+    }
   }
 
   @Override
@@ -134,25 +158,65 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
 
   @Override
   public Tuple<AccessControlList, AclScope> getAcl(final MediaPackage mp, final AclScope scope) {
-    Optional<AccessControlList> episode = Optional.empty();
-    Optional<AccessControlList> series = Optional.empty();
+    final CompiledAcl acl = resolveAcl(mp, scope);
+    return tuple(acl.getAcl(), acl.getScope());
+  }
+
+  /**
+   * Resolves the active access control list of a media package for a given scope, either from the cache or by loading
+   * and merging the attached policies.
+   */
+  private CompiledAcl resolveAcl(final MediaPackage mp, final AclScope scope) {
+    Attachment episodeXacml = null;
+    Attachment seriesXacml = null;
 
     // Start with the requested scope but fall back to the less specific scope if it does not exist.
     // The order is: episode -> series -> general (deprecated) -> global
     if (AclScope.Episode.equals(scope) || AclScope.Merged.equals(scope)) {
       for (Attachment xacml : mp.getAttachments(XACML_POLICY_EPISODE)) {
-        episode = loadAcl(xacml.getURI());
+        episodeXacml = xacml;
       }
     }
     if (Arrays.asList(AclScope.Episode, AclScope.Series, AclScope.Merged).contains(scope)) {
       for (Attachment xacml : mp.getAttachments(XACML_POLICY_SERIES)) {
-        series = loadAcl(xacml.getURI());
+        seriesXacml = xacml;
       }
     }
 
+    final MergeMode mode = mergeMode;
+    final String key = mode + "|" + toCacheKey(episodeXacml) + "|" + toCacheKey(seriesXacml);
+    CompiledAcl compiled = cache.get(key);
+    if (compiled != null) {
+      logger.debug("Using cached ACL for media package {}", mp.getIdentifier());
+      return compiled;
+    }
+
+    final Optional<AccessControlList> episode = loadAcl(episodeXacml);
+    final Optional<AccessControlList> series = loadAcl(seriesXacml);
+    final Tuple<AccessControlList, AclScope> acl = mergeAcl(mp, episode, series, mode);
+
+    // only cache the result if all attached policies could be loaded
+    final List<URI> sources = new ArrayList<>();
+    boolean verified = true;
+    for (Attachment xacml : Arrays.asList(episodeXacml, seriesXacml)) {
+      if (xacml != null) {
+        sources.add(xacml.getURI());
+        verified &= xacml.getChecksum() != null;
+      }
+    }
+    compiled = new CompiledAcl(acl.getA(), acl.getB(), sources, cache.expires(verified));
+    if ((episodeXacml == null || episode.isPresent()) && (seriesXacml == null || series.isPresent())) {
+      cache.put(key, compiled);
+    }
+    return compiled;
+  }
+
+  /** Merge the episode and series ACLs according to the given merge mode. */
+  private Tuple<AccessControlList, AclScope> mergeAcl(final MediaPackage mp, final Optional<AccessControlList> episode,
+          final Optional<AccessControlList> series, final MergeMode mode) {
     if (episode.isPresent() && series.isPresent()) {
       logger.debug("Found event and series ACL for media package {}", mp.getIdentifier());
-      switch (mergeMode) {
+      switch (mode) {
         case ACTIONS:
           logger.debug("Merging ACLs based on individual actions");
           return tuple(series.get().mergeActions(episode.get()), AclScope.Merged);
@@ -177,6 +241,14 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
     return tuple(new AccessControlList(), AclScope.Global);
   }
 
+  /** Get the key identifying the content of a XACML attachment in the cache. */
+  private static String toCacheKey(final Attachment xacml) {
+    if (xacml == null) {
+      return "";
+    }
+    return xacml.getURI() + "#" + (xacml.getChecksum() == null ? "" : xacml.getChecksum().toString());
+  }
+
   @Override
   public Tuple<MediaPackage, Attachment> setAcl(final MediaPackage mp, final AclScope scope, final AccessControlList acl)
           throws MediaPackageException {
@@ -199,6 +271,8 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
     } catch (IOException e) {
       throw new MediaPackageException("Error storing xacml for media package " + mp.getIdentifier());
     }
+    // the workspace may have overwritten an existing policy
+    cache.invalidate(uri);
 
     if (attachment == null) {
       attachment = (Attachment) MediaPackageElementBuilderFactory.newInstance().newElementBuilder()
@@ -256,6 +330,7 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
     Attachment attachment = null;
     for (Attachment a : mp.getAttachments(flavor)) {
       attachment = (Attachment) a.clone();
+      cache.invalidate(a.getURI());
       try {
         workspace.delete(a.getURI());
       } catch (Exception e) {
@@ -266,12 +341,22 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
     return Tuple.tuple(mp, attachment);
   }
 
-  /** Load an ACL from the given URI. */
-  private Optional<AccessControlList> loadAcl(final URI uri) {
+  /** Load the ACL of the given XACML attachment, using the cache of parsed policies if possible. */
+  private Optional<AccessControlList> loadAcl(final Attachment xacml) {
+    if (xacml == null) {
+      return Optional.empty();
+    }
+    final String key = toCacheKey(xacml);
+    final CompiledAcl cached = cache.get(key);
+    if (cached != null) {
+      return Optional.of(cached.getAcl());
+    }
+    final URI uri = xacml.getURI();
     logger.debug("Load Acl from {}", uri);
     try (InputStream is = workspace.read(uri)) {
       AccessControlList acl = XACMLUtils.parseXacml(is);
       if (acl != null) {
+        cache.put(key, new CompiledAcl(acl, null, Arrays.asList(uri), cache.expires(xacml.getChecksum() != null)));
         return Optional.of(acl);
       }
     } catch (NotFoundException e) {
@@ -284,25 +369,18 @@ public class XACMLAuthorizationService implements AuthorizationService, ManagedS
 
   @Override
   public boolean hasPermission(final MediaPackage mp, final String action) {
-    AccessControlList acl = getActiveAcl(mp).getA();
+    final CompiledAcl acl = resolveAcl(mp, AclScope.Episode);
     boolean allowed = false;
     final User user = securityService.getUser();
-    for (AccessControlEntry entry: acl.getEntries()) {
-      // ignore entries for other actions
-      if (!entry.getAction().equals(action)) {
-        continue;
-      }
-      for (Role role : user.getRoles()) {
-        if (entry.getRole().equals(role.getName())) {
-          // immediately abort on matching deny rules
-          // (never allow if a deny rule matches, even if another allow rule matches)
-          if (!entry.isAllow()) {
-            logger.debug("Access explicitly denied for role({}), action({})", role.getName(), action);
-            return false;
-          }
-          allowed = true;
-        }
+    for (Role role : user.getRoles()) {
+      final Boolean allow = acl.isAllowed(role.getName(), action);
+      // immediately abort on matching deny rules
+      // (never allow if a deny rule matches, even if another allow rule matches)
+      if (Boolean.FALSE.equals(allow)) {
+        logger.debug("Access explicitly denied for role({}), action({})", role.getName(), action);
+        return false;
       }
+      allowed |= Boolean.TRUE.equals(allow);
     }
     logger.debug("XACML file allowed access");
     return allowed;
@@ -0,0 +1,182 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.authorization.xacml;
+
+import org.opencastproject.security.api.AccessControlEntry;
+import org.opencastproject.security.api.AccessControlList;
+import org.opencastproject.security.api.AclScope;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches parsed XACML policies as well as the active access control lists resolved from them. Entries are weighted by
+ * the number of their access control entries and the least recently used entries are evicted once the total weight
+ * exceeds the maximum size. Entries of policies without a known checksum are only trusted for a limited time, since
+ * the file behind their URI may be replaced by another node.
+ */
+final class XACMLPolicyCache {
+
+  /** The default maximum number of cached access control entries */
+  static final int DEFAULT_MAX_SIZE = 10000;
+
+  /** The default time in milliseconds for which policies without checksum are cached */
+  static final long DEFAULT_TTL = 60000L;
+
+  /** A cached access control list along with its compiled permissions */
+  static final class CompiledAcl {
+    private final AccessControlList acl;
+    private final AclScope scope;
+    private final Set<URI> sources;
+    private final long expires;
+    /** Maps actions to roles to whether the role is allowed to perform the action */
+    private final Map<String, Map<String, Boolean>> permissions = new HashMap<>();
+
+    CompiledAcl(AccessControlList acl, AclScope scope, Collection<URI> sources, long expires) {
+      this.acl = new AccessControlList(acl.getEntries());
+      this.scope = scope;
+      this.sources = new HashSet<>(sources);
+      this.expires = expires;
+      for (AccessControlEntry entry : acl.getEntries()) {
+        Map<String, Boolean> roles = permissions.computeIfAbsent(entry.getAction(), action -> new HashMap<>());
+        // a matching deny rule always wins over allow rules
+        roles.merge(entry.getRole(), entry.isAllow(), Boolean::logicalAnd);
+      }
+    }
+
+    /** Returns a copy of the access control list which may safely be modified by the caller */
+    AccessControlList getAcl() {
+      return new AccessControlList(acl.getEntries());
+    }
+
+    AclScope getScope() {
+      return scope;
+    }
+
+    /**
+     * Looks up the rule for a role and an action.
+     *
+     * @return <code>true</code> if the role is allowed, <code>false</code> if it is denied and <code>null</code> if
+     *         there is no rule for the role and action
+     */
+    Boolean isAllowed(String role, String action) {
+      Map<String, Boolean> roles = permissions.get(action);
+      return roles == null ? null : roles.get(role);
+    }
+
+    int getWeight() {
+      return acl.getEntries().size() + 1;
+    }
+  }
+
+  private final Map<String, CompiledAcl> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private int weight = 0;
+  private volatile int maxSize = DEFAULT_MAX_SIZE;
+  private volatile long ttl = DEFAULT_TTL;
+
+  /**
+   * Sets the maximum number of cached access control entries, evicting entries if the cache is too big.
+   *
+   * @param maxSize
+   *          the maximum size, <code>0</code> to disable caching
+   */
+  synchronized void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    evict();
+  }
+
+  /**
+   * Sets the time for which policies without checksum are cached.
+   *
+   * @param ttl
+   *          the time in milliseconds
+   */
+  void setTtl(long ttl) {
+    this.ttl = ttl;
+  }
+
+  /**
+   * Returns the expiration date of an entry.
+   *
+   * @param verified
+   *          whether all policies the entry is based on have a known checksum
+   */
+  long expires(boolean verified) {
+    return verified ? Long.MAX_VALUE : System.currentTimeMillis() + ttl;
+  }
+
+  /** Returns a cached entry or <code>null</code> if there is none or it has expired. */
+  synchronized CompiledAcl get(String key) {
+    CompiledAcl entry = cache.get(key);
+    if (entry != null && entry.expires < System.currentTimeMillis()) {
+      remove(key);
+      return null;
+    }
+    return entry;
+  }
+
+  synchronized void put(String key, CompiledAcl entry) {
+    if (entry.getWeight() > maxSize)
+      return;
+    remove(key);
+    cache.put(key, entry);
+    weight += entry.getWeight();
+    evict();
+  }
+
+  /** Removes all entries based on the policy stored at the given URI. */
+  synchronized void invalidate(URI uri) {
+    Iterator<CompiledAcl> entries = cache.values().iterator();
+    while (entries.hasNext()) {
+      CompiledAcl entry = entries.next();
+      if (entry.sources.contains(uri)) {
+        weight -= entry.getWeight();
+        entries.remove();
+      }
+    }
+  }
+
+  synchronized int size() {
+    return cache.size();
+  }
+
+  private void remove(String key) {
+    CompiledAcl entry = cache.remove(key);
+    if (entry != null)
+      weight -= entry.getWeight();
+  }
+
+  private void evict() {
+    Iterator<CompiledAcl> entries = cache.values().iterator();
+    while (weight > maxSize && entries.hasNext()) {
+      weight -= entries.next().getWeight();
+      entries.remove();
+    }
+  }
+
+}
@@ -52,6 +52,7 @@ import java.net.URI;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.schlichtherle.io.FileOutputStream;
 
@@ -77,6 +78,9 @@ public class XACMLSecurityTest {
 
   protected XACMLAuthorizationService authzService = null;
 
+  /** The number of policies read from the workspace */
+  protected final AtomicInteger reads = new AtomicInteger();
+
   @Rule
   public TemporaryFolder testFolder = new TemporaryFolder();
 
@@ -91,11 +95,14 @@ public class XACMLSecurityTest {
 
     // Mock workspace
     Workspace workspace = EasyMock.createMock(Workspace.class);
+    final Capture<String> mpId = EasyMock.newCapture();
+    final Capture<String> elementId = EasyMock.newCapture();
     final Capture<InputStream> in = EasyMock.newCapture();
     final Capture<URI> uri = EasyMock.newCapture();
-    EasyMock.expect(workspace.put(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyString(),
+    EasyMock.expect(workspace.put(EasyMock.capture(mpId), EasyMock.capture(elementId), EasyMock.anyString(),
             EasyMock.capture(in))).andAnswer(() -> {
-        final File file = testFolder.newFile();
+        // like the workspace, always store an element at the same location
+        final File file = new File(testFolder.getRoot(), mpId.getValue() + "-" + elementId.getValue() + ".xml");
         FileOutputStream out = new FileOutputStream(file);
         IOUtils.copyLarge(in.getValue(), out);
         IOUtils.closeQuietly(out);
@@ -108,8 +115,10 @@ public class XACMLSecurityTest {
               FileUtils.copyFile(new File(uri.getValue()), dest);
               return dest;
             }).anyTimes();
-    EasyMock.expect(workspace.read(EasyMock.capture(uri))).andAnswer(
-            () -> new FileInputStream(uri.getValue().getPath())).anyTimes();
+    EasyMock.expect(workspace.read(EasyMock.capture(uri))).andAnswer(() -> {
+      reads.incrementAndGet();
+      return new FileInputStream(uri.getValue().getPath());
+    }).anyTimes();
     workspace.delete(EasyMock.anyObject(URI.class));
     EasyMock.expectLastCall().anyTimes();
     EasyMock.replay(securityService, workspace);
@@ -199,4 +208,32 @@ public class XACMLSecurityTest {
     Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
     Assert.assertFalse(authzService.hasPermission(mediapackage, "comment"));
   }
+
+  @Test
+  public void testAclCache() throws Exception {
+    MediaPackage mediapackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    currentRoles.clear();
+    currentRoles.add(new JaxbRole("student", organization, ""));
+
+    authzService.setAcl(mediapackage, AclScope.Series, new AccessControlList(
+            new AccessControlEntry("student", "read", true)));
+    Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertFalse(authzService.hasPermission(mediapackage, "write"));
+    Assert.assertEquals("Policy should be parsed only once", 1, reads.get());
+
+    // modifying a returned ACL must not affect the cached one
+    authzService.getActiveAcl(mediapackage).getA().getEntries().add(new AccessControlEntry("student", "write", true));
+    Assert.assertFalse(authzService.hasPermission(mediapackage, "write"));
+
+    // overwriting the policy needs to invalidate the cached ACL
+    authzService.setAcl(mediapackage, AclScope.Series, new AccessControlList(
+            new AccessControlEntry("student", "read", false)));
+    Assert.assertFalse(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertEquals(2, reads.get());
+
+    authzService.removeAcl(mediapackage, AclScope.Series);
+    Assert.assertFalse(authzService.hasPermission(mediapackage, "read"));
+    Assert.assertEquals(AclScope.Global, authzService.getActiveAcl(mediapackage).getB());
+  }
 }
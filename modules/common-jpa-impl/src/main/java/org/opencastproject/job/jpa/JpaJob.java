@@ -83,13 +83,21 @@ import javax.persistence.Version;
                 + "where j.status in :statuses order by j.dateCreated"),
         @NamedQuery(name = "Job.all", query = "SELECT j FROM Job j order by j.dateCreated"),
         @NamedQuery(name = "Job.dispatchable.status", query = "SELECT j FROM Job j where j.dispatchable = true and "
-                + "j.status in :statuses order by j.dateCreated"),
+                + "j.status in :statuses order by j.dateCreated, j.id"),
+        @NamedQuery(name = "Job.dispatchable.status.after", query = "SELECT j FROM Job j "
+                + "where j.dispatchable = true and j.status in :statuses and (j.dateCreated > :dateCreated or "
+                + "(j.dateCreated = :dateCreated and j.id > :id)) order by j.dateCreated, j.id"),
         @NamedQuery(name = "Job.dispatchable.status.idfilter", query = "SELECT j.id FROM Job j "
                 + "WHERE j.dispatchable = true AND j.status IN :statuses AND j.id IN :jobids ORDER BY j.dateCreated"),
         @NamedQuery(name = "Job.undispatchable.status", query = "SELECT j FROM Job j where j.dispatchable = false and "
                 + "j.status in :statuses order by j.dateCreated"),
         @NamedQuery(name = "Job.payload", query = "SELECT j.payload FROM Job j where j.operation = :operation "
-                + "order by j.dateCreated"),
+                + "order by j.dateCreated, j.id"),
+        @NamedQuery(name = "Job.payload.key", query = "SELECT j.id, j.dateCreated, j.payload FROM Job j "
+                + "where j.operation = :operation order by j.dateCreated, j.id"),
+        @NamedQuery(name = "Job.payload.key.after", query = "SELECT j.id, j.dateCreated, j.payload FROM Job j "
+                + "where j.operation = :operation and (j.dateCreated > :dateCreated or "
+                + "(j.dateCreated = :dateCreated and j.id > :id)) order by j.dateCreated, j.id"),
         @NamedQuery(name = "Job.processinghost.status", query = "SELECT j FROM Job j "
                 + "where j.status in :statuses and j.processorServiceRegistration is not null and "
                 + "j.processorServiceRegistration.serviceType = :serviceType and "
@@ -98,6 +106,10 @@ import javax.persistence.Version;
         @NamedQuery(name = "Job.children", query = "SELECT j FROM Job j WHERE j.parentJob.id = :id ORDER BY j.dateCreated"),
         @NamedQuery(name = "Job.withoutParent", query = "SELECT j FROM Job j WHERE j.parentJob IS NULL"),
         @NamedQuery(name = "Job.avgOperation", query = "SELECT j.operation, AVG(j.runTime), AVG(j.queueTime) FROM Job j GROUP BY j.operation"),
+        @NamedQuery(name = "Job.resourceUsage", query = "SELECT j.creatorServiceRegistration.serviceType, j.operation, "
+                + "SUM(j.cpuTime), SUM(j.runTime), MAX(j.peakMemory), COUNT(j) FROM Job j "
+                + "WHERE j.status = :status AND j.cpuTime IS NOT NULL AND j.runTime > 0 AND j.dateCompleted >= :since "
+                + "GROUP BY j.creatorServiceRegistration.serviceType, j.operation"),
 
         // Job count queries
         @NamedQuery(name = "Job.count", query = "SELECT COUNT(j) FROM Job j "
@@ -110,6 +122,8 @@ import javax.persistence.Version;
                 + "where j.status = :status and j.processorServiceRegistration is not null and "
                 + "j.processorServiceRegistration.serviceType = :serviceType and "
                 + "j.creatorServiceRegistration.hostRegistration.baseUrl = :host"),
+        @NamedQuery(name = "Job.countByOperationOnly", query = "SELECT COUNT(j) FROM Job j "
+                + "where j.operation = :operation"),
         @NamedQuery(name = "Job.countByOperation", query = "SELECT COUNT(j) FROM Job j "
                 + "where j.status = :status and j.operation = :operation and "
                 + "j.creatorServiceRegistration.serviceType = :serviceType"),
@@ -196,6 +210,12 @@ public class JpaJob {
   @Column(name = "job_load")
   private Float jobLoad;
 
+  @Column(name = "cpu_time")
+  private Long cpuTime;
+
+  @Column(name = "peak_memory")
+  private Long peakMemory;
+
   @ManyToOne
   @JoinColumn(name = "creator_service")
   private ServiceRegistrationJpaImpl creatorServiceRegistration;
@@ -274,13 +294,18 @@ public class JpaJob {
     newJob.creator = job.getCreator();
     newJob.organization = job.getOrganization();
     newJob.jobLoad = job.getJobLoad();
+    newJob.cpuTime = job.getCpuTime();
+    newJob.peakMemory = job.getPeakMemory();
     return newJob;
   }
 
   public Job toJob() {
-    return new JobImpl(id, creator, organization, version, jobType, operation, arguments, Status.values()[status],
-            createdHost, processingHost, dateCreated, dateStarted, dateCompleted, queueTime, runTime, payload,
-            parentJobId, rootJobId, dispatchable, uri, jobLoad);
+    final Job job = new JobImpl(id, creator, organization, version, jobType, operation, arguments,
+            Status.values()[status], createdHost, processingHost, dateCreated, dateStarted, dateCompleted, queueTime,
+            runTime, payload, parentJobId, rootJobId, dispatchable, uri, jobLoad);
+    job.setCpuTime(cpuTime);
+    job.setPeakMemory(peakMemory);
+    return job;
   }
 
   public static Fn<JpaJob, Job> fnToJob() {
@@ -367,6 +392,18 @@ public class JpaJob {
     this.runTime = runTime;
   }
 
+  public void setJobLoad(Float jobLoad) {
+    this.jobLoad = jobLoad;
+  }
+
+  public void setCpuTime(Long cpuTime) {
+    this.cpuTime = cpuTime;
+  }
+
+  public void setPeakMemory(Long peakMemory) {
+    this.peakMemory = peakMemory;
+  }
+
   public void setParentJob(JpaJob parentJob) {
     this.parentJob = parentJob;
     this.parentJobId = parentJob.id;
@@ -406,6 +443,14 @@ public class JpaJob {
     return jobLoad;
   }
 
+  public Long getCpuTime() {
+    return cpuTime;
+  }
+
+  public Long getPeakMemory() {
+    return peakMemory;
+  }
+
   public Status getStatus() {
     return Status.values()[status];
   }
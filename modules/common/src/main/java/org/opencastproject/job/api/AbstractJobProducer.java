@@ -310,12 +310,15 @@ public abstract class AbstractJobProducer implements JobProducer {
       final User user = getUserDirectoryService().loadUser(jobBeforeProcessing.getCreator());
       securityService.setUser(user);
 
+      final long start = JobLifecycleMetrics.start();
+      final JobResourceUsage usage = JobResourceUsage.start();
       try {
         final String payload = process(jobBeforeProcessing);
-        handleSuccessfulProcessing(payload);
+        handleSuccessfulProcessing(payload, usage.stop());
       } catch (Throwable t) {
-        handleFailedProcessing(t);
+        handleFailedProcessing(t, usage.stop());
       } finally {
+        JobLifecycleMetrics.stop(JobLifecycleMetrics.Phase.EXECUTION, start);
         serviceRegistry.setCurrentJob(null);
         securityService.setUser(null);
         securityService.setOrganization(null);
@@ -324,21 +327,23 @@ public abstract class AbstractJobProducer implements JobProducer {
       return null;
     }
 
-    private void handleSuccessfulProcessing(final String payload) throws Exception {
+    private void handleSuccessfulProcessing(final String payload, final JobResourceUsage usage) throws Exception {
       // The job may gets updated internally during processing. It therefore needs to be reload from the service
       // registry in order to prevent inconsistencies.
       final Job jobAfterProcessing = getServiceRegistry().getJob(jobId);
       jobAfterProcessing.setPayload(payload);
       jobAfterProcessing.setStatus(Status.FINISHED);
+      usage.applyTo(jobAfterProcessing);
       getServiceRegistry().updateJob(jobAfterProcessing);
     }
 
-    private void handleFailedProcessing(final Throwable t) throws Exception {
+    private void handleFailedProcessing(final Throwable t, final JobResourceUsage usage) throws Exception {
       if (t instanceof JobCanceledException) {
         logger.info(t.getMessage());
       } else {
         Job jobAfterProcessing = getServiceRegistry().getJob(jobId);
         jobAfterProcessing.setStatus(Status.FAILED);
+        usage.applyTo(jobAfterProcessing);
         jobAfterProcessing = getServiceRegistry().updateJob(jobAfterProcessing);
         getServiceRegistry().incident().unhandledException(jobAfterProcessing, Severity.FAILURE, t);
         logger.error("Error handling operation '{}': {}", jobAfterProcessing.getOperation(), getStackTrace(t));
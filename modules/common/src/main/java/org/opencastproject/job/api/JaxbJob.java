@@ -110,6 +110,12 @@ public class JaxbJob {
   @XmlElement(name = "jobLoad")
   private Float jobLoad;
 
+  @XmlElement
+  private Long cpuTime;
+
+  @XmlElement
+  private Long peakMemory;
+
   /** Default constructor needed by jaxb */
   public JaxbJob() {
   }
@@ -139,12 +145,17 @@ public class JaxbJob {
     this.creator = job.getCreator();
     this.organization = job.getOrganization();
     this.jobLoad = job.getJobLoad();
+    this.cpuTime = job.getCpuTime();
+    this.peakMemory = job.getPeakMemory();
   }
 
   public Job toJob() {
-    return new JobImpl(id, creator, organization, version, jobType, operation, arguments, status, createdHost,
-            processingHost, dateCreated, dateStarted, dateCompleted, queueTime, runTime, payload, parentJobId,
-            rootJobId, dispatchable, uri, jobLoad);
+    final Job job = new JobImpl(id, creator, organization, version, jobType, operation, arguments, status,
+            createdHost, processingHost, dateCreated, dateStarted, dateCompleted, queueTime, runTime, payload,
+            parentJobId, rootJobId, dispatchable, uri, jobLoad);
+    job.setCpuTime(cpuTime);
+    job.setPeakMemory(peakMemory);
+    return job;
   }
 
   public static Fn<JaxbJob, Job> fnToJob() {
@@ -185,6 +196,7 @@ public class JaxbJob {
             .append(parentJobId, jaxbJob.parentJobId).append(rootJobId, jaxbJob.rootJobId)
             .append(queueTime, jaxbJob.queueTime).append(runTime, jaxbJob.runTime)
             .append(payload, jaxbJob.payload).append(jobLoad, jaxbJob.jobLoad)
+            .append(cpuTime, jaxbJob.cpuTime).append(peakMemory, jaxbJob.peakMemory)
             .isEquals();
   }
 
@@ -194,6 +206,6 @@ public class JaxbJob {
             .append(uri).append(operation).append(arguments).append(createdHost).append(processingHost).append(status)
             .append(dateCreated).append(dateStarted).append(dateCompleted).append(parentJobId).append(rootJobId)
             .append(queueTime).append(runTime).append(payload).append(dispatchable).append(jobLoad)
-            .toHashCode();
+            .append(cpuTime).append(peakMemory).toHashCode();
   }
 }
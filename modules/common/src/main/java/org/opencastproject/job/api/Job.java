@@ -271,4 +271,25 @@ public interface Job {
 
   void setJobLoad(Float load);
 
+  /**
+   * The number of milliseconds of CPU time this job consumed, including the time of external processes like encoders
+   * reporting their usage. This value will be null if the job has not yet finished or its producer does not measure
+   * resource usage.
+   *
+   * @return the CPU time
+   */
+  Long getCpuTime();
+
+  void setCpuTime(Long cpuTime);
+
+  /**
+   * The peak resident memory in bytes of the external processes this job started. This value will be null if no such
+   * process reported its memory usage.
+   *
+   * @return the peak memory
+   */
+  Long getPeakMemory();
+
+  void setPeakMemory(Long peakMemory);
+
 }
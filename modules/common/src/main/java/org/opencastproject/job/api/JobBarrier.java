@@ -203,15 +203,20 @@ public final class JobBarrier {
   public Result waitForJobs(long timeout) throws JobCanceledException, IllegalStateException {
     if (jobs.size() == 0)
       return new Result(new HashMap<Job, Status>());
-    this.suspendWaiterJob();
-    synchronized (this) {
-      JobStatusUpdater updater = new JobStatusUpdater(timeout);
-      try {
-        updater.start();
-        wait();
-      } catch (InterruptedException e) {
-        logger.debug("Interrupted while waiting for job");
+    final long start = JobLifecycleMetrics.start();
+    try {
+      this.suspendWaiterJob();
+      synchronized (this) {
+        JobStatusUpdater updater = new JobStatusUpdater(timeout);
+        try {
+          updater.start();
+          wait();
+        } catch (InterruptedException e) {
+          logger.debug("Interrupted while waiting for job");
+        }
       }
+    } finally {
+      JobLifecycleMetrics.stop(JobLifecycleMetrics.Phase.CHILD_WAIT, start);
     }
     if (pollingException != null) {
       if (pollingException instanceof JobCanceledException)
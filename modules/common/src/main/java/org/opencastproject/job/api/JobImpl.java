@@ -56,6 +56,8 @@ public class JobImpl implements Job {
   private boolean dispatchable = true;
   private URI uri;
   private Float load = 1.0F;
+  private Long cpuTime = null;
+  private Long peakMemory = null;
 
   public JobImpl() { }
 
@@ -314,6 +316,26 @@ public class JobImpl implements Job {
     this.load = load;
   }
 
+  @Override
+  public Long getCpuTime() {
+    return cpuTime;
+  }
+
+  @Override
+  public void setCpuTime(Long cpuTime) {
+    this.cpuTime = cpuTime;
+  }
+
+  @Override
+  public Long getPeakMemory() {
+    return peakMemory;
+  }
+
+  @Override
+  public void setPeakMemory(Long peakMemory) {
+    this.peakMemory = peakMemory;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
@@ -332,7 +354,8 @@ public class JobImpl implements Job {
             .append(dateStarted, job.dateStarted).append(dateCompleted, job.dateCompleted)
             .append(queueTime, job.queueTime).append(runTime, job.runTime).append(payload, job.payload)
             .append(parentJobId, job.parentJobId).append(rootJobId, job.rootJobId)
-            .append(uri, job.uri).append(load, job.load).isEquals();
+            .append(uri, job.uri).append(load, job.load).append(cpuTime, job.cpuTime)
+            .append(peakMemory, job.peakMemory).isEquals();
   }
 
   @Override
@@ -341,7 +364,7 @@ public class JobImpl implements Job {
             .append(operation).append(arguments).append(status).append(failureReason).append(createdHost)
             .append(processingHost).append(dateCreated).append(dateStarted).append(dateCompleted).append(queueTime)
             .append(runTime).append(payload).append(parentJobId).append(rootJobId).append(dispatchable).append(uri)
-            .append(load).toHashCode();
+            .append(load).append(cpuTime).append(peakMemory).toHashCode();
   }
 
   @Override
@@ -0,0 +1,250 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.job.api;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the time jobs spend in the phases of their lifecycle on this node, from waiting in the queue to moving files
+ * through the workspace.
+ * <p>
+ * Recording a measurement only updates a few striped counters, so it is cheap enough to be done on every job and file
+ * transfer. The collected values can be read through JMX or in the Prometheus text format.
+ */
+public final class JobLifecycleMetrics implements JobLifecycleMetricsMXBean {
+
+  /** The phases of the job lifecycle */
+  public enum Phase {
+    /** Time between the creation of a job and the start of its execution */
+    QUEUE_WAIT,
+    /** Round trip of handing a job over to the service executing it */
+    DISPATCH,
+    /** Execution of a job by its job producer */
+    EXECUTION,
+    /** Time a job waits for the jobs it started */
+    CHILD_WAIT,
+    /** Retrieval of files by the workspace */
+    WORKSPACE_GET,
+    /** Storage of files by the workspace */
+    WORKSPACE_PUT;
+
+    /** @return the name of the phase as used in metric labels */
+    public String label() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /** The prefix of the exported metric names */
+  private static final String PREFIX = "opencast_job_phase";
+
+  /** The metrics of this node */
+  private static final JobLifecycleMetrics INSTANCE = new JobLifecycleMetrics();
+
+  private final LongAdder[] counts = new LongAdder[Phase.values().length];
+  private final LongAdder[] nanos = new LongAdder[Phase.values().length];
+  private final LongAdder[] bytes = new LongAdder[Phase.values().length];
+  private final LongAccumulator[] maxNanos = new LongAccumulator[Phase.values().length];
+
+  private JobLifecycleMetrics() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+      nanos[i] = new LongAdder();
+      bytes[i] = new LongAdder();
+      maxNanos[i] = new LongAccumulator(Math::max, 0L);
+    }
+  }
+
+  /**
+   * Returns the metrics of this node.
+   *
+   * @return the metrics
+   */
+  public static JobLifecycleMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts a measurement.
+   *
+   * @return the start time to pass to {@link #stop(Phase, long)}
+   */
+  public static long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records the time passed since the measurement has been started.
+   *
+   * @param phase
+   *          the phase
+   * @param start
+   *          the value returned by {@link #start()}
+   */
+  public static void stop(Phase phase, long start) {
+    record(phase, System.nanoTime() - start, 0L);
+  }
+
+  /**
+   * Records the time passed since the measurement has been started along with the number of bytes transferred.
+   *
+   * @param phase
+   *          the phase
+   * @param start
+   *          the value returned by {@link #start()}
+   * @param transferred
+   *          the number of bytes transferred
+   */
+  public static void stop(Phase phase, long start, long transferred) {
+    record(phase, System.nanoTime() - start, transferred);
+  }
+
+  /**
+   * Records a duration measured in milliseconds elsewhere, e.g. based on the dates of a job.
+   *
+   * @param phase
+   *          the phase
+   * @param millis
+   *          the duration in milliseconds
+   */
+  public static void recordMillis(Phase phase, long millis) {
+    record(phase, TimeUnit.MILLISECONDS.toNanos(millis), 0L);
+  }
+
+  private static void record(Phase phase, long duration, long transferred) {
+    final int i = phase.ordinal();
+    final long positive = Math.max(0L, duration);
+    INSTANCE.counts[i].increment();
+    INSTANCE.nanos[i].add(positive);
+    INSTANCE.maxNanos[i].accumulate(positive);
+    if (transferred > 0)
+      INSTANCE.bytes[i].add(transferred);
+  }
+
+  /**
+   * Returns the number of measurements of a phase.
+   *
+   * @param phase
+   *          the phase
+   * @return the number of measurements
+   */
+  public long getCount(Phase phase) {
+    return counts[phase.ordinal()].sum();
+  }
+
+  /**
+   * Returns the total time spent in a phase.
+   *
+   * @param phase
+   *          the phase
+   * @return the total time in nanoseconds
+   */
+  public long getTotalNanos(Phase phase) {
+    return nanos[phase.ordinal()].sum();
+  }
+
+  @Override
+  public Map<String, Long> getCounts() {
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      result.put(phase.label(), counts[phase.ordinal()].sum());
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> getTotalTimes() {
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      result.put(phase.label(), TimeUnit.NANOSECONDS.toMillis(nanos[phase.ordinal()].sum()));
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> getMaxTimes() {
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      result.put(phase.label(), TimeUnit.NANOSECONDS.toMillis(maxNanos[phase.ordinal()].get()));
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> getBytes() {
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      result.put(phase.label(), bytes[phase.ordinal()].sum());
+    }
+    return result;
+  }
+
+  @Override
+  public void reset() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i].reset();
+      nanos[i].reset();
+      bytes[i].reset();
+      maxNanos[i].reset();
+    }
+  }
+
+  /**
+   * Renders the metrics in the Prometheus text exposition format.
+   *
+   * @return the metrics
+   */
+  public String toPrometheus() {
+    StringBuilder sb = new StringBuilder();
+    append(sb, "_total", "counter", "Number of times jobs passed the phase", counts, 1.0);
+    append(sb, "_seconds_total", "counter", "Total time jobs spent in the phase", nanos, 1e9);
+    append(sb, "_bytes_total", "counter", "Bytes transferred in the phase", bytes, 1.0);
+    sb.append("# HELP ").append(PREFIX).append("_seconds_max Longest time a job spent in the phase\n");
+    sb.append("# TYPE ").append(PREFIX).append("_seconds_max gauge\n");
+    for (Phase phase : Phase.values()) {
+      sb.append(PREFIX).append("_seconds_max{phase=\"").append(phase.label()).append("\"} ")
+              .append(maxNanos[phase.ordinal()].get() / 1e9).append('\n');
+    }
+    return sb.toString();
+  }
+
+  private static void append(StringBuilder sb, String suffix, String type, String help, LongAdder[] values,
+          double divisor) {
+    final String name = PREFIX + suffix;
+    sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    for (Phase phase : Phase.values()) {
+      sb.append(name).append("{phase=\"").append(phase.label()).append("\"} ");
+      if (divisor == 1.0) {
+        sb.append(values[phase.ordinal()].sum());
+      } else {
+        sb.append(values[phase.ordinal()].sum() / divisor);
+      }
+      sb.append('\n');
+    }
+  }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.job.api;
+
+import java.util.Map;
+
+/**
+ * A JMX interface for the timings of the phases of the job lifecycle on this node.
+ */
+public interface JobLifecycleMetricsMXBean {
+
+  /**
+   * Gets the number of times each phase was passed.
+   *
+   * @return the number of measurements by phase
+   */
+  Map<String, Long> getCounts();
+
+  /**
+   * Gets the total time spent in each phase.
+   *
+   * @return the total time in milliseconds by phase
+   */
+  Map<String, Long> getTotalTimes();
+
+  /**
+   * Gets the longest time spent in each phase.
+   *
+   * @return the longest time in milliseconds by phase
+   */
+  Map<String, Long> getMaxTimes();
+
+  /**
+   * Gets the number of bytes transferred in each phase.
+   *
+   * @return the number of bytes by phase
+   */
+  Map<String, Long> getBytes();
+
+  /**
+   * Resets all timings.
+   */
+  void reset();
+
+}
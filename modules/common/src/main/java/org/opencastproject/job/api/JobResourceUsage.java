@@ -0,0 +1,179 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.job.api;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the resources a job consumes while it is being processed.
+ * <p>
+ * {@link AbstractJobProducer} starts a measurement on the thread processing a job and records the result with the job
+ * once it finished. The CPU time of that thread is measured automatically. Job producers delegating their work to
+ * external processes report the usage of those processes using {@link #addProcessCpuTime(long)} and
+ * {@link #updatePeakMemory(long)}, or {@link #recordFfmpegBenchmark(String)} for ffmpeg processes started with the
+ * <code>-benchmark</code> option.
+ */
+public final class JobResourceUsage {
+
+  /** The measurement of the job processed by the current thread */
+  private static final ThreadLocal<JobResourceUsage> current = new ThreadLocal<>();
+
+  /** The output of <code>ffmpeg -benchmark</code> reporting the consumed CPU time */
+  private static final Pattern FFMPEG_CPU_TIME = Pattern.compile("bench: utime=([0-9.]+)s stime=([0-9.]+)s");
+
+  /** The output of <code>ffmpeg -benchmark</code> reporting the peak resident memory */
+  private static final Pattern FFMPEG_MAX_RSS = Pattern.compile("bench: maxrss=([0-9]+)kB");
+
+  private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+  /** CPU time of the processing thread when the measurement started in nanoseconds, or -1 if unsupported */
+  private final long threadCpuTimeAtStart;
+
+  /** CPU time of external processes in milliseconds */
+  private final AtomicLong processCpuTime = new AtomicLong(0L);
+
+  /** Peak resident memory of external processes in bytes, or -1 if unknown */
+  private final AtomicLong peakMemory = new AtomicLong(-1L);
+
+  /** The measured CPU time in milliseconds, or null if the measurement has not been stopped yet */
+  private volatile Long cpuTime = null;
+
+  private JobResourceUsage() {
+    threadCpuTimeAtStart = currentThreadCpuTime();
+  }
+
+  /**
+   * Starts measuring the resources consumed by the current thread.
+   *
+   * @return the measurement
+   */
+  public static JobResourceUsage start() {
+    final JobResourceUsage usage = new JobResourceUsage();
+    current.set(usage);
+    return usage;
+  }
+
+  /**
+   * Adds the CPU time of an external process to the measurement of the current thread, if any.
+   *
+   * @param millis
+   *          the CPU time in milliseconds
+   */
+  public static void addProcessCpuTime(long millis) {
+    final JobResourceUsage usage = current.get();
+    if (usage != null && millis > 0) {
+      usage.processCpuTime.addAndGet(millis);
+    }
+  }
+
+  /**
+   * Reports the peak resident memory of an external process to the measurement of the current thread, if any.
+   *
+   * @param bytes
+   *          the peak memory in bytes
+   */
+  public static void updatePeakMemory(long bytes) {
+    final JobResourceUsage usage = current.get();
+    if (usage != null && bytes > 0) {
+      usage.peakMemory.accumulateAndGet(bytes, Math::max);
+    }
+  }
+
+  /**
+   * Records the resource usage reported by an ffmpeg process started with the <code>-benchmark</code> option.
+   *
+   * @param line
+   *          a line of the ffmpeg output
+   * @return whether the line reported the resource usage
+   */
+  public static boolean recordFfmpegBenchmark(String line) {
+    Matcher matcher = FFMPEG_CPU_TIME.matcher(line);
+    if (matcher.find()) {
+      double seconds = Double.parseDouble(matcher.group(1)) + Double.parseDouble(matcher.group(2));
+      addProcessCpuTime(Math.round(seconds * 1000));
+      return true;
+    }
+    matcher = FFMPEG_MAX_RSS.matcher(line);
+    if (matcher.find()) {
+      updatePeakMemory(Long.parseLong(matcher.group(1)) * 1024L);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Stops the measurement. This needs to be called by the thread that started it.
+   *
+   * @return the measurement
+   */
+  public JobResourceUsage stop() {
+    if (current.get() == this) {
+      current.remove();
+    }
+    if (cpuTime == null) {
+      final long threadCpuTimeAtEnd = currentThreadCpuTime();
+      long threadCpuTime = 0L;
+      if (threadCpuTimeAtStart >= 0 && threadCpuTimeAtEnd >= threadCpuTimeAtStart) {
+        threadCpuTime = (threadCpuTimeAtEnd - threadCpuTimeAtStart) / 1000000L;
+      }
+      cpuTime = threadCpuTime + processCpuTime.get();
+    }
+    return this;
+  }
+
+  /**
+   * Returns the consumed CPU time in milliseconds, or null if the measurement is still running.
+   */
+  public Long getCpuTime() {
+    return cpuTime;
+  }
+
+  /**
+   * Returns the peak resident memory of the external processes in bytes, or null if none reported it.
+   */
+  public Long getPeakMemory() {
+    final long peak = peakMemory.get();
+    return peak < 0 ? null : peak;
+  }
+
+  /**
+   * Records the measured values with the given job.
+   *
+   * @param job
+   *          the job
+   */
+  public void applyTo(Job job) {
+    job.setCpuTime(getCpuTime());
+    job.setPeakMemory(getPeakMemory());
+  }
+
+  private static long currentThreadCpuTime() {
+    if (!threadMXBean.isCurrentThreadCpuTimeSupported())
+      return -1L;
+    return threadMXBean.getCurrentThreadCpuTime();
+  }
+
+}
@@ -27,7 +27,6 @@ import org.opencastproject.mediapackage.identifier.Id;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -36,7 +35,9 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
@@ -51,6 +52,15 @@ public class MediaPackageBuilderImpl implements MediaPackageBuilder {
   /** The logging instance */
   private static final Logger logger = LoggerFactory.getLogger(MediaPackageBuilderImpl.class);
 
+  /** Factory for the StAX readers used to rewrite urls while reading manifests */
+  private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+  static {
+    xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
   /** The media package serializer */
   protected MediaPackageSerializer serializer = null;
 
@@ -104,12 +114,21 @@ public class MediaPackageBuilderImpl implements MediaPackageBuilder {
   public MediaPackage loadFromXml(InputStream is) throws MediaPackageException {
     if (serializer != null) {
       // FIXME This code runs if *any* serializer is present, regardless of the serializer implementation
+      XMLStreamReader reader = null;
       try {
-        Document xml = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(is);
-        rewriteUrls(xml, serializer);
-        return MediaPackageImpl.valueOf(xml);
+        reader = new UrlDecodingStreamReader(xmlInputFactory.createXMLStreamReader(is), serializer);
+        return MediaPackageImpl.valueOf(reader);
       } catch (Exception e) {
         throw new MediaPackageException("Error deserializing paths in media package", e);
+      } finally {
+        if (reader != null) {
+          try {
+            reader.close();
+          } catch (XMLStreamException e) {
+            logger.debug("Unable to close media package reader", e);
+          }
+        }
+        IOUtils.closeQuietly(is);
       }
     } else {
       return MediaPackageImpl.valueOf(is);
@@ -31,6 +31,7 @@ import org.opencastproject.mediapackage.identifier.IdBuilder;
 import org.opencastproject.mediapackage.identifier.UUIDIdBuilderImpl;
 import org.opencastproject.util.DateTimeSupport;
 import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.jaxb.JaxbPool;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -65,6 +66,7 @@ import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
@@ -93,6 +95,9 @@ public final class MediaPackageImpl implements MediaPackage {
   /** Context for serializing and deserializing */
   static final JAXBContext context;
 
+  /** Pooled marshallers and unmarshallers of {@link #context} */
+  static final JaxbPool jaxbPool;
+
   /** List of observers */
   private final List<MediaPackageObserver> observers = new ArrayList<MediaPackageObserver>();
 
@@ -156,6 +161,7 @@ public final class MediaPackageImpl implements MediaPackage {
   static {
     try {
       context = JAXBContext.newInstance("org.opencastproject.mediapackage", MediaPackageImpl.class.getClassLoader());
+      jaxbPool = JaxbPool.forContext(context);
     } catch (JAXBException e) {
       throw new RuntimeException(e);
     }
@@ -1512,16 +1518,38 @@ public final class MediaPackageImpl implements MediaPackage {
    * @return the deserialized media package
    */
   public static MediaPackageImpl valueOf(InputStream xml) throws MediaPackageException {
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = context.createUnmarshaller();
+      unmarshaller = jaxbPool.acquireUnmarshaller();
       return unmarshaller.unmarshal(new StreamSource(xml), MediaPackageImpl.class).getValue();
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
     } finally {
+      jaxbPool.release(unmarshaller);
       IoSupport.closeQuietly(xml);
     }
   }
 
+  /**
+   * Reads the media package from a StAX reader positioned on the <code>mediapackage</code> element. When this method
+   * returns, the reader is positioned on the event following the matching end element. The reader is not closed.
+   *
+   * @param xml
+   *          the reader
+   * @return the deserialized media package
+   */
+  public static MediaPackageImpl valueOf(XMLStreamReader xml) throws MediaPackageException {
+    Unmarshaller unmarshaller = null;
+    try {
+      unmarshaller = jaxbPool.acquireUnmarshaller();
+      return unmarshaller.unmarshal(xml, MediaPackageImpl.class).getValue();
+    } catch (JAXBException e) {
+      throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      jaxbPool.release(unmarshaller);
+    }
+  }
+
   /**
    * Reads the media package from an xml node.
    *
@@ -1532,8 +1560,9 @@ public final class MediaPackageImpl implements MediaPackage {
   public static MediaPackageImpl valueOf(Node xml) throws MediaPackageException {
     InputStream in = null;
     ByteArrayOutputStream out = null;
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = context.createUnmarshaller();
+      unmarshaller = jaxbPool.acquireUnmarshaller();
 
       // Serialize the media package
       DOMSource domSource = new DOMSource(xml);
@@ -1547,6 +1576,7 @@ public final class MediaPackageImpl implements MediaPackage {
     } catch (Exception e) {
       throw new MediaPackageException("Error deserializing media package node", e);
     } finally {
+      jaxbPool.release(unmarshaller);
       IoSupport.closeQuietly(in);
       IoSupport.closeQuietly(out);
     }
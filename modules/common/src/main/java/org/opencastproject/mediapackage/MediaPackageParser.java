@@ -41,10 +41,10 @@ import java.util.List;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
 /**
@@ -69,14 +69,16 @@ public final class MediaPackageParser {
   public static String getAsXml(MediaPackage mediaPackage) {
     if (mediaPackage == null)
       throw new IllegalArgumentException("Mediapackage must not be null");
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
-      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+      marshaller = MediaPackageImpl.jaxbPool.acquireMarshaller();
       StringWriter writer = new StringWriter();
       marshaller.marshal(mediaPackage, writer);
       return writer.toString();
     } catch (JAXBException e) {
       throw new IllegalStateException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.jaxbPool.release(marshaller);
     }
   }
 
@@ -91,8 +93,9 @@ public final class MediaPackageParser {
     if (mediaPackage == null) {
       throw new IllegalArgumentException("Mediapackage must not be null");
     }
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
+      marshaller = MediaPackageImpl.jaxbPool.acquireMarshaller();
 
       Configuration config = new Configuration();
       config.setSupressAtAttributes(true);
@@ -122,18 +125,23 @@ public final class MediaPackageParser {
       return writer.toString();
     } catch (JAXBException e) {
       throw new IllegalStateException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.jaxbPool.release(marshaller);
     }
   }
 
   /** Serializes a media package to a {@link Document} without any further processing. */
   public static Document getAsXmlDocument(MediaPackage mp) {
+    Marshaller marshaller = null;
     try {
-      final Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
+      marshaller = MediaPackageImpl.jaxbPool.acquireMarshaller();
       final Document doc = newDocument();
       marshaller.marshal(mp, doc);
       return doc;
     } catch (JAXBException e) {
       return chuck(e);
+    } finally {
+      MediaPackageImpl.jaxbPool.release(marshaller);
     }
   }
 
@@ -148,6 +156,33 @@ public final class MediaPackageParser {
     }
   }
 
+  /**
+   * Serializes the media package to a StAX writer without building an intermediate string or DOM. Only the
+   * <code>mediapackage</code> element is written, so this may be used to embed a media package into a larger document.
+   * The writer is neither flushed nor closed.
+   *
+   * @param mediaPackage
+   *          the media package
+   * @param writer
+   *          the StAX writer
+   * @throws MediaPackageException
+   *           if serializing fails
+   */
+  public static void getAsXml(MediaPackage mediaPackage, XMLStreamWriter writer) throws MediaPackageException {
+    if (mediaPackage == null)
+      throw new IllegalArgumentException("Mediapackage must not be null");
+    Marshaller marshaller = null;
+    try {
+      marshaller = MediaPackageImpl.jaxbPool.acquireMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+      marshaller.marshal(mediaPackage, writer);
+    } catch (JAXBException e) {
+      throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.jaxbPool.release(marshaller);
+    }
+  }
+
   /**
    * Serializes the media package to a {@link org.w3c.dom.Document}.
    * <p>
@@ -165,17 +200,7 @@ public final class MediaPackageParser {
    */
   public static Document getAsXml(MediaPackage mediaPackage, MediaPackageSerializer serializer)
           throws MediaPackageException {
-    DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-    docBuilderFactory.setNamespaceAware(true);
-
-    DocumentBuilder docBuilder = null;
-    try {
-      docBuilder = docBuilderFactory.newDocumentBuilder();
-    } catch (ParserConfigurationException e1) {
-      throw new MediaPackageException(e1);
-    }
-
-    Document doc = docBuilder.newDocument();
+    Document doc = newDocument();
 
     // Root element "mediapackage"
     Element mpXml = doc.createElement("mediapackage");
@@ -268,6 +293,20 @@ public final class MediaPackageParser {
     return builder.loadFromXml(xml);
   }
 
+  /**
+   * Parses the media package from a StAX reader positioned on the <code>mediapackage</code> element without building
+   * a DOM. The reader is left positioned after the media package and is not closed.
+   *
+   * @param reader
+   *          the StAX reader
+   * @return the media package instance
+   * @throws MediaPackageException
+   *           if de-serializing the media package fails
+   */
+  public static MediaPackage getFromXml(XMLStreamReader reader) throws MediaPackageException {
+    return MediaPackageImpl.valueOf(reader);
+  }
+
   /**
    * Writes an xml representation of this MediaPackage to a stream.
    *
@@ -281,12 +320,15 @@ public final class MediaPackageParser {
    *           if serializing or reading from a serialized media package fails
    */
   public static void getAsXml(MediaPackage mediaPackage, OutputStream out, boolean format) throws MediaPackageException {
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
+      marshaller = MediaPackageImpl.jaxbPool.acquireMarshaller();
       marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, format);
       marshaller.marshal(mediaPackage, out);
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.jaxbPool.release(marshaller);
     }
   }
 
@@ -0,0 +1,159 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.mediapackage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+/**
+ * StAX reader that passes the text of every <code>url</code> element through
+ * {@link MediaPackageSerializer#decodeURI(URI)} while the document is being read. This allows a media package to be
+ * unmarshalled with a serializer without parsing it into a DOM first.
+ * <p>
+ * The underlying reader has to be created with {@link javax.xml.stream.XMLInputFactory#IS_COALESCING} enabled so that
+ * the content of an element is reported as a single text event.
+ */
+final class UrlDecodingStreamReader extends StreamReaderDelegate {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(UrlDecodingStreamReader.class);
+
+  /** The serializer used to decode the urls */
+  private final MediaPackageSerializer serializer;
+
+  /** Whether the current event is the first text inside of a <code>url</code> element */
+  private boolean inUrl = false;
+
+  /** The decoded text of the current event or <code>null</code> if the event has not been rewritten */
+  private char[] decoded = null;
+
+  UrlDecodingStreamReader(XMLStreamReader reader, MediaPackageSerializer serializer) {
+    super(reader);
+    this.serializer = serializer;
+  }
+
+  @Override
+  public int next() throws XMLStreamException {
+    final int event = super.next();
+    decoded = null;
+    switch (event) {
+      case START_ELEMENT:
+        inUrl = "url".equals(super.getLocalName());
+        break;
+      case CHARACTERS:
+      case CDATA:
+        if (inUrl) {
+          decoded = decode(super.getText()).toCharArray();
+          inUrl = false;
+        }
+        break;
+      case END_ELEMENT:
+        inUrl = false;
+        break;
+      default:
+        break;
+    }
+    return event;
+  }
+
+  @Override
+  public int nextTag() throws XMLStreamException {
+    int event = next();
+    while ((event == CHARACTERS && isWhiteSpace()) || (event == CDATA && isWhiteSpace()) || event == SPACE
+            || event == PROCESSING_INSTRUCTION || event == COMMENT) {
+      event = next();
+    }
+    if (event != START_ELEMENT && event != END_ELEMENT)
+      throw new XMLStreamException("Expected start or end tag", getLocation());
+    return event;
+  }
+
+  @Override
+  public String getElementText() throws XMLStreamException {
+    if (getEventType() != START_ELEMENT)
+      throw new XMLStreamException("Not positioned on a start element", getLocation());
+    final StringBuilder text = new StringBuilder();
+    int event = next();
+    while (event != END_ELEMENT) {
+      if (event == CHARACTERS || event == CDATA || event == SPACE || event == ENTITY_REFERENCE) {
+        text.append(getText());
+      } else if (event == START_ELEMENT) {
+        throw new XMLStreamException("Element text must not contain child elements", getLocation());
+      } else if (event == END_DOCUMENT) {
+        throw new XMLStreamException("Unexpected end of document", getLocation());
+      }
+      event = next();
+    }
+    return text.toString();
+  }
+
+  @Override
+  public String getText() {
+    return decoded != null ? new String(decoded) : super.getText();
+  }
+
+  @Override
+  public char[] getTextCharacters() {
+    return decoded != null ? decoded : super.getTextCharacters();
+  }
+
+  @Override
+  public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length)
+          throws XMLStreamException {
+    if (decoded == null)
+      return super.getTextCharacters(sourceStart, target, targetStart, length);
+    final int copied = Math.max(0, Math.min(length, decoded.length - sourceStart));
+    System.arraycopy(decoded, sourceStart, target, targetStart, copied);
+    return copied;
+  }
+
+  @Override
+  public int getTextStart() {
+    return decoded != null ? 0 : super.getTextStart();
+  }
+
+  @Override
+  public int getTextLength() {
+    return decoded != null ? decoded.length : super.getTextLength();
+  }
+
+  /** Decode a url read from the manifest. */
+  private String decode(String url) throws XMLStreamException {
+    final String trimmed = url.trim();
+    // Warn the user if trimming is necessary as this means that the URI was technically invalid.
+    if (!trimmed.equals(url)) {
+      logger.warn("Detected invalid URI. Trying to fix it by removing spaces from beginning/end.");
+    }
+    try {
+      return serializer.decodeURI(new URI(trimmed)).toString();
+    } catch (URISyntaxException e) {
+      throw new XMLStreamException("Invalid url in media package: " + url, e);
+    }
+  }
+}
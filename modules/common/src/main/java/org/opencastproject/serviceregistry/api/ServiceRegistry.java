@@ -503,6 +503,36 @@ public interface ServiceRegistry {
    */
   List<String> getJobPayloads(String operation) throws ServiceRegistryException;
 
+  /**
+   * Return a page of the jobs of a specified operation type together with their payloads. Jobs are ordered by their
+   * creation date and identifier, and each page continues after the last job of the previous one, so this can be used
+   * to walk through the payloads without loading all of them at once and without the pages getting slower to load the
+   * further the walk has come. Only the identifier, the creation date, the operation and the payload of the returned
+   * jobs are set.
+   *
+   * @param operation
+   *          Operation type to get payload for
+   * @param limit
+   *          The maximum number of jobs to return
+   * @param after
+   *          The last job of the previous page or <code>null</code> to get the first page
+   * @return Jobs with their serialized workflows
+   * @throws ServiceRegistryException
+   *          if there is a problem accessing the service registry
+   */
+  List<Job> getJobPayloads(String operation, int limit, Job after) throws ServiceRegistryException;
+
+  /**
+   * Return the number of jobs for a specified operation type.
+   *
+   * @param operation
+   *          Operation type to count jobs for
+   * @return Number of jobs
+   * @throws ServiceRegistryException
+   *          if there is a problem accessing the service registry
+   */
+  int getJobCount(String operation) throws ServiceRegistryException;
+
   /**
    * Get the list of active jobs.
    *
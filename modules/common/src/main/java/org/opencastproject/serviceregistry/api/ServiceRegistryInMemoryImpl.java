@@ -725,6 +725,30 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
     return result;
   }
 
+  @Override
+  public List<Job> getJobPayloads(String operation, int limit, Job after) throws ServiceRegistryException {
+    Comparator<Job> order = Comparator.comparing(Job::getDateCreated, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingLong(Job::getId);
+    List<Job> result = new ArrayList<>();
+    for (String serializedJob : jobs.values()) {
+      try {
+        Job job = JobParser.parseJob(serializedJob);
+        if (operation.equals(job.getOperation()) && (after == null || order.compare(job, after) > 0)) {
+          result.add(job);
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Error unmarshaling job", e);
+      }
+    }
+    result.sort(order);
+    return new ArrayList<>(result.subList(0, Math.min(result.size(), limit)));
+  }
+
+  @Override
+  public int getJobCount(String operation) throws ServiceRegistryException {
+    return getJobPayloads(operation).size();
+  }
+
   /**
    * {@inheritDoc}
    *
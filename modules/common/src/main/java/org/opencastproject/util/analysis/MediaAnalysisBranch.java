@@ -0,0 +1,164 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util.analysis;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One branch of a {@link MediaAnalysisPipeline}: an FFmpeg filter chain applied to the audio or video stream of a
+ * media file, whose result is either the log output of the filter or an image file.
+ */
+public final class MediaAnalysisBranch {
+
+  /** The input stream of a branch */
+  public enum Input {
+    AUDIO, VIDEO
+  }
+
+  private final Input input;
+  private final String filter;
+  private final String logPrefix;
+  private final String outputExtension;
+  private final List<String> outputOptions;
+  private final String key;
+
+  private MediaAnalysisBranch(Input input, String filter, String logPrefix, String outputExtension,
+          List<String> outputOptions) {
+    this.input = input;
+    this.filter = filter;
+    this.logPrefix = logPrefix;
+    this.outputExtension = outputExtension;
+    this.outputOptions = outputOptions;
+    this.key = createKey();
+  }
+
+  /**
+   * Creates a branch whose result is the FFmpeg log output of its filters.
+   *
+   * @param input
+   *          the input stream
+   * @param filter
+   *          the filter chain, e.g. <code>silencedetect=noise=-40dB:duration=5</code>
+   * @param logPrefix
+   *          the prefix of the log lines written by the filter chain, e.g. <code>[silencedetect</code>
+   * @return the branch
+   */
+  public static MediaAnalysisBranch log(Input input, String filter, String logPrefix) {
+    return new MediaAnalysisBranch(input, filter, logPrefix, null, Collections.<String> emptyList());
+  }
+
+  /**
+   * Creates a branch whose result is an image file written by FFmpeg.
+   *
+   * @param input
+   *          the input stream
+   * @param filter
+   *          the filter chain, which needs to produce a video stream
+   * @param outputExtension
+   *          the file extension of the image including the dot, e.g. <code>.png</code>
+   * @param outputOptions
+   *          FFmpeg options applied to the output file, e.g. <code>-frames:v 1</code>
+   * @return the branch
+   */
+  public static MediaAnalysisBranch image(Input input, String filter, String outputExtension,
+          String... outputOptions) {
+    return new MediaAnalysisBranch(input, filter, null, outputExtension, Arrays.asList(outputOptions));
+  }
+
+  public Input getInput() {
+    return input;
+  }
+
+  public String getFilter() {
+    return filter;
+  }
+
+  /**
+   * @return the prefix of the log lines belonging to this branch or <code>null</code> if this is an image branch
+   */
+  public String getLogPrefix() {
+    return logPrefix;
+  }
+
+  /**
+   * @return the extension of the image file or <code>null</code> if this is a log branch
+   */
+  public String getOutputExtension() {
+    return outputExtension;
+  }
+
+  public List<String> getOutputOptions() {
+    return outputOptions;
+  }
+
+  /**
+   * @return whether the result of this branch is an image file
+   */
+  public boolean isImage() {
+    return outputExtension != null;
+  }
+
+  /**
+   * Returns a key identifying the branch. Branches with the same input, filters and outputs share the same key and
+   * therefore the same cached result.
+   *
+   * @return the key
+   */
+  public String getKey() {
+    return key;
+  }
+
+  private String createKey() {
+    String definition = input + "\n" + filter + "\n" + logPrefix + "\n" + outputExtension + "\n" + outputOptions;
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(definition.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(String.format("%02x", b));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof MediaAnalysisBranch && key.equals(((MediaAnalysisBranch) o).key);
+  }
+
+  @Override
+  public int hashCode() {
+    return key.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "[" + input + "]" + filter;
+  }
+
+}
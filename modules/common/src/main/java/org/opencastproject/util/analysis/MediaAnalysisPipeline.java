@@ -0,0 +1,351 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util.analysis;
+
+import org.opencastproject.util.IoSupport;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs several FFmpeg based media analyses on a media file with a single decode.
+ * <p>
+ * Each analysis is described by a {@link MediaAnalysisBranch}. All branches are combined into one FFmpeg filter graph,
+ * splitting the audio and video streams with <code>asplit</code> and <code>split</code>, so the media file is decoded
+ * only once no matter how many analyses are run. The log results are cached in memory and bound to the path, size and
+ * modification date of the file. Image results are written to the file given by the caller and are not cached.
+ * <p>
+ * Services may share log branches whose parameters only depend on their configuration (see
+ * {@link #share(String, MediaAnalysisBranch)}). Whenever a service analyzes a media file, all shared branches that have
+ * not been computed for that file yet are run along with the requested branch, so that the services owning them find
+ * their results in the cache later on instead of decoding the file again.
+ */
+public final class MediaAnalysisPipeline {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(MediaAnalysisPipeline.class);
+
+  /** The maximum number of log lines held by the result cache */
+  static final int CACHE_MAX_LINES = 200000;
+
+  /** The shared branches by name */
+  private static final Map<String, MediaAnalysisBranch> sharedBranches = new ConcurrentHashMap<>();
+
+  /** The cached log results in access order */
+  private static final Map<String, List<String>> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** The number of log lines held by the result cache */
+  private static int cachedLines = 0;
+
+  private MediaAnalysisPipeline() {
+  }
+
+  /**
+   * Shares a branch so that it is run along with the analyses requested by other services.
+   *
+   * @param name
+   *          the name of the branch, usually the name of the service owning it
+   * @param branch
+   *          the log branch, replacing a branch previously shared under the same name
+   * @throws IllegalArgumentException
+   *           if the branch writes an image
+   */
+  public static void share(String name, MediaAnalysisBranch branch) {
+    if (branch.isImage())
+      throw new IllegalArgumentException("Image branches cannot be shared: " + branch);
+    sharedBranches.put(name, branch);
+  }
+
+  /**
+   * Stops sharing a branch.
+   *
+   * @param name
+   *          the name of the branch
+   */
+  public static void unshare(String name) {
+    sharedBranches.remove(name);
+  }
+
+  /**
+   * Returns the cached result of a log branch for a media file.
+   *
+   * @param media
+   *          the media file
+   * @param branch
+   *          the branch
+   * @return the result or <code>null</code> if there is no up to date result
+   */
+  public static MediaAnalysisResult getCachedResult(File media, MediaAnalysisBranch branch) {
+    if (branch.isImage())
+      return null;
+    List<String> log;
+    synchronized (cache) {
+      log = cache.get(getCacheKey(media, branch));
+    }
+    return log == null ? null : new MediaAnalysisResult(log, null);
+  }
+
+  /**
+   * Stores the result of a log branch in the cache, evicting the least recently used results if the cache holds more
+   * than {@link #CACHE_MAX_LINES} log lines.
+   */
+  static void putCachedResult(File media, MediaAnalysisBranch branch, List<String> log) {
+    synchronized (cache) {
+      List<String> previous = cache.put(getCacheKey(media, branch), log);
+      cachedLines += log.size() - (previous == null ? 0 : previous.size());
+      Iterator<List<String>> eldest = cache.values().iterator();
+      while (cachedLines > CACHE_MAX_LINES && eldest.hasNext()) {
+        cachedLines -= eldest.next().size();
+        eldest.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns the result of a log branch for a media file, either from the cache or by running FFmpeg. In the latter
+   * case, all shared branches applicable to the file whose results are not cached yet are run in the same FFmpeg
+   * process.
+   *
+   * @param binary
+   *          the FFmpeg binary
+   * @param media
+   *          the media file
+   * @param hasAudio
+   *          whether the media file has an audio stream
+   * @param hasVideo
+   *          whether the media file has a video stream
+   * @param branch
+   *          the requested log branch
+   * @return the result of the requested branch
+   * @throws IOException
+   *           if FFmpeg fails
+   */
+  public static MediaAnalysisResult analyze(String binary, File media, boolean hasAudio, boolean hasVideo,
+          MediaAnalysisBranch branch) throws IOException {
+    return analyze(binary, media, hasAudio, hasVideo, branch, null);
+  }
+
+  /**
+   * Returns the result of a branch for a media file, either from the cache or by running FFmpeg. In the latter case,
+   * all shared branches applicable to the file whose results are not cached yet are run in the same FFmpeg process.
+   *
+   * @param binary
+   *          the FFmpeg binary
+   * @param media
+   *          the media file
+   * @param hasAudio
+   *          whether the media file has an audio stream
+   * @param hasVideo
+   *          whether the media file has a video stream
+   * @param branch
+   *          the requested branch
+   * @param output
+   *          the image file to write if the requested branch is an image branch
+   * @return the result of the requested branch
+   * @throws IOException
+   *           if FFmpeg fails
+   */
+  public static MediaAnalysisResult analyze(String binary, File media, boolean hasAudio, boolean hasVideo,
+          MediaAnalysisBranch branch, File output) throws IOException {
+    if (branch.isImage() && output == null)
+      throw new IllegalArgumentException("No output file given for " + branch);
+
+    MediaAnalysisResult result = getCachedResult(media, branch);
+    if (result != null) {
+      logger.info("Using cached result of {} for {}", branch, media);
+      return result;
+    }
+
+    List<MediaAnalysisBranch> branches = new ArrayList<>();
+    branches.add(branch);
+    for (MediaAnalysisBranch shared : sharedBranches.values()) {
+      boolean available = shared.getInput() == MediaAnalysisBranch.Input.AUDIO ? hasAudio : hasVideo;
+      if (available && !branches.contains(shared) && !hasLogPrefix(branches, shared.getLogPrefix())
+              && getCachedResult(media, shared) == null)
+        branches.add(shared);
+    }
+
+    if (branches.size() > 1) {
+      try {
+        return run(binary, media, branches, output);
+      } catch (IOException e) {
+        logger.warn("Unable to run shared analyses on {}, running {} only: {}", media, branch, e.getMessage());
+      }
+    }
+    return run(binary, media, Collections.singletonList(branch), output);
+  }
+
+  /**
+   * Creates the FFmpeg filter graph for the given branches. Each branch output is labeled <code>out</code> followed by
+   * the index of the branch.
+   *
+   * @param branches
+   *          the branches
+   * @return the filter graph
+   */
+  static String createFilterGraph(List<MediaAnalysisBranch> branches) {
+    List<Integer> audio = new ArrayList<>();
+    List<Integer> video = new ArrayList<>();
+    for (int i = 0; i < branches.size(); i++) {
+      if (branches.get(i).getInput() == MediaAnalysisBranch.Input.AUDIO)
+        audio.add(i);
+      else
+        video.add(i);
+    }
+    List<String> chains = new ArrayList<>();
+    appendChains(chains, branches, audio, "0:a", "asplit", "a");
+    appendChains(chains, branches, video, "0:v", "split", "v");
+    return StringUtils.join(chains, ";");
+  }
+
+  private static void appendChains(List<String> chains, List<MediaAnalysisBranch> branches, List<Integer> indexes,
+          String input, String split, String prefix) {
+    if (indexes.size() == 1) {
+      int i = indexes.get(0);
+      chains.add("[" + input + "]" + branches.get(i).getFilter() + "[out" + i + "]");
+    } else if (indexes.size() > 1) {
+      StringBuilder splitChain = new StringBuilder("[" + input + "]" + split + "=" + indexes.size());
+      for (int i : indexes) {
+        splitChain.append("[").append(prefix).append(i).append("]");
+      }
+      chains.add(splitChain.toString());
+      for (int i : indexes) {
+        chains.add("[" + prefix + i + "]" + branches.get(i).getFilter() + "[out" + i + "]");
+      }
+    }
+  }
+
+  private static boolean hasLogPrefix(List<MediaAnalysisBranch> branches, String logPrefix) {
+    if (logPrefix == null)
+      return false;
+    for (MediaAnalysisBranch branch : branches) {
+      if (logPrefix.equals(branch.getLogPrefix()))
+        return true;
+    }
+    return false;
+  }
+
+  private static String getCacheKey(File media, MediaAnalysisBranch branch) {
+    return media.getAbsolutePath() + "\n" + media.length() + ":" + media.lastModified() + "\n" + branch.getKey();
+  }
+
+  /**
+   * Runs the branches in one FFmpeg process, caches the results of the log branches and returns the result of the
+   * first branch. Only the first branch may be an image branch, which is written to the given output file.
+   */
+  private static MediaAnalysisResult run(String binary, File media, List<MediaAnalysisBranch> branches, File output)
+          throws IOException {
+    // Bind the results to the file as it was before decoding it
+    String cacheKey = getCacheKey(media, branches.get(0));
+
+    List<String> command = new ArrayList<>(Arrays.asList(binary, "-nostats", "-nostdin", "-i",
+            media.getAbsolutePath(), "-filter_complex", createFilterGraph(branches)));
+    Map<MediaAnalysisBranch, List<String>> logs = new HashMap<>();
+    for (int i = 0; i < branches.size(); i++) {
+      MediaAnalysisBranch branch = branches.get(i);
+      if (branch.isImage()) {
+        command.add("-map");
+        command.add("[out" + i + "]");
+        command.addAll(branch.getOutputOptions());
+        command.add(output.getAbsolutePath());
+      } else {
+        logs.put(branch, new ArrayList<String>());
+      }
+    }
+    if (!logs.isEmpty()) {
+      for (int i = 0; i < branches.size(); i++) {
+        if (!branches.get(i).isImage()) {
+          command.add("-map");
+          command.add("[out" + i + "]");
+        }
+      }
+      command.addAll(Arrays.asList("-f", "null", "-"));
+    }
+
+    logger.info("Analyzing {} with {} branches using command: {}", media, branches.size(),
+            StringUtils.join(command, " "));
+
+    ProcessBuilder pb = new ProcessBuilder(command);
+    pb.redirectErrorStream(true);
+    Process process = null;
+    BufferedReader reader = null;
+    int exitCode = 1;
+    try {
+      process = pb.start();
+      reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+      String line = reader.readLine();
+      while (line != null) {
+        for (Map.Entry<MediaAnalysisBranch, List<String>> log : logs.entrySet()) {
+          if (line.startsWith(log.getKey().getLogPrefix()))
+            log.getValue().add(line);
+        }
+        line = reader.readLine();
+      }
+      exitCode = process.waitFor();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Analysis of " + media + " has been interrupted", e);
+    } finally {
+      IoSupport.closeQuietly(process);
+      IoSupport.closeQuietly(reader);
+      if (exitCode != 0 && output != null)
+        FileUtils.deleteQuietly(output);
+    }
+
+    if (exitCode != 0)
+      throw new IOException("FFmpeg exited abnormally with exit code " + exitCode);
+
+    boolean modified = !cacheKey.equals(getCacheKey(media, branches.get(0)));
+    MediaAnalysisResult first = null;
+    for (MediaAnalysisBranch branch : branches) {
+      MediaAnalysisResult result;
+      if (branch.isImage()) {
+        result = new MediaAnalysisResult(Collections.<String> emptyList(), output);
+      } else {
+        if (!modified)
+          putCachedResult(media, branch, logs.get(branch));
+        result = new MediaAnalysisResult(logs.get(branch), null);
+      }
+      if (first == null)
+        first = result;
+    }
+    return first;
+  }
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util.analysis;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of one {@link MediaAnalysisBranch}.
+ */
+public final class MediaAnalysisResult {
+
+  private final List<String> log;
+  private final File output;
+
+  MediaAnalysisResult(List<String> log, File output) {
+    this.log = Collections.unmodifiableList(log);
+    this.output = output;
+  }
+
+  /**
+   * @return the log lines written by the filters of the branch
+   */
+  public List<String> getLog() {
+    return log;
+  }
+
+  /**
+   * @return the image file written by the branch or <code>null</code> if the branch does not write an image
+   */
+  public File getOutput() {
+    return output;
+  }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util.jaxb;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Keeps a bounded number of idle {@link Marshaller}s and {@link Unmarshaller}s for a given {@link JAXBContext}.
+ * <p>
+ * Creating marshallers is expensive while they are not thread safe, so instead of creating a new one for every call,
+ * callers borrow one with {@link #acquireMarshaller()} and hand it back with {@link #release(Marshaller)} in a
+ * <code>finally</code> block. A nested acquisition on the same thread (e.g. from within an adapter) simply gets another
+ * instance, so the pool is safe to use reentrantly.
+ * <p>
+ * There is one pool per context, see {@link #forContext(JAXBContext)}. Since pooled instances reference the classes of
+ * the bundle that created the context, bundles have to call {@link #clear(JAXBContext)} when they are stopped so that
+ * the pool does not keep their class loader alive across a bundle refresh.
+ */
+public final class JaxbPool {
+
+  /** The maximum number of idle marshallers and unmarshallers kept per context */
+  private static final int MAX_IDLE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+  /** The pools by context */
+  private static final ConcurrentMap<JAXBContext, JaxbPool> pools = new ConcurrentHashMap<>();
+
+  private final JAXBContext ctx;
+
+  private final BlockingQueue<Marshaller> marshallers = new LinkedBlockingQueue<>(MAX_IDLE);
+
+  private final BlockingQueue<Unmarshaller> unmarshallers = new LinkedBlockingQueue<>(MAX_IDLE);
+
+  /** Whether the pool has been cleared, in which case released instances are no longer kept */
+  private volatile boolean cleared = false;
+
+  private JaxbPool(JAXBContext ctx) {
+    this.ctx = ctx;
+  }
+
+  /**
+   * Get the pool of a context, creating it if necessary.
+   *
+   * @param ctx
+   *          the context to create marshallers and unmarshallers from
+   */
+  public static JaxbPool forContext(JAXBContext ctx) {
+    return pools.computeIfAbsent(ctx, JaxbPool::new);
+  }
+
+  /**
+   * Drop the pool of a context together with all of its idle marshallers and unmarshallers. Instances that are
+   * currently borrowed are discarded when they are released.
+   *
+   * @param ctx
+   *          the context whose pool to drop
+   */
+  public static void clear(JAXBContext ctx) {
+    final JaxbPool pool = pools.remove(ctx);
+    if (pool != null) {
+      pool.cleared = true;
+      pool.marshallers.clear();
+      pool.unmarshallers.clear();
+    }
+  }
+
+  public JAXBContext getCtx() {
+    return ctx;
+  }
+
+  /**
+   * Borrow a marshaller. It is configured with the JAXB defaults, i.e. unformatted and not as a fragment.
+   */
+  public Marshaller acquireMarshaller() throws JAXBException {
+    final Marshaller marshaller = marshallers.poll();
+    return marshaller != null ? marshaller : ctx.createMarshaller();
+  }
+
+  /** Hand a marshaller obtained from {@link #acquireMarshaller()} back to the pool. */
+  public void release(Marshaller marshaller) {
+    if (marshaller == null || cleared)
+      return;
+    try {
+      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+      marshaller.setProperty(Marshaller.JAXB_FRAGMENT, false);
+      marshaller.setEventHandler(null);
+      marshaller.setSchema(null);
+      marshaller.setListener(null);
+    } catch (JAXBException e) {
+      // Don't pool a marshaller we can't reset
+      return;
+    }
+    marshallers.offer(marshaller);
+  }
+
+  /** Borrow an unmarshaller. It has neither an event handler nor a schema set. */
+  public Unmarshaller acquireUnmarshaller() throws JAXBException {
+    final Unmarshaller unmarshaller = unmarshallers.poll();
+    return unmarshaller != null ? unmarshaller : ctx.createUnmarshaller();
+  }
+
+  /** Hand an unmarshaller obtained from {@link #acquireUnmarshaller()} back to the pool. */
+  public void release(Unmarshaller unmarshaller) {
+    if (unmarshaller == null || cleared)
+      return;
+    try {
+      unmarshaller.setEventHandler(null);
+      unmarshaller.setSchema(null);
+      unmarshaller.setListener(null);
+    } catch (JAXBException e) {
+      // Don't pool an unmarshaller we can't reset
+      return;
+    }
+    unmarshallers.offer(unmarshaller);
+  }
+}
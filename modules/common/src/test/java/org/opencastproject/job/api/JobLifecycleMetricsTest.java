@@ -0,0 +1,72 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.job.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.job.api.JobLifecycleMetrics.Phase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JobLifecycleMetricsTest {
+
+  private JobLifecycleMetrics metrics = JobLifecycleMetrics.getInstance();
+
+  @Before
+  public void setUp() {
+    metrics.reset();
+  }
+
+  @Test
+  public void testRecord() {
+    JobLifecycleMetrics.recordMillis(Phase.QUEUE_WAIT, 1500);
+    JobLifecycleMetrics.recordMillis(Phase.QUEUE_WAIT, 500);
+    JobLifecycleMetrics.stop(Phase.WORKSPACE_GET, JobLifecycleMetrics.start(), 1024);
+
+    assertEquals(2, metrics.getCount(Phase.QUEUE_WAIT));
+    assertEquals(Long.valueOf(2000), metrics.getTotalTimes().get("queue_wait"));
+    assertEquals(Long.valueOf(1500), metrics.getMaxTimes().get("queue_wait"));
+    assertEquals(1, metrics.getCount(Phase.WORKSPACE_GET));
+    assertEquals(Long.valueOf(1024), metrics.getBytes().get("workspace_get"));
+    assertEquals(0, metrics.getCount(Phase.EXECUTION));
+  }
+
+  @Test
+  public void testNegativeDurations() {
+    JobLifecycleMetrics.recordMillis(Phase.DISPATCH, -10);
+    assertEquals(1, metrics.getCount(Phase.DISPATCH));
+    assertEquals(0, metrics.getTotalNanos(Phase.DISPATCH));
+  }
+
+  @Test
+  public void testPrometheus() {
+    JobLifecycleMetrics.recordMillis(Phase.EXECUTION, 2500);
+    String text = metrics.toPrometheus();
+    assertTrue(text.contains("# TYPE opencast_job_phase_seconds_total counter\n"));
+    assertTrue(text.contains("opencast_job_phase_total{phase=\"execution\"} 1\n"));
+    assertTrue(text.contains("opencast_job_phase_seconds_total{phase=\"execution\"} 2.5\n"));
+    assertTrue(text.contains("opencast_job_phase_seconds_max{phase=\"execution\"} 2.5\n"));
+    assertTrue(text.contains("opencast_job_phase_total{phase=\"child_wait\"} 0\n"));
+  }
+
+}
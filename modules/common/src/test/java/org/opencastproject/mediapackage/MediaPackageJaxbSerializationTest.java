@@ -36,9 +36,16 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.URI;
 import java.net.URL;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
 public class MediaPackageJaxbSerializationTest {
 
   @Test
@@ -161,4 +168,52 @@ public class MediaPackageJaxbSerializationTest {
     assertEquals(title, unmarshalled.getTitle());
     assertEquals("s1", unmarshalled.getSeriesTitle());
   }
+
+  @Test
+  public void testStaxRoundTrip() throws Exception {
+    MediaPackageBuilder builder = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder();
+    MediaPackage original = builder.loadFromXml(getClass().getResourceAsStream("/manifest.xml"));
+
+    // Embed the media package into a surrounding document
+    StringWriter out = new StringWriter();
+    XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+    writer.writeStartDocument();
+    writer.writeStartElement("wrapper");
+    MediaPackageParser.getAsXml(original, writer);
+    writer.writeEndElement();
+    writer.writeEndDocument();
+    writer.close();
+
+    XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(out.toString()));
+    reader.nextTag();
+    assertEquals("wrapper", reader.getLocalName());
+    reader.nextTag();
+    MediaPackage deserialized = MediaPackageParser.getFromXml(reader);
+    reader.close();
+
+    assertEquals(original.getIdentifier(), deserialized.getIdentifier());
+    assertEquals(original.getTitle(), deserialized.getTitle());
+    assertEquals(2, deserialized.getTracks().length);
+    assertEquals(3, deserialized.getCatalogs().length);
+    assertEquals(2, deserialized.getAttachments().length);
+    assertEquals(MediaPackageParser.getAsXml(original), MediaPackageParser.getAsXml(deserialized));
+  }
+
+  @Test
+  public void testSerializerDecodesUrlsWhileStreaming() throws Exception {
+    URL rootUrl = getClass().getResource("/");
+    MediaPackageBuilder builder = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder();
+    builder.setSerializer(new DefaultMediaPackageSerializerImpl(rootUrl));
+    MediaPackage mp = builder.loadFromXml(getClass().getResourceAsStream("/manifest.xml"));
+    for (Track track : mp.getTracks()) {
+      assertTrue(track.getURI().toString().startsWith(rootUrl.toString()));
+    }
+    for (Catalog catalog : mp.getCatalogs()) {
+      assertTrue(catalog.getURI().toString().startsWith(rootUrl.toString()));
+    }
+    assertTrue(mp.getTrack("track-1").getURI().toString().endsWith("/tracks/vonly.mov"));
+    // Absolute urls must be left untouched
+    assertEquals("http://engage.opencast.org/engage/ui/player.html?id=597d0b42-5af6-450e-ac0b-c2cb619fc2be",
+            mp.getPublications()[0].getURI().toString());
+  }
 }
@@ -0,0 +1,112 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.util.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Test class for {@link MediaAnalysisPipeline}
+ */
+public class MediaAnalysisPipelineTest {
+
+  private final MediaAnalysisBranch silence = MediaAnalysisBranch.log(MediaAnalysisBranch.Input.AUDIO,
+          "silencedetect=noise=-40dB:duration=5", "[silencedetect ");
+  private final MediaAnalysisBranch scenes = MediaAnalysisBranch.log(MediaAnalysisBranch.Input.VIDEO,
+          "select=gte(scene\\,0),metadata=print:key=lavfi.scene_score", "[Parsed_metadata");
+  private final MediaAnalysisBranch previews = MediaAnalysisBranch.image(MediaAnalysisBranch.Input.VIDEO,
+          "fps=1/10,scale=160:-1,tile=10x1", ".png");
+
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
+  @Test
+  public void testFilterGraphOfSingleBranch() {
+    assertEquals("[0:a]silencedetect=noise=-40dB:duration=5[out0]",
+            MediaAnalysisPipeline.createFilterGraph(Collections.singletonList(silence)));
+  }
+
+  @Test
+  public void testFilterGraphSplitsStreams() {
+    assertEquals("[0:a]silencedetect=noise=-40dB:duration=5[out1];[0:v]split=2[v0][v2];"
+            + "[v0]select=gte(scene\\,0),metadata=print:key=lavfi.scene_score[out0];"
+            + "[v2]fps=1/10,scale=160:-1,tile=10x1[out2]",
+            MediaAnalysisPipeline.createFilterGraph(Arrays.asList(scenes, silence, previews)));
+  }
+
+  @Test
+  public void testBranchKey() {
+    assertEquals(silence.getKey(), MediaAnalysisBranch.log(MediaAnalysisBranch.Input.AUDIO,
+            "silencedetect=noise=-40dB:duration=5", "[silencedetect ").getKey());
+    assertNotEquals(silence.getKey(), MediaAnalysisBranch.log(MediaAnalysisBranch.Input.AUDIO,
+            "silencedetect=noise=-30dB:duration=5", "[silencedetect ").getKey());
+  }
+
+  @Test
+  public void testCachedResult() throws Exception {
+    File media = testFolder.newFile("media.mp4");
+    assertNull(MediaAnalysisPipeline.getCachedResult(media, silence));
+
+    MediaAnalysisPipeline.putCachedResult(media, silence, Arrays.asList("[silencedetect @ 0x0] silence_start: 0"));
+    assertEquals(Arrays.asList("[silencedetect @ 0x0] silence_start: 0"),
+            MediaAnalysisPipeline.getCachedResult(media, silence).getLog());
+    assertNull(MediaAnalysisPipeline.getCachedResult(media, scenes));
+
+    // The cached result is bound to the size of the file
+    FileUtils.writeStringToFile(media, "modified", "UTF-8");
+    assertNull(MediaAnalysisPipeline.getCachedResult(media, silence));
+  }
+
+  @Test
+  public void testCacheEviction() throws Exception {
+    File first = testFolder.newFile("first.mp4");
+    File second = testFolder.newFile("second.mp4");
+    MediaAnalysisPipeline.putCachedResult(first, silence, Collections.nCopies(MediaAnalysisPipeline.CACHE_MAX_LINES / 2,
+            "[silencedetect"));
+    MediaAnalysisPipeline.putCachedResult(second, silence, Collections.nCopies(MediaAnalysisPipeline.CACHE_MAX_LINES / 2,
+            "[silencedetect"));
+    assertNotNull(MediaAnalysisPipeline.getCachedResult(first, silence));
+
+    // The least recently used result is evicted
+    MediaAnalysisPipeline.putCachedResult(second, scenes, Collections.singletonList("[Parsed_metadata"));
+    assertNotNull(MediaAnalysisPipeline.getCachedResult(first, silence));
+    assertNull(MediaAnalysisPipeline.getCachedResult(second, silence));
+    assertNotNull(MediaAnalysisPipeline.getCachedResult(second, scenes));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testShareImageBranch() {
+    MediaAnalysisPipeline.share("previews", previews);
+  }
+
+}
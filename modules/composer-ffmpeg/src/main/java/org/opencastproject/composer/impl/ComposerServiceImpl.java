@@ -73,6 +73,7 @@ import org.opencastproject.util.UnknownFileTypeException;
 import org.opencastproject.util.data.Collections;
 import org.opencastproject.util.data.Option;
 import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
 import com.google.gson.Gson;
@@ -80,6 +81,7 @@ import com.google.gson.Gson;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.osgi.service.cm.ConfigurationException;
@@ -112,6 +114,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import javax.management.ObjectInstance;
 
 /** FFMPEG based implementation of the composer service api. */
 public class ComposerServiceImpl extends AbstractJobProducer implements ComposerService, ManagedService {
@@ -160,6 +166,9 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   /** Configuration for the FFmpeg binary */
   private static final String CONFIG_FFMPEG_PATH = "org.opencastproject.composer.ffmpeg.path";
 
+  /** The bundle context property holding the local storage directory */
+  private static final String STORAGE_DIR_KEY = "org.opencastproject.storage.dir";
+
   /** The collection name */
   private static final String COLLECTION = "composer";
 
@@ -184,6 +193,30 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   public static final String JOB_LOAD_MAX_MULTIPLE_PROFILES = "job.load.max.multiple.profiles";
   public static final String JOB_LOAD_FACTOR_PROCESS_SMIL = "job.load.factor.process.smil";
 
+  /** Configuration key for enabling the cache of encoding results */
+  public static final String ENCODE_CACHE_ENABLED = "encode.cache.enabled";
+  /** Configuration key for the directory holding the cached encoding results */
+  public static final String ENCODE_CACHE_DIRECTORY = "encode.cache.directory";
+  /** Configuration key for the maximum size of the encode cache in megabytes */
+  public static final String ENCODE_CACHE_MAX_SIZE = "encode.cache.max.size";
+
+  /** The default encode cache directory, relative to the storage directory */
+  public static final String DEFAULT_ENCODE_CACHE_DIRECTORY = "composer-cache";
+  /** The default maximum size of the encode cache in megabytes */
+  public static final long DEFAULT_ENCODE_CACHE_MAX_SIZE = 10240L;
+
+  /** Configuration key for the encoding profiles whose encodings may be split into segments encoded in parallel */
+  public static final String ENCODE_SEGMENTED_PROFILES = "encode.segmented.profiles";
+  /** Configuration key for the minimum duration in seconds of tracks whose encoding is split into segments */
+  public static final String ENCODE_SEGMENTED_MIN_DURATION = "encode.segmented.min.duration";
+  /** Configuration key for the targeted duration in seconds of the segments */
+  public static final String ENCODE_SEGMENTED_SEGMENT_DURATION = "encode.segmented.segment.duration";
+
+  /** The default minimum duration in seconds of tracks whose encoding is split into segments */
+  public static final long DEFAULT_ENCODE_SEGMENTED_MIN_DURATION = 1800L;
+  /** The default targeted duration in seconds of the segments */
+  public static final long DEFAULT_ENCODE_SEGMENTED_SEGMENT_DURATION = 300L;
+
   private float maxMultipleProfilesJobLoad = DEFAULT_JOB_LOAD_MAX_MULTIPLE_PROFILES;
   private float processSmilJobLoadFactor = DEFAULT_PROCESS_SMIL_JOB_LOAD_FACTOR;
   private float multiEncodeJobLoadFactor = DEFAULT_MULTI_ENCODE_JOB_LOAD_FACTOR;
@@ -193,7 +226,8 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
 
   /** List of available operations on jobs */
   enum Operation {
-    Encode, Image, ImageConversion, Mux, Trim, Composite, Concat, ImageToVideo, ParallelEncode, Demux, ProcessSmil, MultiEncode
+    Encode, Image, ImageConversion, Mux, Trim, Composite, Concat, ImageToVideo, ParallelEncode, Demux, ProcessSmil, MultiEncode,
+    EncodeSegment
   }
 
   /** tracked encoder engines */
@@ -229,6 +263,24 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   /** Path to the FFmpeg binary */
   private String ffmpegBinary = FFMPEG_BINARY_DEFAULT;
 
+  /** The local storage directory */
+  private String storageDir = null;
+
+  /** The cache of encoding results, or <code>null</code> if caching is disabled */
+  private volatile EncodeCache encodeCache = null;
+
+  /** The JMX registration of the encode cache */
+  private ObjectInstance encodeCacheMXBean = null;
+
+  /** The encoding profiles whose encodings may be split into segments encoded in parallel */
+  private Set<String> segmentedProfiles = new HashSet<>();
+
+  /** The minimum duration of tracks whose encoding is split into segments, in milliseconds */
+  private long segmentedMinDuration = DEFAULT_ENCODE_SEGMENTED_MIN_DURATION * 1000L;
+
+  /** The targeted duration of the segments, in milliseconds */
+  private long segmentDuration = DEFAULT_ENCODE_SEGMENTED_SEGMENT_DURATION * 1000L;
+
   /** Creates a new composer service instance. */
   public ComposerServiceImpl() {
     super(JOB_TYPE);
@@ -246,6 +298,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     ffmpegBinary = StringUtils.defaultString(cc.getBundleContext().getProperty(CONFIG_FFMPEG_PATH),
             FFMPEG_BINARY_DEFAULT);
     logger.debug("ffmpeg binary: {}", ffmpegBinary);
+    storageDir = StringUtils.trimToNull(cc.getBundleContext().getProperty(STORAGE_DIR_KEY));
     logger.info("Activating composer service");
   }
 
@@ -258,6 +311,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       engine.close();
     }
     logger.debug("Closed encoder engine factory");
+    disableEncodeCache();
   }
 
   /**
@@ -348,12 +402,6 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
 
     final String targetTrackId = idBuilder.createNew().toString();
 
-    Map<String, File> files = new HashMap<>();
-    // Get the tracks and make sure they exist
-    for (Entry<String, Track> track: tracks.entrySet()) {
-      files.put(track.getKey(), loadTrackIntoWorkspace(job, track.getKey(), track.getValue(), false));
-    }
-
     // Get the encoding profile
     final EncodingProfile profile = getProfile(job, profileId);
 
@@ -363,11 +411,31 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
     logger.info("Encoding {} into {} using profile {}", StringUtils.join(trackMsg, ", "), targetTrackId, profileId);
 
+    // Return the result of an identical encoding if it has been cached
+    final EncodeCache cache = encodeCache;
+    final String cacheKey = cacheKey(cache, Operation.Encode, tracks, java.util.Collections.singletonList(profile));
+    final Option<List<Track>> cached = fromCache(job, cache, cacheKey, "encoded file");
+    if (cached.isSome()) {
+      Track cachedTrack = cached.get().get(0);
+      cachedTrack.setIdentifier(targetTrackId);
+      return some(cachedTrack);
+    }
+
+    Map<String, File> files = new HashMap<>();
+    // Get the tracks and make sure they exist
+    for (Entry<String, Track> track: tracks.entrySet()) {
+      files.put(track.getKey(), loadTrackIntoWorkspace(job, track.getKey(), track.getValue(), false));
+    }
+
     // Do the work
     final EncoderEngine encoder = getEncoderEngine();
     List<File> output;
     try {
-      output = encoder.process(files, profile, null);
+      if (isSegmentable(tracks, profile)) {
+        output = java.util.Collections.singletonList(segmentedEncode(job, encoder, files.get("video"), profile));
+      } else {
+        output = encoder.process(files, profile, null);
+      }
     } catch (EncoderException e) {
       Map<String, String> params = new HashMap<>();
       for (Entry<String, Track> track: tracks.entrySet()) {
@@ -393,15 +461,177 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
 
     // Put the file in the workspace
+    final String outputName = output.get(0).getName();
     URI workspaceURI = putToCollection(job, output.get(0), "encoded file");
 
     // Have the encoded track inspected and return the result
     Track inspectedTrack = inspect(job, workspaceURI);
+    toCache(cache, cacheKey, java.util.Collections.singletonList(outputName),
+            java.util.Collections.singletonList(inspectedTrack));
     inspectedTrack.setIdentifier(targetTrackId);
 
     return some(inspectedTrack);
   }
 
+  /**
+   * Checks whether an encoding is to be split into segments which are encoded in parallel.
+   *
+   * @param tracks
+   *          the tracks to encode
+   * @param profile
+   *          the encoding profile
+   * @return whether to split the encoding
+   */
+  private boolean isSegmentable(Map<String, Track> tracks, EncodingProfile profile) {
+    if (!segmentedProfiles.contains(profile.getIdentifier()) || tracks.size() != 1 || !tracks.containsKey("video"))
+      return false;
+    final Long duration = tracks.get("video").getDuration();
+    return duration != null && duration >= segmentedMinDuration && duration > segmentDuration;
+  }
+
+  /**
+   * Splits the source at keyframes into segments, has the segments encoded by child jobs which may run on any node of
+   * the cluster and losslessly concatenates the encoded segments.
+   *
+   * @param job
+   *          the job in which context the encoding is done
+   * @param encoder
+   *          the encoder engine to split and concatenate with
+   * @param source
+   *          the file to encode
+   * @param profile
+   *          the encoding profile
+   * @return the encoded file
+   * @throws EncoderException
+   *           if the encoding of any segment fails
+   */
+  private File segmentedEncode(Job job, EncoderEngine encoder, File source, EncodingProfile profile)
+          throws EncoderException {
+    final List<File> segments = encoder.split(source, segmentDuration);
+    if (segments.size() < 2) {
+      // Too few keyframes to gain anything
+      cleanup(segments.toArray(new File[segments.size()]));
+      return encoder.encode(source, profile, null);
+    }
+
+    final List<URI> workspaceURIs = new ArrayList<>();
+    try {
+      final List<URI> segmentURIs = putToCollection(job, segments, "segment");
+      workspaceURIs.addAll(segmentURIs);
+
+      final Job[] segmentJobs = new Job[segmentURIs.size()];
+      for (int i = 0; i < segmentJobs.length; i++) {
+        segmentJobs[i] = serviceRegistry.createJob(JOB_TYPE, Operation.EncodeSegment.toString(),
+                Arrays.asList(profile.getIdentifier(), segmentURIs.get(i).toString()), profile.getJobLoad());
+      }
+      logger.info("Encoding {} in {} segments using profile {}", source, segmentJobs.length, profile.getIdentifier());
+
+      boolean success = false;
+      try {
+        success = waitForSegmentJobs(job, segmentJobs);
+      } finally {
+        if (!success)
+          workspaceURIs.addAll(cancelSegmentJobs(segmentJobs));
+      }
+      if (!success) {
+        throw new EncoderException(format("Encoding segments of %s failed", source));
+      }
+
+      final List<File> encodedSegments = new ArrayList<>(segmentJobs.length);
+      for (Job segmentJob : segmentJobs) {
+        final URI encodedSegmentURI = URI.create(segmentJob.getPayload());
+        workspaceURIs.add(encodedSegmentURI);
+        encodedSegments.add(loadURIIntoWorkspace(job, "encoded segment", encodedSegmentURI));
+      }
+
+      final String suffix = FilenameUtils.getExtension(encodedSegments.get(0).getName());
+      final File output = new File(source.getAbsoluteFile().getParentFile(),
+              format("%s_%s.%s", FilenameUtils.getBaseName(source.getName()), UUID.randomUUID(), suffix));
+      return encoder.concat(encodedSegments, output);
+    } catch (ServiceRegistryException e) {
+      throw new EncoderException("Unable to create the jobs encoding the segments", e);
+    } finally {
+      cleanupWorkspace(workspaceURIs.toArray(new URI[workspaceURIs.size()]));
+    }
+  }
+
+  /**
+   * Waits for the segment jobs one at a time, in order to stop waiting at the first failed job instead of the last job
+   * to terminate.
+   *
+   * @param job
+   *          the job waiting for the segment jobs
+   * @param segmentJobs
+   *          the segment jobs
+   * @return whether all segment jobs finished
+   */
+  private boolean waitForSegmentJobs(Job job, Job[] segmentJobs) {
+    for (Job segmentJob : segmentJobs) {
+      if (!new JobBarrier(job, serviceRegistry, segmentJob).waitForJobs().isSuccess())
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Cancels the segment jobs of a failed segmented encoding which have not terminated yet.
+   *
+   * @param segmentJobs
+   *          the segment jobs
+   * @return the workspace URIs of the segments encoded by the finished jobs
+   */
+  private List<URI> cancelSegmentJobs(Job[] segmentJobs) {
+    final List<URI> encodedSegmentURIs = new ArrayList<>();
+    for (Job segmentJob : segmentJobs) {
+      try {
+        final Job current = serviceRegistry.getJob(segmentJob.getId());
+        if (current.getStatus() == Job.Status.FINISHED && StringUtils.isNotBlank(current.getPayload())) {
+          encodedSegmentURIs.add(URI.create(current.getPayload()));
+        } else if (!current.getStatus().isTerminated()) {
+          logger.info("Canceling segment job {}", current);
+          current.setStatus(Job.Status.CANCELED);
+          serviceRegistry.updateJob(current);
+        }
+      } catch (NotFoundException | ServiceRegistryException e) {
+        logger.warn("Unable to cancel segment job {}: {}", segmentJob, e.getMessage());
+      }
+    }
+    return encodedSegmentURIs;
+  }
+
+  /**
+   * Encodes one segment of a track split by {@link #segmentedEncode(Job, EncoderEngine, File, EncodingProfile)}.
+   *
+   * @param job
+   *          the job in which context the encoding is done
+   * @param segmentURI
+   *          the workspace URI of the segment
+   * @param profileId
+   *          the encoding profile
+   * @return the workspace URI of the encoded segment
+   * @throws EncoderException
+   *           if encoding fails
+   */
+  private URI encodeSegment(Job job, URI segmentURI, String profileId) throws EncoderException {
+    final File segment = loadURIIntoWorkspace(job, "segment", segmentURI);
+    final EncodingProfile profile = getProfile(job, profileId);
+    final EncoderEngine encoder = getEncoderEngine();
+    final File output;
+    try {
+      output = encoder.encode(segment, profile, null);
+    } catch (EncoderException e) {
+      Map<String, String> params = new HashMap<>();
+      params.put("segment", segmentURI.toString());
+      params.put("profile", profile.getIdentifier());
+      params.put("properties", "EMPTY");
+      incident().recordFailure(job, ENCODING_FAILED, e, params, detailsFor(e, encoder));
+      throw e;
+    } finally {
+      activeEncoder.remove(encoder);
+    }
+    return putToCollection(job, output, "encoded segment");
+  }
+
   /**
    * Encodes audio and video track to a file. If both an audio and a video track are given, they are muxed together into
    * one movie container.
@@ -1140,6 +1370,16 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     // Get the encoding profile
     final EncodingProfile profile = getProfile(job, profileId);
 
+    // Return the result of an identical extraction if it has been cached
+    final EncodeCache cache = encodeCache;
+    final String cacheKey = cacheKey(cache, Operation.Image, java.util.Collections.singletonMap("video", sourceTrack),
+            java.util.Collections.singletonList(profile), properties == null ? null : new TreeMap<>(properties),
+            Arrays.toString(times));
+    final Option<List<Attachment>> cached = fromCache(job, cache, cacheKey, "extracted images");
+    if (cached.isSome()) {
+      return cached.get();
+    }
+
     // Create the encoding engine
     final EncoderEngine encoderEngine = getEncoderEngine();
 
@@ -1169,7 +1409,9 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
 
     int i = 0;
     List<URI> workspaceURIs = new LinkedList<>();
+    List<String> outputNames = new ArrayList<>(encodingOutput.size());
     for (File output : encodingOutput) {
+      outputNames.add(output.getName());
 
       if (!output.exists() || output.length() == 0) {
         logger.warn("Extracted image {} is empty!", output);
@@ -1202,6 +1444,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       Attachment attachment = (Attachment) builder.elementFromURI(url, Attachment.TYPE, null);
       imageAttachments.add(attachment);
     }
+    toCache(cache, cacheKey, outputNames, imageAttachments);
 
     return imageAttachments;
   }
@@ -1389,6 +1632,9 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
           serialized = encode(job, Collections.map(tuple("video", firstTrack)), encodingProfile).map(
                   MediaPackageElementParser.getAsXml()).getOrElse("");
           break;
+        case EncodeSegment:
+          serialized = encodeSegment(job, URI.create(arguments.get(1)), encodingProfile).toString();
+          break;
         case ParallelEncode:
           firstTrack = (Track) MediaPackageElementParser.getFromXml(arguments.get(1));
           serialized = MediaPackageElementParser.getArrayAsXml(parallelEncode(job, firstTrack, encodingProfile));
@@ -1599,7 +1845,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
   }
 
-  private EncoderEngine getEncoderEngine() {
+  protected EncoderEngine getEncoderEngine() {
     EncoderEngine engine = new EncoderEngine(ffmpegBinary);
     activeEncoder.add(engine);
     return engine;
@@ -1824,6 +2070,78 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     return putToCollection(job, java.util.Collections.singletonList(output), description).get(0);
   }
 
+  /**
+   * Calculates the key of an encoding in the encode cache.
+   *
+   * @return the key or <code>null</code> if caching is disabled or the encoding cannot be cached
+   */
+  private String cacheKey(EncodeCache cache, Operation operation, Map<String, ? extends MediaPackageElement> sources,
+          List<EncodingProfile> profiles, Object... parameters) {
+    if (cache == null)
+      return null;
+    String key = EncodeCache.key(operation.toString(), sources, profiles, ffmpegBinary, parameters);
+    if (key == null) {
+      logger.debug("Not caching the {} operation since not all sources have a checksum", operation);
+    }
+    return key;
+  }
+
+  /**
+   * Copies the cached result of an encoding to the workspace.
+   *
+   * @return the cached elements pointing to their copies in the workspace, or none if the encoding has not been cached
+   */
+  @SuppressWarnings("unchecked")
+  private <T extends MediaPackageElement> Option<List<T>> fromCache(Job job, EncodeCache cache, String key,
+          String description) {
+    if (cache == null || key == null)
+      return none();
+
+    for (EncodeCache.Entry entry : cache.get(key)) {
+      List<URI> workspaceURIs = new ArrayList<>();
+      try {
+        List<T> elements = new ArrayList<>();
+        for (MediaPackageElement element : entry.getElements()) {
+          File file = entry.getFile(element);
+          try (InputStream in = new FileInputStream(file)) {
+            URI workspaceURI = workspace.putInCollection(COLLECTION, format("%s.%s", job.getId(), file.getName()), in);
+            workspaceURIs.add(workspaceURI);
+            element.setURI(workspaceURI);
+          }
+          elements.add((T) element);
+        }
+        logger.info("Copied the cached {} to the workspace at {}", description, workspaceURIs);
+        cache.recordHit(entry);
+        return some(elements);
+      } catch (IOException | IllegalArgumentException e) {
+        logger.warn("Unable to use the cached {} {}, encoding again: {}", description, key, e.getMessage());
+        cleanupWorkspace(workspaceURIs.toArray(new URI[workspaceURIs.size()]));
+        cache.remove(key);
+        cache.recordMiss();
+      }
+    }
+    return none();
+  }
+
+  /**
+   * Adds the result of an encoding to the encode cache. Failing to do so does not affect the encoding.
+   */
+  private void toCache(EncodeCache cache, String key, List<String> names,
+          List<? extends MediaPackageElement> elements) {
+    if (cache == null || key == null)
+      return;
+
+    try {
+      List<File> files = new ArrayList<>(elements.size());
+      for (MediaPackageElement element : elements) {
+        files.add(workspace.get(element.getURI()));
+      }
+      cache.put(key, names, files, elements);
+    } catch (NotFoundException | IOException e) {
+      logger.warn("Unable to add encoding {} to the cache: {}", key, e.getMessage());
+    }
+  }
+
   private static List<Tuple<String, String>> detailsFor(EncoderException ex, EncoderEngine engine) {
     final List<Tuple<String, String>> d = new ArrayList<>();
     d.add(tuple("encoder-engine-class", engine.getClass().getName()));
@@ -2055,6 +2373,76 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
     transitionDuration = 1000 * (int) LoadUtil.getConfiguredLoadValue(properties, PROCESS_SMIL_CLIP_TRANSITION_DURATION,
             DEFAULT_PROCESS_SMIL_CLIP_TRANSITION_DURATION, serviceRegistry);
+    updateEncodeCache(properties);
+
+    segmentedProfiles = new HashSet<>();
+    for (String profileId : StringUtils.split(StringUtils.defaultString((String) properties.get(
+            ENCODE_SEGMENTED_PROFILES)), ", ")) {
+      segmentedProfiles.add(profileId);
+    }
+    segmentedMinDuration = NumberUtils.toLong(StringUtils.trimToNull((String) properties.get(
+            ENCODE_SEGMENTED_MIN_DURATION)), DEFAULT_ENCODE_SEGMENTED_MIN_DURATION) * 1000L;
+    segmentDuration = NumberUtils.toLong(StringUtils.trimToNull((String) properties.get(
+            ENCODE_SEGMENTED_SEGMENT_DURATION)), DEFAULT_ENCODE_SEGMENTED_SEGMENT_DURATION) * 1000L;
+    if (segmentDuration <= 0) {
+      logger.warn("Invalid segment duration, using {}s", DEFAULT_ENCODE_SEGMENTED_SEGMENT_DURATION);
+      segmentDuration = DEFAULT_ENCODE_SEGMENTED_SEGMENT_DURATION * 1000L;
+    }
+    if (!segmentedProfiles.isEmpty()) {
+      logger.info("Splitting encodings of tracks longer than {}s into segments of {}s for profiles {}",
+              segmentedMinDuration / 1000, segmentDuration / 1000, segmentedProfiles);
+    }
+  }
+
+  /**
+   * Enables, reconfigures or disables the encode cache.
+   *
+   * @param properties
+   *          the service configuration
+   * @throws ConfigurationException
+   *           if the cache cannot be set up
+   */
+  private synchronized void updateEncodeCache(Dictionary<String, ?> properties) throws ConfigurationException {
+    if (!BooleanUtils.toBoolean(StringUtils.trimToNull((String) properties.get(ENCODE_CACHE_ENABLED)))) {
+      disableEncodeCache();
+      return;
+    }
+
+    String directoryName = StringUtils.trimToNull((String) properties.get(ENCODE_CACHE_DIRECTORY));
+    if (directoryName == null) {
+      if (storageDir == null)
+        throw new ConfigurationException(ENCODE_CACHE_DIRECTORY, "No encode cache directory and storage directory set");
+      directoryName = new File(storageDir, DEFAULT_ENCODE_CACHE_DIRECTORY).getAbsolutePath();
+    }
+    final File directory = new File(directoryName);
+    final long maxSize = NumberUtils.toLong(StringUtils.trimToNull((String) properties.get(ENCODE_CACHE_MAX_SIZE)),
+            DEFAULT_ENCODE_CACHE_MAX_SIZE) * 1024L * 1024L;
+
+    if (encodeCache != null && encodeCache.getDirectory().equals(directory)) {
+      encodeCache.setMaxSize(maxSize);
+      return;
+    }
+
+    disableEncodeCache();
+    try {
+      encodeCache = new EncodeCache(directory, maxSize);
+    } catch (IOException e) {
+      throw new ConfigurationException(ENCODE_CACHE_DIRECTORY, "Unable to create the encode cache", e);
+    }
+    encodeCacheMXBean = JmxUtil.registerMXBean(encodeCache, "EncodeCache");
+    logger.info("Caching encoding results in {} up to {} bytes", directory, maxSize);
+  }
+
+  /** Stops caching encoding results. Entries already cached are kept for later use. */
+  private synchronized void disableEncodeCache() {
+    if (encodeCacheMXBean != null) {
+      JmxUtil.unregisterMXBean(encodeCacheMXBean);
+      encodeCacheMXBean = null;
+    }
+    if (encodeCache != null) {
+      logger.info("No longer caching encoding results in {}", encodeCache.getDirectory());
+      encodeCache = null;
+    }
   }
 
   /**
@@ -2337,13 +2725,22 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       throw new IllegalArgumentException("Cannot encode without encoding profiles");
     List<File> outputs = null;
     try {
-      final File videoFile = loadTrackIntoWorkspace(job, "source", track, false);
       // Get the encoding profiles
       List<EncodingProfile> profiles = new ArrayList<>();
       for (String profileId : profileIds) {
         EncodingProfile profile = getProfile(job, profileId);
         profiles.add(profile);
       }
+      // Return the result of an identical encoding if it has been cached
+      final EncodeCache cache = encodeCache;
+      final String cacheKey = cacheKey(cache, Operation.MultiEncode, java.util.Collections.singletonMap("source", track),
+              profiles, track.hasVideo(), track.hasAudio());
+      final Option<List<Track>> cached = fromCache(job, cache, cacheKey, "multiencode files");
+      if (cached.isSome()) {
+        cached.get().forEach(eachtrack -> eachtrack.setIdentifier(idBuilder.createNew().toString()));
+        return cached.get();
+      }
+      final File videoFile = loadTrackIntoWorkspace(job, "source", track, false);
       logger.info("Encoding source track {} using profiles '{}'", track.getIdentifier(), profileIds);
       // Do the work
       EncoderEngine encoderEngine = getEncoderEngine();
@@ -2360,8 +2757,11 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
         activeEncoder.remove(encoderEngine);
       }
       logger.info("MultiEncode returns {} media files {} ", outputs.size(), outputs);
+      List<String> outputNames = new ArrayList<>(outputs.size());
+      outputs.forEach(output -> outputNames.add(output.getName()));
       List<URI> workspaceURIs = putToCollection(job, outputs, "multiencode files");
       List<Track> tracks = inspect(job, workspaceURIs);
+      toCache(cache, cacheKey, outputNames, tracks);
       tracks.forEach(eachtrack -> eachtrack.setIdentifier(idBuilder.createNew().toString()));
       return tracks;
     } catch (Exception e) {
@@ -0,0 +1,415 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+
+import org.opencastproject.composer.api.EncodingProfile;
+import org.opencastproject.composer.impl.jmx.EncodeCacheMXBean;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.MediaPackageElementParser;
+import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.data.Option;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content addressed store for the results of encoding operations.
+ * <p>
+ * Entries are keyed by a digest over the checksums of the source media, the encoding profiles including their ffmpeg
+ * commands, and the operation parameters (see {@link #key(String, Map, List, String, Object...)}). Changing any of
+ * them leads to a different key, so stale entries are never returned but simply age out of the cache.
+ * <p>
+ * Every entry is a directory containing the encoded files and the serialized media package elements describing them.
+ * Entries are written to a temporary directory first and moved into place atomically, which allows several nodes to
+ * share a cache directory. The cache is bounded by size and evicts the least recently used entries first.
+ */
+public class EncodeCache implements EncodeCacheMXBean {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(EncodeCache.class);
+
+  /** Name of the file holding the media package elements of an entry */
+  static final String ELEMENTS_FILE = "elements.xml";
+
+  /** Prefix of the directories holding entries which are still being written */
+  private static final String TMP_PREFIX = ".tmp-";
+
+  /** The directory holding the cache entries */
+  private final File directory;
+
+  /** Sizes of the known entries in access order */
+  private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** Size of all known entries in bytes */
+  private long size = 0L;
+
+  /** Size the cache may grow to in bytes */
+  private long maxSize;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong bytesSaved = new AtomicLong();
+
+  /**
+   * Creates an encode cache using the given directory, picking up all entries which are already there.
+   *
+   * @param directory
+   *          the cache directory
+   * @param maxSize
+   *          the maximum size of the cache in bytes
+   * @throws IOException
+   *           if the cache directory cannot be created
+   */
+  public EncodeCache(File directory, long maxSize) throws IOException {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    FileUtils.forceMkdir(directory);
+
+    File[] existing = directory.listFiles();
+    if (existing != null) {
+      Arrays.sort(existing, Comparator.comparingLong(File::lastModified));
+      for (File file : existing) {
+        if (file.getName().startsWith(TMP_PREFIX)) {
+          FileUtils.deleteQuietly(file);
+        } else if (new File(file, ELEMENTS_FILE).isFile()) {
+          long entrySize = FileUtils.sizeOfDirectory(file);
+          entries.put(file.getName(), entrySize);
+          size += entrySize;
+        }
+      }
+    }
+    logger.info("Encode cache at {} holds {} entries with {} bytes", directory, entries.size(), size);
+    evict();
+  }
+
+  /**
+   * Calculates the cache key of an encoding operation.
+   *
+   * @param operation
+   *          the operation name
+   * @param sources
+   *          the source elements by their role in the operation
+   * @param profiles
+   *          the encoding profiles used
+   * @param binary
+   *          the encoder binary
+   * @param parameters
+   *          further parameters that have an influence on the result
+   * @return the key or <code>null</code> if any of the sources does not have a checksum
+   */
+  public static String key(String operation, Map<String, ? extends MediaPackageElement> sources,
+          List<EncodingProfile> profiles, String binary, Object... parameters) {
+    List<String> parts = new ArrayList<>();
+    parts.add(operation);
+    for (Map.Entry<String, ? extends MediaPackageElement> source : new TreeMap<>(sources).entrySet()) {
+      Checksum checksum = source.getValue().getChecksum();
+      if (checksum == null) {
+        return null;
+      }
+      parts.add(source.getKey());
+      parts.add(checksum.getType().getName());
+      parts.add(checksum.getValue());
+    }
+    for (EncodingProfile profile : profiles) {
+      parts.add(profile.getIdentifier());
+      parts.add(String.valueOf(profile.getOutputType()));
+      parts.add(String.valueOf(profile.getApplicableMediaType()));
+      parts.add(profile.getSuffix());
+      List<String> tags = new ArrayList<>(profile.getTags());
+      tags.sort(null);
+      for (String tag : tags) {
+        parts.add(tag);
+        parts.add(profile.getSuffix(tag));
+      }
+      for (Map.Entry<String, String> extension : new TreeMap<>(profile.getExtensions()).entrySet()) {
+        parts.add(extension.getKey());
+        parts.add(extension.getValue());
+      }
+    }
+    parts.add(binary);
+    for (Object parameter : parameters) {
+      parts.add(String.valueOf(parameter));
+    }
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String part : parts) {
+        // Prefix every part with its length so that different splits never result in the same input
+        String value = String.valueOf(part);
+        digest.update((value.length() + ":" + value).getBytes(StandardCharsets.UTF_8));
+      }
+      return Checksum.convertToHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported", e);
+    }
+  }
+
+  /**
+   * Looks up an entry. Since the caller may still fail to use a returned entry, it has to report the outcome with
+   * {@link #recordHit(Entry)} or {@link #recordMiss()}.
+   *
+   * @param key
+   *          the cache key
+   * @return the entry or none if the encoding has not been cached
+   */
+  public synchronized Option<Entry> get(String key) {
+    File entryDir = new File(directory, key);
+    File elementsFile = new File(entryDir, ELEMENTS_FILE);
+    if (!elementsFile.isFile()) {
+      // The entry may have been evicted by another node sharing the cache directory
+      forget(key);
+      misses.incrementAndGet();
+      return none();
+    }
+
+    List<? extends MediaPackageElement> elements;
+    try {
+      elements = MediaPackageElementParser.getArrayFromXml(
+              FileUtils.readFileToString(elementsFile, StandardCharsets.UTF_8));
+    } catch (IOException | MediaPackageException e) {
+      logger.warn("Removing unreadable encode cache entry {}: {}", key, e.getMessage());
+      remove(key);
+      misses.incrementAndGet();
+      return none();
+    }
+
+    Long entrySize = entries.get(key);
+    if (entrySize == null) {
+      // The entry has been written by another node sharing the cache directory
+      entrySize = FileUtils.sizeOfDirectory(entryDir);
+      entries.put(key, entrySize);
+      size += entrySize;
+      evict();
+    }
+    return some(new Entry(entryDir, new ArrayList<>(elements), entrySize));
+  }
+
+  /**
+   * Records that an entry returned by {@link #get(String)} has been used instead of encoding again.
+   *
+   * @param entry
+   *          the used entry
+   */
+  public void recordHit(Entry entry) {
+    hits.incrementAndGet();
+    bytesSaved.addAndGet(entry.getSize());
+  }
+
+  /**
+   * Records that an entry returned by {@link #get(String)} could not be used, so that the encoding has to be done
+   * anyway.
+   */
+  public void recordMiss() {
+    misses.incrementAndGet();
+  }
+
+  /**
+   * Adds the result of an encoding operation to the cache. The files are copied, so the caller keeps ownership.
+   *
+   * @param key
+   *          the cache key
+   * @param names
+   *          the file names to store the encoded files as
+   * @param files
+   *          the encoded files
+   * @param elements
+   *          the media package elements describing the encoded files, in the same order
+   * @throws IOException
+   *           if the entry cannot be written
+   */
+  public void put(String key, List<String> names, List<File> files, List<? extends MediaPackageElement> elements)
+          throws IOException {
+    if (names.size() != files.size() || files.size() != elements.size())
+      throw new IllegalArgumentException("Names, files and elements need to be of the same size");
+
+    File tmp = new File(directory, TMP_PREFIX + UUID.randomUUID());
+    try {
+      FileUtils.forceMkdir(tmp);
+      List<MediaPackageElement> cached = new ArrayList<>(elements.size());
+      for (int i = 0; i < files.size(); i++) {
+        String name = FilenameUtils.getName(names.get(i));
+        FileUtils.copyFile(files.get(i), new File(tmp, name));
+        MediaPackageElement element = (MediaPackageElement) elements.get(i).clone();
+        element.setURI(new URI(null, null, name, null));
+        cached.add(element);
+      }
+      FileUtils.writeStringToFile(new File(tmp, ELEMENTS_FILE), MediaPackageElementParser.getArrayAsXml(cached),
+              StandardCharsets.UTF_8);
+      long entrySize = FileUtils.sizeOfDirectory(tmp);
+
+      synchronized (this) {
+        File entryDir = new File(directory, key);
+        if (entryDir.exists()) {
+          logger.debug("Encode cache entry {} has already been written", key);
+          return;
+        }
+        Files.move(tmp.toPath(), entryDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        entries.put(key, entrySize);
+        size += entrySize;
+        logger.debug("Added encode cache entry {} with {} bytes", key, entrySize);
+        evict();
+      }
+    } catch (URISyntaxException | MediaPackageException e) {
+      throw new IOException("Unable to write encode cache entry " + key, e);
+    } finally {
+      FileUtils.deleteQuietly(tmp);
+    }
+  }
+
+  /**
+   * Removes an entry from the cache.
+   *
+   * @param key
+   *          the cache key
+   */
+  public synchronized void remove(String key) {
+    forget(key);
+    FileUtils.deleteQuietly(new File(directory, key));
+  }
+
+  /**
+   * Sets the size the cache may grow to, evicting entries if necessary.
+   *
+   * @param maxSize
+   *          the maximum size in bytes
+   */
+  public synchronized void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+    evict();
+  }
+
+  /** Returns the cache directory. */
+  public File getDirectory() {
+    return directory;
+  }
+
+  @Override
+  public long getHits() {
+    return hits.get();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public long getBytesSaved() {
+    return bytesSaved.get();
+  }
+
+  @Override
+  public synchronized int getEntries() {
+    return entries.size();
+  }
+
+  @Override
+  public synchronized long getSize() {
+    return size;
+  }
+
+  @Override
+  public synchronized long getMaxSize() {
+    return maxSize;
+  }
+
+  /** Drops an entry from the index without touching the file system. */
+  private void forget(String key) {
+    Long entrySize = entries.remove(key);
+    if (entrySize != null) {
+      size -= entrySize;
+    }
+  }
+
+  /** Evicts the least recently used entries until the cache fits into its maximum size. */
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      Map.Entry<String, Long> eldest = iterator.next();
+      iterator.remove();
+      size -= eldest.getValue();
+      FileUtils.deleteQuietly(new File(directory, eldest.getKey()));
+      logger.debug("Evicted encode cache entry {} with {} bytes", eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  /**
+   * A cached encoding result.
+   */
+  public static final class Entry {
+
+    private final File directory;
+    private final List<MediaPackageElement> elements;
+    private final long size;
+
+    private Entry(File directory, List<MediaPackageElement> elements, long size) {
+      this.directory = directory;
+      this.elements = elements;
+      this.size = size;
+    }
+
+    /**
+     * Returns the cached media package elements. Their URIs are relative to the entry and need to be replaced before
+     * the elements are handed out.
+     */
+    public List<MediaPackageElement> getElements() {
+      return elements;
+    }
+
+    /** Returns the cached file of the given element. */
+    public File getFile(MediaPackageElement element) {
+      return new File(directory, element.getURI().getPath());
+    }
+
+    /** Returns the size of the entry in bytes. */
+    public long getSize() {
+      return size;
+    }
+  }
+
+}
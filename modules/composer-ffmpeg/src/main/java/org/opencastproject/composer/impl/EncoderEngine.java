@@ -25,6 +25,7 @@ package org.opencastproject.composer.impl;
 import org.opencastproject.composer.api.EncoderException;
 import org.opencastproject.composer.api.EncodingProfile;
 import org.opencastproject.composer.api.VideoClip;
+import org.opencastproject.job.api.JobResourceUsage;
 import org.opencastproject.mediapackage.identifier.IdBuilder;
 import org.opencastproject.mediapackage.identifier.IdBuilderFactory;
 import org.opencastproject.util.IoSupport;
@@ -40,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -311,6 +313,104 @@ public class EncoderEngine implements AutoCloseable {
     }
   }
 
+  /**
+   * Splits a media file into segments of about the given duration without re-encoding it. Since the streams are only
+   * copied, the file can only be cut at keyframes and the segments may therefore be longer than requested. The
+   * segments are stored as Matroska files next to the source, which is able to hold any codec.
+   *
+   * @param mediaSource
+   *          the file to split
+   * @param segmentDuration
+   *          the targeted duration of a segment in milliseconds
+   * @return the segments in playback order
+   * @throws EncoderException
+   *           if splitting fails
+   */
+  List<File> split(File mediaSource, long segmentDuration) throws EncoderException {
+    if (segmentDuration <= 0) {
+      throw new IllegalArgumentException("The segment duration must be positive");
+    }
+    final File outDir = mediaSource.getAbsoluteFile().getParentFile();
+    final String prefix = FilenameUtils.getBaseName(mediaSource.getName()) + "_" + UUID.randomUUID().toString()
+            + "_segment_";
+    DecimalFormatSymbols ffmpegFormat = new DecimalFormatSymbols();
+    ffmpegFormat.setDecimalSeparator('.');
+    final String segmentTime = new DecimalFormat("0.000", ffmpegFormat).format(segmentDuration / 1000.0);
+
+    List<String> command = new ArrayList<>();
+    command.add("-y");
+    command.add("-nostats");
+    command.add("-benchmark"); // report the resource usage
+    command.add("-i");
+    command.add(FilenameUtils.normalize(mediaSource.getAbsolutePath()));
+    command.addAll(Arrays.asList("-map", "0", "-c", "copy"));
+    command.addAll(Arrays.asList("-f", "segment", "-segment_time", segmentTime, "-reset_timestamps", "1"));
+    command.add(new File(outDir, prefix + "%05d.mkv").getAbsolutePath());
+
+    // The segment muxer only reports the output pattern, so we need to look for the segments ourselves
+    List<File> segments = new ArrayList<>();
+    try {
+      process(command);
+    } finally {
+      File[] files = outDir.listFiles((dir, name) -> name.startsWith(prefix));
+      if (files != null) {
+        segments.addAll(Arrays.asList(files));
+      }
+      segments.sort((a, b) -> a.getName().compareTo(b.getName()));
+    }
+    if (segments.isEmpty()) {
+      throw new EncoderException("Splitting " + mediaSource + " did not create any segments");
+    }
+    logger.info("Split {} into {} segments", mediaSource, segments.size());
+    return segments;
+  }
+
+  /**
+   * Losslessly concatenates media files which have been encoded with identical parameters, e.g. the encoded segments
+   * returned by {@link #split(File, long)}, into one file.
+   *
+   * @param segments
+   *          the files to concatenate in playback order
+   * @param output
+   *          the file to write, whose extension determines the container
+   * @return the concatenated file
+   * @throws EncoderException
+   *           if concatenating fails
+   */
+  File concat(List<File> segments, File output) throws EncoderException {
+    if (segments == null || segments.isEmpty()) {
+      throw new IllegalArgumentException("At least one segment must be specified.");
+    }
+    final File list = new File(output.getAbsoluteFile().getParentFile(),
+            FilenameUtils.getBaseName(output.getName()) + "_" + UUID.randomUUID().toString() + ".ffconcat");
+    try {
+      StringBuilder sb = new StringBuilder("ffconcat version 1.0\n");
+      for (File segment : segments) {
+        // Single quotes are escaped by closing the quoted string, adding an escaped quote and reopening it
+        sb.append("file '").append(segment.getAbsolutePath().replace("'", "'\\''")).append("'\n");
+      }
+      FileUtils.writeStringToFile(list, sb.toString(), "UTF-8");
+
+      List<String> command = new ArrayList<>();
+      command.add("-y");
+      command.add("-nostats");
+      command.add("-benchmark"); // report the resource usage
+      command.addAll(Arrays.asList("-f", "concat", "-safe", "0", "-i", list.getAbsolutePath()));
+      command.addAll(Arrays.asList("-map", "0", "-c", "copy"));
+      command.add(output.getAbsolutePath());
+      process(command);
+    } catch (IOException e) {
+      throw new EncoderException("Unable to write the list of segments to concatenate", e);
+    } finally {
+      FileUtils.deleteQuietly(list);
+    }
+    if (!output.isFile()) {
+      throw new EncoderException("Concatenating " + segments + " did not create " + output);
+    }
+    logger.info("Concatenated {} segments into {}", segments.size(), output);
+    return output;
+  }
+
   /**
    * Deletes all valid files found in a list
    *
@@ -342,6 +442,7 @@ public class EncoderEngine implements AutoCloseable {
     List<String> command = new ArrayList<>();
     command.add(binary);
     command.add("-nostats");
+    command.add("-benchmark"); // report the resource usage
 
     String commandline = profile.getExtension(CMD_SUFFIX);
 
@@ -429,8 +530,12 @@ public class EncoderEngine implements AutoCloseable {
     if ("".equals(message))
       return;
 
+    // Resource usage reported because of -benchmark is recorded with the job
+    if (JobResourceUsage.recordFfmpegBenchmark(message)) {
+      logger.debug(message);
+
     // Others go to trace logging
-    if (StringUtils.startsWithAny(message.toLowerCase(),
+    } else if (StringUtils.startsWithAny(message.toLowerCase(),
           "ffmpeg version", "configuration", "lib", "size=", "frame=", "built with")) {
       logger.trace(message);
 
@@ -967,6 +1072,7 @@ public class EncoderEngine implements AutoCloseable {
       clauses.removeIf(Objects::isNull); // remove all empty filters
       command.add("-y"); // overwrite old files
       command.add("-nostats"); // no progress report
+      command.add("-benchmark"); // report the resource usage
       for (File o : inputs) {
         command.add("-i"); // Add inputfile in the order of entry
         command.add(o.getCanonicalPath());
@@ -0,0 +1,71 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl.jmx;
+
+/**
+ * JMX Bean interface exposing encode cache statistics.
+ */
+public interface EncodeCacheMXBean {
+
+  /**
+   * Gets the number of encodings that have been served from the cache
+   *
+   * @return the number of cache hits
+   */
+  long getHits();
+
+  /**
+   * Gets the number of encodings that could not be served from the cache
+   *
+   * @return the number of cache misses
+   */
+  long getMisses();
+
+  /**
+   * Gets the number of bytes which did not need to be encoded again because they were served from the cache
+   *
+   * @return the number of bytes
+   */
+  long getBytesSaved();
+
+  /**
+   * Gets the number of cached encodings
+   *
+   * @return the number of entries
+   */
+  int getEntries();
+
+  /**
+   * Gets the total size of all cached encodings
+   *
+   * @return the number of bytes
+   */
+  long getSize();
+
+  /**
+   * Gets the size the cache is allowed to grow to before old entries are evicted
+   *
+   * @return the number of bytes
+   */
+  long getMaxSize();
+
+}
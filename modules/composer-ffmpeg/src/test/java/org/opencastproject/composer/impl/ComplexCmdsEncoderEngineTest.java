@@ -22,6 +22,7 @@ package org.opencastproject.composer.impl;
 
 import static org.easymock.EasyMock.anyBoolean;
 import static org.easymock.EasyMock.capture;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.opencastproject.composer.api.EncoderException;
@@ -67,6 +68,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
@@ -511,6 +513,43 @@ public class ComplexCmdsEncoderEngineTest {
       assertTrue(outputs.get(i).length() > 0);
   }
 
+  @Test
+  public void testSplitEncodeConcat() throws Exception {
+    EncodingProfile profile = profileScanner.getProfile("h264-low.http");
+    File singlePass = engine.encode(sourceAudioVideo, profile, null);
+
+    List<File> segments = engine.split(sourceAudioVideo, 1000);
+    assertTrue(segments.size() > 0);
+    List<File> encodedSegments = new ArrayList<File>();
+    for (File segment : segments) {
+      assertTrue(segment.length() > 0);
+      encodedSegments.add(engine.encode(segment, profile, null));
+    }
+    File output = new File(workingDirectory, "segmented-" + singlePass.getName());
+    engine.concat(encodedSegments, output);
+
+    // Container and codec parameters must match those of a single pass encoding
+    String streams = "stream=codec_type,codec_name,profile,width,height,pix_fmt,sample_rate,channels";
+    assertEquals(probe(singlePass, streams), probe(output, streams));
+    assertEquals(probe(singlePass, "format=format_name"), probe(output, "format=format_name"));
+    double duration = Double.parseDouble(probe(sourceAudioVideo, "format=duration"));
+    assertEquals(duration, Double.parseDouble(probe(output, "format=duration")), 0.5);
+  }
+
+  /** Returns the given entries of a media file as reported by ffprobe */
+  private static String probe(File file, String entries) throws Exception {
+    Process p = null;
+    try {
+      p = new ProcessBuilder("ffprobe", "-v", "error", "-show_entries", entries, "-of", "csv=p=0",
+              file.getAbsolutePath()).start();
+    } catch (IOException e) {
+      Assume.assumeNoException("ffprobe is required", e);
+    }
+    String result = IOUtils.toString(p.getInputStream(), Charset.defaultCharset()).trim();
+    Assume.assumeTrue("ffprobe is required", p.waitFor() == 0);
+    return result;
+  }
+
   @Test
   public void testRawMultiEncode() throws EncoderException {
     if (!ffmpegInstalled)
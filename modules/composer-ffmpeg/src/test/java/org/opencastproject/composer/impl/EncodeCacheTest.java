@@ -0,0 +1,168 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.composer.api.EncodingProfile;
+import org.opencastproject.composer.api.EncodingProfileImpl;
+import org.opencastproject.mediapackage.MediaPackageElement;
+import org.opencastproject.mediapackage.Track;
+import org.opencastproject.mediapackage.track.TrackImpl;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
+import org.opencastproject.util.data.Option;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class EncodeCacheTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private File cacheDir;
+
+  private Map<String, Track> sources;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDir = tmp.newFolder("cache");
+    Track source = TrackImpl.fromURI(new URI("http://localhost/source.mp4"));
+    source.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, "3f8a4e8b5cf1b0e2d8f1e5bfbd1a2b44"));
+    sources = Collections.singletonMap("video", source);
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    EncodeCache cache = new EncodeCache(cacheDir, Long.MAX_VALUE);
+    String key = EncodeCache.key("Encode", sources, profiles(profile("-c:v libx264")), "ffmpeg");
+    assertTrue(cache.get(key).isNone());
+
+    put(cache, key, "source-encoded.mp4", "encoded");
+
+    Option<EncodeCache.Entry> entry = cache.get(key);
+    assertTrue(entry.isSome());
+    List<MediaPackageElement> elements = entry.get().getElements();
+    assertEquals(1, elements.size());
+    assertEquals(Track.TYPE, elements.get(0).getElementType());
+    File file = entry.get().getFile(elements.get(0));
+    assertEquals("source-encoded.mp4", file.getName());
+    assertEquals("encoded", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+
+    // Hits are only counted once the caller used the entry
+    assertEquals(0, cache.getHits());
+    cache.recordHit(entry.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(entry.get().getSize(), cache.getBytesSaved());
+    assertEquals(1, cache.getEntries());
+  }
+
+  @Test
+  public void testProfileChangeInvalidatesEntries() throws Exception {
+    EncodeCache cache = new EncodeCache(cacheDir, Long.MAX_VALUE);
+    String key = EncodeCache.key("Encode", sources, profiles(profile("-c:v libx264 -crf 23")), "ffmpeg");
+    put(cache, key, "source-encoded.mp4", "encoded");
+    assertTrue(cache.get(key).isSome());
+
+    // Same profile identifier, but a different command
+    String changed = EncodeCache.key("Encode", sources, profiles(profile("-c:v libx264 -crf 18")), "ffmpeg");
+    assertNotEquals(key, changed);
+    assertTrue(cache.get(changed).isNone());
+
+    // A different encoder binary or operation parameters must not match either
+    assertNotEquals(key, EncodeCache.key("Encode", sources, profiles(profile("-c:v libx264 -crf 23")), "ffmpeg4"));
+    assertNotEquals(key, EncodeCache.key("Encode", sources, profiles(profile("-c:v libx264 -crf 23")), "ffmpeg", 1));
+    assertEquals(key, EncodeCache.key("Encode", sources, profiles(profile("-c:v libx264 -crf 23")), "ffmpeg"));
+  }
+
+  @Test
+  public void testSourceWithoutChecksumIsNotCached() throws Exception {
+    Track source = TrackImpl.fromURI(new URI("http://localhost/source.mp4"));
+    assertNull(EncodeCache.key("Encode", Collections.singletonMap("video", source), profiles(profile("-c copy")),
+            "ffmpeg"));
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    EncodeCache cache = new EncodeCache(cacheDir, Long.MAX_VALUE);
+    String first = EncodeCache.key("Encode", sources, profiles(profile("-crf 23")), "ffmpeg");
+    String second = EncodeCache.key("Encode", sources, profiles(profile("-crf 18")), "ffmpeg");
+    put(cache, first, "first.mp4", "first");
+    put(cache, second, "second.mp4", "second");
+    assertEquals(2, cache.getEntries());
+
+    cache.setMaxSize(cache.getSize() - 1);
+    assertEquals(1, cache.getEntries());
+    assertTrue(cache.get(first).isNone());
+    assertTrue(cache.get(second).isSome());
+    assertFalse(new File(cacheDir, first).exists());
+  }
+
+  @Test
+  public void testEntriesSurviveRestart() throws Exception {
+    EncodeCache cache = new EncodeCache(cacheDir, Long.MAX_VALUE);
+    String key = EncodeCache.key("Encode", sources, profiles(profile("-c copy")), "ffmpeg");
+    put(cache, key, "source-encoded.mp4", "encoded");
+
+    EncodeCache restarted = new EncodeCache(cacheDir, Long.MAX_VALUE);
+    assertEquals(1, restarted.getEntries());
+    assertEquals(cache.getSize(), restarted.getSize());
+    assertTrue(restarted.get(key).isSome());
+  }
+
+  private void put(EncodeCache cache, String key, String name, String content) throws Exception {
+    File output = tmp.newFile();
+    FileUtils.writeStringToFile(output, content, StandardCharsets.UTF_8);
+    Track track = TrackImpl.fromURI(output.toURI());
+    cache.put(key, Collections.singletonList(name), Collections.singletonList(output),
+            Collections.singletonList(track));
+  }
+
+  private static EncodingProfile profile(String command) {
+    EncodingProfileImpl profile = new EncodingProfileImpl("test.work", "Test", null);
+    profile.setOutputType(EncodingProfile.MediaType.Visual);
+    profile.setSuffix("-encoded.mp4");
+    profile.addExtension("ffmpeg.command", "-i #{in.video.path} " + command + " #{out.dir}/#{out.name}#{out.suffix}");
+    return profile;
+  }
+
+  private static List<EncodingProfile> profiles(EncodingProfile profile) {
+    return Collections.singletonList(profile);
+  }
+
+}
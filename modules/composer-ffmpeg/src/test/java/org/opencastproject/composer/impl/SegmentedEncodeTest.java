@@ -0,0 +1,311 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.composer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.composer.api.EncoderException;
+import org.opencastproject.composer.api.EncodingProfile;
+import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.JobImpl;
+import org.opencastproject.mediapackage.MediaPackageElementParser;
+import org.opencastproject.mediapackage.Track;
+import org.opencastproject.serviceregistry.api.IncidentService;
+import org.opencastproject.serviceregistry.api.Incidents;
+import org.opencastproject.serviceregistry.api.ServiceRegistry;
+import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.workspace.api.Workspace;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the segmented encoding of the {@link ComposerServiceImpl}, where the segments are encoded by child jobs.
+ */
+public class SegmentedEncodeTest {
+
+  /** The encoding profile to split encodings for */
+  private static final String PROFILE_ID = "av.work";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  /** Directory of the files of the encoder engine */
+  private File workDirectory;
+
+  /** Directory of the files in the workspace */
+  private File workspaceDirectory;
+
+  /** The number of segments the source is split into */
+  private int segmentCount;
+
+  /** The segment whose encoding fails, or -1 */
+  private int failingSegment = -1;
+
+  /** The segment whose job keeps running, or -1 */
+  private int runningSegment = -1;
+
+  /** The jobs known to the service registry */
+  private final Map<Long, Job> jobs = new HashMap<>();
+
+  /** The segment jobs in the order of their creation */
+  private final List<Job> segmentJobs = new ArrayList<>();
+
+  /** The jobs updated by the composer service */
+  private final List<Job> updatedJobs = new ArrayList<>();
+
+  private final AtomicLong jobIds = new AtomicLong();
+
+  private ComposerServiceImpl composerService;
+
+  private Track sourceTrack;
+
+  @Before
+  public void setUp() throws Exception {
+    workDirectory = tmp.newFolder("work");
+    workspaceDirectory = tmp.newFolder("workspace");
+    final File source = new File(workDirectory, "source.mp4");
+    FileUtils.writeStringToFile(source, "source", StandardCharsets.UTF_8);
+
+    final Workspace workspace = EasyMock.createNiceMock(Workspace.class);
+    EasyMock.expect(workspace.get(EasyMock.anyObject(URI.class), EasyMock.anyBoolean())).andReturn(source).anyTimes();
+    EasyMock.expect(workspace.get(EasyMock.anyObject(URI.class)))
+            .andAnswer(() -> new File((URI) EasyMock.getCurrentArguments()[0])).anyTimes();
+    EasyMock.expect(workspace.putInCollection(EasyMock.anyString(), EasyMock.anyString(),
+            EasyMock.anyObject(InputStream.class))).andAnswer(() -> {
+              final File file = new File(workspaceDirectory, (String) EasyMock.getCurrentArguments()[1]);
+              try (OutputStream out = new FileOutputStream(file)) {
+                IOUtils.copy((InputStream) EasyMock.getCurrentArguments()[2], out);
+              }
+              return file.toURI();
+            }).anyTimes();
+    workspace.delete(EasyMock.anyObject(URI.class));
+    EasyMock.expectLastCall().andAnswer(() -> {
+      FileUtils.forceDelete(new File((URI) EasyMock.getCurrentArguments()[0]));
+      return null;
+    }).anyTimes();
+
+    final EncodingProfileScanner profileScanner = new EncodingProfileScanner();
+    profileScanner.install(new File(SegmentedEncodeTest.class.getResource("/encodingprofiles.properties").toURI()));
+
+    sourceTrack = (Track) MediaPackageElementParser.getFromXml(IOUtils.toString(
+            SegmentedEncodeTest.class.getResourceAsStream("/composer_test_source_track_video.xml"),
+            StandardCharsets.UTF_8));
+
+    composerService = new ComposerServiceImpl() {
+      @Override
+      protected EncoderEngine getEncoderEngine() {
+        return new SegmentEncoderEngine();
+      }
+
+      @Override
+      protected Track inspect(Job job, URI workspaceURI) throws EncoderException {
+        return sourceTrack;
+      }
+    };
+
+    final ServiceRegistry serviceRegistry = EasyMock.createNiceMock(ServiceRegistry.class);
+    final IncidentService incidentService = EasyMock.createNiceMock(IncidentService.class);
+    EasyMock.expect(serviceRegistry.createJob(EasyMock.anyString(), EasyMock.anyString(), EasyMock.anyObject(),
+            EasyMock.anyFloat())).andAnswer(() -> {
+              @SuppressWarnings("unchecked")
+              final Job job = createSegmentJob((String) EasyMock.getCurrentArguments()[1],
+                      (List<String>) EasyMock.getCurrentArguments()[2]);
+              return job;
+            }).anyTimes();
+    EasyMock.expect(serviceRegistry.getJob(EasyMock.anyLong()))
+            .andAnswer(() -> jobs.get((Long) EasyMock.getCurrentArguments()[0])).anyTimes();
+    EasyMock.expect(serviceRegistry.updateJob(EasyMock.anyObject(Job.class))).andAnswer(() -> {
+      final Job job = (Job) EasyMock.getCurrentArguments()[0];
+      updatedJobs.add(job);
+      return job;
+    }).anyTimes();
+    EasyMock.expect(serviceRegistry.incident())
+            .andAnswer(() -> new Incidents(serviceRegistry, incidentService)).anyTimes();
+    EasyMock.replay(workspace, serviceRegistry, incidentService);
+
+    composerService.setServiceRegistry(serviceRegistry);
+    composerService.setProfileScanner(profileScanner);
+    composerService.setWorkspace(workspace);
+
+    // Split the two seconds long source track into segments of one second
+    final Hashtable<String, String> properties = new Hashtable<>();
+    properties.put(ComposerServiceImpl.ENCODE_SEGMENTED_PROFILES, PROFILE_ID);
+    properties.put(ComposerServiceImpl.ENCODE_SEGMENTED_MIN_DURATION, "0");
+    properties.put(ComposerServiceImpl.ENCODE_SEGMENTED_SEGMENT_DURATION, "1");
+    composerService.updated(properties);
+  }
+
+  /**
+   * Creates a segment job, which is processed right away unless it is to keep running.
+   */
+  private Job createSegmentJob(String operation, List<String> arguments) {
+    final Job job = new JobImpl(jobIds.incrementAndGet());
+    job.setJobType(ComposerServiceImpl.JOB_TYPE);
+    job.setOperation(operation);
+    job.setArguments(arguments);
+    jobs.put(job.getId(), job);
+    segmentJobs.add(job);
+    if (arguments.get(1).contains("segment-" + runningSegment + ".")) {
+      job.setStatus(Job.Status.RUNNING);
+      return job;
+    }
+    try {
+      job.setPayload(composerService.process(job));
+      job.setStatus(Job.Status.FINISHED);
+    } catch (ServiceRegistryException e) {
+      job.setStatus(Job.Status.FAILED);
+    }
+    return job;
+  }
+
+  /**
+   * Processes an encoding job of the source track.
+   */
+  private String encode() throws Exception {
+    final Job job = new JobImpl(jobIds.incrementAndGet());
+    job.setJobType(ComposerServiceImpl.JOB_TYPE);
+    job.setOperation(ComposerServiceImpl.Operation.Encode.toString());
+    job.setArguments(Arrays.asList(PROFILE_ID, MediaPackageElementParser.getAsXml(sourceTrack)));
+    job.setStatus(Job.Status.RUNNING);
+    jobs.put(job.getId(), job);
+    return composerService.process(job);
+  }
+
+  @Test
+  public void testSegmentedEncode() throws Exception {
+    segmentCount = 2;
+
+    encode();
+
+    assertEquals(2, segmentJobs.size());
+    for (Job segmentJob : segmentJobs) {
+      assertEquals(ComposerServiceImpl.Operation.EncodeSegment.toString(), segmentJob.getOperation());
+      assertEquals(Job.Status.FINISHED, segmentJob.getStatus());
+    }
+
+    // Only the concatenated encoded segments are left in the workspace
+    final File[] files = workspaceDirectory.listFiles();
+    assertEquals(1, files.length);
+    assertEquals("segment-0 encoded segment-1 encoded", FileUtils.readFileToString(files[0], StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testFailedSegmentedEncode() throws Exception {
+    segmentCount = 3;
+    failingSegment = 1;
+    runningSegment = 2;
+
+    try {
+      encode();
+      fail("The encoding must fail if a segment job fails");
+    } catch (ServiceRegistryException e) {
+      assertTrue(e.getCause() instanceof EncoderException);
+    }
+
+    assertEquals(3, segmentJobs.size());
+    assertEquals(Job.Status.FINISHED, segmentJobs.get(0).getStatus());
+    assertEquals(Job.Status.FAILED, segmentJobs.get(1).getStatus());
+    assertEquals(Job.Status.CANCELED, segmentJobs.get(2).getStatus());
+    assertTrue(updatedJobs.contains(segmentJobs.get(2)));
+
+    // Both the segments and the encoded segment of the finished job are deleted
+    assertEquals(0, workspaceDirectory.listFiles().length);
+  }
+
+  /**
+   * Encoder engine splitting, encoding and concatenating text files instead of running FFmpeg.
+   */
+  private class SegmentEncoderEngine extends EncoderEngine {
+
+    SegmentEncoderEngine() {
+      super("ffmpeg");
+    }
+
+    @Override
+    List<File> split(File mediaSource, long segmentDuration) throws EncoderException {
+      final List<File> segments = new ArrayList<>();
+      try {
+        for (int i = 0; i < segmentCount; i++) {
+          final File segment = new File(workDirectory, "segment-" + i + ".mp4");
+          FileUtils.writeStringToFile(segment, "segment-" + i, StandardCharsets.UTF_8);
+          segments.add(segment);
+        }
+      } catch (Exception e) {
+        throw new EncoderException(e);
+      }
+      return segments;
+    }
+
+    @Override
+    File encode(File mediaSource, EncodingProfile format, Map<String, String> properties)
+            throws EncoderException {
+      if (mediaSource.getName().contains("segment-" + failingSegment + ".")) {
+        throw new EncoderException("Encoding " + mediaSource + " failed");
+      }
+      final File output = new File(workDirectory, FilenameUtils.getBaseName(mediaSource.getName()) + "-encoded.mp4");
+      try {
+        FileUtils.writeStringToFile(output, FileUtils.readFileToString(mediaSource, StandardCharsets.UTF_8)
+                + " encoded", StandardCharsets.UTF_8);
+      } catch (Exception e) {
+        throw new EncoderException(e);
+      }
+      return output;
+    }
+
+    @Override
+    File concat(List<File> segments, File output) throws EncoderException {
+      final List<String> contents = new ArrayList<>();
+      try {
+        for (File segment : segments) {
+          contents.add(FileUtils.readFileToString(segment, StandardCharsets.UTF_8));
+        }
+        FileUtils.writeStringToFile(output, String.join(" ", contents), StandardCharsets.UTF_8);
+      } catch (Exception e) {
+        throw new EncoderException(e);
+      }
+      return output;
+    }
+  }
+}
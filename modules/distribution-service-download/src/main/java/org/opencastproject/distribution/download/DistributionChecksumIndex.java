@@ -0,0 +1,240 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.distribution.download;
+
+import org.opencastproject.util.Checksum;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistent index of the files distributed for a media package, mapping the checksum and size of each distributed
+ * file to its location in the distribution directory. It is used to find an already distributed copy of an element to
+ * link to in constant time instead of walking and comparing all distributed files of the media package.
+ * <p>
+ * There is one index file per organization and media package, stored in a separate index directory. It must not be
+ * located within the distribution directory, since that is published and the index lists all distributed files of a
+ * media package. Entries are verified lazily: an entry whose file no longer exists or has been changed since it was
+ * indexed is dropped when it is looked up.
+ * <p>
+ * The distribution directory may be shared by several nodes, which the synchronization of this class does not cover.
+ * Index files are therefore replaced atomically, so that readers never see a partially written index. An entry lost to
+ * a concurrent update of another node only costs a comparison of the distributed files, which adds it again.
+ */
+class DistributionChecksumIndex {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(DistributionChecksumIndex.class);
+
+  /** File name extension of the index files */
+  private static final String INDEX_EXTENSION = ".index";
+
+  /** The distribution directory */
+  private final File distributionDirectory;
+
+  /** The directory containing the index files */
+  private final File indexDirectory;
+
+  /**
+   * Creates an index of the files within the given distribution directory.
+   *
+   * @param distributionDirectory
+   *          the distribution directory
+   * @param indexDirectory
+   *          the directory to store the index files in, outside of the distribution directory
+   */
+  DistributionChecksumIndex(File distributionDirectory, File indexDirectory) {
+    this.distributionDirectory = distributionDirectory;
+    this.indexDirectory = indexDirectory;
+  }
+
+  /**
+   * Looks up an unchanged distributed file with the given checksum and size.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @param checksum
+   *          the checksum of the file
+   * @param size
+   *          the size of the file
+   * @return the distributed file or <code>null</code> if there is none
+   * @throws IOException
+   *           if the index cannot be read or updated
+   */
+  synchronized File find(String orgId, String mpId, Checksum checksum, long size) throws IOException {
+    File orgDirectory = new File(distributionDirectory, orgId);
+    List<Entry> entries = read(orgId, mpId);
+    File result = null;
+    boolean stale = false;
+    for (Iterator<Entry> i = entries.iterator(); i.hasNext();) {
+      Entry entry = i.next();
+      File file = new File(orgDirectory, entry.path);
+      if (!file.isFile() || file.length() != entry.size || file.lastModified() != entry.lastModified) {
+        logger.debug("Dropping stale entry {} from the checksum index of media package {}", entry.path, mpId);
+        i.remove();
+        stale = true;
+      } else if (result == null && entry.size == size && entry.checksum.equals(toString(checksum))) {
+        result = file;
+      }
+    }
+    if (stale)
+      write(orgId, mpId, entries);
+    return result;
+  }
+
+  /**
+   * Adds a distributed file to the index, replacing any previous entry for the same file.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @param checksum
+   *          the checksum of the file
+   * @param file
+   *          the distributed file
+   * @throws IOException
+   *           if the index cannot be read or updated
+   */
+  synchronized void add(String orgId, String mpId, Checksum checksum, File file) throws IOException {
+    String path = getRelativePath(orgId, file);
+    List<Entry> entries = read(orgId, mpId);
+    for (Iterator<Entry> i = entries.iterator(); i.hasNext();) {
+      if (i.next().path.equals(path))
+        i.remove();
+    }
+    entries.add(new Entry(toString(checksum), file.length(), file.lastModified(), path));
+    write(orgId, mpId, entries);
+  }
+
+  /**
+   * Removes all entries of files within the given file or directory from the index.
+   *
+   * @param orgId
+   *          the organization identifier
+   * @param mpId
+   *          the media package identifier
+   * @param file
+   *          the retracted file or directory
+   * @throws IOException
+   *           if the index cannot be read or updated
+   */
+  synchronized void remove(String orgId, String mpId, File file) throws IOException {
+    String path = getRelativePath(orgId, file);
+    List<Entry> entries = read(orgId, mpId);
+    boolean removed = false;
+    for (Iterator<Entry> i = entries.iterator(); i.hasNext();) {
+      String entryPath = i.next().path;
+      if (entryPath.equals(path) || entryPath.startsWith(path + "/")) {
+        i.remove();
+        removed = true;
+      }
+    }
+    if (removed)
+      write(orgId, mpId, entries);
+  }
+
+  private File getIndexFile(String orgId, String mpId) {
+    return new File(new File(indexDirectory, orgId), mpId + INDEX_EXTENSION);
+  }
+
+  private String getRelativePath(String orgId, File file) {
+    Path orgDirectory = new File(distributionDirectory, orgId).getAbsoluteFile().toPath();
+    return orgDirectory.relativize(file.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+  }
+
+  private static String toString(Checksum checksum) {
+    return checksum.getType() + ":" + checksum.getValue();
+  }
+
+  private List<Entry> read(String orgId, String mpId) throws IOException {
+    File indexFile = getIndexFile(orgId, mpId);
+    List<Entry> entries = new ArrayList<>();
+    if (!indexFile.isFile())
+      return entries;
+    for (String line : FileUtils.readLines(indexFile, StandardCharsets.UTF_8)) {
+      String[] fields = StringUtils.split(line, "\t", 4);
+      if (fields.length != 4) {
+        logger.warn("Ignoring malformed line in checksum index {}: {}", indexFile, line);
+        continue;
+      }
+      try {
+        entries.add(new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+      } catch (NumberFormatException e) {
+        logger.warn("Ignoring malformed line in checksum index {}: {}", indexFile, line);
+      }
+    }
+    return entries;
+  }
+
+  private void write(String orgId, String mpId, List<Entry> entries) throws IOException {
+    File indexFile = getIndexFile(orgId, mpId);
+    if (entries.isEmpty()) {
+      FileUtils.deleteQuietly(indexFile);
+      return;
+    }
+    List<String> lines = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      lines.add(entry.checksum + "\t" + entry.size + "\t" + entry.lastModified + "\t" + entry.path);
+    }
+    FileUtils.forceMkdir(indexFile.getParentFile());
+    File tmp = new File(indexFile.getParentFile(), indexFile.getName() + "." + UUID.randomUUID());
+    try {
+      FileUtils.writeLines(tmp, StandardCharsets.UTF_8.name(), lines);
+      Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      FileUtils.deleteQuietly(tmp);
+    }
+  }
+
+  /** An index entry */
+  private static final class Entry {
+    private final String checksum;
+    private final long size;
+    private final long lastModified;
+    private final String path;
+
+    Entry(String checksum, long size, long lastModified, String path) {
+      this.checksum = checksum;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.path = path;
+    }
+  }
+
+}
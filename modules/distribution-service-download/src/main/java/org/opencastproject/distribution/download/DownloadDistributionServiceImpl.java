@@ -21,6 +21,7 @@
 package org.opencastproject.distribution.download;
 
 import static java.lang.String.format;
+import static org.opencastproject.util.EqualsUtil.eq;
 import static org.opencastproject.util.EqualsUtil.ne;
 import static org.opencastproject.util.HttpUtil.waitForResource;
 import static org.opencastproject.util.PathSupport.path;
@@ -36,13 +37,17 @@ import org.opencastproject.mediapackage.MediaPackageElement;
 import org.opencastproject.mediapackage.MediaPackageElementParser;
 import org.opencastproject.mediapackage.MediaPackageException;
 import org.opencastproject.mediapackage.MediaPackageParser;
+import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.User;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.util.Checksum;
 import org.opencastproject.util.FileSupport;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.util.UrlSupport;
 import org.opencastproject.util.data.Effect;
+import org.opencastproject.util.data.functions.Functions;
 import org.opencastproject.util.data.functions.Misc;
 
 import com.google.gson.Gson;
@@ -51,6 +56,7 @@ import com.google.gson.reflect.TypeToken;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
@@ -74,8 +80,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -120,8 +135,27 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
   /** Interval time in millis for checking distributed file request */
   private static final long INTERVAL = 300L;
 
+  /** The default number of elements distributed concurrently */
+  public static final int DEFAULT_DISTRIBUTION_THREADS = 4;
+
+  /** The key to look for in the service configuration file to override the {@link DEFAULT_DISTRIBUTION_THREADS} */
+  public static final String DISTRIBUTION_THREADS_KEY = "distribute.threads";
+
+  /** The thread pool distributing the elements of a job concurrently and checking their availability */
+  private final ThreadPoolExecutor distributionExecutor = new ThreadPoolExecutor(DEFAULT_DISTRIBUTION_THREADS,
+          DEFAULT_DISTRIBUTION_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+  /** The key of the directory to store the checksum index in, which must not be within the download directory */
+  public static final String CHECKSUMS_DIRECTORY_KEY = "org.opencastproject.download.checksums.directory";
+
+  /** The default checksum index directory, relative to the storage directory */
+  public static final String DEFAULT_CHECKSUMS_DIRECTORY = "downloads-checksums";
+
   private Gson gson = new Gson();
 
+  /** The index of distributed files by checksum */
+  private DistributionChecksumIndex checksumIndex;
+
   /**
    * Creates a new instance of the download distribution service.
    */
@@ -148,7 +182,25 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
       throw new IllegalStateException("Distribution directory must be set (org.opencastproject.download.directory)");
     this.distributionDirectory = new File(ccDistributionDirectory);
     logger.info("Download distribution directory is {}", distributionDirectory);
+    String ccChecksumsDirectory = cc.getBundleContext().getProperty(CHECKSUMS_DIRECTORY_KEY);
+    if (ccChecksumsDirectory == null) {
+      String storageDirectory = cc.getBundleContext().getProperty("org.opencastproject.storage.dir");
+      if (storageDirectory == null)
+        throw new IllegalStateException("Storage directory must be set (org.opencastproject.storage.dir)");
+      ccChecksumsDirectory = new File(storageDirectory, DEFAULT_CHECKSUMS_DIRECTORY).getPath();
+    }
+    File checksumsDirectory = new File(ccChecksumsDirectory);
+    logger.info("Download distribution checksum index directory is {}", checksumsDirectory);
+    this.checksumIndex = new DistributionChecksumIndex(distributionDirectory, checksumsDirectory);
     this.distributionChannel = OsgiUtil.getComponentContextProperty(cc, CONFIG_KEY_STORE_TYPE);
+    distributionExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Deactivate method for this OSGi service implementation.
+   */
+  public void deactivate() {
+    distributionExecutor.shutdown();
   }
 
   public String getDistributionType() {
@@ -240,13 +292,152 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
     final Set<MediaPackageElement> elements = getElements(channelId, mediapackage, elementIds);
     List<MediaPackageElement> distributedElements = new ArrayList<MediaPackageElement>();
 
-    for (MediaPackageElement element : elements) {
-      MediaPackageElement distributedElement = distributeElement(channelId, mediapackage, element, checkAvailability, preserveReference);
-      distributedElements.add(distributedElement);
+    if (elements.size() == 1) {
+      for (MediaPackageElement element : elements) {
+        distributedElements.add(distributeElement(channelId, mediapackage, element, checkAvailability,
+                preserveReference));
+      }
+      return distributedElements.toArray(new MediaPackageElement[distributedElements.size()]);
+    }
+
+    // Link all elements concurrently and check their availability afterwards
+    final Organization organization = securityService.getOrganization();
+    final User user = securityService.getUser();
+    Map<MediaPackageElement, Future<MediaPackageElement>> futures = new LinkedHashMap<>();
+    for (final MediaPackageElement element : elements) {
+      futures.put(element, submit(organization, user,
+              () -> distributeElement(channelId, mediapackage, element, false, preserveReference)));
+    }
+    try {
+      for (Future<MediaPackageElement> future : futures.values()) {
+        distributedElements.add(getResult(future));
+      }
+    } catch (DistributionException e) {
+      cancelDistribution(channelId, mediapackage, futures);
+      throw e;
+    }
+
+    if (checkAvailability) {
+      List<URI> uris = new ArrayList<>();
+      for (MediaPackageElement distributedElement : distributedElements) {
+        uris.add(distributedElement.getURI());
+      }
+      waitForResources(uris, organization, user);
     }
     return distributedElements.toArray(new MediaPackageElement[distributedElements.size()]);
   }
 
+  /**
+   * Waits until all distributed files are available via http. All pending files are requested concurrently in each
+   * polling round.
+   *
+   * @param uris
+   *          the URIs of the distributed files
+   * @param organization
+   *          the organization to request the files as
+   * @param user
+   *          the user to request the files as
+   * @throws DistributionException
+   *           if a file does not become available in time
+   */
+  private void waitForResources(List<URI> uris, Organization organization, User user)
+          throws DistributionException {
+    logger.debug("Checking availability of {} distributed artifacts", uris.size());
+    Set<URI> pending = new LinkedHashSet<>(uris);
+    long waited = 0L;
+    while (true) {
+      Map<URI, Future<Integer>> requests = new LinkedHashMap<>();
+      for (final URI uri : pending) {
+        requests.put(uri, submit(organization, user, () -> waitForResource(trustedHttpClient, uri,
+                HttpServletResponse.SC_OK, 0L, INTERVAL).fold(Misc.<Exception, Integer> chuck(), Functions.<Integer> identity())));
+      }
+      for (Map.Entry<URI, Future<Integer>> request : requests.entrySet()) {
+        Integer status = getResult(request.getValue());
+        if (eq(status, HttpServletResponse.SC_OK)) {
+          pending.remove(request.getKey());
+        } else if (waited >= TIMEOUT) {
+          logger.warn("Attempt to access distributed file {} returned code {}", request.getKey(), status);
+          throw new DistributionException("Unable to load distributed file " + request.getKey().toString());
+        }
+      }
+      if (pending.isEmpty())
+        return;
+      try {
+        Thread.sleep(INTERVAL);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new DistributionException("Interrupted while checking the availability of distributed files", e);
+      }
+      waited += INTERVAL;
+    }
+  }
+
+  /**
+   * Cleans up after an element of a concurrent distribution failed. Distributions which have not been started yet are
+   * cancelled and the elements distributed by the others are retracted once they are done.
+   *
+   * @param channelId
+   *          the publication channel
+   * @param mediapackage
+   *          the media package
+   * @param futures
+   *          the distributions of the elements
+   */
+  private void cancelDistribution(String channelId, MediaPackage mediapackage,
+          Map<MediaPackageElement, Future<MediaPackageElement>> futures) {
+    for (Future<MediaPackageElement> future : futures.values()) {
+      future.cancel(false);
+    }
+    for (Map.Entry<MediaPackageElement, Future<MediaPackageElement>> distribution : futures.entrySet()) {
+      if (distribution.getValue().isCancelled())
+        continue;
+      try {
+        getResult(distribution.getValue());
+      } catch (DistributionException e) {
+        // Failed elements have not been distributed
+        continue;
+      }
+      try {
+        retractElement(channelId, mediapackage, distribution.getKey());
+      } catch (DistributionException e) {
+        logger.warn("Unable to retract element {} of media package {} from publication channel {} after a failed "
+                + "distribution", distribution.getKey().getIdentifier(), mediapackage.getIdentifier(), channelId, e);
+      }
+    }
+  }
+
+  /**
+   * Runs a task on the distribution thread pool in the given security context.
+   */
+  private <A> Future<A> submit(final Organization organization, final User user, final Callable<A> task) {
+    return distributionExecutor.submit(() -> {
+      securityService.setOrganization(organization);
+      securityService.setUser(user);
+      try {
+        return task.call();
+      } finally {
+        securityService.setOrganization(null);
+        securityService.setUser(null);
+      }
+    });
+  }
+
+  /**
+   * Waits for the result of a task submitted to the distribution thread pool.
+   */
+  private <A> A getResult(Future<A> future) throws DistributionException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DistributionException("Interrupted while distributing elements", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof DistributionException)
+        throw (DistributionException) e.getCause();
+      throw new DistributionException(e.getCause());
+    }
+  }
+
   /**
    * Distribute a Mediapackage element to the download distribution service.
    *
@@ -292,6 +483,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
 
     final String mediapackageId = mediapackage.getIdentifier().compact();
     final String elementId = element.getIdentifier();
+    final String orgId = securityService.getOrganization().getId();
 
     try {
       File source;
@@ -305,7 +497,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
 
       // Try to find a duplicated element source
       try {
-        source = findDuplicatedElementSource(source, mediapackageId);
+        source = findDuplicatedElementSource(source, element.getChecksum(), mediapackageId);
       } catch (IOException e) {
         logger.warn("Unable to find duplicated source {}: {}", source, ExceptionUtils.getMessage(e));
       }
@@ -327,6 +519,13 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
           throw new DistributionException(format("Unable to copy %s to %s", source, destination), e);
         }
       }
+      if (element.getChecksum() != null) {
+        try {
+          checksumIndex.add(orgId, mediapackageId, element.getChecksum(), destination);
+        } catch (IOException e) {
+          logger.warn("Unable to add {} to the checksum index: {}", destination, ExceptionUtils.getMessage(e));
+        }
+      }
       // Create a media package element representation of the distributed file
       MediaPackageElement distributedElement = (MediaPackageElement) element.clone();
       try {
@@ -504,6 +703,11 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
         // TODO Removing a folder containing deleted files may fail on NFS volumes. This needs a cleanup strategy.
         logger.debug("Unable to delete folder {}", elementFile.getParentFile().getAbsolutePath());
       }
+      try {
+        checksumIndex.remove(securityService.getOrganization().getId(), mediapackageId, elementFile.getParentFile());
+      } catch (IOException e) {
+        logger.warn("Unable to remove {} from the checksum index: {}", elementFile, ExceptionUtils.getMessage(e));
+      }
 
       if (mediapackageDir.isDirectory() && mediapackageDir.list().length == 0)
         FileSupport.delete(mediapackageDir);
@@ -585,22 +789,52 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
   }
 
   /**
-   * Try to find the same file being already distributed in one of the other channels
+   * Try to find the same file being already distributed in one of the other channels. If the checksum of the element
+   * is known, the file is looked up in the checksum index. Otherwise, or if the index does not know the file, e.g.
+   * because it has been distributed before the index existed, all files distributed for the media package are compared
+   * with the source file. A file found that way is added to the index.
    *
    * @param source
    *          the source file
+   * @param checksum
+   *          the element's checksum or <code>null</code> if unknown
    * @param mpId
    *          the element's mediapackage id
    * @return the found duplicated file or the given source if nothing has been found
    * @throws IOException
    *           if an I/O error occurs
    */
-  private File findDuplicatedElementSource(final File source, final String mpId) throws IOException {
+  private File findDuplicatedElementSource(final File source, final Checksum checksum, final String mpId)
+          throws IOException {
     String orgId = securityService.getOrganization().getId();
+    if (checksum != null) {
+      File duplicate = checksumIndex.find(orgId, mpId, checksum, source.length());
+      if (duplicate != null)
+        return duplicate;
+    }
+
+    File duplicate = findDuplicatedElementSourceByContent(source, orgId, mpId);
+    if (duplicate != null && checksum != null) {
+      try {
+        checksumIndex.add(orgId, mpId, checksum, duplicate);
+      } catch (IOException e) {
+        logger.warn("Unable to add {} to the checksum index: {}", duplicate, ExceptionUtils.getMessage(e));
+      }
+    }
+    return duplicate != null ? duplicate : source;
+  }
+
+  /**
+   * Compares all files distributed for the media package with the source file.
+   *
+   * @return the found duplicated file or <code>null</code> if nothing has been found
+   */
+  private File findDuplicatedElementSourceByContent(final File source, final String orgId, final String mpId)
+          throws IOException {
     final Path rootPath = Paths.get(distributionDirectory.getAbsolutePath(), orgId);
 
     if (!Files.exists(rootPath))
-      return source;
+      return null;
 
     List<Path> mediaPackageDirectories = new ArrayList<>();
     try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(rootPath)) {
@@ -613,7 +847,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
     }
 
     if (mediaPackageDirectories.isEmpty())
-      return source;
+      return null;
 
     final long size = Files.size(source.toPath());
 
@@ -639,10 +873,7 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
       if (result[0] != null)
         break;
     }
-    if (result[0] != null)
-      return result[0];
-
-    return source;
+    return result[0];
   }
 
   /**
@@ -704,6 +935,26 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
             DEFAULT_DISTRIBUTE_JOB_LOAD, serviceRegistry);
     retractJobLoad = LoadUtil.getConfiguredLoadValue(properties, RETRACT_JOB_LOAD_KEY, DEFAULT_RETRACT_JOB_LOAD,
             serviceRegistry);
+
+    int threads = DEFAULT_DISTRIBUTION_THREADS;
+    Object value = properties == null ? null : properties.get(DISTRIBUTION_THREADS_KEY);
+    if (value != null && StringUtils.isNotBlank(value.toString())) {
+      try {
+        threads = Integer.parseInt(value.toString().trim());
+      } catch (NumberFormatException e) {
+        throw new ConfigurationException(DISTRIBUTION_THREADS_KEY, "Not an integer: " + value);
+      }
+      if (threads < 1)
+        throw new ConfigurationException(DISTRIBUTION_THREADS_KEY, "Must be at least 1: " + value);
+    }
+    if (threads > distributionExecutor.getMaximumPoolSize()) {
+      distributionExecutor.setMaximumPoolSize(threads);
+      distributionExecutor.setCorePoolSize(threads);
+    } else {
+      distributionExecutor.setCorePoolSize(threads);
+      distributionExecutor.setMaximumPoolSize(threads);
+    }
+    logger.debug("Distributing up to {} elements concurrently", threads);
   }
 
 }
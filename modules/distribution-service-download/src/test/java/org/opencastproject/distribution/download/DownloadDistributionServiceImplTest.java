@@ -21,6 +21,7 @@
 
 package org.opencastproject.distribution.download;
 
+import org.opencastproject.distribution.api.DistributionException;
 import org.opencastproject.distribution.api.DistributionService;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.JobBarrier;
@@ -63,8 +64,13 @@ import org.osgi.service.component.ComponentContext;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Dictionary;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -73,6 +79,7 @@ public class DownloadDistributionServiceImplTest {
   private DownloadDistributionServiceImpl service = null;
   private MediaPackage mp = null;
   private File distributionRoot = null;
+  private File checksumsRoot = null;
   private ServiceRegistry serviceRegistry = null;
   private DefaultOrganization defaultOrganization;
 
@@ -82,6 +89,7 @@ public class DownloadDistributionServiceImplTest {
     mp = MediaPackageParser.getFromXml(IOUtils.toString(getClass().getResourceAsStream("/mediapackage.xml"), "UTF-8"));
 
     distributionRoot = new File(mediaPackageRoot, "static");
+    checksumsRoot = new File(mediaPackageRoot, "checksums");
     service = new DownloadDistributionServiceImpl();
 
     StatusLine statusLine = EasyMock.createNiceMock(StatusLine.class);
@@ -147,6 +155,8 @@ public class DownloadDistributionServiceImplTest {
     BundleContext bc = EasyMock.createNiceMock(BundleContext.class);
     EasyMock.expect(bc.getProperty("org.opencastproject.download.directory")).andReturn(distributionRoot.toString()).anyTimes();
     EasyMock.expect(bc.getProperty("org.opencastproject.download.url")).andReturn(UrlSupport.DEFAULT_BASE_URL).anyTimes();
+    EasyMock.expect(bc.getProperty(DownloadDistributionServiceImpl.CHECKSUMS_DIRECTORY_KEY))
+            .andReturn(checksumsRoot.toString()).anyTimes();
     ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
     Dictionary<String, Object> p = new Hashtable<String, Object>();
     p.put(DistributionService.CONFIG_KEY_STORE_TYPE, "download");
@@ -159,6 +169,7 @@ public class DownloadDistributionServiceImplTest {
   @After
   public void tearDown() throws Exception {
     FileUtils.deleteDirectory(distributionRoot);
+    FileUtils.deleteDirectory(checksumsRoot);
     ((ServiceRegistryInMemoryImpl) serviceRegistry).dispose();
   }
 
@@ -302,4 +313,92 @@ public class DownloadDistributionServiceImplTest {
     Assert.assertTrue(service.getDistributionFile("oai-pmh", mp, mp.getElementById("notes")).isFile());
   }
 
+  @Test
+  public void testBulkDistribution() throws Exception {
+    Set<String> elementIds = new HashSet<>(Arrays.asList("track-1", "catalog-1", "catalog-2", "notes"));
+    Job job = service.distribute("engage-player", mp, elementIds, true);
+    JobBarrier jobBarrier = new JobBarrier(null, serviceRegistry, 500, job);
+    jobBarrier.waitForJobs();
+
+    List<? extends MediaPackageElement> distributed = MediaPackageElementParser.getArrayFromXml(job.getPayload());
+    Assert.assertEquals(4, distributed.size());
+    for (String elementId : elementIds) {
+      Assert.assertTrue(service.getDistributionFile("engage-player", mp, mp.getElementById(elementId)).isFile());
+    }
+  }
+
+  @Test
+  public void testFailedBulkDistribution() throws Exception {
+    MediaPackageElement missing = (MediaPackageElement) mp.getElementById("notes").clone();
+    missing.setIdentifier("missing");
+    missing.setURI(new URI("missing.txt"));
+    missing.setChecksum(null);
+    mp.add(missing);
+
+    Set<String> elementIds = new HashSet<>(Arrays.asList("track-1", "catalog-1", "catalog-2", "missing"));
+    try {
+      service.distributeElements("engage-player", mp, elementIds, false);
+      Assert.fail("Distributing a missing element must fail");
+    } catch (DistributionException e) {
+      // expected
+    }
+
+    // The elements distributed before the failure have been retracted
+    for (String elementId : elementIds) {
+      Assert.assertFalse(service.getDistributionFile("engage-player", mp, mp.getElementById(elementId)).exists());
+    }
+  }
+
+  @Test
+  public void testChecksumIndex() throws Exception {
+    Job job1 = service.distribute("engage-player", mp, "track-1");
+    Job job2 = service.distribute("oai-pmh", mp, "track-1");
+    JobBarrier jobBarrier = new JobBarrier(null, serviceRegistry, 500, job1, job2);
+    jobBarrier.waitForJobs();
+
+    File engageFile = service.getDistributionFile("engage-player", mp, mp.getElementById("track-1"));
+    File oaiPmhFile = service.getDistributionFile("oai-pmh", mp, mp.getElementById("track-1"));
+    Assert.assertTrue(Files.isSameFile(engageFile.toPath(), oaiPmhFile.toPath()));
+
+    File index = new File(checksumsRoot, PathSupport.path(defaultOrganization.getId(),
+            mp.getIdentifier().compact() + ".index"));
+    String content = FileUtils.readFileToString(index, "UTF-8");
+    Assert.assertTrue(content.contains("engage-player/" + mp.getIdentifier().compact() + "/track-1/media.mov"));
+    Assert.assertTrue(content.contains("oai-pmh/" + mp.getIdentifier().compact() + "/track-1/media.mov"));
+
+    // Retracting an element removes it from the index
+    Job job3 = service.retract("engage-player", mp, "track-1");
+    jobBarrier = new JobBarrier(null, serviceRegistry, 500, job3);
+    jobBarrier.waitForJobs();
+
+    content = FileUtils.readFileToString(index, "UTF-8");
+    Assert.assertFalse(content.contains("engage-player/"));
+    Assert.assertTrue(content.contains("oai-pmh/"));
+  }
+
+  @Test
+  public void testChecksumIndexMiss() throws Exception {
+    Job job = service.distribute("engage-player", mp, "track-1");
+    JobBarrier jobBarrier = new JobBarrier(null, serviceRegistry, 500, job);
+    jobBarrier.waitForJobs();
+
+    // Distributed before the checksum index existed
+    File index = new File(checksumsRoot, PathSupport.path(defaultOrganization.getId(),
+            mp.getIdentifier().compact() + ".index"));
+    Assert.assertTrue(index.delete());
+
+    job = service.distribute("oai-pmh", mp, "track-1");
+    jobBarrier = new JobBarrier(null, serviceRegistry, 500, job);
+    jobBarrier.waitForJobs();
+
+    File engageFile = service.getDistributionFile("engage-player", mp, mp.getElementById("track-1"));
+    File oaiPmhFile = service.getDistributionFile("oai-pmh", mp, mp.getElementById("track-1"));
+    Assert.assertTrue(Files.isSameFile(engageFile.toPath(), oaiPmhFile.toPath()));
+
+    // The file found by comparing the distributed files has been added to the index
+    String content = FileUtils.readFileToString(index, "UTF-8");
+    Assert.assertTrue(content.contains("engage-player/" + mp.getIdentifier().compact() + "/track-1/media.mov"));
+    Assert.assertTrue(content.contains("oai-pmh/" + mp.getIdentifier().compact() + "/track-1/media.mov"));
+  }
+
 }
@@ -33,6 +33,7 @@ import java.net.URI;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 /**
  * A utility class for creating responses from the external api.
@@ -120,6 +121,19 @@ public final class ApiResponses {
       return ok(version, json);
     }
 
+    /**
+     * Create an ok json response for the external api whose body is streamed to the client
+     *
+     * @param version
+     *          The version that was requested for the api
+     * @param body
+     *          Writes the json body of the response.
+     * @return The new {@link Response}
+     */
+    public static Response ok(ApiVersion version, StreamingOutput body) {
+      return Response.ok(body, APPLICATION_PREFIX + version.toExternalForm() + JSON_SUFFIX).build();
+    }
+
     /**
      * Create a created json response for the external api
      *
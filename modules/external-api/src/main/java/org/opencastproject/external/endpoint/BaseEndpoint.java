@@ -30,7 +30,9 @@ import static org.opencastproject.util.RestUtil.getEndpointUrl;
 import org.opencastproject.external.common.ApiMediaType;
 import org.opencastproject.external.common.ApiVersion;
 import org.opencastproject.external.index.ExternalIndex;
+import org.opencastproject.index.service.impl.index.event.SchedulingConsistencyChecker;
 import org.opencastproject.rest.RestConstants;
+import org.opencastproject.scheduler.api.SchedulerService;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.Role;
 import org.opencastproject.security.api.SecurityService;
@@ -66,6 +68,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -98,6 +101,7 @@ public class BaseEndpoint {
   /* OSGi service references */
   private SecurityService securityService;
   private ExternalIndex externalIndex;
+  private SchedulerService schedulerService;
 
   /** OSGi DI */
   void setExternalIndex(ExternalIndex externalIndex) {
@@ -109,6 +113,11 @@ public class BaseEndpoint {
     this.securityService = securityService;
   }
 
+  /** OSGi DI */
+  void setSchedulerService(SchedulerService schedulerService) {
+    this.schedulerService = schedulerService;
+  }
+
   /** OSGi activation method */
   void activate(ComponentContext cc) {
     logger.info("Activating External API - Base Endpoint");
@@ -236,6 +245,31 @@ public class BaseEndpoint {
     });
   }
 
+  @POST
+  @Path("checkSchedulingIndex")
+  @RestQuery(name = "checkSchedulingIndex",
+          description = "Compares the scheduling information of the events in the External index with the scheduler",
+          returnDescription = "The identifiers of the events whose scheduling information differs", restParameters = {
+          @RestParameter(name = "repair", isRequired = false, description = "Whether to update the differing events "
+                  + "in the index", type = RestParameter.Type.BOOLEAN) }, reponses = {
+          @RestResponse(description = "The index has been checked", responseCode = HttpServletResponse.SC_OK),
+          @RestResponse(description = "Unable to check the index", responseCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR) })
+  public Response checkSchedulingIndex(@FormParam("repair") boolean repair) {
+    try {
+      final List<JValue> events = new ArrayList<>();
+      for (String id : new SchedulingConsistencyChecker(schedulerService, externalIndex)
+              .check(securityService.getOrganization().getId(), securityService.getUser(), repair)) {
+        events.add(v(id));
+      }
+      logger.info("{} events of the external index differ from the scheduler", events.size());
+      JValue json = obj(f("repaired", v(repair)), f("events", arr(events)));
+      return RestUtil.R.ok(MediaType.APPLICATION_JSON_TYPE, serializer.toJson(json));
+    } catch (Exception e) {
+      logger.error("Checking the scheduling information of the external index failed", e);
+      return R.serverError();
+    }
+  }
+
   @POST
   @Path("recreateIndex/{service}")
   @RestQuery(name = "recreateIndexFromService",
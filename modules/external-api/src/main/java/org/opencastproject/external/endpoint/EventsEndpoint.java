@@ -32,6 +32,7 @@ import static org.opencastproject.external.util.SchedulingUtils.SchedulingInfo;
 import static org.opencastproject.external.util.SchedulingUtils.convertConflictingEvents;
 import static org.opencastproject.external.util.SchedulingUtils.getConflictingEvents;
 import static org.opencastproject.util.RestUtil.getEndpointUrl;
+import static org.opencastproject.util.data.functions.Misc.chuck;
 import static org.opencastproject.util.doc.rest.RestParameter.Type.STRING;
 
 import org.opencastproject.capture.CaptureParameters;
@@ -91,6 +92,7 @@ import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.UnauthorizedException;
 import org.opencastproject.security.urlsigning.exception.UrlSigningException;
 import org.opencastproject.security.urlsigning.service.UrlSigningService;
+import org.opencastproject.security.util.SecurityContext;
 import org.opencastproject.systems.OpencastConstants;
 import org.opencastproject.util.Log;
 import org.opencastproject.util.NotFoundException;
@@ -114,7 +116,10 @@ import com.entwinemedia.fn.data.json.JObject;
 import com.entwinemedia.fn.data.json.JValue;
 import com.entwinemedia.fn.data.json.Jsons;
 import com.entwinemedia.fn.data.json.Jsons.Functions;
+import com.entwinemedia.fn.data.json.SimpleSerializer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -129,11 +134,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
@@ -143,6 +152,13 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
@@ -164,6 +180,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 @Path("/")
 @Produces({ ApiMediaType.JSON, ApiMediaType.VERSION_1_0_0, ApiMediaType.VERSION_1_1_0, ApiMediaType.VERSION_1_2_0 })
@@ -182,9 +199,18 @@ public class EventsEndpoint implements ManagedService {
   /** Subtype of previews required by the video editor */
   private static final String DEFAULT_PREVIEW_SUBTYPE = "preview";
 
+  /** Number of threads loading the scheduling information and metadata of listed events */
+  protected static final String LISTING_THREADS_KEY = "listing.threads";
+
+  /** The default number of threads loading the details of listed events */
+  protected static final int DEFAULT_LISTING_THREADS = 8;
+
   /** The logging facility */
   private static final Logger logger = LoggerFactory.getLogger(EventsEndpoint.class);
 
+  /** The json serializer */
+  private static final SimpleSerializer serializer = new SimpleSerializer();
+
   /** Base URL of this endpoint */
   protected String endpointBaseUrl;
 
@@ -194,6 +220,11 @@ public class EventsEndpoint implements ManagedService {
 
   private Map<String, MetadataField<?>> configuredMetadataFields = new TreeMap<>();
 
+  private int listingThreads = DEFAULT_LISTING_THREADS;
+
+  /** Loads the details of listed events concurrently */
+  private ThreadPoolExecutor listingExecutor;
+
   /** The resolutions */
   private enum CommentResolution {
     ALL, UNRESOLVED, RESOLVED;
@@ -294,6 +325,19 @@ public class EventsEndpoint implements ManagedService {
             RestConstants.SERVICE_PATH_PROPERTY);
     endpointBaseUrl = UrlSupport.concat(endpointUrl.getA(), endpointUrl.getB());
     logger.debug("Configured service endpoint is {}", endpointBaseUrl);
+
+    listingExecutor = new ThreadPoolExecutor(listingThreads, listingThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder().setNameFormat("external-api-event-listing-%d").setDaemon(true).build());
+    listingExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  /** OSGi deactivation method */
+  void deactivate() {
+    if (listingExecutor != null) {
+      listingExecutor.shutdownNow();
+      listingExecutor = null;
+    }
   }
 
   /** OSGi callback if properties file is present */
@@ -322,6 +366,26 @@ public class EventsEndpoint implements ManagedService {
     logger.debug("Preview subtype is '{}'", previewSubtype);
 
     configuredMetadataFields = DublinCoreMetadataUtil.getDublinCoreProperties(properties);
+
+    // Read the number of threads loading the details of listed events
+    // Default to DEFAULT_LISTING_THREADS
+    try {
+      listingThreads = Math.max(1, Integer.parseInt(StringUtils.defaultString(
+              (String) properties.get(LISTING_THREADS_KEY), Integer.toString(DEFAULT_LISTING_THREADS))));
+    } catch (NumberFormatException e) {
+      logger.error("Error parsing event listing threads configuration value", e);
+    }
+    final ThreadPoolExecutor executor = listingExecutor;
+    if (executor != null && executor.getMaximumPoolSize() != listingThreads) {
+      if (listingThreads > executor.getMaximumPoolSize()) {
+        executor.setMaximumPoolSize(listingThreads);
+        executor.setCorePoolSize(listingThreads);
+      } else {
+        executor.setCorePoolSize(listingThreads);
+        executor.setMaximumPoolSize(listingThreads);
+      }
+    }
+    logger.debug("Details of listed events are loaded by {} threads", listingThreads);
   }
 
   @GET
@@ -768,6 +832,9 @@ public class EventsEndpoint implements ManagedService {
     try {
       return getJsonEvents(
           acceptHeader, events, withAcl, withMetadata, withScheduling, withPublications, sign, requestedVersion);
+    } catch (UnauthorizedException e) {
+      logger.debug("Not allowed to get the details of all events", e);
+      return Response.status(Status.FORBIDDEN).build();
     } catch (Exception e) {
       logger.error("Unable to get events", e);
       throw new WebApplicationException(Status.INTERNAL_SERVER_ERROR);
@@ -776,6 +843,10 @@ public class EventsEndpoint implements ManagedService {
 
   /**
    * Render a collection of {@link Event}s into a json array.
+   * <p>
+   * If metadata or scheduling information not held by the index are requested, they are loaded concurrently for all
+   * events and the array is streamed to the client in order as the events are completed. Failures loading the first
+   * event are thrown before the response is returned, later ones abort the stream.
    *
    * @param acceptHeader
    *          The accept header to return to the client.
@@ -799,12 +870,96 @@ public class EventsEndpoint implements ManagedService {
   protected Response getJsonEvents(String acceptHeader, List<IndexObject> events, Boolean withAcl, Boolean withMetadata,
           Boolean withScheduling, Boolean withPublications, Boolean withSignedUrls, ApiVersion requestedVersion)
       throws IndexServiceException, UnauthorizedException, SchedulerException {
-    List<JValue> eventsList = new ArrayList<>();
+    final EventListing listing = new EventListing(BooleanUtils.isTrue(withMetadata));
+    final ExecutorService executor = listingExecutor;
+    if (executor == null || events.size() < 2
+            || (!BooleanUtils.isTrue(withMetadata) && !needsSchedulerLookups(events, withScheduling))) {
+      // Nothing to wait for, render the events right away
+      List<JValue> eventsList = new ArrayList<>();
+      for (IndexObject item : events) {
+        eventsList.add(eventToJSON((Event) item, withAcl, withMetadata, withScheduling, withPublications,
+                withSignedUrls, requestedVersion, listing));
+      }
+      return ApiResponses.Json.ok(requestedVersion, arr(eventsList));
+    }
+
+    final SecurityContext securityContext = new SecurityContext(securityService, securityService.getOrganization(),
+            securityService.getUser());
+    final List<Future<JValue>> eventsList = new ArrayList<>(events.size());
     for (IndexObject item : events) {
-      eventsList.add(eventToJSON((Event) item, withAcl, withMetadata, withScheduling, withPublications, withSignedUrls,
-              requestedVersion));
+      eventsList.add(executor.submit(() -> securityContext.runInContext(() -> {
+        try {
+          return eventToJSON((Event) item, withAcl, withMetadata, withScheduling, withPublications, withSignedUrls,
+                  requestedVersion, listing);
+        } catch (Exception e) {
+          return chuck(e);
+        }
+      })));
     }
-    return ApiResponses.Json.ok(requestedVersion, arr(eventsList));
+    // Wait for the first event before committing to a successful response, so that failures can still be reported
+    try {
+      eventsList.get(0).get();
+    } catch (InterruptedException e) {
+      cancelAll(eventsList);
+      Thread.currentThread().interrupt();
+      throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+    } catch (ExecutionException e) {
+      cancelAll(eventsList);
+      if (e.getCause() instanceof UnauthorizedException) {
+        throw (UnauthorizedException) e.getCause();
+      } else if (e.getCause() instanceof IndexServiceException) {
+        throw (IndexServiceException) e.getCause();
+      } else if (e.getCause() instanceof SchedulerException) {
+        throw (SchedulerException) e.getCause();
+      }
+      throw new WebApplicationException(e.getCause(), Status.INTERNAL_SERVER_ERROR);
+    }
+    final StreamingOutput body = out -> {
+      try {
+        final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write('[');
+        for (int i = 0; i < eventsList.size(); i++) {
+          if (i > 0) {
+            writer.write(',');
+          }
+          writer.write(serializer.toJson(eventsList.get(i).get()));
+          writer.flush();
+        }
+        writer.write(']');
+        writer.flush();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+      } catch (ExecutionException e) {
+        logger.error("Unable to render events", e.getCause());
+        throw new WebApplicationException(e.getCause(), e.getCause() instanceof UnauthorizedException
+                ? Status.FORBIDDEN : Status.INTERNAL_SERVER_ERROR);
+      } finally {
+        // Stop loading the remaining events if the client has gone away
+        cancelAll(eventsList);
+      }
+    };
+    return ApiResponses.Json.ok(requestedVersion, body);
+  }
+
+  /** Stops loading the events which are not completed yet. */
+  private static void cancelAll(List<Future<JValue>> events) {
+    for (Future<JValue> event : events) {
+      event.cancel(true);
+    }
+  }
+
+  /** Check whether the scheduling information of any of the given events is not completely held by the index. */
+  private static boolean needsSchedulerLookups(List<IndexObject> events, Boolean withScheduling) {
+    if (!BooleanUtils.isTrue(withScheduling)) {
+      return false;
+    }
+    for (IndexObject item : events) {
+      if (!((Event) item).hasIndexedScheduling()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -830,6 +985,13 @@ public class EventsEndpoint implements ManagedService {
    */
   protected JValue eventToJSON(Event event, Boolean withAcl, Boolean withMetadata, Boolean withScheduling,
           Boolean withPublications, Boolean withSignedUrls, ApiVersion requestedVersion) throws IndexServiceException, SchedulerException, UnauthorizedException {
+    return eventToJSON(event, withAcl, withMetadata, withScheduling, withPublications, withSignedUrls,
+            requestedVersion, new EventListing(BooleanUtils.isTrue(withMetadata)));
+  }
+
+  private JValue eventToJSON(Event event, Boolean withAcl, Boolean withMetadata, Boolean withScheduling,
+          Boolean withPublications, Boolean withSignedUrls, ApiVersion requestedVersion, EventListing listing)
+          throws IndexServiceException, SchedulerException, UnauthorizedException {
     List<Field> fields = new ArrayList<>();
     if (event.getArchiveVersion() != null)
       fields.add(f("archive_version", v(event.getArchiveVersion())));
@@ -871,12 +1033,12 @@ public class EventsEndpoint implements ManagedService {
     }
     fields.add(f("title", v(event.getTitle(), BLANK)));
     if (withAcl != null && withAcl) {
-      AccessControlList acl = getAclFromEvent(event);
+      AccessControlList acl = listing.getAcl(event);
       fields.add(f("acl", arr(AclUtils.serializeAclToJson(acl))));
     }
     if (withMetadata != null && withMetadata) {
       try {
-        Opt<MetadataList> metadata = getEventMetadata(event);
+        Opt<MetadataList> metadata = getEventMetadata(event, listing.extendedCatalogUIAdapters);
         if (metadata.isSome()) {
           fields.add(f("metadata", metadata.get().toJSON()));
         }
@@ -886,7 +1048,7 @@ public class EventsEndpoint implements ManagedService {
       }
     }
     if (withScheduling != null && withScheduling) {
-      fields.add(f("scheduling", SchedulingInfo.of(event.getIdentifier(), schedulerService).toJson()));
+      fields.add(f("scheduling", SchedulingInfo.of(event, schedulerService).toJson()));
     }
     if (withPublications != null && withPublications) {
       List<JValue> publications = getPublications(event, withSignedUrls);
@@ -1116,11 +1278,22 @@ public class EventsEndpoint implements ManagedService {
   }
 
   protected Opt<MetadataList> getEventMetadata(Event event) throws IndexServiceException, Exception {
-    MetadataList metadataList = new MetadataList();
+    return getEventMetadata(event, getExtendedEventCatalogUIAdapters());
+  }
+
+  /** Return the catalog UI adapters of the current organization except for the common one. */
+  private List<EventCatalogUIAdapter> getExtendedEventCatalogUIAdapters() {
     List<EventCatalogUIAdapter> catalogUIAdapters = getEventCatalogUIAdapters();
     catalogUIAdapters.remove(this.eventCatalogUIAdapter);
-    MediaPackage mediaPackage = indexService.getEventMediapackage(event);
+    return catalogUIAdapters;
+  }
+
+  private Opt<MetadataList> getEventMetadata(Event event, List<EventCatalogUIAdapter> catalogUIAdapters)
+          throws IndexServiceException, Exception {
+    MetadataList metadataList = new MetadataList();
     if (catalogUIAdapters.size() > 0) {
+      // The media package is only needed for the extended metadata catalogs
+      MediaPackage mediaPackage = indexService.getEventMediapackage(event);
       for (EventCatalogUIAdapter catalogUIAdapter : catalogUIAdapters) {
         // TODO: This is very slow:
         MetadataCollection fields = catalogUIAdapter.getFields(mediaPackage);
@@ -1601,6 +1774,29 @@ public class EventsEndpoint implements ManagedService {
     return activeAcl;
   }
 
+  /**
+   * The details shared by the events of a listing, so that they are looked up once per listing instead of once per
+   * event.
+   */
+  private final class EventListing {
+    /** The parsed ACLs by access policy. Events of a series usually share the same policy. */
+    private final Map<String, AccessControlList> acls = new ConcurrentHashMap<>();
+    private final List<EventCatalogUIAdapter> extendedCatalogUIAdapters;
+
+    EventListing(boolean withMetadata) {
+      this.extendedCatalogUIAdapters = withMetadata
+              ? getExtendedEventCatalogUIAdapters()
+              : Collections.<EventCatalogUIAdapter> emptyList();
+    }
+
+    AccessControlList getAcl(Event event) {
+      if (event.getAccessPolicy() == null) {
+        return new AccessControlList();
+      }
+      return acls.computeIfAbsent(event.getAccessPolicy(), policy -> getAclFromEvent(event));
+    }
+  }
+
   private JValue getJsonStream(Stream stream) {
     List<Field> fields = new ArrayList<>();
     if (stream instanceof AudioStream) {
@@ -40,6 +40,7 @@ import org.opencastproject.scheduler.api.SchedulerException;
 import org.opencastproject.scheduler.api.SchedulerService;
 import org.opencastproject.scheduler.api.TechnicalMetadata;
 import org.opencastproject.security.api.UnauthorizedException;
+import org.opencastproject.util.DateTimeSupport;
 import org.opencastproject.util.NotFoundException;
 
 import com.entwinemedia.fn.data.Opt;
@@ -55,6 +56,7 @@ import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.text.ParseException;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -328,6 +330,51 @@ public final class SchedulingUtils {
         return result;
       }
     }
+
+    /**
+     * Get the SchedulingInfo for the given event. The scheduling information held by the index is used if it is
+     * complete, otherwise the {@link SchedulerService} is queried.
+     *
+     * @param event
+     *          The event to get the SchedulingInfo for.
+     * @param schedulerService
+     *          The {@link SchedulerService} to query if the index does not hold the scheduling information.
+     *
+     * @return The SchedulingInfo for the given event.
+     *
+     * @throws UnauthorizedException
+     *          If the {@link SchedulerService} cannot be queried due to missing authorization.
+     * @throws SchedulerException
+     *          In case internal errors occur within the {@link SchedulerService}.
+     */
+    public static SchedulingInfo of(Event event, SchedulerService schedulerService)
+        throws UnauthorizedException, SchedulerException {
+      if (event.hasIndexedScheduling()) {
+        try {
+          return fromIndex(event);
+        } catch (ParseException e) {
+          logger.warn("Unable to parse the indexed scheduling information of event '{}'", event.getIdentifier(), e);
+        }
+      }
+      return of(event.getIdentifier(), schedulerService);
+    }
+
+    private static SchedulingInfo fromIndex(Event event) throws ParseException {
+      final SchedulingInfo result = new SchedulingInfo();
+      if (!event.isScheduledEvent() || event.isSchedulingRemoved()) {
+        return result;
+      }
+      result.startDate = Opt.some(new Date(DateTimeSupport.fromUTC(event.getSchedulingStartTime())));
+      result.endDate = Opt.some(new Date(DateTimeSupport.fromUTC(event.getSchedulingEndTime())));
+      result.agentId = Opt.some(event.getAgentId());
+      if (event.getAgentConfiguration() != null) {
+        String inputs = event.getAgentConfiguration().get(CaptureParameters.CAPTURE_DEVICE_NAMES);
+        if (isNotBlank(inputs)) {
+          result.inputs = Opt.some(inputs);
+        }
+      }
+      return result;
+    }
   }
 
   /**
@@ -49,11 +49,19 @@ import org.opencastproject.index.service.impl.index.event.Event;
 import org.opencastproject.index.service.util.RequestUtils;
 import org.opencastproject.mediapackage.Publication;
 import org.opencastproject.mediapackage.PublicationImpl;
+import org.opencastproject.rest.RestConstants;
+import org.opencastproject.scheduler.api.SchedulerException;
+import org.opencastproject.scheduler.api.SchedulerService;
+import org.opencastproject.scheduler.api.TechnicalMetadataImpl;
 import org.opencastproject.security.api.AccessControlEntry;
 import org.opencastproject.security.api.AccessControlList;
 import org.opencastproject.security.api.AccessControlParser;
 import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbUser;
 import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.UnauthorizedException;
+import org.opencastproject.security.api.User;
 import org.opencastproject.test.rest.RestServiceTestEnv;
 import org.opencastproject.util.MimeType;
 import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
@@ -62,22 +70,36 @@ import org.opencastproject.workflow.handler.distribution.InternalPublicationChan
 import com.entwinemedia.fn.data.Opt;
 
 import org.apache.commons.io.IOUtils;
+import org.easymock.EasyMock;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import uk.co.datumedge.hamcrest.json.SameJSONAs;
 
@@ -199,6 +221,173 @@ public class EventsEndpointTest {
     assertThat(eventJson, SameJSONAs.sameJSONAs(result.getEntity().toString()).allowingAnyArrayOrdering());
   }
 
+  /**
+   * Creates an endpoint loading the details of listed events concurrently.
+   */
+  private EventsEndpoint createListingEndpoint(SchedulerService schedulerService, SecurityService securityService) {
+    Hashtable<String, Object> properties = new Hashtable<>();
+    properties.put(RestConstants.SERVICE_PATH_PROPERTY, "/api/events");
+    BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+    ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+    EasyMock.expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+    EasyMock.expect(cc.getProperties()).andReturn(properties).anyTimes();
+    EasyMock.replay(bundleContext, cc);
+
+    EventsEndpoint endpoint = new EventsEndpoint();
+    endpoint.setSchedulerService(schedulerService);
+    endpoint.setSecurityService(securityService);
+    endpoint.activate(cc);
+    return endpoint;
+  }
+
+  /**
+   * Creates a scheduler service whose technical metadata lookups record the user they are run as. Looking up the
+   * event <code>slow</code> takes a while, <code>failing</code> fails and <code>forbidden</code> is not allowed.
+   */
+  private SchedulerService createSchedulerService(SecurityService securityService, List<User> users)
+          throws Exception {
+    SchedulerService schedulerService = EasyMock.createMock(SchedulerService.class);
+    EasyMock.expect(schedulerService.getTechnicalMetadata(EasyMock.anyString())).andAnswer(() -> {
+      String eventId = (String) EasyMock.getCurrentArguments()[0];
+      users.add(securityService.getUser());
+      if ("slow".equals(eventId)) {
+        Thread.sleep(200);
+      } else if ("failing".equals(eventId)) {
+        throw new SchedulerException("Unable to load the technical metadata");
+      } else if ("forbidden".equals(eventId)) {
+        throw new UnauthorizedException("Not allowed to load the technical metadata");
+      }
+      Map<String, String> agentConfig = new HashMap<>();
+      agentConfig.put(CaptureParameters.CAPTURE_DEVICE_NAMES, eventId);
+      return new TechnicalMetadataImpl(eventId, "agent", new Date(0), new Date(1000), new HashSet<>(),
+              new HashMap<>(), agentConfig, Opt.none());
+    }).anyTimes();
+    EasyMock.replay(schedulerService);
+    return schedulerService;
+  }
+
+  /** Creates events whose scheduling information is not held by the index. */
+  private List<IndexObject> createScheduledEvents(String... ids) {
+    List<IndexObject> events = new ArrayList<>();
+    for (String id : ids) {
+      Event event = new Event(id, defaultOrg.getId());
+      event.setAgentId("agent");
+      events.add(event);
+    }
+    return events;
+  }
+
+  private String write(Response response) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(out);
+    return out.toString(UTF_8.name());
+  }
+
+  @Test
+  public void testGetJsonEventsConcurrently() throws Exception {
+    SecurityService securityService = new ThreadLocalSecurityService();
+    User user = new JaxbUser("events-user", "test", new DefaultOrganization());
+    securityService.setOrganization(defaultOrg);
+    securityService.setUser(user);
+    List<User> users = new CopyOnWriteArrayList<>();
+    EventsEndpoint endpoint = createListingEndpoint(createSchedulerService(securityService, users), securityService);
+    try {
+      Response response = endpoint.getJsonEvents(null, createScheduledEvents("slow", "event-2", "event-3"), false,
+              false, true, false, false, ApiVersion.VERSION_1_0_0);
+      JSONArray events = (JSONArray) new JSONParser().parse(write(response));
+
+      // the events are returned in the order they have been requested, even though the first one took longest
+      assertEquals(3, events.size());
+      assertEquals("slow", ((JSONObject) events.get(0)).get("identifier"));
+      assertEquals("event-2", ((JSONObject) events.get(1)).get("identifier"));
+      assertEquals("event-3", ((JSONObject) events.get(2)).get("identifier"));
+      JSONObject scheduling = (JSONObject) ((JSONObject) events.get(1)).get("scheduling");
+      assertEquals("event-2", ((JSONArray) scheduling.get("inputs")).get(0));
+
+      // the details have been loaded in the security context of the request
+      assertEquals(3, users.size());
+      for (User u : users) {
+        assertEquals(user, u);
+      }
+    } finally {
+      endpoint.deactivate();
+    }
+  }
+
+  @Test
+  public void testGetJsonEventsFailure() throws Exception {
+    SecurityService securityService = new ThreadLocalSecurityService();
+    securityService.setOrganization(defaultOrg);
+    securityService.setUser(new JaxbUser("events-user", "test", new DefaultOrganization()));
+    EventsEndpoint endpoint = createListingEndpoint(createSchedulerService(securityService, new CopyOnWriteArrayList<>()),
+            securityService);
+    try {
+      // failures of the first event are reported before the response is returned
+      try {
+        endpoint.getJsonEvents(null, createScheduledEvents("failing", "event-2"), false, false, true, false, false,
+                ApiVersion.VERSION_1_0_0);
+        fail("The failure of the first event has not been reported");
+      } catch (SchedulerException e) {
+        // expected
+      }
+      try {
+        endpoint.getJsonEvents(null, createScheduledEvents("forbidden", "event-2"), false, false, true, false, false,
+                ApiVersion.VERSION_1_0_0);
+        fail("Loading a forbidden event has not been reported");
+      } catch (UnauthorizedException e) {
+        // expected
+      }
+
+      // later failures abort the stream
+      Response response = endpoint.getJsonEvents(null, createScheduledEvents("event-1", "failing"), false, false,
+              true, false, false, ApiVersion.VERSION_1_0_0);
+      assertEquals(SC_OK, response.getStatus());
+      try {
+        write(response);
+        fail("The failure of the second event has not been reported");
+      } catch (WebApplicationException e) {
+        assertEquals(SC_INTERNAL_SERVER_ERROR, e.getResponse().getStatus());
+      }
+    } finally {
+      endpoint.deactivate();
+    }
+  }
+
+  /** A security service binding the user and organization to the current thread, like the real one does. */
+  private static final class ThreadLocalSecurityService implements SecurityService {
+    private final ThreadLocal<User> user = new ThreadLocal<>();
+    private final ThreadLocal<Organization> organization = new ThreadLocal<>();
+
+    @Override
+    public User getUser() {
+      return user.get();
+    }
+
+    @Override
+    public Organization getOrganization() {
+      return organization.get();
+    }
+
+    @Override
+    public String getUserIP() {
+      return null;
+    }
+
+    @Override
+    public void setOrganization(Organization organization) {
+      this.organization.set(organization);
+    }
+
+    @Override
+    public void setUser(User user) {
+      this.user.set(user);
+    }
+
+    @Override
+    public void setUserIP(String userIP) {
+    }
+  }
+
   @Ignore
   @Test
   public void testSerializationOfAcl() throws IOException {
@@ -439,6 +439,9 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
       throw new NotFoundException("No event with id " + uid + " found.");
 
     event.setRecordingStatus(null);
+    event.setSchedulingStartTime(null);
+    event.setSchedulingEndTime(null);
+    event.setSchedulingRemoved(true);
 
     if (toDelete(event)) {
       delete(Event.DOCUMENT_TYPE, uid.concat(organization));
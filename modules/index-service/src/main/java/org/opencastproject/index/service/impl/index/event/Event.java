@@ -72,7 +72,8 @@ import javax.xml.transform.stream.StreamSource;
         "trackStreamResolutions", "trackFlavors", "metadataFlavors", "metadataMimetypes", "attachmentFlavors",
         "hasComments", "hasOpenComments", "hasPreview", "needsCutting", "publications", "workflowScheduledDate",
         "archiveVersion", "recordingStatus", "eventStatus", "agentId", "agentConfigurations",
-        "technicalStartTime", "technicalEndTime", "technicalPresenters" })
+        "technicalStartTime", "technicalEndTime", "technicalPresenters", "schedulingStartTime", "schedulingEndTime",
+        "schedulingRemoved" })
 @XmlRootElement(name = "event", namespace = IndexObject.INDEX_XML_NAMESPACE)
 @XmlAccessorType(XmlAccessType.NONE)
 public class Event implements IndexObject {
@@ -298,6 +299,18 @@ public class Event implements IndexObject {
   @XmlElement(name = "technical_presenter")
   private List<String> technicalPresenters = null;
 
+  /** The start time of the recording as stored by the scheduler */
+  @XmlElement(name = "scheduling_start_time")
+  private String schedulingStartTime = null;
+
+  /** The end time of the recording as stored by the scheduler */
+  @XmlElement(name = "scheduling_end_time")
+  private String schedulingEndTime = null;
+
+  /** Whether the scheduler no longer holds the recording of this event */
+  @XmlElement(name = "scheduling_removed")
+  private boolean schedulingRemoved = false;
+
   /** Context for serializing and deserializing */
   private static JAXBContext context = null;
 
@@ -1194,6 +1207,75 @@ public class Event implements IndexObject {
     this.technicalPresenters = technicalPresenters;
   }
 
+  /**
+   * Returns the start time of the recording as stored by the scheduler. Unlike the technical start time, it is not
+   * replaced by the actual start time of the recording.
+   *
+   * @return the scheduled start time
+   */
+  public String getSchedulingStartTime() {
+    return schedulingStartTime;
+  }
+
+  /**
+   * Sets the start time of the recording as stored by the scheduler
+   *
+   * @param schedulingStartTime
+   *          the scheduled start time
+   */
+  public void setSchedulingStartTime(String schedulingStartTime) {
+    this.schedulingStartTime = schedulingStartTime;
+  }
+
+  /**
+   * Returns the end time of the recording as stored by the scheduler
+   *
+   * @return the scheduled end time
+   */
+  public String getSchedulingEndTime() {
+    return schedulingEndTime;
+  }
+
+  /**
+   * Sets the end time of the recording as stored by the scheduler
+   *
+   * @param schedulingEndTime
+   *          the scheduled end time
+   */
+  public void setSchedulingEndTime(String schedulingEndTime) {
+    this.schedulingEndTime = schedulingEndTime;
+  }
+
+  /**
+   * Returns whether the scheduler no longer holds the recording of this event
+   *
+   * @return whether the scheduling has been removed
+   */
+  public boolean isSchedulingRemoved() {
+    return schedulingRemoved;
+  }
+
+  /**
+   * Sets whether the scheduler no longer holds the recording of this event
+   *
+   * @param schedulingRemoved
+   *          whether the scheduling has been removed
+   */
+  public void setSchedulingRemoved(boolean schedulingRemoved) {
+    this.schedulingRemoved = schedulingRemoved;
+  }
+
+  /**
+   * Check whether the scheduling information of the event is completely held by the index. This is not the case for
+   * scheduled events indexed before the scheduled times were added to the index.
+   *
+   * @return whether the scheduler does not need to be asked for the scheduling information of this event
+   */
+  public boolean hasIndexedScheduling() {
+    return !isScheduledEvent() || schedulingRemoved
+            || (StringUtils.isNotBlank(schedulingStartTime) && StringUtils.isNotBlank(schedulingEndTime));
+  }
+
   /**
    * Reads the recording event from the input stream.
    *
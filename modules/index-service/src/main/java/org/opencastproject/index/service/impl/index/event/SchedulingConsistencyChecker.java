@@ -0,0 +1,179 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.impl.index.event;
+
+import static org.opencastproject.util.DateTimeSupport.toUTC;
+
+import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
+import org.opencastproject.matterhorn.search.SearchIndexException;
+import org.opencastproject.matterhorn.search.SearchQuery.Order;
+import org.opencastproject.matterhorn.search.SearchResult;
+import org.opencastproject.matterhorn.search.SearchResultItem;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.scheduler.api.SchedulerException;
+import org.opencastproject.scheduler.api.SchedulerService;
+import org.opencastproject.scheduler.api.TechnicalMetadata;
+import org.opencastproject.security.api.UnauthorizedException;
+import org.opencastproject.security.api.User;
+import org.opencastproject.util.NotFoundException;
+
+import com.entwinemedia.fn.data.Opt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Detects events whose scheduling information held by a search index has drifted from the scheduler.
+ * <p>
+ * The scheduling information is denormalized into the event documents by the scheduler message receivers, so that
+ * event listings do not need to ask the scheduler. A lost message leaves the index out of date until it is rebuilt.
+ */
+public class SchedulingConsistencyChecker {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(SchedulingConsistencyChecker.class);
+
+  /** The number of events loaded from the index at once */
+  private static final int PAGE_SIZE = 100;
+
+  private final SchedulerService schedulerService;
+  private final AbstractSearchIndex index;
+
+  public SchedulingConsistencyChecker(SchedulerService schedulerService, AbstractSearchIndex index) {
+    this.schedulerService = schedulerService;
+    this.index = index;
+  }
+
+  /**
+   * Compare the scheduling information of all events of the current organization held by the index with the
+   * scheduler.
+   *
+   * @param organization
+   *          the organization of the events
+   * @param user
+   *          the user to query the index as
+   * @param repair
+   *          whether to update the drifted events in the index
+   * @return the identifiers of the drifted events
+   */
+  public List<String> check(String organization, User user, boolean repair)
+          throws SchedulerException, UnauthorizedException, SearchIndexException {
+    final List<String> drifted = new ArrayList<>();
+
+    // Events the index considers scheduled, loaded page by page instead of looking up every scheduled event
+    final Map<String, Event> indexed = new HashMap<>();
+    final EventSearchQuery query = new EventSearchQuery(organization, user).withoutActions();
+    query.sortByTechnicalStartDate(Order.Ascending).withLimit(PAGE_SIZE);
+    for (int offset = 0;; offset += PAGE_SIZE) {
+      final SearchResult<Event> result = index.getByQuery((EventSearchQuery) query.withOffset(offset));
+      for (SearchResultItem<Event> item : result.getItems()) {
+        final Event event = item.getSource();
+        if (event.isScheduledEvent() && !event.isSchedulingRemoved()) {
+          indexed.put(event.getIdentifier(), event);
+        }
+      }
+      if (result.getItems().length < PAGE_SIZE) {
+        break;
+      }
+    }
+
+    // Events known to the scheduler
+    final Set<String> scheduled = new HashSet<>();
+    for (MediaPackage mediaPackage : schedulerService.search(Opt.none(), Opt.none(), Opt.none(), Opt.none(),
+            Opt.none())) {
+      final String id = mediaPackage.getIdentifier().toString();
+      scheduled.add(id);
+      final TechnicalMetadata technicalMetadata;
+      try {
+        technicalMetadata = schedulerService.getTechnicalMetadata(id);
+      } catch (NotFoundException e) {
+        // Removed in the meantime
+        continue;
+      }
+      final Event event = indexed.get(id);
+      if (event == null || !matches(event, technicalMetadata)) {
+        logger.info("Scheduling information of event {} in the {} index differs from the scheduler", id,
+                index.getIndexName());
+        drifted.add(id);
+        if (repair) {
+          final Event repaired = event != null ? event
+                  : EventIndexUtils.getOrCreateEvent(id, organization, user, index);
+          update(repaired, technicalMetadata);
+          index.addOrUpdate(repaired);
+        }
+      }
+    }
+
+    // Events the index still considers scheduled, including legacy ones indexed without scheduling times
+    for (Event event : indexed.values()) {
+      if (scheduled.contains(event.getIdentifier())) {
+        continue;
+      }
+      try {
+        // Make sure that the event has not been scheduled since the scheduled events were listed
+        schedulerService.getTechnicalMetadata(event.getIdentifier());
+        continue;
+      } catch (NotFoundException e) {
+        logger.info("Event {} in the {} index is no longer scheduled", event.getIdentifier(), index.getIndexName());
+      }
+      drifted.add(event.getIdentifier());
+      if (repair) {
+        event.setSchedulingStartTime(null);
+        event.setSchedulingEndTime(null);
+        event.setSchedulingRemoved(true);
+        index.addOrUpdate(event);
+      }
+    }
+    return drifted;
+  }
+
+  private static boolean matches(Event event, TechnicalMetadata technicalMetadata) {
+    return !event.isSchedulingRemoved()
+            && Objects.equals(event.getAgentId(), technicalMetadata.getAgentId())
+            && Objects.equals(event.getSchedulingStartTime(), utc(technicalMetadata.getStartDate()))
+            && Objects.equals(event.getSchedulingEndTime(), utc(technicalMetadata.getEndDate()))
+            && Objects.equals(event.getAgentConfiguration(), technicalMetadata.getCaptureAgentConfiguration());
+  }
+
+  private static void update(Event event, TechnicalMetadata technicalMetadata) {
+    event.setAgentId(technicalMetadata.getAgentId());
+    event.setAgentConfiguration(new HashMap<>(technicalMetadata.getCaptureAgentConfiguration()));
+    event.setTechnicalStartTime(utc(technicalMetadata.getStartDate()));
+    event.setTechnicalEndTime(utc(technicalMetadata.getEndDate()));
+    event.setSchedulingStartTime(event.getTechnicalStartTime());
+    event.setSchedulingEndTime(event.getTechnicalEndTime());
+    event.setSchedulingRemoved(false);
+  }
+
+  private static String utc(Date date) {
+    return date == null ? null : toUTC(date.getTime());
+  }
+}
@@ -178,6 +178,8 @@ public class SchedulerMessageReceiverImpl extends BaseMessageReceiverImpl<Schedu
           event = EventIndexUtils.getOrCreateEvent(mediaPackageId, organization, user,
                   getSearchIndex());
           event.setTechnicalEndTime(endTime);
+          event.setSchedulingEndTime(endTime);
+          event.setSchedulingRemoved(false);
         } catch (SearchIndexException e) {
           logger.error("Error retrieving the recording event from the search index: {}", getStackTrace(e));
           return;
@@ -193,6 +195,8 @@ public class SchedulerMessageReceiverImpl extends BaseMessageReceiverImpl<Schedu
           event = EventIndexUtils.getOrCreateEvent(mediaPackageId, organization, user,
                   getSearchIndex());
           event.setTechnicalStartTime(startTime);
+          event.setSchedulingStartTime(startTime);
+          event.setSchedulingRemoved(false);
         } catch (SearchIndexException e) {
           logger.error("Error retrieving the recording event from the search index: {}", getStackTrace(e));
           return;
@@ -0,0 +1,226 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.impl.index.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.opencastproject.util.DateTimeSupport.toUTC;
+
+import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
+import org.opencastproject.matterhorn.search.SearchResult;
+import org.opencastproject.matterhorn.search.impl.SearchResultImpl;
+import org.opencastproject.matterhorn.search.impl.SearchResultItemImpl;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.identifier.IdImpl;
+import org.opencastproject.scheduler.api.SchedulerService;
+import org.opencastproject.scheduler.api.TechnicalMetadata;
+import org.opencastproject.scheduler.api.TechnicalMetadataImpl;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbOrganization;
+import org.opencastproject.security.api.JaxbRole;
+import org.opencastproject.security.api.JaxbUser;
+import org.opencastproject.security.api.User;
+import org.opencastproject.util.NotFoundException;
+
+import com.entwinemedia.fn.data.Opt;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SchedulingConsistencyCheckerTest {
+
+  private static final Date START = new Date(1546300800000L);
+  private static final Date END = new Date(1546304400000L);
+
+  private final JaxbOrganization organization = new DefaultOrganization();
+  private User user;
+
+  /** The events held by the index */
+  private Map<String, Event> indexed;
+
+  /** The events known to the scheduler */
+  private Map<String, TechnicalMetadata> scheduled;
+
+  @Before
+  public void setUp() throws Exception {
+    user = new JaxbUser("test", "test", organization, new JaxbRole(DefaultOrganization.DEFAULT_ORGANIZATION_ADMIN,
+            organization));
+    indexed = new LinkedHashMap<>();
+    scheduled = new LinkedHashMap<>();
+
+    // In sync
+    indexed.put("synced", createEvent("synced", "ca", START, END));
+    scheduled.put("synced", createTechnicalMetadata("synced"));
+    // Rescheduled without the index noticing
+    indexed.put("moved", createEvent("moved", "ca", START, START));
+    scheduled.put("moved", createTechnicalMetadata("moved"));
+    // Never indexed
+    scheduled.put("missing", createTechnicalMetadata("missing"));
+    // Removed from the scheduler without the index noticing
+    indexed.put("stale", createEvent("stale", "ca", START, END));
+    // Indexed before the scheduling times were, and removed from the scheduler since
+    indexed.put("legacy", createEvent("legacy", "ca", null, null));
+    // Not a scheduled event
+    indexed.put("uploaded", createEvent("uploaded", null, null, null));
+  }
+
+  @Test
+  public void testCheck() throws Exception {
+    AbstractSearchIndex index = createIndex(null);
+    SchedulerService schedulerService = createSchedulerService();
+
+    List<String> drifted = new SchedulingConsistencyChecker(schedulerService, index).check(organization.getId(), user,
+            false);
+    assertEquals(new HashSet<>(Arrays.asList("moved", "missing", "stale", "legacy")), new HashSet<>(drifted));
+    // Nothing has been written to the index
+    EasyMock.verify(index);
+  }
+
+  @Test
+  public void testCheckWhileScheduling() throws Exception {
+    AbstractSearchIndex index = createIndex(null);
+    SchedulerService schedulerService = createSchedulerService();
+    // Scheduled after the scheduler has been searched
+    scheduled.put("legacy", createTechnicalMetadata("legacy"));
+
+    List<String> drifted = new SchedulingConsistencyChecker(schedulerService, index).check(organization.getId(), user,
+            false);
+    assertEquals(new HashSet<>(Arrays.asList("moved", "missing", "stale")), new HashSet<>(drifted));
+  }
+
+  @Test
+  public void testRepair() throws Exception {
+    Capture<Event> updated = Capture.newInstance(CaptureType.ALL);
+    AbstractSearchIndex index = createIndex(updated);
+    SchedulerService schedulerService = createSchedulerService();
+
+    new SchedulingConsistencyChecker(schedulerService, index).check(organization.getId(), user, true);
+    EasyMock.verify(index);
+
+    Map<String, Event> events = new HashMap<>();
+    for (Event event : updated.getValues()) {
+      events.put(event.getIdentifier(), event);
+    }
+    assertEquals(new HashSet<>(Arrays.asList("moved", "missing", "stale", "legacy")), events.keySet());
+    for (String id : Arrays.asList("moved", "missing")) {
+      Event event = events.get(id);
+      assertEquals("ca", event.getAgentId());
+      assertEquals(toUTC(START.getTime()), event.getSchedulingStartTime());
+      assertEquals(toUTC(END.getTime()), event.getSchedulingEndTime());
+      assertFalse(event.isSchedulingRemoved());
+    }
+    for (String id : Arrays.asList("stale", "legacy")) {
+      Event event = events.get(id);
+      assertNull(event.getSchedulingStartTime());
+      assertNull(event.getSchedulingEndTime());
+      assertTrue(event.isSchedulingRemoved());
+    }
+  }
+
+  private Event createEvent(String id, String agentId, Date start, Date end) {
+    Event event = new Event(id, organization.getId());
+    event.setAgentId(agentId);
+    if (start != null) {
+      event.setTechnicalStartTime(toUTC(start.getTime()));
+      event.setSchedulingStartTime(toUTC(start.getTime()));
+    }
+    if (end != null) {
+      event.setTechnicalEndTime(toUTC(end.getTime()));
+      event.setSchedulingEndTime(toUTC(end.getTime()));
+    }
+    return event;
+  }
+
+  private TechnicalMetadata createTechnicalMetadata(String id) {
+    return new TechnicalMetadataImpl(id, "ca", START, END, new HashSet<>(), new HashMap<>(), new HashMap<>(),
+            Opt.none());
+  }
+
+  /**
+   * Creates an index holding {@link #indexed}, expecting the given events to be written if <code>updated</code> is
+   * not <code>null</code>.
+   */
+  private AbstractSearchIndex createIndex(Capture<Event> updated) throws Exception {
+    AbstractSearchIndex index = EasyMock.createMock(AbstractSearchIndex.class);
+    EasyMock.expect(index.getIndexName()).andReturn("test").anyTimes();
+    EasyMock.expect(index.getByQuery(EasyMock.anyObject(EventSearchQuery.class))).andAnswer(() -> {
+      EventSearchQuery query = (EventSearchQuery) EasyMock.getCurrentArguments()[0];
+      List<Event> events = new ArrayList<>();
+      if (query.getIdentifier().length > 0) {
+        for (String id : query.getIdentifier()) {
+          if (indexed.containsKey(id)) {
+            events.add(indexed.get(id));
+          }
+        }
+      } else if (query.getOffset() < indexed.size()) {
+        events.addAll(new ArrayList<>(indexed.values()).subList(query.getOffset(),
+                Math.min(indexed.size(), query.getOffset() + query.getLimit())));
+      }
+      SearchResultImpl<Event> result = new SearchResultImpl<>(query, events.size(), events.size());
+      for (Event event : events) {
+        result.addResultItem(new SearchResultItemImpl<>(1.0, event));
+      }
+      return (SearchResult<Event>) result;
+    }).anyTimes();
+    if (updated != null) {
+      index.addOrUpdate(EasyMock.capture(updated));
+      EasyMock.expectLastCall().times(4);
+    }
+    EasyMock.replay(index);
+    return index;
+  }
+
+  private SchedulerService createSchedulerService() throws Exception {
+    List<MediaPackage> mediaPackages = new ArrayList<>();
+    for (String id : scheduled.keySet()) {
+      mediaPackages.add(MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew(new IdImpl(id)));
+    }
+    SchedulerService schedulerService = EasyMock.createNiceMock(SchedulerService.class);
+    EasyMock.expect(schedulerService.search(EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject(),
+            EasyMock.anyObject(), EasyMock.anyObject())).andReturn(mediaPackages);
+    EasyMock.expect(schedulerService.getTechnicalMetadata(EasyMock.anyString())).andAnswer(() -> {
+      TechnicalMetadata technicalMetadata = scheduled.get((String) EasyMock.getCurrentArguments()[0]);
+      if (technicalMetadata == null) {
+        throw new NotFoundException();
+      }
+      return technicalMetadata;
+    }).anyTimes();
+    EasyMock.replay(schedulerService);
+    return schedulerService;
+  }
+
+}
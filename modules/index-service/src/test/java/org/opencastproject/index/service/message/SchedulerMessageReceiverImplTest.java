@@ -21,7 +21,10 @@
 package org.opencastproject.index.service.message;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.opencastproject.index.service.impl.index.event.Event;
 import org.opencastproject.message.broker.api.scheduler.SchedulerItem;
@@ -30,10 +33,13 @@ import org.opencastproject.metadata.dublincore.DublinCoreCatalog;
 import org.opencastproject.metadata.dublincore.DublinCores;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.util.DateTimeSupport;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Date;
+
 public class SchedulerMessageReceiverImplTest {
 
   private SchedulerMessageReceiverImpl scheduler;
@@ -68,4 +74,28 @@ public class SchedulerMessageReceiverImplTest {
     assertEquals("Creator has been updated", "Hans", event.getCreator());
   }
 
+  @Test
+  public void testUpdateScheduling() throws Exception {
+    Date start = new Date(1546300800000L);
+    Date end = new Date(1546304400000L);
+    scheduler.execute(new SchedulerItemList("uuid", new SchedulerItem[] { SchedulerItem.updateStart(start),
+            SchedulerItem.updateEnd(end), SchedulerItem.updateAgent("agent") }));
+    Event event = index.getEventResult();
+    assertNotNull(event);
+    assertTrue(event.hasIndexedScheduling());
+    assertEquals(DateTimeSupport.toUTC(start.getTime()), event.getSchedulingStartTime());
+    assertEquals(DateTimeSupport.toUTC(end.getTime()), event.getSchedulingEndTime());
+
+    // Scheduled events indexed before the scheduling times were added need to be looked up
+    event.setSchedulingEndTime(null);
+    assertFalse(event.hasIndexedScheduling());
+
+    index.setInitialEvent(event);
+    scheduler.execute(SchedulerItemList.singleton("uuid", SchedulerItem.delete()));
+    event = index.getEventResult();
+    assertTrue(event.isSchedulingRemoved());
+    assertTrue(event.hasIndexedScheduling());
+    assertNull(event.getSchedulingStartTime());
+  }
+
 }
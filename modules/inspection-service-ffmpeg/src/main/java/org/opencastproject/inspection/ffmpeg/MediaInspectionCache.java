@@ -0,0 +1,192 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.inspection.ffmpeg;
+
+import org.opencastproject.inspection.ffmpeg.api.MediaContainerMetadata;
+import org.opencastproject.inspection.ffmpeg.jmx.MediaInspectionCacheMXBean;
+import org.opencastproject.util.Checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the results of media inspections by file identity, i.e. the file key (inode), size and modification date of
+ * the inspected file, so that repeated inspections of unchanged media files neither need to run ffprobe nor to compute
+ * the checksum again. The least recently used results are evicted once the maximum size is reached.
+ */
+public class MediaInspectionCache implements MediaInspectionCacheMXBean {
+
+  /** The default maximum number of cached inspection results */
+  public static final int DEFAULT_MAX_SIZE = 1000;
+
+  /** A cached inspection result */
+  static final class Inspection {
+    private final MediaContainerMetadata metadata;
+    private final Checksum checksum;
+
+    Inspection(MediaContainerMetadata metadata, Checksum checksum) {
+      this.metadata = metadata;
+      this.checksum = checksum;
+    }
+
+    MediaContainerMetadata getMetadata() {
+      return metadata;
+    }
+
+    /** Returns the checksum of the file or <code>null</code> if it has not been computed */
+    Checksum getChecksum() {
+      return checksum;
+    }
+  }
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final Map<Object, Inspection> cache;
+  private volatile int maxSize;
+
+  /** Creates a cache holding up to {@link #DEFAULT_MAX_SIZE} inspection results. */
+  public MediaInspectionCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxSize
+   *          the maximum number of cached inspection results, <code>0</code> to disable caching
+   */
+  public MediaInspectionCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.cache = new LinkedHashMap<Object, Inspection>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Inspection> eldest) {
+        return size() > MediaInspectionCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Sets the maximum number of cached inspection results, evicting results if the cache is too big.
+   *
+   * @param maxSize
+   *          the maximum size, <code>0</code> to disable caching
+   */
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    synchronized (cache) {
+      while (cache.size() > maxSize) {
+        cache.remove(cache.keySet().iterator().next());
+      }
+    }
+  }
+
+  /**
+   * Returns the key identifying the current content of a file.
+   *
+   * @param file
+   *          the file
+   * @param accurateFrameCount
+   *          whether the frame count is accurate
+   * @return the key
+   * @throws IOException
+   *           if the file attributes cannot be read
+   */
+  Object key(File file, boolean accurateFrameCount) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    Object fileKey = attributes.fileKey() != null ? attributes.fileKey() : file.getAbsolutePath();
+    return Arrays.asList(fileKey, attributes.size(), attributes.lastModifiedTime().toMillis(), accurateFrameCount);
+  }
+
+  /**
+   * Returns a cached inspection result and records the cache hit or miss.
+   *
+   * @param key
+   *          the key as returned by {@link #key(File, boolean)}
+   * @param checksumRequired
+   *          whether a result without checksum counts as a miss
+   * @return the cached result or <code>null</code>
+   */
+  Inspection get(Object key, boolean checksumRequired) {
+    Inspection inspection;
+    synchronized (cache) {
+      inspection = cache.get(key);
+    }
+    if (inspection != null && (inspection.getChecksum() != null || !checksumRequired)) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+    }
+    return inspection;
+  }
+
+  /**
+   * Caches an inspection result.
+   *
+   * @param key
+   *          the key as returned by {@link #key(File, boolean)}
+   * @param inspection
+   *          the inspection result
+   */
+  void put(Object key, Inspection inspection) {
+    if (maxSize <= 0)
+      return;
+    synchronized (cache) {
+      cache.put(key, inspection);
+    }
+  }
+
+  @Override
+  public long getHits() {
+    return hits.get();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public double getHitRatio() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+
+  @Override
+  public int getSize() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+}
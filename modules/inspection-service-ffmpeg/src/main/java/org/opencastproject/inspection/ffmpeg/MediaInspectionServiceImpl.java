@@ -35,8 +35,10 @@ import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.LoadUtil;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
@@ -49,6 +51,8 @@ import java.util.Dictionary;
 import java.util.List;
 import java.util.Map;
 
+import javax.management.ObjectInstance;
+
 /** Inspects media via ffprobe. */
 public class MediaInspectionServiceImpl extends AbstractJobProducer implements MediaInspectionService, ManagedService {
 
@@ -64,6 +68,12 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
   /** The key to look for in the service configuration file to override the {@link DEFAULT_ENRICH_JOB_LOAD} */
   public static final String ENRICH_JOB_LOAD_KEY = "job.load.enrich";
 
+  /** The key to look for in the service configuration file to override the maximum size of the inspection cache */
+  public static final String CACHE_SIZE_KEY = "cache.size";
+
+  /** The JMX type of the inspection cache statistics */
+  private static final String JMX_CACHE_TYPE = "MediaInspectionCache";
+
   /** The load introduced on the system by creating an inspect job */
   private float inspectJobLoad = DEFAULT_INSPECT_JOB_LOAD;
 
@@ -85,6 +95,12 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
 
   private volatile MediaInspector inspector;
 
+  /** The cache of inspection results */
+  private final MediaInspectionCache cache = new MediaInspectionCache();
+
+  /** The registered inspection cache statistics */
+  private ObjectInstance cacheMXBean;
+
   /** Creates a new media inspection service instance. */
   public MediaInspectionServiceImpl() {
     super(JOB_TYPE);
@@ -103,7 +119,13 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
       logger.debug("FFprobe config binary: {}", path);
       ffprobeBinary = path;
     }
-    inspector = new MediaInspector(workspace, ffprobeBinary);
+    inspector = new MediaInspector(workspace, ffprobeBinary, cache);
+    cacheMXBean = JmxUtil.registerMXBean(cache, JMX_CACHE_TYPE);
+  }
+
+  public void deactivate() {
+    if (cacheMXBean != null)
+      JmxUtil.unregisterMXBean(cacheMXBean);
   }
 
   @Override
@@ -116,6 +138,14 @@ public class MediaInspectionServiceImpl extends AbstractJobProducer implements M
             serviceRegistry);
     enrichJobLoad = LoadUtil.getConfiguredLoadValue(properties, ENRICH_JOB_LOAD_KEY, DEFAULT_ENRICH_JOB_LOAD,
             serviceRegistry);
+
+    String cacheSize = StringUtils.trimToNull((String) properties.get(CACHE_SIZE_KEY));
+    try {
+      cache.setMaxSize(cacheSize == null ? MediaInspectionCache.DEFAULT_MAX_SIZE : Integer.parseInt(cacheSize));
+      logger.debug("Inspection cache size set to {}", cache.getMaxSize());
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(CACHE_SIZE_KEY, "Not an integer: " + cacheSize);
+    }
   }
 
   /**
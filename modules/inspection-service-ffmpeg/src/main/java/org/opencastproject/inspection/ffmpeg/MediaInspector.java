@@ -25,6 +25,7 @@ import static org.opencastproject.inspection.api.MediaInspectionOptions.OPTION_A
 import static org.opencastproject.util.data.Collections.map;
 
 import org.opencastproject.inspection.api.MediaInspectionException;
+import org.opencastproject.inspection.ffmpeg.MediaInspectionCache.Inspection;
 import org.opencastproject.inspection.ffmpeg.api.AudioStreamMetadata;
 import org.opencastproject.inspection.ffmpeg.api.MediaAnalyzer;
 import org.opencastproject.inspection.ffmpeg.api.MediaAnalyzerException;
@@ -62,6 +63,12 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Contains the business logic for media inspection. Its primary purpose is to decouple the inspection logic from all
@@ -71,12 +78,38 @@ public class MediaInspector {
 
   private static final Logger logger = LoggerFactory.getLogger(MediaInspector.class);
 
+  /** Computes the checksums of inspected files while ffprobe is running */
+  private static final ExecutorService checksumExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "Media inspection checksum");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
   private final Workspace workspace;
   private final String ffprobePath;
+  private final MediaInspectionCache cache;
 
   public MediaInspector(Workspace workspace, String ffprobePath) {
+    this(workspace, ffprobePath, null);
+  }
+
+  /**
+   * Creates a media inspector.
+   *
+   * @param workspace
+   *          the workspace
+   * @param ffprobePath
+   *          the path to the ffprobe binary
+   * @param cache
+   *          the cache of inspection results or <code>null</code> to inspect files on every call
+   */
+  public MediaInspector(Workspace workspace, String ffprobePath, MediaInspectionCache cache) {
     this.workspace = workspace;
     this.ffprobePath = ffprobePath;
+    this.cache = cache;
   }
 
   /**
@@ -109,8 +142,8 @@ public class MediaInspector {
         throw new MediaInspectionException("Can not inspect files without a filename extension");
       }
 
-      MediaContainerMetadata metadata = getFileMetadata(file, getAccurateFrameCount(options));
-      if (metadata == null) {
+      Inspection inspection = inspect(file, getAccurateFrameCount(options), true);
+      if (inspection == null) {
         throw new MediaInspectionException("Media analyzer returned no metadata from " + file);
       } else {
         MediaPackageElementBuilder elementBuilder = MediaPackageElementBuilderFactory.newInstance().newElementBuilder();
@@ -122,17 +155,14 @@ public class MediaInspector {
           throw new MediaInspectionException("Unable to create track element from " + file, e);
         }
         track = (TrackImpl) element;
+        MediaContainerMetadata metadata = inspection.getMetadata();
 
         // Duration
         if (metadata.getDuration() != null && metadata.getDuration() > 0)
           track.setDuration(metadata.getDuration());
 
         // Checksum
-        try {
-          track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
-        } catch (IOException e) {
-          throw new MediaInspectionException("Unable to read " + file, e);
-        }
+        track.setChecksum(inspection.getChecksum());
 
         // Mimetype
         MimeType mimeType = MimeTypes.fromString(file.getPath());
@@ -227,8 +257,9 @@ public class MediaInspector {
         throw new MediaInspectionException("Can not inspect files without a filename extension");
       }
 
-      MediaContainerMetadata metadata = getFileMetadata(file, getAccurateFrameCount(options));
-      if (metadata == null) {
+      boolean checksumRequired = originalTrack.getChecksum() == null || override;
+      Inspection inspection = inspect(file, getAccurateFrameCount(options), checksumRequired);
+      if (inspection == null) {
         throw new MediaInspectionException("Unable to acquire media metadata for " + originalTrackUrl);
       } else {
         TrackImpl track = null;
@@ -238,6 +269,7 @@ public class MediaInspector {
         } catch (UnsupportedElementException e) {
           throw new MediaInspectionException("Unable to create track element from " + file, e);
         }
+        MediaContainerMetadata metadata = inspection.getMetadata();
 
         // init the new track with old
         track.setChecksum(originalTrack.getChecksum());
@@ -256,13 +288,8 @@ public class MediaInspector {
         // enrich the new track with basic info
         if (track.getDuration() == null || override)
           track.setDuration(metadata.getDuration());
-        if (track.getChecksum() == null || override) {
-          try {
-            track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
-          } catch (IOException e) {
-            throw new MediaInspectionException("Unable to read " + file, e);
-          }
-        }
+        if (checksumRequired)
+          track.setChecksum(inspection.getChecksum());
 
         // Add the mime type if it's not already present
         if (track.getMimeType() == null || override) {
@@ -369,6 +396,75 @@ public class MediaInspector {
     }
   }
 
+  /**
+   * Inspects a file, returning a cached result if the file has been inspected before. Otherwise ffprobe is run while
+   * the checksum of the file is computed concurrently.
+   *
+   * @param file
+   *          the file
+   * @param accurateFrameCount
+   *          whether to count the frames accurately
+   * @param checksumRequired
+   *          whether to compute the checksum of the file
+   * @return the inspection result or <code>null</code> if the media analyzer returned no metadata
+   * @throws MediaInspectionException
+   *           if the inspection fails
+   */
+  private Inspection inspect(final File file, boolean accurateFrameCount, boolean checksumRequired)
+          throws MediaInspectionException {
+    Object key = null;
+    Inspection cached = null;
+    if (cache != null) {
+      try {
+        key = cache.key(file, accurateFrameCount);
+        cached = cache.get(key, checksumRequired);
+      } catch (IOException e) {
+        logger.debug("Unable to read the attributes of {}: {}", file, e.getMessage());
+      }
+    }
+    if (cached != null && (cached.getChecksum() != null || !checksumRequired)) {
+      logger.debug("Using cached inspection result of {}", file);
+      return cached;
+    }
+
+    Future<Checksum> checksum = null;
+    if (checksumRequired) {
+      checksum = checksumExecutor.submit(new Callable<Checksum>() {
+        @Override
+        public Checksum call() throws IOException {
+          return Checksum.create(ChecksumType.DEFAULT_TYPE, file);
+        }
+      });
+    }
+    try {
+      MediaContainerMetadata metadata = cached != null ? cached.getMetadata() : getFileMetadata(file, accurateFrameCount);
+      if (metadata == null)
+        return null;
+      Inspection inspection = new Inspection(metadata, checksum != null ? getChecksum(checksum, file) : null);
+      // do not cache the result if the file has been changed in the meantime
+      if (key != null && key.equals(cache.key(file, accurateFrameCount)))
+        cache.put(key, inspection);
+      return inspection;
+    } catch (IOException e) {
+      throw new MediaInspectionException("Unable to read " + file, e);
+    } finally {
+      if (checksum != null)
+        checksum.cancel(true);
+    }
+  }
+
+  /** Waits for the checksum computed in the background. */
+  private Checksum getChecksum(Future<Checksum> checksum, File file) throws MediaInspectionException {
+    try {
+      return checksum.get();
+    } catch (ExecutionException e) {
+      throw new MediaInspectionException("Unable to read " + file, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MediaInspectionException("Interrupted while computing the checksum of " + file, e);
+    }
+  }
+
   /**
    * Asks the media analyzer to extract the file's metadata.
    *
@@ -0,0 +1,64 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.inspection.ffmpeg.jmx;
+
+/**
+ * JMX Bean interface exposing the statistics of the media inspection cache.
+ */
+public interface MediaInspectionCacheMXBean {
+
+  /**
+   * Gets the number of inspections answered from the cache
+   *
+   * @return the number of cache hits
+   */
+  long getHits();
+
+  /**
+   * Gets the number of inspections which required running ffprobe
+   *
+   * @return the number of cache misses
+   */
+  long getMisses();
+
+  /**
+   * Gets the ratio of cache hits to all inspections
+   *
+   * @return the hit ratio between 0 and 1
+   */
+  double getHitRatio();
+
+  /**
+   * Gets the number of cached inspection results
+   *
+   * @return the cache size
+   */
+  int getSize();
+
+  /**
+   * Gets the maximum number of cached inspection results
+   *
+   * @return the maximum cache size
+   */
+  int getMaxSize();
+
+}
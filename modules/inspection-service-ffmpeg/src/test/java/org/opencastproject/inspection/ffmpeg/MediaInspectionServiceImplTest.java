@@ -128,6 +128,29 @@ public class MediaInspectionServiceImplTest {
     }
   }
 
+  @Test
+  public void testInspectionCache() throws Exception {
+    final URI trackUri = getResource("/test.mp4");
+    for (String binary : ffprobePath) {
+      Workspace workspace = EasyMock.createNiceMock(Workspace.class);
+      EasyMock.expect(workspace.get(trackUri)).andReturn(new File(trackUri)).anyTimes();
+      EasyMock.replay(workspace);
+      MediaInspectionCache cache = new MediaInspectionCache();
+      MediaInspector mi = new MediaInspector(workspace, binary, cache);
+
+      Track track = mi.inspectTrack(trackUri, Options.NO_OPTION);
+      assertEquals(0, cache.getHits());
+      assertEquals(1, cache.getMisses());
+
+      Track cachedTrack = mi.inspectTrack(trackUri, Options.NO_OPTION);
+      assertEquals(1, cache.getHits());
+      assertEquals(1, cache.getMisses());
+      assertEquals(track.getChecksum(), cachedTrack.getChecksum());
+      assertEquals(track.getDuration(), cachedTrack.getDuration());
+      assertEquals(track.getStreams().length, cachedTrack.getStreams().length);
+    }
+  }
+
   @Test
   public void testInspectionEmptyContainer() throws Exception {
     final URI trackUri = getResource("/nostreams.mp4");
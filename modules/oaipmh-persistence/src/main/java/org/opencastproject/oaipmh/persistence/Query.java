@@ -40,6 +40,12 @@ public interface Query {
   /** The date is inclusive. */
   Option<Date> getModifiedBefore();
 
+  /**
+   * The media package id of the last item of the previous page. Subsequent requests resume after the item with this
+   * id and the modification date returned by {@link #getModifiedAfter()}.
+   */
+  Option<String> getLastMediaPackageId();
+
   Option<Integer> getLimit();
 
   Option<Integer> getOffset();
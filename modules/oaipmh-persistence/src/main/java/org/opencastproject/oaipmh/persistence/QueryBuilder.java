@@ -36,6 +36,7 @@ public class QueryBuilder {
   private Option<Boolean> deleted = none();
   private Option<Date> modifiedAfter = none();
   private Option<Date> modifiedBefore = none();
+  private Option<String> lastMediaPackageId = none();
   private Option<Integer> limit = none();
   private Option<Integer> offset = none();
   private boolean subsequentRequest = false;
@@ -108,6 +109,12 @@ public class QueryBuilder {
     return this;
   }
 
+  /** Resume after the item with this media package id in subsequent requests. */
+  public QueryBuilder lastMediaPackageId(Option<String> lastMediaPackageId) {
+    this.lastMediaPackageId = lastMediaPackageId;
+    return this;
+  }
+
   public QueryBuilder isDeleted(boolean deleted) {
     this.deleted = some(deleted);
     return this;
@@ -142,6 +149,7 @@ public class QueryBuilder {
     final Option<Boolean> deleted = this.deleted;
     final Option<Date> modifiedAfter = this.modifiedAfter;
     final Option<Date> modifiedBefore = this.modifiedBefore;
+    final Option<String> lastMediaPackageId = this.lastMediaPackageId;
     final Option<Integer> limit = this.limit;
     final Option<Integer> offset = this.offset;
     final boolean subsequentRequest = this.subsequentRequest;
@@ -171,6 +179,10 @@ public class QueryBuilder {
         return modifiedBefore;
       }
 
+      @Override public Option<String> getLastMediaPackageId() {
+        return lastMediaPackageId;
+      }
+
       @Override public Option<Integer> getLimit() {
         return limit;
       }
@@ -26,11 +26,13 @@ import org.opencastproject.oaipmh.Granularity;
 import org.opencastproject.oaipmh.matterhorn.MatterhornInlinedMetadataProvider;
 import org.opencastproject.oaipmh.matterhorn.MatterhornMetadataProvider;
 import org.opencastproject.oaipmh.persistence.OaiPmhDatabase;
-import org.opencastproject.oaipmh.util.ResumptionTokenStore;
 import org.opencastproject.util.data.Collections;
 import org.opencastproject.util.data.Option;
 
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
@@ -39,11 +41,16 @@ import java.util.List;
  * <code>matterhorn</code> metadata format.
  */
 public class DefaultRepository extends OaiPmhRepository {
+  private static final Logger logger = LoggerFactory.getLogger(DefaultRepository.class);
+
   private static final String PROP_ADMIN_EMAIL = "org.opencastproject.admin.email";
 
+  /** The secret shared by all nodes, used to sign the resumption tokens */
+  private static final String PROP_DIGEST_PASS = "org.opencastproject.security.digest.pass";
+
   private OaiPmhDatabase persistence;
   private String adminEmail;
-  private final ResumptionTokenStore tokenStore = ResumptionTokenStore.create();
+  private SignedResumptionTokens tokens = SignedResumptionTokens.create();
   private final List<MetadataProvider> metadataProviders =
           Collections.list(new MatterhornMetadataProvider(), new MatterhornInlinedMetadataProvider());
 
@@ -55,6 +62,13 @@ public class DefaultRepository extends OaiPmhRepository {
   /** OSGi callback */
   public void activate(ComponentContext cc) {
     adminEmail = getContextProperty(cc, PROP_ADMIN_EMAIL);
+    final String secret = cc.getBundleContext().getProperty(PROP_DIGEST_PASS);
+    if (StringUtils.isNotBlank(secret)) {
+      tokens = SignedResumptionTokens.create(secret);
+    } else {
+      logger.warn("No {} configured, resumption tokens are only valid on this node until it is restarted",
+              PROP_DIGEST_PASS);
+    }
   }
 
   @Override
@@ -84,12 +98,12 @@ public class DefaultRepository extends OaiPmhRepository {
 
   @Override
   public String saveQuery(ResumableQuery query) {
-    return tokenStore.put(query);
+    return tokens.put(query);
   }
 
   @Override
   public Option<ResumableQuery> getSavedQuery(String resumptionToken) {
-    return tokenStore.get(resumptionToken);
+    return tokens.get(resumptionToken);
   }
 
   @Override
@@ -51,10 +51,13 @@ import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An OAI-PMH protocol compliant repository.
@@ -258,14 +261,9 @@ public abstract class OaiPmhRepository {
       protected ListXmlGen respond(ListGenParams listParams) {
         return new ListXmlGen(listParams) {
           @Override
-          protected List<Node> createContent(final Option<String> set) {
-            return mlist(params.getResult().getItems()).map(new Function<SearchResultItem, Node>() {
-              @Override
-              public Node apply(SearchResultItem item) {
-                final Element metadata = params.getMetadataProvider().createMetadata(OaiPmhRepository.this, item, set);
-                return record(item, metadata);
-              }
-            }).value();
+          protected Node createContent(SearchResultItem item, Option<String> set) {
+            final Element metadata = params.getMetadataProvider().createMetadata(OaiPmhRepository.this, item, set);
+            return record(item, metadata);
           }
         };
       }
@@ -280,13 +278,8 @@ public abstract class OaiPmhRepository {
         // create XML response
         return new ListXmlGen(listParams) {
           @Override
-          protected List<Node> createContent(Option<String> set) {
-            return mlist(params.getResult().getItems()).map(new Function<SearchResultItem, Node>() {
-              @Override
-              public Node apply(SearchResultItem item) {
-                return header(item);
-              }
-            }).value();
+          protected Node createContent(SearchResultItem item, Option<String> set) {
+            return header(item);
           }
         };
       }
@@ -487,6 +480,7 @@ public abstract class OaiPmhRepository {
                 return getPersistence().search(
                         queryRepo(getRepositoryId())
                                 .modifiedAfter(rq.getLastResult())
+                                .lastMediaPackageId(rq.getLastResultId())
                                 .modifiedBefore(rq.getUntil())
                                 .limit(getResultLimit())
                                 .subsequentRequest(true).build());
@@ -565,21 +559,45 @@ public abstract class OaiPmhRepository {
         this.params = p;
       }
 
-      /** Implement to create your content. Gets placed as children of the verb node. */
-      protected abstract List<Node> createContent(Option<String> set);
+      /** Implement to create the content of a single item. Gets placed as a child of the verb node. */
+      protected abstract Node createContent(SearchResultItem item, Option<String> set);
 
       @Override
       public Element create() {
-        final List<Node> content = new ArrayList<Node>(createContent(params.getSet()));
+        final List<Node> content = new ArrayList<Node>();
+        for (SearchResultItem item : params.getResult().getItems())
+          content.add(createContent(item, params.getSet()));
         if (content.size() == 0)
           return createNoRecordsMatchResponse(params.getParams()).create();
-        content.add(resumptionToken(params.getResumptionToken(), params.getMetadataPrefix(), params.getResult(),
-                                    params.getUntil(), params.getSet()));
-        return oai(
-                request($a("metadataPrefix", params.getMetadataPrefix()),
-                        $aSome("from", params.getFrom().map(toSupportedGranularity)),
-                        $aSome("until", some(toSupportedGranularity(params.getUntil()))),
-                        $aSome("set", params.getSet())), verb(content));
+        content.add(resumptionToken());
+        return oai(listRequest(), verb(content));
+      }
+
+      /** Write the items one by one so that only a single record is held in memory at a time. */
+      @Override
+      public void generate(OutputStream out) {
+        final List<SearchResultItem> items = params.getResult().getItems();
+        if (items.isEmpty()) {
+          createNoRecordsMatchResponse(params.getParams()).generate(out);
+          return;
+        }
+        final Element verb = verb();
+        final Iterator<Node> content = Stream.concat(
+                items.stream().map(item -> createContent(item, params.getSet())),
+                Stream.of(resumptionToken())).iterator();
+        stream(out, oai(listRequest(), verb), verb, content);
+      }
+
+      private Element listRequest() {
+        return request($a("metadataPrefix", params.getMetadataPrefix()),
+                       $aSome("from", params.getFrom().map(toSupportedGranularity)),
+                       $aSome("until", some(toSupportedGranularity(params.getUntil()))),
+                       $aSome("set", params.getSet()));
+      }
+
+      private Node resumptionToken() {
+        return resumptionToken(params.getResumptionToken(), params.getMetadataPrefix(), params.getResult(),
+                               params.getUntil(), params.getSet());
       }
     }
 
@@ -0,0 +1,143 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.oaipmh.server;
+
+import static org.opencastproject.util.data.Option.none;
+import static org.opencastproject.util.data.Option.some;
+import static org.opencastproject.util.data.functions.Misc.chuck;
+
+import org.opencastproject.util.data.Option;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Strategy to create stateless resumption tokens. The query is serialized into the token and signed, so a harvest can
+ * be resumed on any node and after restarts without keeping state on the server.
+ * <p>
+ * Use in {@link OaiPmhRepository#saveQuery(ResumableQuery)} and {@link OaiPmhRepository#getSavedQuery(String)}.
+ */
+public final class SignedResumptionTokens {
+  private static final Logger logger = LoggerFactory.getLogger(SignedResumptionTokens.class);
+
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+  /** Version of the token format */
+  private static final byte VERSION = 1;
+
+  private final SecretKeySpec key;
+
+  private SignedResumptionTokens(byte[] secret) {
+    key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+  }
+
+  /** Create tokens signed with a secret shared by all nodes. */
+  public static SignedResumptionTokens create(String secret) {
+    return new SignedResumptionTokens(secret.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Create tokens signed with a random secret. These tokens are only valid on this node until it is restarted. */
+  public static SignedResumptionTokens create() {
+    final byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    return new SignedResumptionTokens(secret);
+  }
+
+  public String put(ResumableQuery query) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeUTF(query.getMetadataPrefix());
+      out.writeLong(query.getLastResult().getTime());
+      writeOption(out, query.getLastResultId());
+      out.writeLong(query.getUntil().getTime());
+      writeOption(out, query.getSet());
+    } catch (IOException e) {
+      return chuck(e);
+    }
+    final byte[] payload = bytes.toByteArray();
+    final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    return encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+  }
+
+  public Option<ResumableQuery> get(String resumptionToken) {
+    final int separator = resumptionToken.indexOf('.');
+    if (separator < 0)
+      return none();
+    try {
+      final Base64.Decoder decoder = Base64.getUrlDecoder();
+      final byte[] payload = decoder.decode(resumptionToken.substring(0, separator));
+      final byte[] signature = decoder.decode(resumptionToken.substring(separator + 1));
+      if (!MessageDigest.isEqual(sign(payload), signature)) {
+        logger.debug("Rejecting resumption token {} with an invalid signature", resumptionToken);
+        return none();
+      }
+      final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+      if (in.readByte() != VERSION)
+        return none();
+      final String metadataPrefix = in.readUTF();
+      final Date lastResult = new Date(in.readLong());
+      final Option<String> lastResultId = readOption(in);
+      final Date until = new Date(in.readLong());
+      final Option<String> set = readOption(in);
+      return some(new ResumableQuery(metadataPrefix, lastResult, lastResultId, until, set));
+    } catch (IllegalArgumentException | IOException e) {
+      logger.debug("Rejecting malformed resumption token {}", resumptionToken);
+      return none();
+    }
+  }
+
+  private byte[] sign(byte[] payload) {
+    try {
+      final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException e) {
+      return chuck(e);
+    }
+  }
+
+  private static void writeOption(DataOutputStream out, Option<String> value) throws IOException {
+    out.writeBoolean(value.isSome());
+    for (String v : value)
+      out.writeUTF(v);
+  }
+
+  private static Option<String> readOption(DataInputStream in) throws IOException {
+    return in.readBoolean() ? some(in.readUTF()) : Option.<String>none();
+  }
+}
@@ -38,6 +38,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -45,12 +46,18 @@ import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -111,6 +118,99 @@ public abstract class XmlGen {
     write(out);
   }
 
+  /**
+   * Write element <code>root</code> to <code>out</code> and append the nodes of <code>content</code> one by one to its
+   * descendant <code>parent</code>. Unlike {@link #generate(java.io.OutputStream)} this never holds the complete
+   * document in memory, so the content nodes may be created lazily while the response is being written.
+   */
+  protected void stream(OutputStream out, Element root, Element parent, Iterator<? extends Node> content) {
+    try {
+      final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+      writer.writeStartDocument("UTF-8", "1.0");
+      writeNode(writer, root, Collections.<String, String>emptyMap(), parent, content);
+      writer.writeEndDocument();
+      writer.flush();
+      // does not close the underlying stream
+      writer.close();
+    } catch (XMLStreamException e) {
+      chuck(e);
+    }
+  }
+
+  private static void writeNode(XMLStreamWriter writer, Node node, Map<String, String> namespaces, Element parent,
+          Iterator<? extends Node> content) throws XMLStreamException {
+    switch (node.getNodeType()) {
+      case Node.ELEMENT_NODE:
+        writeElement(writer, (Element) node, namespaces, parent, content);
+        break;
+      case Node.TEXT_NODE:
+        writer.writeCharacters(node.getNodeValue());
+        break;
+      case Node.CDATA_SECTION_NODE:
+        writer.writeCData(node.getNodeValue());
+        break;
+      case Node.COMMENT_NODE:
+        writer.writeComment(node.getNodeValue());
+        break;
+      default:
+        // no other node types are created by the generators
+    }
+  }
+
+  private static void writeElement(XMLStreamWriter writer, Element e, Map<String, String> namespaces, Element parent,
+          Iterator<? extends Node> content) throws XMLStreamException {
+    final String prefix = StringUtils.defaultString(e.getPrefix());
+    final String namespace = StringUtils.defaultString(e.getNamespaceURI());
+    writer.writeStartElement(prefix, e.getLocalName() != null ? e.getLocalName() : e.getNodeName(), namespace);
+    // explicit namespace declarations first, then the ones required by the element and its attributes
+    Map<String, String> scope = namespaces;
+    final NamedNodeMap attrs = e.getAttributes();
+    for (int i = 0; i < attrs.getLength(); i++) {
+      final Attr a = (Attr) attrs.item(i);
+      if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(a.getNamespaceURI())) {
+        final String declared = XMLConstants.XMLNS_ATTRIBUTE.equals(a.getPrefix()) ? a.getLocalName() : "";
+        scope = declare(writer, scope, declared, a.getValue());
+      }
+    }
+    scope = declare(writer, scope, prefix, namespace);
+    for (int i = 0; i < attrs.getLength(); i++) {
+      final Attr a = (Attr) attrs.item(i);
+      if (a.getNamespaceURI() == null) {
+        writer.writeAttribute(a.getName(), a.getValue());
+      } else if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(a.getNamespaceURI())) {
+        final String attrPrefix = StringUtils.defaultString(a.getPrefix());
+        if (!XMLConstants.XML_NS_URI.equals(a.getNamespaceURI()))
+          scope = declare(writer, scope, attrPrefix, a.getNamespaceURI());
+        writer.writeAttribute(attrPrefix, a.getNamespaceURI(), a.getLocalName(), a.getValue());
+      }
+    }
+    final NodeList children = e.getChildNodes();
+    for (int i = 0; i < children.getLength(); i++)
+      writeNode(writer, children.item(i), scope, parent, content);
+    if (e == parent) {
+      while (content.hasNext()) {
+        writeNode(writer, content.next(), scope, null, content);
+        writer.flush();
+      }
+    }
+    writer.writeEndElement();
+  }
+
+  /** Declare a namespace unless it is already bound to the prefix. Returns the namespaces in scope. */
+  private static Map<String, String> declare(XMLStreamWriter writer, Map<String, String> scope, String prefix,
+          String namespace) throws XMLStreamException {
+    if (namespace.equals(StringUtils.defaultString(scope.get(prefix))))
+      return scope;
+    if (prefix.isEmpty()) {
+      writer.writeDefaultNamespace(namespace);
+    } else {
+      writer.writeNamespace(prefix, namespace);
+    }
+    final Map<String, String> declared = new HashMap<>(scope);
+    declared.put(prefix, namespace);
+    return declared;
+  }
+
   /**
    * Generate the document.
    */
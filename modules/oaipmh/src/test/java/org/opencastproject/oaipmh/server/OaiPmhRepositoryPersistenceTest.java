@@ -36,6 +36,7 @@ import static org.xmlmatchers.xpath.XpathReturnType.returningANumber;
 
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageSupport;
+import org.opencastproject.mediapackage.identifier.IdImpl;
 import org.opencastproject.metadata.dublincore.Precision;
 import org.opencastproject.oaipmh.Granularity;
 import org.opencastproject.oaipmh.OaiPmhConstants;
@@ -56,16 +57,28 @@ import org.opencastproject.util.persistence.PersistenceUtil;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.easymock.EasyMock;
 import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.StringReader;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.persistence.EntityManagerFactory;
 import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
@@ -73,9 +86,13 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
 
 /** Second test suite for OAI-PMH including a fully functional persistence backend. */
 public class OaiPmhRepositoryPersistenceTest {
+  private static final Logger logger = LoggerFactory.getLogger(OaiPmhRepositoryPersistenceTest.class);
   private static final NamespaceContext NS_CTX = OaiPmhNamespaceContext.getContext();
   private static final String FORMAT_PREFIX = OaiPmhConstants.OAI_DC_METADATA_FORMAT.getPrefix();
   private static final String REPOSITORY_ID = "repo";
@@ -211,8 +228,71 @@ public class OaiPmhRepositoryPersistenceTest {
                     hasXPath("count(//oai20:ListSets/oai20:set)", NS_CTX, returningANumber(), equalTo(0.0))));
   }
 
+  @Test
+  public void testHarvestWithResumptionTokens() throws Exception {
+    final AbstractOaiPmhDatabase db = oaiPmhDatabase();
+    final MediaPackage mp = MediaPackageSupport.loadFromClassPath("/mp1.xml");
+    final int records = 120;
+    for (int i = 0; i < records; i++) {
+      mp.setIdentifier(new IdImpl("harvest-" + i));
+      db.store(mp, "default");
+    }
+    final long start = System.currentTimeMillis();
+    final Set<String> harvested = new HashSet<>();
+    String token = null;
+    int pages = 0;
+    do {
+      // every page is served by a new repository sharing the secret, like another node or after a restart
+      final DefaultRepository repo = defaultRepository(db, "secret");
+      final Document page = parse(token == null
+              ? repo.selectVerb(params("ListIdentifiers", null, FORMAT_PREFIX, null, null, null)).generateAsString()
+              : repo.selectVerb(params("ListIdentifiers", null, null, null, null, token)).generateAsString());
+      final NodeList ids = (NodeList) xpath().evaluate("//oai20:ListIdentifiers/oai20:header/oai20:identifier", page,
+              XPathConstants.NODESET);
+      for (int i = 0; i < ids.getLength(); i++)
+        assertThat("Records are harvested only once", harvested.add(ids.item(i).getTextContent()), equalTo(true));
+      token = xpath().evaluate("//oai20:ListIdentifiers/oai20:resumptionToken", page);
+      pages++;
+    } while (StringUtils.isNotEmpty(token));
+    logger.info("Harvested {} records in {} pages in {} ms", harvested.size(), pages,
+            System.currentTimeMillis() - start);
+    assertThat(harvested.size(), equalTo(records));
+    assertThat(pages, equalTo((records + 49) / 50));
+
+    // tokens signed with another secret are rejected
+    final String forged = defaultRepository(db, "another secret").saveQuery(
+            new ResumableQuery(FORMAT_PREFIX, new Date(0), new Date(), Option.<String>none()));
+    assertThat(s(defaultRepository(db, "secret").selectVerb(params("ListIdentifiers", null, null, null, null, forged))),
+            hasXPath("//oai20:error[@code='badResumptionToken']", NS_CTX));
+  }
+
   // --
 
+  private static DefaultRepository defaultRepository(OaiPmhDatabase persistence, String secret) {
+    final BundleContext bc = EasyMock.createNiceMock(BundleContext.class);
+    expect(bc.getProperty("org.opencastproject.admin.email")).andReturn("admin@localhost.org").anyTimes();
+    expect(bc.getProperty("org.opencastproject.security.digest.pass")).andReturn(secret).anyTimes();
+    final ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+    expect(cc.getBundleContext()).andReturn(bc).anyTimes();
+    EasyMock.replay(bc, cc);
+    final DefaultRepository repo = new DefaultRepository();
+    repo.setPersistence(persistence);
+    repo.activate(cc);
+    return repo;
+  }
+
+  private static Document parse(String xml) throws Exception {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+  }
+
+  private static XPath xpath() {
+    final XPath xpath = XPathFactory.newInstance().newXPath();
+    xpath.setNamespaceContext(NS_CTX);
+    return xpath;
+  }
+
   /** Each param may be null. */
   private static Params params(final String verb, final String identifier, final String metadataPrefix,
           final String from, final String until, final String resumptionToken) {
@@ -42,6 +42,8 @@ public class SearchQuery {
   protected Date deletedDate = null;
   protected Sort sort = Sort.DATE_CREATED;
   protected boolean sortAscending = true;
+  protected boolean includeMediaPackages = true;
+  protected boolean includeSegments = true;
 
   public enum Sort {
     DATE_CREATED, DATE_PUBLISHED, TITLE, SERIES_ID, MEDIA_PACKAGE_ID, CREATOR, CONTRIBUTOR, LANGUAGE, LICENSE, SUBJECT, DESCRIPTION, PUBLISHER
@@ -57,6 +59,23 @@ public class SearchQuery {
     return this;
   }
 
+  /**
+   * Whether the result items should carry their media packages. Leaving them out spares the search index from
+   * returning and parsing the stored media package of every hit, which is all most list views need.
+   */
+  public SearchQuery includeMediaPackages(boolean includeMediaPackages) {
+    this.includeMediaPackages = includeMediaPackages;
+    return this;
+  }
+
+  /**
+   * Whether the result items should carry their media segments.
+   */
+  public SearchQuery includeSegments(boolean includeSegments) {
+    this.includeSegments = includeSegments;
+    return this;
+  }
+
   public SearchQuery withId(String id) {
     this.id = id;
     return this;
@@ -119,6 +138,14 @@ public class SearchQuery {
     return includeSeries;
   }
 
+  public boolean isIncludeMediaPackages() {
+    return includeMediaPackages;
+  }
+
+  public boolean isIncludeSegments() {
+    return includeSegments;
+  }
+
   public MediaPackageElementFlavor[] getElementFlavors() {
     return flavors;
   }
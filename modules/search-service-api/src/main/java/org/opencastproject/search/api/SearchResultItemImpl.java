@@ -23,6 +23,7 @@
 package org.opencastproject.search.api;
 
 import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.util.data.Function0;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -37,6 +39,7 @@ import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlID;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
 /**
@@ -171,6 +174,17 @@ public class SearchResultItemImpl implements SearchResultItem {
   @XmlElement(name = "segment")
   private SortedSet<MediaSegmentImpl> mediaSegments = null;
 
+  /**
+   * Loads the media package on first access, if it has not been set directly. Result items may be shared between
+   * threads, e.g. by caches, so the lazily loaded fields are guarded by the item's monitor.
+   */
+  @XmlTransient
+  private transient Function0<MediaPackage> mediaPackageLoader = null;
+
+  /** Loads the media segments on first access, if they have not been added directly */
+  @XmlTransient
+  private transient Function0<MediaSegment[]> segmentsLoader = null;
+
   /**
    * {@inheritDoc}
    *
@@ -578,16 +592,34 @@ public class SearchResultItemImpl implements SearchResultItem {
    * @param mediaPackage
    *          the media package
    */
-  public void setMediaPackage(MediaPackage mediaPackage) {
+  public synchronized void setMediaPackage(MediaPackage mediaPackage) {
+    this.mediaPackageLoader = null;
     this.mediaPackage = mediaPackage;
   }
 
+  /**
+   * Sets a loader that provides the media package the first time it is accessed. This allows search results to defer
+   * the costly parsing of the media package until somebody actually asks for it.
+   *
+   * @param loader
+   *          the media package loader
+   */
+  public synchronized void setMediaPackageLoader(Function0<MediaPackage> loader) {
+    this.mediaPackage = null;
+    this.mediaPackageLoader = loader;
+  }
+
   /**
    * {@inheritDoc}
    *
    * @see org.opencastproject.search.api.SearchResultItem#getMediaPackage()
    */
-  public MediaPackage getMediaPackage() {
+  public synchronized MediaPackage getMediaPackage() {
+    if (mediaPackageLoader != null) {
+      Function0<MediaPackage> loader = mediaPackageLoader;
+      mediaPackageLoader = null;
+      mediaPackage = loader.apply();
+    }
     return mediaPackage;
   }
 
@@ -668,7 +700,8 @@ public class SearchResultItemImpl implements SearchResultItem {
    *
    * @see org.opencastproject.search.api.SearchResultItem#getSegments()
    */
-  public MediaSegment[] getSegments() {
+  public synchronized MediaSegment[] getSegments() {
+    loadSegments();
     return mediaSegments != null ? mediaSegments.toArray(new MediaSegment[mediaSegments.size()])
             : new MediaSegmentImpl[0];
   }
@@ -680,20 +713,57 @@ public class SearchResultItemImpl implements SearchResultItem {
    * @param segment
    *          the segment to add
    */
-  public void addSegment(MediaSegment segment) {
+  public synchronized void addSegment(MediaSegment segment) {
+    loadSegments();
     if (mediaSegments == null)
       mediaSegments = new TreeSet<MediaSegmentImpl>();
     mediaSegments.add((MediaSegmentImpl) segment); // TODO: assuming this
   }
 
   /**
-   * Build a result item from an anonymously implemented interface to ensure you don't miss any fields.
+   * Sets a loader that provides the media segments the first time they are accessed.
+   *
+   * @param loader
+   *          the segments loader
+   */
+  public synchronized void setSegmentsLoader(Function0<MediaSegment[]> loader) {
+    this.mediaSegments = null;
+    this.segmentsLoader = loader;
+  }
+
+  /** Adds the segments of a pending segments loader, if there is one. */
+  private synchronized void loadSegments() {
+    if (segmentsLoader != null) {
+      Function0<MediaSegment[]> loader = segmentsLoader;
+      segmentsLoader = null;
+      for (MediaSegment s : loader.apply())
+        addSegment(s);
+    }
+  }
+
+  /**
+   * JAXB callback making sure lazily loaded fields are present before the item is serialized.
+   */
+  @SuppressWarnings("unused")
+  private void beforeMarshal(Marshaller marshaller) {
+    getMediaPackage();
+    loadSegments();
+  }
+
+  /**
+   * Build a result item from an anonymously implemented interface to ensure you don't miss any fields. The media
+   * package and the segments are not requested from <code>from</code> until they are accessed on the returned item.
    */
-  public static SearchResultItemImpl fill(SearchResultItem from) {
+  public static SearchResultItemImpl fill(final SearchResultItem from) {
     SearchResultItemImpl item = new SearchResultItemImpl();
     item.setId(from.getId());
     item.setOrganization(from.getOrganization());
-    item.setMediaPackage(from.getMediaPackage());
+    item.setMediaPackageLoader(new Function0<MediaPackage>() {
+      @Override
+      public MediaPackage apply() {
+        return from.getMediaPackage();
+      }
+    });
     item.setDcExtent(from.getDcExtent());
     item.setDcTitle(from.getDcTitle());
     item.setDcSubject(from.getDcSubject());
@@ -721,8 +791,12 @@ public class SearchResultItemImpl implements SearchResultItem {
     item.setCover(from.getCover());
     item.setModified(from.getModified());
     item.setScore(from.getScore());
-    for (MediaSegment s : from.getSegments())
-      item.addSegment(s);
+    item.setSegmentsLoader(new Function0<MediaSegment[]>() {
+      @Override
+      public MediaSegment[] apply() {
+        return from.getSegments();
+      }
+    });
     return item;
   }
 }
@@ -0,0 +1,276 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.feed.impl;
+
+import org.opencastproject.feed.impl.jmx.FeedCacheMXBean;
+import org.opencastproject.search.impl.SearchIndexListener;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.core.Variant;
+
+/**
+ * Keeps rendered feeds so that repeated requests for the same feed don't need to query the search index and render the
+ * feed document again.
+ * <p>
+ * Feeds are cached per organization, generator, feed type, query, size and the roles of the requesting user. They are
+ * dropped as soon as the search index reports a change of a media package of the same organization that may be part of
+ * the feed, which is every feed of the organization except the series feeds of other series. Feeds rendered while
+ * such a change happened are not stored, see {@link #getGeneration()}.
+ */
+final class FeedCache implements FeedCacheMXBean, SearchIndexListener {
+
+  /** The cached feeds */
+  private final Cache<String, RenderedFeed> cache;
+
+  /** Number of requests answered with "304 Not Modified" */
+  private final AtomicLong notModified = new AtomicLong();
+
+  /** Number of feeds dropped because of changes to the search index */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /** Number of changes to the search index so far, guarded by the cache's monitor */
+  private long generation = 0L;
+
+  /**
+   * Creates a new feed cache.
+   *
+   * @param ttl
+   *          the number of seconds a rendered feed is kept at most, 0 disables caching
+   * @param maxSize
+   *          the maximum number of rendered feeds to keep
+   */
+  FeedCache(long ttl, long maxSize) {
+    cache = CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.SECONDS).maximumSize(ttl > 0 ? maxSize : 0)
+            .recordStats().build();
+  }
+
+  /**
+   * Creates the cache key of a feed.
+   *
+   * @param organization
+   *          the organization identifier
+   * @param generator
+   *          the identifier of the generator creating the feed
+   * @param feedInfo
+   *          the requested feed
+   * @param roles
+   *          the roles of the requesting user, since they determine which episodes are part of the feed
+   * @return the cache key
+   */
+  static String key(String organization, String generator, FeedInfo feedInfo, Collection<String> roles) {
+    return StringUtils.join(new Object[] { organization, generator, feedInfo.getType(), feedInfo.getVersion(),
+            StringUtils.join(feedInfo.getQuery(), "/"), feedInfo.getSize(),
+            StringUtils.join(new TreeSet<String>(roles), ",") }, "\n");
+  }
+
+  /**
+   * Returns the rendered feed stored for the given key.
+   *
+   * @param key
+   *          the cache key
+   * @return the rendered feed or <code>null</code> if there is none
+   */
+  RenderedFeed get(String key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Returns the current generation of the cache, which changes whenever feeds are invalidated. It has to be obtained
+   * before rendering a feed and passed to {@link #put(String, RenderedFeed, long)}.
+   *
+   * @return the generation
+   */
+  synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Stores a rendered feed, unless feeds have been invalidated since it has been rendered, in which case it may already
+   * be outdated.
+   *
+   * @param key
+   *          the cache key
+   * @param feed
+   *          the rendered feed
+   * @param generation
+   *          the generation of the cache obtained before rendering the feed
+   */
+  synchronized void put(String key, RenderedFeed feed, long generation) {
+    if (generation == this.generation)
+      cache.put(key, feed);
+  }
+
+  /**
+   * Records that a request has been answered with "304 Not Modified".
+   */
+  void notModified() {
+    notModified.incrementAndGet();
+  }
+
+  @Override
+  public synchronized void mediaPackageChanged(String organization, String mediaPackageId, String seriesId) {
+    generation++;
+    Iterator<Map.Entry<String, RenderedFeed>> entries = cache.asMap().entrySet().iterator();
+    while (entries.hasNext()) {
+      RenderedFeed feed = entries.next().getValue();
+      if (feed.isAffectedBy(organization, seriesId)) {
+        entries.remove();
+        invalidations.incrementAndGet();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void indexChanged() {
+    generation++;
+    invalidations.addAndGet(cache.size());
+    cache.invalidateAll();
+  }
+
+  @Override
+  public long getSize() {
+    return cache.size();
+  }
+
+  @Override
+  public long getHits() {
+    return cache.stats().hitCount();
+  }
+
+  @Override
+  public long getMisses() {
+    return cache.stats().missCount();
+  }
+
+  @Override
+  public double getHitRatio() {
+    return cache.stats().hitRate();
+  }
+
+  @Override
+  public long getNotModified() {
+    return notModified.get();
+  }
+
+  @Override
+  public long getInvalidations() {
+    return invalidations.get();
+  }
+
+  /**
+   * A feed document together with the information needed to answer conditional requests for it.
+   */
+  static final class RenderedFeed {
+
+    private final String content;
+    private final Variant variant;
+    private final String organization;
+    private final String seriesId;
+    private final String etag;
+    private final Date lastModified;
+
+    /**
+     * Creates a rendered feed.
+     *
+     * @param content
+     *          the feed document
+     * @param variant
+     *          the content type and encoding of the document
+     * @param organization
+     *          the organization the feed belongs to
+     * @param seriesId
+     *          the series if the feed only contains episodes of a single series, <code>null</code> otherwise
+     * @param lastModified
+     *          the time the feed has been rendered
+     */
+    RenderedFeed(String content, Variant variant, String organization, String seriesId, Date lastModified) {
+      this.content = content;
+      this.variant = variant;
+      this.organization = organization;
+      this.seriesId = seriesId;
+      this.etag = Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8).toString();
+      // HTTP dates have a resolution of seconds
+      this.lastModified = new Date(lastModified.getTime() / 1000L * 1000L);
+    }
+
+    String getContent() {
+      return content;
+    }
+
+    Variant getVariant() {
+      return variant;
+    }
+
+    String getETag() {
+      return etag;
+    }
+
+    Date getLastModified() {
+      return lastModified;
+    }
+
+    /**
+     * Returns whether a change to a media package of the given organization and series may alter this feed.
+     */
+    boolean isAffectedBy(String organization, String seriesId) {
+      return this.organization.equals(organization) && (this.seriesId == null || this.seriesId.equals(seriesId));
+    }
+
+    /**
+     * Checks the conditional headers of a request against this feed.
+     *
+     * @param ifNoneMatch
+     *          the value of the <code>If-None-Match</code> header or <code>null</code>
+     * @param ifModifiedSince
+     *          the value of the <code>If-Modified-Since</code> header in milliseconds or -1
+     * @return whether the client's copy of the feed is still current
+     */
+    boolean isNotModified(String ifNoneMatch, long ifModifiedSince) {
+      // If-None-Match takes precedence over If-Modified-Since
+      if (ifNoneMatch != null) {
+        for (String value : ifNoneMatch.split(",")) {
+          String tag = StringUtils.removeStart(value.trim(), "W/");
+          if ("*".equals(tag) || ("\"" + etag + "\"").equals(tag))
+            return true;
+        }
+        return false;
+      }
+      return ifModifiedSince >= 0 && lastModified.getTime() <= ifModifiedSince;
+    }
+
+  }
+
+}
@@ -24,31 +24,40 @@ package org.opencastproject.feed.impl;
 
 import org.opencastproject.feed.api.Feed;
 import org.opencastproject.feed.api.FeedGenerator;
+import org.opencastproject.feed.impl.FeedCache.RenderedFeed;
+import org.opencastproject.search.impl.SearchServiceImpl;
 import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.Role;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.util.doc.rest.RestParameter;
 import org.opencastproject.util.doc.rest.RestParameter.Type;
 import org.opencastproject.util.doc.rest.RestQuery;
 import org.opencastproject.util.doc.rest.RestResponse;
 import org.opencastproject.util.doc.rest.RestService;
+import org.opencastproject.util.jmx.JmxUtil;
 
 import com.rometools.rome.io.FeedException;
 import com.rometools.rome.io.SyndFeedOutput;
 import com.rometools.rome.io.WireFeedOutput;
 
 import org.apache.commons.lang3.StringUtils;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
+import javax.management.ObjectInstance;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -73,7 +82,9 @@ import javax.ws.rs.core.Variant;
  *
  * which would indicate a requeste to an atom 1.0 feed with <tt>favourites</tt> being the query.
  *
- * The servlet returns a HTTP status 200 with the feed data.
+ * The servlet returns a HTTP status 200 with the feed data, or 304 if the client's copy identified by the
+ * <code>If-None-Match</code> or <code>If-Modified-Since</code> header is still current. Rendered feeds are cached until
+ * the search index reports a change that may affect them.
  * If the feed could not be found because the query is unknown a HTTP error 404 is returned
  * If the feed could not be build (wrong RSS or Atom version, corrupt data, etc) an HTTP error 500 is returned.
  */
@@ -85,6 +96,21 @@ public class FeedServiceImpl {
   /** Name of the size parameter */
   private static final String PARAM_SIZE = "size";
 
+  /** Configuration key for the number of seconds rendered feeds are cached, 0 disables the cache */
+  public static final String CACHE_TTL_KEY = "org.opencastproject.feed.cache.ttl";
+
+  /** Configuration key for the maximum number of rendered feeds to cache */
+  public static final String CACHE_SIZE_KEY = "org.opencastproject.feed.cache.size";
+
+  /** Default number of seconds rendered feeds are cached */
+  public static final long DEFAULT_CACHE_TTL = 300L;
+
+  /** Default maximum number of rendered feeds to cache */
+  public static final long DEFAULT_CACHE_SIZE = 1000L;
+
+  /** The JMX type of the feed cache */
+  public static final String FEED_CACHE_JMX_TYPE = "FeedCache";
+
   /** Logging facility */
   private static Logger logger = LoggerFactory.getLogger(FeedServiceImpl.class);
 
@@ -94,6 +120,57 @@ public class FeedServiceImpl {
   /** The security service */
   private SecurityService securityService = null;
 
+  /** The search service notifying the feed cache about changes */
+  private SearchServiceImpl searchService = null;
+
+  /** The rendered feeds */
+  private volatile FeedCache feedCache = new FeedCache(DEFAULT_CACHE_TTL, DEFAULT_CACHE_SIZE);
+
+  /** The registered feed cache JMX bean */
+  private ObjectInstance feedCacheMXBean = null;
+
+  /**
+   * OSGi callback on component activation.
+   *
+   * @param cc
+   *          the component context
+   */
+  synchronized void activate(ComponentContext cc) {
+    long ttl = DEFAULT_CACHE_TTL;
+    long size = DEFAULT_CACHE_SIZE;
+    try {
+      String ttlValue = StringUtils.trimToNull(cc.getBundleContext().getProperty(CACHE_TTL_KEY));
+      if (ttlValue != null)
+        ttl = Long.parseLong(ttlValue);
+      String sizeValue = StringUtils.trimToNull(cc.getBundleContext().getProperty(CACHE_SIZE_KEY));
+      if (sizeValue != null)
+        size = Long.parseLong(sizeValue);
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid feed cache configuration, using a ttl of {}s and a size of {}: {}", DEFAULT_CACHE_TTL,
+              DEFAULT_CACHE_SIZE, e.getMessage());
+      ttl = DEFAULT_CACHE_TTL;
+      size = DEFAULT_CACHE_SIZE;
+    }
+    logger.info("Caching up to {} rendered feeds for {}s", size, ttl);
+
+    if (searchService != null)
+      searchService.removeIndexListener(feedCache);
+    feedCache = new FeedCache(ttl, size);
+    if (searchService != null)
+      searchService.addIndexListener(feedCache);
+    feedCacheMXBean = JmxUtil.registerMXBean(feedCache, FEED_CACHE_JMX_TYPE);
+  }
+
+  /**
+   * OSGi callback on component deactivation.
+   */
+  synchronized void deactivate() {
+    if (feedCacheMXBean != null) {
+      JmxUtil.unregisterMXBean(feedCacheMXBean);
+      feedCacheMXBean = null;
+    }
+  }
+
   /*
    * Note: We're using Regex matching for the path here, instead of normal JAX-RS paths.  Previously this class was a servlet,
    * which was fine except that it had auth issues.  Removing the servlet fixed the auth issues, but then the paths (as written
@@ -113,6 +190,7 @@ public class FeedServiceImpl {
           @RestParameter(description = "Requested result size", name = "size", type = Type.INTEGER, isRequired = false)
       }, reponses = {
           @RestResponse(description = "Return the feed of the appropriate type", responseCode = HttpServletResponse.SC_OK),
+          @RestResponse(description = "The feed has not been modified since the client's copy", responseCode = HttpServletResponse.SC_NOT_MODIFIED),
           @RestResponse(description = "", responseCode = HttpServletResponse.SC_BAD_REQUEST),
           @RestResponse(description = "", responseCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR) }, returnDescription = "")
   public Response getFeed(@Context HttpServletRequest request) {
@@ -135,42 +213,74 @@ public class FeedServiceImpl {
     else if (feedInfo.getType().equals(Feed.Type.RSS))
       contentType = "application/rss+xml";
 
-    // Have a feed generator create the requested feed
-    Feed feed = null;
+    // Find the feed generator responsible for the requested feed
+    FeedGenerator feedGenerator = null;
     for (FeedGenerator generator : feeds) {
       if (generator.accept(feedInfo.getQuery())) {
-        feed = generator.createFeed(feedInfo.getType(), feedInfo.getQuery(), feedInfo.getSize(), organization);
-        if (feed == null) {
-          return Response.serverError().build();
-        }
+        feedGenerator = generator;
         break;
       }
     }
 
     // Have we found a feed generator?
-    if (feed == null) {
+    if (feedGenerator == null) {
       logger.debug("RSS/Atom feed could not be generated");
       return Response.status(Status.NOT_FOUND).build();
     }
 
-    // Set character encoding
-    Variant v = new Variant(MediaType.valueOf(contentType), null, feed.getEncoding());
-    String outputString = null;
-    try {
-      if (feedInfo.getType().equals(Feed.Type.RSS)) {
-        logger.debug("Creating RSS feed output.");
-        SyndFeedOutput output = new SyndFeedOutput();
-        outputString = output.outputString(new RomeRssFeed(feed, feedInfo));
-      } else {
-        logger.debug("Creating Atom feed output.");
-        WireFeedOutput output = new WireFeedOutput();
-        outputString = output.outputString(new RomeAtomFeed(feed, feedInfo));
+    List<String> roles = new ArrayList<String>();
+    for (Role role : securityService.getUser().getRoles()) {
+      roles.add(role.getName());
+    }
+    String cacheKey = FeedCache.key(organization.getId(), feedGenerator.getIdentifier(), feedInfo, roles);
+    final FeedCache cache = feedCache;
+    RenderedFeed renderedFeed = cache.get(cacheKey);
+
+    if (renderedFeed == null) {
+      long generation = cache.getGeneration();
+      // Have the feed generator create the requested feed
+      Feed feed = feedGenerator.createFeed(feedInfo.getType(), feedInfo.getQuery(), feedInfo.getSize(), organization);
+      if (feed == null) {
+        return Response.serverError().build();
       }
-    } catch (FeedException e) {
-      return Response.serverError().build();
+
+      // Set character encoding
+      Variant v = new Variant(MediaType.valueOf(contentType), null, feed.getEncoding());
+      String outputString = null;
+      try {
+        if (feedInfo.getType().equals(Feed.Type.RSS)) {
+          logger.debug("Creating RSS feed output.");
+          SyndFeedOutput output = new SyndFeedOutput();
+          outputString = output.outputString(new RomeRssFeed(feed, feedInfo));
+        } else {
+          logger.debug("Creating Atom feed output.");
+          WireFeedOutput output = new WireFeedOutput();
+          outputString = output.outputString(new RomeAtomFeed(feed, feedInfo));
+        }
+      } catch (FeedException e) {
+        return Response.serverError().build();
+      }
+
+      // Series feeds only change with the episodes of their series
+      String seriesId = feedGenerator instanceof SeriesFeedService ? feedGenerator.getIdentifier() : null;
+      renderedFeed = new RenderedFeed(outputString, v, organization.getId(), seriesId, new Date());
+      cache.put(cacheKey, renderedFeed, generation);
+    }
+
+    EntityTag etag = new EntityTag(renderedFeed.getETag());
+    long ifModifiedSince = -1L;
+    try {
+      ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+    } catch (IllegalArgumentException e) {
+      logger.debug("Ignoring malformed {} header", HttpHeaders.IF_MODIFIED_SINCE);
+    }
+    if (renderedFeed.isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), ifModifiedSince)) {
+      cache.notModified();
+      return Response.notModified(etag).lastModified(renderedFeed.getLastModified()).build();
     }
 
-    return Response.ok(outputString, v).build();
+    return Response.ok(renderedFeed.getContent(), renderedFeed.getVariant()).tag(etag)
+            .lastModified(renderedFeed.getLastModified()).build();
   }
 
   /**
@@ -255,4 +365,27 @@ public class FeedServiceImpl {
     this.securityService = securityService;
   }
 
+  /**
+   * OSGi callback to set the search service, which notifies the feed cache about changes of the search index.
+   *
+   * @param searchService
+   *          the search service
+   */
+  synchronized void setSearchService(SearchServiceImpl searchService) {
+    this.searchService = searchService;
+    searchService.addIndexListener(feedCache);
+  }
+
+  /**
+   * OSGi callback to unset the search service.
+   *
+   * @param searchService
+   *          the search service
+   */
+  synchronized void unsetSearchService(SearchServiceImpl searchService) {
+    searchService.removeIndexListener(feedCache);
+    if (this.searchService == searchService)
+      this.searchService = null;
+  }
+
 }
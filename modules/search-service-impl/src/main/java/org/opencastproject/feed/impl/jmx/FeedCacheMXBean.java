@@ -0,0 +1,47 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.feed.impl.jmx;
+
+/**
+ * JMX interface of the cache holding rendered feeds.
+ */
+public interface FeedCacheMXBean {
+
+  /** Returns the number of rendered feeds currently held */
+  long getSize();
+
+  /** Returns the number of feed requests answered from the cache */
+  long getHits();
+
+  /** Returns the number of feed requests that had to render the feed */
+  long getMisses();
+
+  /** Returns the ratio of feed requests answered from the cache */
+  double getHitRatio();
+
+  /** Returns the number of feed requests answered with "304 Not Modified" */
+  long getNotModified();
+
+  /** Returns the number of rendered feeds dropped because the search index changed */
+  long getInvalidations();
+
+}
@@ -46,6 +46,7 @@ import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -233,10 +234,14 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
                   + "CONTRIBUTOR, LANGUAGE, LICENSE, SUBJECT, DESCRIPTION, PUBLISHER.  Add '_DESC' to reverse the sort order (e.g. TITLE_DESC).", type = RestParameter.Type.STRING),          
           @RestParameter(defaultValue = "20", description = "The maximum number of items to return per page.", isRequired = false, name = "limit", type = RestParameter.Type.STRING),
           @RestParameter(defaultValue = "0", description = "The page number.", isRequired = false, name = "offset", type = RestParameter.Type.STRING),
-          @RestParameter(defaultValue = "false", description = "Whether this is an administrative query", isRequired = false, name = "admin", type = RestParameter.Type.BOOLEAN) }, reponses = { @RestResponse(description = "The request was processed succesfully.", responseCode = HttpServletResponse.SC_OK) }, returnDescription = "The search results, expressed as xml or json.")
+          @RestParameter(defaultValue = "false", description = "Whether this is an administrative query", isRequired = false, name = "admin", type = RestParameter.Type.BOOLEAN),
+          @RestParameter(defaultValue = "true", description = "Whether to include the media package of each episode", isRequired = false, name = "mediapackage", type = RestParameter.Type.BOOLEAN),
+          @RestParameter(defaultValue = "true", description = "Whether to include the segments of each episode", isRequired = false, name = "segments", type = RestParameter.Type.BOOLEAN) }, reponses = { @RestResponse(description = "The request was processed succesfully.", responseCode = HttpServletResponse.SC_OK) }, returnDescription = "The search results, expressed as xml or json.")
   public Response getEpisode(@QueryParam("id") String id, @QueryParam("q") String text,
           @QueryParam("sid") String seriesId, @QueryParam("sort") String sort, @QueryParam("tag") String[] tags, @QueryParam("flavor") String[] flavors,
           @QueryParam("limit") int limit, @QueryParam("offset") int offset, @QueryParam("admin") boolean admin,
+          @QueryParam("mediapackage") @DefaultValue("true") boolean includeMediaPackages,
+          @QueryParam("segments") @DefaultValue("true") boolean includeSegments,
           @PathParam("format") String format) throws SearchException, UnauthorizedException {
     // CHECKSTYLE:ON
     // Prepare the flavors
@@ -254,7 +259,8 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
     SearchQuery search = new SearchQuery();
     search.withId(id).withSeriesId(seriesId)
             .withElementFlavors(flavorSet.toArray(new MediaPackageElementFlavor[flavorSet.size()]))
-            .withElementTags(tags).withLimit(limit).withOffset(offset);
+            .withElementTags(tags).withLimit(limit).withOffset(offset)
+            .includeMediaPackages(includeMediaPackages).includeSegments(includeSegments);
 
     if (StringUtils.isNotBlank(text)) {
       search.withText(text);
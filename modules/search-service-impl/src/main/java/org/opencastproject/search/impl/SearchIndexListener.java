@@ -0,0 +1,46 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.search.impl;
+
+/**
+ * Gets notified by the {@link SearchServiceImpl} whenever the content of the search index changes.
+ */
+public interface SearchIndexListener {
+
+  /**
+   * Called after a media package has been added to, updated in or removed from the search index.
+   *
+   * @param organization
+   *          the identifier of the organization the media package belongs to
+   * @param mediaPackageId
+   *          the media package identifier
+   * @param seriesId
+   *          the identifier of the series the media package belongs to, or <code>null</code> if there is none
+   */
+  void mediaPackageChanged(String organization, String mediaPackageId, String seriesId);
+
+  /**
+   * Called after the search index has been cleared or rebuilt.
+   */
+  void indexChanged();
+
+}
@@ -34,6 +34,7 @@ import org.opencastproject.metadata.mpeg7.Mpeg7CatalogService;
 import org.opencastproject.search.api.SearchException;
 import org.opencastproject.search.api.SearchQuery;
 import org.opencastproject.search.api.SearchResult;
+import org.opencastproject.search.api.SearchResultItem;
 import org.opencastproject.search.api.SearchService;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabase;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabaseException;
@@ -82,6 +83,7 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A Solr-based {@link SearchService} implementation.
@@ -163,6 +165,9 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   /** The optional Mediapackage serializer */
   protected MediaPackageSerializer serializer = null;
 
+  /** The listeners to notify about changes of the search index */
+  private final List<SearchIndexListener> indexListeners = new CopyOnWriteArrayList<SearchIndexListener>();
+
   /**
    * Creates a new instance of the search service.
    */
@@ -363,6 +368,7 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     }
     logger.debug("Attempting to add mediapackage {} to search index", mediaPackage.getIdentifier());
     AccessControlList acl = authorizationService.getActiveAcl(mediaPackage).getA();
+    String previousSeries = indexListeners.isEmpty() ? null : getIndexedSeries(mediaPackage.getIdentifier().toString());
 
     Date now = new Date();
 
@@ -382,6 +388,30 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
       logger.error("Could not store media package to search database {}: {}", mediaPackage.getIdentifier(), e);
       throw new SearchException(e);
     }
+
+    String organization = securityService.getOrganization().getId();
+    fireMediaPackageChanged(organization, mediaPackage.getIdentifier().toString(), mediaPackage.getSeries());
+    // the episode left its previous series
+    if (previousSeries != null && !previousSeries.equals(mediaPackage.getSeries()))
+      fireMediaPackageChanged(organization, mediaPackage.getIdentifier().toString(), previousSeries);
+  }
+
+  /**
+   * Returns the series of the media package as currently indexed.
+   *
+   * @param mediaPackageId
+   *          the media package identifier
+   * @return the series identifier or <code>null</code> if the media package is not indexed or not part of a series
+   */
+  private String getIndexedSeries(String mediaPackageId) {
+    try {
+      SearchResultItem[] items = solrRequester.getForAdministrativeRead(new SearchQuery().withId(mediaPackageId)
+              .includeMediaPackages(false).includeSegments(false)).getItems();
+      return items.length > 0 ? items[0].getDcIsPartOf() : null;
+    } catch (SolrServerException e) {
+      logger.warn("Unable to look up the indexed series of media package {}", mediaPackageId, e);
+      return null;
+    }
   }
 
   /**
@@ -436,7 +466,12 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
         throw new SearchException(e);
       }
 
-      return indexManager.delete(mediaPackageId, now);
+      boolean deleted = indexManager.delete(mediaPackageId, now);
+      if (deleted) {
+        SearchResultItem item = result.getItems()[0];
+        fireMediaPackageChanged(item.getOrganization(), mediaPackageId, item.getDcIsPartOf());
+      }
+      return deleted;
     } catch (SolrServerException e) {
       logger.info("Could not delete media package with id {} from search index", mediaPackageId);
       throw new SearchException(e);
@@ -456,6 +491,47 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     } catch (SolrServerException e) {
       throw new SearchException(e);
     }
+    fireIndexChanged();
+  }
+
+  /**
+   * Registers a listener to be notified about changes of the search index.
+   *
+   * @param listener
+   *          the listener
+   */
+  public void addIndexListener(SearchIndexListener listener) {
+    indexListeners.add(listener);
+  }
+
+  /**
+   * Removes a listener previously registered using {@link #addIndexListener(SearchIndexListener)}.
+   *
+   * @param listener
+   *          the listener
+   */
+  public void removeIndexListener(SearchIndexListener listener) {
+    indexListeners.remove(listener);
+  }
+
+  private void fireMediaPackageChanged(String organization, String mediaPackageId, String seriesId) {
+    for (SearchIndexListener listener : indexListeners) {
+      try {
+        listener.mediaPackageChanged(organization, mediaPackageId, seriesId);
+      } catch (Exception e) {
+        logger.warn("Search index listener {} failed to handle change of media package {}", listener, mediaPackageId, e);
+      }
+    }
+  }
+
+  private void fireIndexChanged() {
+    for (SearchIndexListener listener : indexListeners) {
+      try {
+        listener.indexChanged();
+      } catch (Exception e) {
+        logger.warn("Search index listener {} failed to handle change of the index", listener, e);
+      }
+    }
   }
 
   /**
@@ -545,6 +621,7 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
       if (errors > 0)
         logger.error("Skipped {} erroneous search entries while populating the search index", errors);
       logger.info("Finished populating search index");
+      fireIndexChanged();
     }
   }
 
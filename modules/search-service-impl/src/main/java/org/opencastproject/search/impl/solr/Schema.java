@@ -27,6 +27,7 @@ import static org.opencastproject.util.data.Collections.head;
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Option;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
@@ -92,6 +93,12 @@ public final class Schema {
   public static final String SUFFIX_FROM = "from";
   public static final String SUFFIX_TO = "to";
 
+  /**
+   * Suffix of the stored fields collecting the values of all languages of a localized field, e.g.
+   * <code>dc_title-sum</code> for <code>dc_title_*</code>.
+   */
+  public static final String SUFFIX_SUM = "-sum";
+
   // Additional fields
   public static final String OC_ORGANIZATION = "oc_organization";
   public static final String OC_MEDIAPACKAGE = "oc_mediapackage";
@@ -570,6 +577,13 @@ public final class Schema {
     }).getOrElse(dflt);
   }
 
+  /**
+   * Returns the name of the field collecting all languages of the localized field <code>fieldPrefix</code>.
+   */
+  public static String getSumField(String fieldPrefix) {
+    return StringUtils.removeEnd(fieldPrefix, "_") + SUFFIX_SUM;
+  }
+
   private static String mkString(Object v) {
     return v != null ? v.toString() : null;
   }
@@ -589,6 +603,12 @@ public final class Schema {
         }
       }
     }
+    // Projected queries only fetch the summary field since dynamic fields cannot be selected by name
+    if (r.isEmpty() && doc.getFieldValues(getSumField(fieldPrefix)) != null) {
+      for (Object v : doc.getFieldValues(getSumField(fieldPrefix))) {
+        r.add(new DField(mkString(v), LANGUAGE_UNDEFINED));
+      }
+    }
     return r;
   }
 
@@ -62,6 +62,7 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map.Entry;
@@ -95,6 +96,18 @@ public class SolrRequester {
    */
   private MediaPackageSerializer serializer = null;
 
+  /** The static fields making up a search result item */
+  private static final String[] RESULT_FIELDS = { Schema.ID, Schema.OC_ORGANIZATION, Schema.DC_EXTENT,
+          Schema.DC_CREATED, Schema.DC_AVAILABLE_PREFIX + Schema.SUFFIX_FROM,
+          Schema.DC_AVAILABLE_PREFIX + Schema.SUFFIX_TO, Schema.DC_LANGUAGE, Schema.DC_IS_PART_OF, Schema.DC_REPLACES,
+          Schema.DC_TYPE, Schema.OC_MEDIATYPE, Schema.OC_KEYWORDS, Schema.OC_COVER, Schema.OC_MODIFIED };
+
+  /** The localized fields making up a search result item */
+  private static final String[] LOCALIZED_RESULT_FIELDS = { Schema.DC_TITLE_PREFIX, Schema.DC_SUBJECT_PREFIX,
+          Schema.DC_DESCRIPTION_PREFIX, Schema.DC_CREATOR_PREFIX, Schema.DC_PUBLISHER_PREFIX,
+          Schema.DC_CONTRIBUTOR_PREFIX, Schema.DC_RIGHTS_HOLDER_PREFIX, Schema.DC_SPATIAL_PREFIX,
+          Schema.DC_ACCESS_RIGHTS_PREFIX, Schema.DC_LICENSE_PREFIX };
+
   /**
    * Creates a new requester for solr that will be using the given connection object to query the search index.
    *
@@ -146,13 +159,15 @@ public class SolrRequester {
   /**
    * Creates a search result from a given solr response.
    *
+   * @param q
+   *          The search query, telling whether media packages and segments are to be included.
    * @param query
    *          The solr query.
    * @return The search result.
    * @throws SolrServerException
    *           if the solr server is not working as expected
    */
-  private SearchResult createSearchResult(final SolrQuery query) throws SolrServerException {
+  private SearchResult createSearchResult(final SearchQuery q, final SolrQuery query) throws SolrServerException {
 
     // Execute the query and try to get hold of a query response
     QueryResponse solrResponse = null;
@@ -191,6 +206,9 @@ public class SolrRequester {
 
         @Override
         public MediaPackage getMediaPackage() {
+          // the field is still fetched by projections including the segments
+          if (!q.isIncludeMediaPackages())
+            return null;
           MediaPackageBuilder builder = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder();
           if (serializer != null)
             builder.setSerializer(serializer);
@@ -330,6 +348,9 @@ public class SolrRequester {
 
         @Override
         public String getOcMediapackage() {
+          // the field is still fetched by projections including the segments
+          if (!q.isIncludeMediaPackages())
+            return null;
           return Schema.getOcMediapackage(doc);
         }
 
@@ -365,7 +386,7 @@ public class SolrRequester {
 
         @Override
         public MediaSegment[] getSegments() {
-          if (SearchResultItemType.AudioVisual.equals(getType()))
+          if (q.isIncludeSegments() && SearchResultItemType.AudioVisual.equals(getType()))
             return createSearchResultSegments(doc, query).toArray(new MediaSegmentImpl[0]);
           else
             return new MediaSegmentImpl[0];
@@ -762,10 +783,35 @@ public class SolrRequester {
       query.addSortField(getSortField(SearchQuery.Sort.DATE_CREATED), ORDER.desc);
     }
 
-    query.setFields("* score");
+    query.setFields(getFields(q));
     return query;
   }
 
+  /**
+   * Returns the list of fields to fetch from the index for the given query.
+   * <p>
+   * Segments are made up of dynamic fields which Solr can only return as part of a <code>*</code> projection, so queries
+   * that include segments fetch everything. Other queries fetch the fields needed to build the result items and leave
+   * out the media package unless it is requested, which spares both the transfer and the parsing of the largest stored
+   * field.
+   *
+   * @param q
+   *          the search query
+   * @return the fields parameter
+   */
+  static String getFields(SearchQuery q) {
+    if (q.isIncludeSegments())
+      return "* " + Schema.SCORE;
+    List<String> fields = new ArrayList<String>(Arrays.asList(RESULT_FIELDS));
+    for (String prefix : LOCALIZED_RESULT_FIELDS) {
+      fields.add(Schema.getSumField(prefix));
+    }
+    if (q.isIncludeMediaPackages())
+      fields.add(Schema.OC_MEDIAPACKAGE);
+    fields.add(Schema.SCORE);
+    return StringUtils.join(fields, ",");
+  }
+
   /**
    * Returns the search results, regardless of permissions. This should be used for maintenance purposes only.
    *
@@ -776,7 +822,7 @@ public class SolrRequester {
    */
   public SearchResult getForAdministrativeRead(SearchQuery q) throws SolrServerException {
     SolrQuery query = getForAction(q, READ.toString(), false);
-    return createSearchResult(query);
+    return createSearchResult(q, query);
   }
 
   /**
@@ -789,7 +835,7 @@ public class SolrRequester {
    */
   public SearchResult getForRead(SearchQuery q) throws SolrServerException {
     SolrQuery query = getForAction(q, READ.toString(), true);
-    return createSearchResult(query);
+    return createSearchResult(q, query);
   }
 
   /**
@@ -802,7 +848,7 @@ public class SolrRequester {
    */
   public SearchResult getForWrite(SearchQuery q) throws SolrServerException {
     SolrQuery query = getForAction(q, WRITE.toString(), true);
-    return createSearchResult(query);
+    return createSearchResult(q, query);
   }
 
   /**
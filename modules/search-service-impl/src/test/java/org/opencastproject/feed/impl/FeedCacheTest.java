@@ -0,0 +1,132 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.feed.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.feed.api.Feed;
+import org.opencastproject.feed.impl.FeedCache.RenderedFeed;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Variant;
+
+public class FeedCacheTest {
+
+  private static final Variant RSS = new Variant(new MediaType("application", "rss+xml"), (Locale) null, "UTF-8");
+
+  private static final FeedInfo FEED_INFO = new FeedInfo(Feed.Type.RSS, 2.0f, new String[] { "series", "s1" });
+
+  private static RenderedFeed feed(String organization, String seriesId) {
+    return new RenderedFeed("<rss/>", RSS, organization, seriesId, new Date(1500000000123L));
+  }
+
+  @Test
+  public void testKey() {
+    String key = FeedCache.key("org", "s1", FEED_INFO, Arrays.asList("ROLE_B", "ROLE_A"));
+    assertEquals(key, FeedCache.key("org", "s1", FEED_INFO, Arrays.asList("ROLE_A", "ROLE_B")));
+    assertNotEquals(key, FeedCache.key("org", "s1", FEED_INFO, Arrays.asList("ROLE_A")));
+    assertNotEquals(key, FeedCache.key("other", "s1", FEED_INFO, Arrays.asList("ROLE_A", "ROLE_B")));
+    assertNotEquals(key, FeedCache.key("org", "s1", new FeedInfo(Feed.Type.Atom, 1.0f, FEED_INFO.getQuery()),
+            Arrays.asList("ROLE_A", "ROLE_B")));
+  }
+
+  @Test
+  public void testInvalidation() {
+    FeedCache cache = new FeedCache(60, 100);
+    cache.put("series1", feed("org", "s1"), cache.getGeneration());
+    cache.put("series2", feed("org", "s2"), cache.getGeneration());
+    cache.put("latest", feed("org", null), cache.getGeneration());
+    cache.put("other", feed("other", null), cache.getGeneration());
+
+    assertNull(cache.get("unknown"));
+    assertNotNull(cache.get("series1"));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(0.5, cache.getHitRatio(), 0.0001);
+
+    // A change to an episode of series s1 affects its series feed and every feed not bound to a series
+    cache.mediaPackageChanged("org", "mp1", "s1");
+    assertNull(cache.get("series1"));
+    assertNull(cache.get("latest"));
+    assertNotNull(cache.get("series2"));
+    assertNotNull(cache.get("other"));
+    assertEquals(2, cache.getInvalidations());
+
+    cache.indexChanged();
+    assertEquals(0, cache.getSize());
+    assertEquals(4, cache.getInvalidations());
+  }
+
+  @Test
+  public void testInvalidationWhileRendering() {
+    FeedCache cache = new FeedCache(60, 100);
+    long generation = cache.getGeneration();
+    // The feed is rendered while an episode of its series changes
+    cache.mediaPackageChanged("org", "mp1", "s1");
+    cache.put("series1", feed("org", "s1"), generation);
+    assertNull(cache.get("series1"));
+
+    cache.put("series1", feed("org", "s1"), cache.getGeneration());
+    assertNotNull(cache.get("series1"));
+  }
+
+  @Test
+  public void testDisabled() {
+    FeedCache cache = new FeedCache(0, 100);
+    cache.put("latest", feed("org", null), cache.getGeneration());
+    assertNull(cache.get("latest"));
+  }
+
+  @Test
+  public void testConditionalRequest() {
+    RenderedFeed feed = feed("org", null);
+    String etag = "\"" + feed.getETag() + "\"";
+    assertEquals(1500000000000L, feed.getLastModified().getTime());
+
+    assertTrue(feed.isNotModified(etag, -1));
+    assertTrue(feed.isNotModified("\"foo\", W/" + etag, -1));
+    assertTrue(feed.isNotModified("*", -1));
+    assertFalse(feed.isNotModified("\"foo\"", -1));
+    // If-None-Match takes precedence
+    assertFalse(feed.isNotModified("\"foo\"", 1500000000000L));
+
+    assertTrue(feed.isNotModified(null, 1500000000000L));
+    assertTrue(feed.isNotModified(null, 1600000000000L));
+    assertFalse(feed.isNotModified(null, 1400000000000L));
+    assertFalse(feed.isNotModified(null, -1));
+
+    assertEquals(feed.getETag(), new RenderedFeed("<rss/>", RSS, "org", null, new Date()).getETag());
+    assertNotEquals(feed.getETag(), new RenderedFeed("<rss></rss>", RSS, "org", null, new Date()).getETag());
+  }
+
+}
@@ -79,6 +79,8 @@ import org.easymock.IAnswer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.InputStream;
@@ -90,6 +92,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tests the functionality of the search service.
@@ -99,6 +102,9 @@ import java.util.Map;
  */
 public class SearchServiceImplTest {
 
+  /** The logger */
+  private static final Logger logger = LoggerFactory.getLogger(SearchServiceImplTest.class);
+
   /** The search service */
   private SearchServiceImpl service = null;
 
@@ -441,6 +447,66 @@ public class SearchServiceImplTest {
     assertEquals(2, service.getByQuery(query).size()); // Just checking that the search index works for this field
   }
 
+  /**
+   * Tests that projected queries return the result metadata without fetching media packages or segments, and compares
+   * the time spent on a 100 hit query with and without the media packages.
+   */
+  @Test
+  public void testProjectedQuery() throws Exception {
+    List<Job> jobs = new ArrayList<Job>();
+    for (int i = 0; i < 100; i++) {
+      MediaPackage mediaPackage = getMediaPackage("/manifest-full.xml");
+      mediaPackage.setIdentifier(IdBuilderFactory.newInstance().newIdBuilder().createNew());
+      jobs.add(service.add(mediaPackage));
+    }
+    JobBarrier barrier = new JobBarrier(null, serviceRegistry, 1000, jobs.toArray(new Job[jobs.size()]));
+    barrier.waitForJobs();
+
+    SearchQuery full = new SearchQuery().withLimit(100);
+    SearchQuery projected = new SearchQuery().withLimit(100).includeMediaPackages(false).includeSegments(false);
+
+    // Warm up the index before measuring
+    service.getByQuery(full);
+    service.getByQuery(projected);
+
+    long start = System.nanoTime();
+    SearchResult fullResult = service.getByQuery(full);
+    for (SearchResultItem item : fullResult.getItems()) {
+      assertNotNull(item.getMediaPackage());
+    }
+    long fullTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    SearchResult projectedResult = service.getByQuery(projected);
+    for (SearchResultItem item : projectedResult.getItems()) {
+      assertEquals(null, item.getMediaPackage());
+      assertEquals(0, item.getSegments().length);
+    }
+    long projectedTime = System.nanoTime() - start;
+    logger.info("100 hits with media packages took {}ms, without {}ms", TimeUnit.NANOSECONDS.toMillis(fullTime),
+            TimeUnit.NANOSECONDS.toMillis(projectedTime));
+
+    assertEquals(100, fullResult.size());
+    assertEquals(100, projectedResult.size());
+    SearchResultItem fullItem = fullResult.getItems()[0];
+    SearchResultItem projectedItem = projectedResult.getItems()[0];
+    assertEquals(fullItem.getId(), projectedItem.getId());
+    assertEquals(fullItem.getDcTitle(), projectedItem.getDcTitle());
+    assertEquals(fullItem.getDcCreator(), projectedItem.getDcCreator());
+    assertEquals(fullItem.getDcCreated(), projectedItem.getDcCreated());
+    assertEquals(fullItem.getType(), projectedItem.getType());
+
+    // segments are included by default, which still fetches the media package field from the index
+    SearchQuery withoutMediaPackages = new SearchQuery().withLimit(100).includeMediaPackages(false);
+    SearchResult withoutMediaPackagesResult = service.getByQuery(withoutMediaPackages);
+    assertEquals(100, withoutMediaPackagesResult.size());
+    for (SearchResultItem item : withoutMediaPackagesResult.getItems()) {
+      assertEquals(null, item.getMediaPackage());
+      assertEquals(null, item.getOcMediapackage());
+    }
+    assertEquals(fullItem.getSegments().length, withoutMediaPackagesResult.getItems()[0].getSegments().length);
+  }
+
   /**
    * Adds a simple media package that has a dublin core for the episode only.
    */
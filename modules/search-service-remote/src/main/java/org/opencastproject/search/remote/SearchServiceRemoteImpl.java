@@ -213,6 +213,12 @@ public class SearchServiceRemoteImpl extends RemoteBase implements SearchService
           queryStringParams.add(new BasicNameValuePair("tag", t));
         }
       }
+
+      if (!q.isIncludeMediaPackages())
+        queryStringParams.add(new BasicNameValuePair("mediapackage", Boolean.FALSE.toString()));
+
+      if (!q.isIncludeSegments())
+        queryStringParams.add(new BasicNameValuePair("segments", Boolean.FALSE.toString()));
     } else {
       url.append("/series.xml?");
       queryStringParams.add(new BasicNameValuePair("series", Boolean.toString(q.isIncludeSeries())));
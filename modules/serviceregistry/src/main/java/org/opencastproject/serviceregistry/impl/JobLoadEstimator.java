@@ -0,0 +1,118 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import org.opencastproject.util.data.Tuple;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the load of jobs from the resources that finished jobs of the same type and operation actually consumed.
+ * <p>
+ * The load of a job is expressed as the number of cores it keeps busy. Given the CPU time and the wall clock time
+ * recorded for finished jobs, the estimate for an operation is the ratio of the summed CPU times to the summed run
+ * times of its jobs.
+ */
+public class JobLoadEstimator {
+
+  /** The estimates by job type and operation */
+  private final Map<Tuple<String, String>, Float> estimates;
+
+  /** The highest peak memory in bytes by job type and operation */
+  private final Map<Tuple<String, String>, Long> peakMemory;
+
+  /** An estimator without any knowledge */
+  public static final JobLoadEstimator EMPTY = new JobLoadEstimator(Collections.<Object[]> emptyList(), 1, 0.0f);
+
+  /**
+   * Creates an estimator from the rows returned by the <code>Job.resourceUsage</code> query, which are expected to
+   * contain the job type, the operation, the summed CPU time, the summed run time, the highest peak memory and the
+   * number of jobs.
+   *
+   * @param resourceUsage
+   *          the resource usage per job type and operation
+   * @param minSamples
+   *          the number of finished jobs required before an estimate is given for an operation
+   * @param minLoad
+   *          the lowest load to estimate
+   */
+  public JobLoadEstimator(List<Object[]> resourceUsage, int minSamples, float minLoad) {
+    Map<Tuple<String, String>, Float> estimates = new HashMap<>();
+    Map<Tuple<String, String>, Long> peakMemory = new HashMap<>();
+    for (Object[] row : resourceUsage) {
+      final Tuple<String, String> key = Tuple.tuple((String) row[0], (String) row[1]);
+      final Number cpuTime = (Number) row[2];
+      final Number runTime = (Number) row[3];
+      final Number peak = (Number) row[4];
+      final Number count = (Number) row[5];
+      if (peak != null)
+        peakMemory.put(key, peak.longValue());
+      if (cpuTime == null || runTime == null || runTime.longValue() <= 0 || count == null
+              || count.longValue() < minSamples)
+        continue;
+      final float load = cpuTime.floatValue() / runTime.floatValue();
+      // Round to the precision job loads are usually configured with
+      estimates.put(key, Math.max(minLoad, Math.round(load * 10) / 10.0f));
+    }
+    this.estimates = Collections.unmodifiableMap(estimates);
+    this.peakMemory = Collections.unmodifiableMap(peakMemory);
+  }
+
+  /**
+   * Returns the estimated load of jobs with the given type and operation.
+   *
+   * @param jobType
+   *          the job type
+   * @param operation
+   *          the operation
+   * @return the estimated load or <code>null</code> if there is not enough data for an estimate
+   */
+  public Float estimate(String jobType, String operation) {
+    return estimates.get(Tuple.tuple(jobType, operation));
+  }
+
+  /**
+   * Returns the highest peak memory in bytes that was measured for jobs with the given type and operation.
+   *
+   * @param jobType
+   *          the job type
+   * @param operation
+   *          the operation
+   * @return the peak memory or <code>null</code> if it has never been measured
+   */
+  public Long getPeakMemory(String jobType, String operation) {
+    return peakMemory.get(Tuple.tuple(jobType, operation));
+  }
+
+  /**
+   * Returns the number of operations an estimate is known for.
+   *
+   * @return the number of estimates
+   */
+  public int size() {
+    return estimates.size();
+  }
+
+}
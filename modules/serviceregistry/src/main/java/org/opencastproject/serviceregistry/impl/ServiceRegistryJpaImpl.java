@@ -39,6 +39,9 @@ import static org.opencastproject.util.OsgiUtil.getOptContextProperty;
 
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.job.api.JobImpl;
+import org.opencastproject.job.api.JobLifecycleMetrics;
+import org.opencastproject.job.api.JobLifecycleMetrics.Phase;
 import org.opencastproject.job.jpa.JpaJob;
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.Organization;
@@ -73,6 +76,7 @@ import com.entwinemedia.fn.Fn;
 import com.entwinemedia.fn.Fn2;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.http.HttpResponse;
@@ -154,6 +158,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Jobs statistics JMX type */
   private static final String JMX_JOBS_STATISTICS_TYPE = "JobsStatistics";
 
+  /** Job lifecycle timings JMX type */
+  private static final String JMX_JOB_LIFECYCLE_TYPE = "JobLifecycle";
+
   /** The JMX business object for hosts statistics */
   private HostsStatistics hostsStatistics;
 
@@ -181,6 +188,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Configuration key for the retrieval of service statistics: Do not consider jobs older than max_job_age (in days) */
   protected static final String OPT_SERVICE_STATISTICS_MAX_JOB_AGE = "org.opencastproject.statistics.services.max_job_age";
 
+  /** Configuration key for learning job loads from the resources consumed by finished jobs */
+  protected static final String OPT_LOAD_LEARNING = "dispatch.load.learning";
+
+  /** Configuration key for the number of finished jobs required before a learned job load is used */
+  protected static final String OPT_LOAD_LEARNING_MIN_SAMPLES = "dispatch.load.learning.min.samples";
+
+  /** Configuration key for the interval in seconds between two updates of the learned job loads */
+  protected static final String OPT_LOAD_LEARNING_INTERVAL = "dispatch.load.learning.interval";
+
   /** The http client to use when connecting to remote servers */
   protected TrustedHttpClient client = null;
 
@@ -203,6 +219,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Default setting on service statistics retrieval */
   static final int DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE = 14;
 
+  /** Default setting on learning job loads */
+  static final boolean DEFAULT_LOAD_LEARNING = false;
+
+  /** Default number of finished jobs required before a learned job load is used */
+  static final int DEFAULT_LOAD_LEARNING_MIN_SAMPLES = 5;
+
+  /** Default interval between two updates of the learned job loads, in seconds */
+  static final long DEFAULT_LOAD_LEARNING_INTERVAL = 600;
+
   /** Default value for {@link #maxAttemptsBeforeErrorState} */
   private static final int MAX_FAILURE_BEFORE_ERROR_STATE = 1;
 
@@ -250,6 +275,21 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Maximum age of jobs being considering for service statistics */
   protected int maxJobAge = DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE;
 
+  /** Whether to dispatch jobs with the loads learned from finished jobs */
+  protected boolean loadLearning = DEFAULT_LOAD_LEARNING;
+
+  /** Number of finished jobs required before a learned job load is used */
+  protected int loadLearningMinSamples = DEFAULT_LOAD_LEARNING_MIN_SAMPLES;
+
+  /** Interval between two updates of the learned job loads, in milliseconds */
+  protected long loadLearningInterval = DEFAULT_LOAD_LEARNING_INTERVAL * 1000;
+
+  /** The job loads learned from finished jobs */
+  protected volatile JobLoadEstimator jobLoadEstimator = JobLoadEstimator.EMPTY;
+
+  /** The time the learned job loads were last updated */
+  private long jobLoadEstimatorUpdated = 0;
+
   /** A static list of statuses that influence how load balancing is calculated */
   protected static final List<Status> JOB_STATUSES_INFLUENCING_LOAD_BALANCING;
 
@@ -303,6 +343,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       jmxBeans.add(JmxUtil.registerMXBean(hostsStatistics, JMX_HOSTS_STATISTICS_TYPE));
       jmxBeans.add(JmxUtil.registerMXBean(servicesStatistics, JMX_SERVICES_STATISTICS_TYPE));
       jmxBeans.add(JmxUtil.registerMXBean(jobsStatistics, JMX_JOBS_STATISTICS_TYPE));
+      jmxBeans.add(JmxUtil.registerMXBean(JobLifecycleMetrics.getInstance(), JMX_JOB_LIFECYCLE_TYPE));
     } catch (ServiceRegistryException e) {
       logger.error("Error registering JMX statistic beans", e);
     }
@@ -373,8 +414,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     logger.debug("deactivate");
 
     for (ObjectInstance mbean : jmxBeans) {
-      JmxUtil.unregisterMXBean(mbean);
+      if (mbean != null)
+        JmxUtil.unregisterMXBean(mbean);
     }
+    jmxBeans.clear();
 
     if (tracker != null) {
       tracker.close();
@@ -801,6 +844,33 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    loadLearning = BooleanUtils.toBoolean(StringUtils.trimToNull((String) properties.get(OPT_LOAD_LEARNING)));
+    logger.info("Learning of job loads from finished jobs is {}", loadLearning ? "enabled" : "disabled");
+    jobLoadEstimator = JobLoadEstimator.EMPTY;
+    jobLoadEstimatorUpdated = 0;
+
+    loadLearningMinSamples = DEFAULT_LOAD_LEARNING_MIN_SAMPLES;
+    String minSamplesString = StringUtils.trimToNull((String) properties.get(OPT_LOAD_LEARNING_MIN_SAMPLES));
+    if (minSamplesString != null) {
+      try {
+        loadLearningMinSamples = Math.max(1, Integer.parseInt(minSamplesString));
+      } catch (NumberFormatException e) {
+        logger.warn("Can not set the minimum number of samples for learned job loads to {}. {} must be an integer",
+                minSamplesString, OPT_LOAD_LEARNING_MIN_SAMPLES);
+      }
+    }
+
+    loadLearningInterval = DEFAULT_LOAD_LEARNING_INTERVAL * 1000;
+    String learningIntervalString = StringUtils.trimToNull((String) properties.get(OPT_LOAD_LEARNING_INTERVAL));
+    if (learningIntervalString != null) {
+      try {
+        loadLearningInterval = Long.parseLong(learningIntervalString) * 1000;
+      } catch (NumberFormatException e) {
+        logger.warn("Can not set the job load learning interval to {}. {} must be an integer", learningIntervalString,
+                OPT_LOAD_LEARNING_INTERVAL);
+      }
+    }
+
     long dispatchDelay = DEFAULT_DISPATCH_START_DELAY;
 
     // Stop the current scheduled executors so we can configure new ones
@@ -1104,6 +1174,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     fromDb.setVersion(job.getVersion());
     fromDb.setOperation(job.getOperation());
     fromDb.setArguments(job.getArguments());
+    if (job.getJobLoad() != null)
+      fromDb.setJobLoad(job.getJobLoad());
+    if (job.getCpuTime() != null)
+      fromDb.setCpuTime(job.getCpuTime());
+    if (job.getPeakMemory() != null)
+      fromDb.setPeakMemory(job.getPeakMemory());
 
     if (job.getDateCreated() == null) {
       jpaJob.setDateCreated(now);
@@ -1123,6 +1199,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         fromDb.setQueueTime(now.getTime() - job.getDateCreated().getTime());
         job.setDateStarted(now);
         job.setQueueTime(now.getTime() - job.getDateCreated().getTime());
+        JobLifecycleMetrics.recordMillis(Phase.QUEUE_WAIT, job.getQueueTime());
       }
     } else if (Status.FAILED.equals(status)) {
       // failed jobs may not have even started properly
@@ -1784,6 +1861,54 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       return query.getResultList();
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
+    } finally {
+      em.close();
+    }
+  }
+
+  @Override
+  public List<Job> getJobPayloads(String operation, int limit, Job after) throws ServiceRegistryException {
+    EntityManager em = emf.createEntityManager();
+    try {
+      TypedQuery<Object[]> query;
+      if (after == null || after.getDateCreated() == null) {
+        query = em.createNamedQuery("Job.payload.key", Object[].class);
+      } else {
+        query = em.createNamedQuery("Job.payload.key.after", Object[].class);
+        query.setParameter("dateCreated", after.getDateCreated(), TemporalType.TIMESTAMP);
+        query.setParameter("id", after.getId());
+      }
+      query.setParameter("operation", operation);
+      query.setMaxResults(limit);
+      logger.debug("Requesting job payloads using query: {}", query);
+      List<Job> jobs = new ArrayList<>();
+      for (Object[] row : query.getResultList()) {
+        JobImpl job = new JobImpl((Long) row[0]);
+        job.setDateCreated((Date) row[1]);
+        job.setOperation(operation);
+        job.setPayload((String) row[2]);
+        jobs.add(job);
+      }
+      return jobs;
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      em.close();
+    }
+  }
+
+  @Override
+  public int getJobCount(String operation) throws ServiceRegistryException {
+    EntityManager em = emf.createEntityManager();
+    try {
+      Query query = em.createNamedQuery("Job.countByOperationOnly");
+      query.setParameter("operation", operation);
+      Number countResult = (Number) query.getSingleResult();
+      return countResult.intValue();
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      em.close();
     }
   }
 
@@ -1850,16 +1975,18 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   }
 
   /**
-   * Gets jobs of all types that are in the given state.
+   * Gets jobs of all types that are in the given state, ordered by creation date and id. Pages are selected by the last
+   * job of the previous page rather than by an offset, so the database does not need to skip over the previous pages
+   * and jobs changing their state between two pages neither cause others to be skipped nor to be returned twice.
    *
    * @param em the entity manager
-   * @param offset apply offset to the db query if offset &gt; 0
+   * @param after the last job of the previous page or <code>null</code> to get the first page
    * @param limit apply limit to the db query if limit &gt; 0
    * @param statuses the job status should be one from the given statuses
    * @return the list of jobs waiting for dispatch
    * @throws ServiceRegistryException if there is a problem communicating with the jobs database
    */
-  protected List<JpaJob> getDispatchableJobsWithStatus(EntityManager em, int offset, int limit, Status... statuses)
+  protected List<JpaJob> getDispatchableJobsWithStatus(EntityManager em, JpaJob after, int limit, Status... statuses)
           throws ServiceRegistryException {
     if (statuses == null)
       return Collections.EMPTY_LIST;
@@ -1871,10 +1998,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
     TypedQuery<JpaJob> query = null;
     try {
-      query = em.createNamedQuery("Job.dispatchable.status", JpaJob.class);
+      if (after == null || after.getDateCreated() == null) {
+        query = em.createNamedQuery("Job.dispatchable.status", JpaJob.class);
+      } else {
+        query = em.createNamedQuery("Job.dispatchable.status.after", JpaJob.class);
+        query.setParameter("dateCreated", after.getDateCreated(), TemporalType.TIMESTAMP);
+        query.setParameter("id", after.getId());
+      }
       query.setParameter("statuses", statusesOrdinal);
-      if (offset > 0)
-        query.setFirstResult(offset);
       if (limit > 0)
         query.setMaxResults(limit);
       return query.getResultList();
@@ -1918,6 +2049,47 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
   }
 
+  /**
+   * Gets the resources consumed by jobs which finished after the given date, per job type and operation.
+   *
+   * @param em
+   *          the entity manager
+   * @param since
+   *          only consider jobs completed after this date
+   * @return the summed CPU time, summed run time, highest peak memory and number of jobs per job type and operation
+   * @throws ServiceRegistryException
+   *           if the query fails
+   */
+  @SuppressWarnings("unchecked")
+  protected List<Object[]> getResourceUsage(EntityManager em, Date since) throws ServiceRegistryException {
+    try {
+      Query query = em.createNamedQuery("Job.resourceUsage");
+      query.setParameter("status", Status.FINISHED.ordinal());
+      query.setParameter("since", since, TemporalType.TIMESTAMP);
+      return query.getResultList();
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    }
+  }
+
+  /**
+   * Updates the job loads learned from finished jobs if they are outdated.
+   *
+   * @param em
+   *          the entity manager
+   * @throws ServiceRegistryException
+   *           if the resource usage cannot be loaded
+   */
+  void updateJobLoadEstimator(EntityManager em) throws ServiceRegistryException {
+    final long now = System.currentTimeMillis();
+    if (now - jobLoadEstimatorUpdated < loadLearningInterval)
+      return;
+    jobLoadEstimatorUpdated = now;
+    final Date since = DateUtils.addDays(new Date(now), -maxJobAge);
+    jobLoadEstimator = new JobLoadEstimator(getResourceUsage(em, since), loadLearningMinSamples, DEFAULT_JOB_LOAD);
+    logger.debug("Learned the loads of {} operations from finished jobs", jobLoadEstimator.size());
+  }
+
   @SuppressWarnings("unchecked")
   List<Object[]> getCountPerHostService(EntityManager em) throws ServiceRegistryException {
     Query query = null;
@@ -2908,6 +3080,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           jobsStatistics.updateJobCount(getCountPerHostService(em));
         }
 
+        if (loadLearning) {
+          try {
+            updateJobLoadEstimator(em);
+          } catch (ServiceRegistryException e) {
+            logger.warn("Unable to learn job loads from finished jobs", e);
+          }
+        }
+
         if (!dispatchPriorityList.isEmpty()) {
           // Remove outdated jobs from priority list
           List<Long> jobIds = getDispatchableJobsWithIdFilter(em, dispatchPriorityList.keySet());
@@ -2918,15 +3098,16 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           }
         }
 
-        int jobsOffset = 0;
+        JpaJob lastJob = null;
         List<JpaJob> dispatchableJobs = null;
         List<JpaJob> workflowJobs = new ArrayList();
         boolean jobsFound = false;
         do {
           // dispatch all dispatchable jobs with status restarted
-          dispatchableJobs = getDispatchableJobsWithStatus(em, jobsOffset, DEFAULT_DISPATCH_JOBS_LIMIT, Status.RESTART);
-          jobsOffset += DEFAULT_DISPATCH_JOBS_LIMIT;
+          dispatchableJobs = getDispatchableJobsWithStatus(em, lastJob, DEFAULT_DISPATCH_JOBS_LIMIT, Status.RESTART);
           jobsFound = !dispatchableJobs.isEmpty();
+          if (jobsFound)
+            lastJob = dispatchableJobs.get(dispatchableJobs.size() - 1);
 
           // skip all jobs of type workflow, we will handle them next
           for (JpaJob job : dispatchableJobs) {
@@ -2940,13 +3121,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           dispatchDispatchableJobs(em, dispatchableJobs);
         } while (jobsFound);
 
-        jobsOffset = 0;
+        lastJob = null;
         jobsFound = false;
         do {
           // dispatch all dispatchable jobs with status queued
-          dispatchableJobs = getDispatchableJobsWithStatus(em, jobsOffset, DEFAULT_DISPATCH_JOBS_LIMIT, Status.QUEUED);
-          jobsOffset += DEFAULT_DISPATCH_JOBS_LIMIT;
+          dispatchableJobs = getDispatchableJobsWithStatus(em, lastJob, DEFAULT_DISPATCH_JOBS_LIMIT, Status.QUEUED);
           jobsFound = !dispatchableJobs.isEmpty();
+          if (jobsFound)
+            lastJob = dispatchableJobs.get(dispatchableJobs.size() - 1);
 
           // skip all jobs of type workflow, we will handle them next
           for (JpaJob job : dispatchableJobs) {
@@ -3019,6 +3201,16 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         }
         securityService.setUser(user);
 
+        // Use the load the resources of previous jobs suggest rather than the one the producer guessed
+        if (loadLearning && !TYPE_WORKFLOW.equals(jobType)) {
+          Float learnedLoad = jobLoadEstimator.estimate(jobType, job.getOperation());
+          if (learnedLoad != null && !learnedLoad.equals(job.getJobLoad())) {
+            logger.debug("Dispatching job {} with learned load {} instead of {}", job.getId(), learnedLoad,
+                    job.getJobLoad());
+            job.setJobLoad(learnedLoad);
+          }
+        }
+
         // Start dispatching
         try {
           List<ServiceRegistration> services = getServiceRegistrations(em);
@@ -3174,7 +3366,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
                   job.getId(), job.getJobType(), job.getJobLoad(), registration.getHost());
           if (!START_WORKFLOW.equals(job.getOperation()))
             setCurrentJob(job.toJob());
+          final long dispatchStart = JobLifecycleMetrics.start();
           response = client.execute(post);
+          JobLifecycleMetrics.stop(Phase.DISPATCH, dispatchStart);
           responseStatusCode = response.getStatusLine().getStatusCode();
           if (responseStatusCode == HttpStatus.SC_NO_CONTENT) {
             return registration.getHost();
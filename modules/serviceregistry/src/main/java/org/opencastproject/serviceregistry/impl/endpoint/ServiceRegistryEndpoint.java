@@ -33,6 +33,7 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import org.opencastproject.job.api.JaxbJob;
 import org.opencastproject.job.api.JaxbJobList;
 import org.opencastproject.job.api.Job;
+import org.opencastproject.job.api.JobLifecycleMetrics;
 import org.opencastproject.job.api.JobParser;
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.serviceregistry.api.HostRegistration;
@@ -136,6 +137,15 @@ public class ServiceRegistryEndpoint {
     return getStatisticsAsJson();
   }
 
+  @GET
+  @Path("metrics")
+  @Produces(MediaType.TEXT_PLAIN)
+  @RestQuery(name = "metrics", description = "Get the time jobs spent in the phases of their lifecycle on this node, in the Prometheus text format", returnDescription = "The job lifecycle metrics.", reponses = { @RestResponse(responseCode = SC_OK, description = "The job lifecycle metrics of this node") })
+  public Response getMetrics() {
+    return Response.ok(JobLifecycleMetrics.getInstance().toPrometheus())
+            .type("text/plain; version=0.0.4; charset=utf-8").build();
+  }
+
   @GET
   @Path("servicewarnings")
   @RestQuery(name = "servicewarnings", description = "Get the number of services currently in a non-NORMAL state", returnDescription = "The count of abnormal services.", reponses = { @RestResponse(responseCode = SC_OK, description = "A plain text representation of the number of abnormal services") })
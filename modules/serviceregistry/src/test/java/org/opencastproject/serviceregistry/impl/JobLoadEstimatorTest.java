@@ -0,0 +1,64 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class JobLoadEstimatorTest {
+
+  private static Object[] row(String type, String operation, Long cpuTime, Long runTime, Long peak, long count) {
+    return new Object[] { type, operation, cpuTime, runTime, peak, count };
+  }
+
+  @Test
+  public void testEstimate() {
+    List<Object[]> usage = new ArrayList<>();
+    usage.add(row("composer", "Encode", 40000L, 10000L, 512L, 10));
+    usage.add(row("composer", "Image", 1000L, 10000L, null, 10));
+    usage.add(row("composer", "Trim", 20000L, 10000L, 1024L, 2));
+    JobLoadEstimator estimator = new JobLoadEstimator(usage, 5, 0.2f);
+
+    assertEquals(2, estimator.size());
+    assertEquals(4.0f, estimator.estimate("composer", "Encode"), 0.0001f);
+    // Lower than the minimum load
+    assertEquals(0.2f, estimator.estimate("composer", "Image"), 0.0001f);
+    // Not enough samples
+    assertNull(estimator.estimate("composer", "Trim"));
+    assertNull(estimator.estimate("composer", "Unknown"));
+
+    assertEquals(Long.valueOf(1024L), estimator.getPeakMemory("composer", "Trim"));
+    assertNull(estimator.getPeakMemory("composer", "Image"));
+  }
+
+  @Test
+  public void testEmpty() {
+    assertEquals(0, JobLoadEstimator.EMPTY.size());
+    assertNull(JobLoadEstimator.EMPTY.estimate("composer", "Encode"));
+  }
+
+}
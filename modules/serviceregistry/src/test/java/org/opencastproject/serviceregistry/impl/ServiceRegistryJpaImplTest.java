@@ -26,6 +26,7 @@ import static org.junit.Assert.assertEquals;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.job.api.JobBarrier;
+import org.opencastproject.job.jpa.JpaJob;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -66,12 +67,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.beans.PropertyVetoException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.concurrent.Executors;
 
 import javax.management.ObjectInstance;
+import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 
 public class ServiceRegistryJpaImplTest {
@@ -392,4 +396,33 @@ public class ServiceRegistryJpaImplTest {
     Assert.assertEquals(runTime, updatedJob.getRunTime());
   }
 
+  @Test
+  public void testDispatchableJobsArePagedByLastJob() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    registerTestHostAndService();
+    List<Long> created = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      created.add(serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, true, null)
+              .getId());
+    }
+
+    List<Long> paged = new ArrayList<>();
+    EntityManager em = emf.createEntityManager();
+    try {
+      JpaJob lastJob = null;
+      List<JpaJob> page;
+      do {
+        page = serviceRegistryJpaImpl.getDispatchableJobsWithStatus(em, lastJob, 2, Status.QUEUED);
+        Assert.assertTrue(page.size() <= 2);
+        for (JpaJob job : page) {
+          paged.add(job.getId());
+          lastJob = job;
+        }
+      } while (!page.isEmpty());
+    } finally {
+      em.close();
+    }
+    assertEquals(created, paged);
+  }
+
 }
@@ -28,10 +28,13 @@ import org.opencastproject.silencedetection.api.MediaSegments;
 import org.opencastproject.silencedetection.api.SilenceDetectionFailedException;
 import org.opencastproject.silencedetection.impl.SilenceDetectionProperties;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.analysis.MediaAnalysisBranch;
+import org.opencastproject.util.analysis.MediaAnalysisPipeline;
 import org.opencastproject.workspace.api.Workspace;
 
 import com.google.common.io.LineReader;
 
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
@@ -65,6 +68,9 @@ public class FFmpegSilenceDetector {
   private static final String DEFAULT_THRESHOLD_DB = "-40dB";
   private static final Long DEFAULT_VOICE_MIN_LENGTH = 60000L;
 
+  /** Prefix of the FFmpeg log lines written by the silence detection filter */
+  private static final String SILENCE_DETECT_LOG_PREFIX = "[silencedetect ";
+
   private static String binary = FFMPEG_BINARY_DEFAULT;
   private String filePath;
   private String trackId;
@@ -106,7 +112,6 @@ public class FFmpegSilenceDetector {
     long minSilenceLength;
     long minVoiceLength;
     long preSilenceLength;
-    String thresholdDB;
 
     //Ensure properties is not null, avoids null checks later
     if (null == properties) {
@@ -116,7 +121,6 @@ public class FFmpegSilenceDetector {
     minSilenceLength = parseLong(properties, SilenceDetectionProperties.SILENCE_MIN_LENGTH, DEFAULT_SILENCE_MIN_LENGTH);
     minVoiceLength = parseLong(properties, SilenceDetectionProperties.VOICE_MIN_LENGTH, DEFAULT_VOICE_MIN_LENGTH);
     preSilenceLength = parseLong(properties, SilenceDetectionProperties.SILENCE_PRE_LENGTH, DEFAULT_SILENCE_PRE_LENGTH);
-    thresholdDB = properties.getProperty(SilenceDetectionProperties.SILENCE_THRESHOLD_DB, DEFAULT_THRESHOLD_DB);
 
     trackId = track.getIdentifier();
 
@@ -148,34 +152,17 @@ public class FFmpegSilenceDetector {
     logger.info("Track {} loaded, duration is {} s", filePath, track.getDuration() / 1000);
 
     logger.info("Starting silence detection of {}", filePath);
-    String mediaPath = filePath.replaceAll(" ", "\\ ");
-    DecimalFormat decimalFmt = new DecimalFormat("0.000", new DecimalFormatSymbols(Locale.US));
-    String minSilenceLengthInSeconds = decimalFmt.format((double) minSilenceLength / 1000.0);
-    String filter = "silencedetect=noise=" + thresholdDB + ":duration=" + minSilenceLengthInSeconds;
-    String[] command = new String[] {binary, "-nostats", "-i", mediaPath, "-filter:a", filter, "-f", "null", "-"};
-    String commandline = StringUtils.join(command, " ");
-
-    logger.info("Running {}", commandline);
-
-    ProcessBuilder pbuilder = new ProcessBuilder(command);
-    List<String> segmentsStrings = new LinkedList<String>();
-    Process process = pbuilder.start();
-    BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-    try {
-      LineReader lr = new LineReader(reader);
-      String line = lr.readLine();
-      while (null != line) {
-        /* We want only lines from the silence detection filter */
-        logger.debug("FFmpeg output: {}", line);
-        if (line.startsWith("[silencedetect ")) {
-          segmentsStrings.add(line);
-        }
-        line = lr.readLine();
+    List<String> segmentsStrings = null;
+    if (BooleanUtils.toBoolean(properties.getProperty(SilenceDetectionProperties.SHARED_ANALYSIS))) {
+      try {
+        segmentsStrings = MediaAnalysisPipeline.analyze(binary, new File(filePath), track.hasAudio(), track.hasVideo(),
+                createAnalysisBranch(properties)).getLog();
+      } catch (IOException e) {
+        logger.warn("Shared analysis of {} failed, running silence detection on its own: {}", filePath, e.getMessage());
       }
-    } catch (IOException e) {
-      logger.error("Error executing ffmpeg: {}", e.getMessage());
-    } finally {
-      reader.close();
+    }
+    if (segmentsStrings == null) {
+      segmentsStrings = detectSilence(createFilter(properties));
     }
 
     /**
@@ -240,7 +227,61 @@ public class FFmpegSilenceDetector {
 
   }
 
-  private Long parseLong(Properties properties, String key, Long defaultValue) {
+  /**
+   * Creates the branch of a shared media analysis detecting silence with the given properties.
+   *
+   * @param properties
+   *          the silence detection properties
+   * @return the analysis branch
+   */
+  private static MediaAnalysisBranch createAnalysisBranch(Properties properties) {
+    return MediaAnalysisBranch.log(MediaAnalysisBranch.Input.AUDIO, createFilter(properties),
+            SILENCE_DETECT_LOG_PREFIX);
+  }
+
+  private static String createFilter(Properties properties) {
+    long minSilenceLength = parseLong(properties, SilenceDetectionProperties.SILENCE_MIN_LENGTH,
+            DEFAULT_SILENCE_MIN_LENGTH);
+    String thresholdDB = properties.getProperty(SilenceDetectionProperties.SILENCE_THRESHOLD_DB, DEFAULT_THRESHOLD_DB);
+    DecimalFormat decimalFmt = new DecimalFormat("0.000", new DecimalFormatSymbols(Locale.US));
+    String minSilenceLengthInSeconds = decimalFmt.format((double) minSilenceLength / 1000.0);
+    return "silencedetect=noise=" + thresholdDB + ":duration=" + minSilenceLengthInSeconds;
+  }
+
+  /**
+   * Runs the silence detection filter on the media file and returns the log lines written by the filter.
+   */
+  private List<String> detectSilence(String filter) throws IOException {
+    String mediaPath = filePath.replaceAll(" ", "\\ ");
+    String[] command = new String[] {binary, "-nostats", "-i", mediaPath, "-filter:a", filter, "-f", "null", "-"};
+    String commandline = StringUtils.join(command, " ");
+
+    logger.info("Running {}", commandline);
+
+    ProcessBuilder pbuilder = new ProcessBuilder(command);
+    List<String> segmentsStrings = new LinkedList<String>();
+    Process process = pbuilder.start();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+    try {
+      LineReader lr = new LineReader(reader);
+      String line = lr.readLine();
+      while (null != line) {
+        /* We want only lines from the silence detection filter */
+        logger.debug("FFmpeg output: {}", line);
+        if (line.startsWith(SILENCE_DETECT_LOG_PREFIX)) {
+          segmentsStrings.add(line);
+        }
+        line = lr.readLine();
+      }
+    } catch (IOException e) {
+      logger.error("Error executing ffmpeg: {}", e.getMessage());
+    } finally {
+      reader.close();
+    }
+    return segmentsStrings;
+  }
+
+  private static Long parseLong(Properties properties, String key, Long defaultValue) {
     try {
       return Long.parseLong(properties.getProperty(key, defaultValue.toString()));
     } catch (NumberFormatException e) {
@@ -34,4 +34,6 @@ public interface SilenceDetectionProperties {
   String SILENCE_THRESHOLD_DB = "silence.threshold.db";
   /* Minimum (voice) segment length in milliseconds. */
   String VOICE_MIN_LENGTH = "voice.min.length";
+  /** Whether to detect silence as part of a media analysis shared with other services. */
+  String SHARED_ANALYSIS = "shared.analysis";
 }
@@ -67,4 +67,18 @@ public interface ReportItem {
    * @return
    */
   long getPlayed();
+
+  /**
+   * Sets the day (YYYYMMDD) the report item is referring to
+   *
+   * @param day
+   */
+  void setDay(String day);
+
+  /**
+   * Gets the day (YYYYMMDD) the report item is referring to
+   *
+   * @return the day or <code>null</code> if the item covers the whole report period
+   */
+  String getDay();
 }
@@ -24,6 +24,9 @@ package org.opencastproject.usertracking.api;
 import org.opencastproject.util.NotFoundException;
 
 import java.text.ParseException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 
 
@@ -175,6 +178,51 @@ public interface UserTrackingService {
   UserActionList getUserActionsByTypeAndMediapackageIdByDescendingDate(String key, String mediapackageId, int offset, int limit)
           throws UserTrackingException;
 
+  /**
+   * Returns the user actions following the given one, ordered by their identifier. Other than paging by offset, paging
+   * by the identifier of the last action of the previous page does not require the database to skip over all previous
+   * pages, so that large numbers of user actions can be exported page by page.
+   *
+   * @param key
+   *          the annotation key or <code>null</code> for actions of all keys
+   * @param mediapackageId
+   *          the mediapackage id or <code>null</code> for actions of all mediapackages
+   * @param day
+   *          the day in the format of YYYYMMDD or <code>null</code> for actions of all days
+   * @param after
+   *          the identifier of the last action of the previous page or <code>null</code> for the first page
+   * @param limit
+   *          the maximum number of actions to return
+   * @return the user actions
+   * @throws UserTrackingException
+   *           if the user tracking service encounters an error
+   */
+  List<UserAction> getUserActionsAfter(String key, String mediapackageId, String day, Long after, int limit)
+          throws UserTrackingException;
+
+  /**
+   * Returns the report items of the episodes following the given one, ordered by episode id. Like
+   * {@link #getUserActionsAfter(String, String, String, Long, int)}, this allows to page through large reports.
+   *
+   * @param from
+   *          The from day key or <code>null</code> for a report starting with the first action
+   * @param to
+   *          The to day key or <code>null</code> for a report up to now
+   * @param daily
+   *          whether to report the views of each episode per day instead of for the whole period
+   * @param after
+   *          the id of the last episode of the previous page or <code>null</code> for the first page
+   * @param limit
+   *          the maximum number of episodes to report
+   * @return the report items, ordered by episode and day
+   * @throws UserTrackingException
+   *           if the user tracking service encounters an error
+   * @throws ParseException
+   *           if the from or to day keys cannot be parsed
+   */
+  List<ReportItem> getReportItemsAfter(String from, String to, boolean daily, String after, int limit)
+          throws UserTrackingException, ParseException;
+
   /**
    * Returns the views of a mediapackage
    *
@@ -186,6 +234,17 @@ public interface UserTrackingService {
    */
   int getViews(String mediapackageId) throws UserTrackingException;
 
+  /**
+   * Returns the views of several mediapackages at once
+   *
+   * @param mediapackageIds
+   *          the mediapackage ids
+   * @return the views by mediapackage id
+   * @throws UserTrackingException
+   *           if the user tracking service encounters an error
+   */
+  Map<String, Integer> getViews(Collection<String> mediapackageIds) throws UserTrackingException;
+
   /**
    * Returns a report
    *
@@ -46,6 +46,9 @@ public class ReportItemImpl implements ReportItem {
   @XmlElement(name = "played")
   private long played;
 
+  @XmlElement(name = "day")
+  private String day;
+
   /**
    * A no-arg constructor needed by JAXB
    */
@@ -76,4 +79,12 @@ public class ReportItemImpl implements ReportItem {
     this.played = played;
   }
 
+  public String getDay() {
+    return day;
+  }
+
+  public void setDay(String day) {
+    this.day = day;
+  }
+
 }
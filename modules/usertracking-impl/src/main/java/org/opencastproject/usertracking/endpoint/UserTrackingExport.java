@@ -0,0 +1,185 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.endpoint;
+
+import org.opencastproject.usertracking.api.ReportItem;
+import org.opencastproject.usertracking.api.UserAction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes user actions and reports as CSV or JSON while fetching them page by page, so that exports of any size neither
+ * need to be held in memory nor require offset based paging.
+ */
+final class UserTrackingExport {
+
+  /** The number of user actions or report episodes fetched at once */
+  static final int PAGE_SIZE = 1000;
+
+  /** The supported export formats */
+  enum Format {
+    CSV, JSON
+  }
+
+  /** Fetches the page of items following the last item of the previous page. */
+  interface Pager<A> {
+    List<A> next(A last) throws Exception;
+  }
+
+  private static final String[] ACTION_COLUMNS = { "id", "type", "mediapackage", "session", "user", "created",
+          "inpoint", "outpoint", "length", "playing" };
+
+  private static final String[] REPORT_COLUMNS = { "episode", "day", "views", "played" };
+
+  private UserTrackingExport() {
+  }
+
+  /**
+   * Creates a streaming export of user actions.
+   *
+   * @param first
+   *          the first page, fetched before streaming to be able to report errors by status code
+   * @param pager
+   *          fetches the following pages
+   */
+  static StreamingOutput userActions(Format format, List<UserAction> first, Pager<UserAction> pager) {
+    return stream(format, "actions", ACTION_COLUMNS, first, pager, a -> new Object[] { a.getId(), a.getType(),
+            a.getMediapackageId(), a.getSession() == null ? null : a.getSession().getSessionId(),
+            a.getSession() == null ? null : a.getSession().getUserId(),
+            a.getCreated() == null ? null : DateTimeFormatter.ISO_INSTANT.format(a.getCreated().toInstant()),
+            a.getInpoint(), a.getOutpoint(), a.getLength(), a.getIsPlaying() });
+  }
+
+  /**
+   * Creates a streaming export of report items.
+   *
+   * @param first
+   *          the first page, fetched before streaming to be able to report errors by status code
+   * @param pager
+   *          fetches the following pages
+   */
+  static StreamingOutput report(Format format, List<ReportItem> first, Pager<ReportItem> pager) {
+    return stream(format, "report", REPORT_COLUMNS, first, pager,
+            i -> new Object[] { i.getEpisodeId(), i.getDay(), i.getViews(), i.getPlayed() });
+  }
+
+  /** Converts an item into the values of its columns. */
+  private interface Row<A> {
+    Object[] values(A item);
+  }
+
+  private static <A> StreamingOutput stream(Format format, String name, String[] columns, List<A> first,
+          Pager<A> pager, Row<A> row) {
+    return (OutputStream os) -> {
+      Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+      if (format == Format.CSV) {
+        writeCsv(out, columns);
+      } else {
+        out.write("{\"" + name + "\":[");
+      }
+      boolean firstItem = true;
+      List<A> page = first;
+      while (!page.isEmpty()) {
+        for (A item : page) {
+          if (format == Format.CSV) {
+            writeCsv(out, row.values(item));
+          } else {
+            if (!firstItem)
+              out.write(',');
+            writeJson(out, columns, row.values(item));
+          }
+          firstItem = false;
+        }
+        out.flush();
+        if (page.size() < PAGE_SIZE)
+          break;
+        try {
+          page = pager.next(page.get(page.size() - 1));
+        } catch (Exception e) {
+          throw new IOException("Unable to export the next page", e);
+        }
+      }
+      if (format == Format.JSON) {
+        out.write("]}");
+      }
+      out.flush();
+    };
+  }
+
+  private static void writeCsv(Writer out, Object[] values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0)
+        out.write(',');
+      if (values[i] == null)
+        continue;
+      String value = values[i].toString();
+      if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+        value = '"' + value.replace("\"", "\"\"") + '"';
+      }
+      out.write(value);
+    }
+    out.write("\r\n");
+  }
+
+  private static void writeJson(Writer out, String[] columns, Object[] values) throws IOException {
+    out.write('{');
+    for (int i = 0; i < columns.length; i++) {
+      if (i > 0)
+        out.write(',');
+      out.write('"');
+      out.write(columns[i]);
+      out.write("\":");
+      if (values[i] == null || values[i] instanceof Number || values[i] instanceof Boolean) {
+        out.write(String.valueOf(values[i]));
+      } else {
+        writeJsonString(out, values[i].toString());
+      }
+    }
+    out.write('}');
+  }
+
+  private static void writeJsonString(Writer out, String value) throws IOException {
+    out.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.write('\\');
+        out.write(c);
+      } else if (c < 0x20) {
+        out.write(String.format("\\u%04x", (int) c));
+      } else {
+        out.write(c);
+      }
+    }
+    out.write('"');
+  }
+
+}
@@ -21,12 +21,16 @@
 
 package org.opencastproject.usertracking.endpoint;
 
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static javax.servlet.http.HttpServletResponse.SC_CREATED;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.systems.OpencastConstants;
+import org.opencastproject.usertracking.api.ReportItem;
+import org.opencastproject.usertracking.api.UserAction;
 import org.opencastproject.usertracking.api.UserSession;
 import org.opencastproject.usertracking.api.UserTrackingException;
 import org.opencastproject.usertracking.api.UserTrackingService;
@@ -49,6 +53,9 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.ParseException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.FormParam;
@@ -80,6 +87,9 @@ public class UserTrackingRestService {
 
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingRestService.class);
 
+  /** The maximum number of episodes whose statistics can be requested at once */
+  public static final int MAX_STATS_LIST_SIZE = 100;
+
   private UserTrackingService usertrackingService;
 
   protected SecurityService securityService;
@@ -182,6 +192,95 @@ public class UserTrackingRestService {
     return getUserActionsAsXml(id, type, day, limit, offset); // same logic, different @Produces annotation
   }
 
+  @GET
+  @Produces("text/csv")
+  @Path("/actions/export.csv")
+  @RestQuery(name = "actionsexportcsv", description = "Export user actions as CSV, streamed in the order they have been recorded", returnDescription = "The user actions.", restParameters = {
+          @RestParameter(name = "id", description = "The episode identifier", isRequired = false, type = Type.STRING),
+          @RestParameter(name = "type", description = "The type of the user action", isRequired = false, type = Type.STRING),
+          @RestParameter(name = "day", description = "The day of creation (format: YYYYMMDD)", isRequired = false, type = Type.STRING) }, reponses = {
+          @RestResponse(responseCode = SC_OK, description = "A CSV representation of the user actions"),
+          @RestResponse(responseCode = SC_BAD_REQUEST, description = "The day is not valid") })
+  public Response exportUserActionsAsCsv(@QueryParam("id") String id, @QueryParam("type") String type,
+          @QueryParam("day") String day) {
+    return exportUserActions(UserTrackingExport.Format.CSV, id, type, day);
+  }
+
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("/actions/export.json")
+  @RestQuery(name = "actionsexportjson", description = "Export user actions as JSON, streamed in the order they have been recorded", returnDescription = "The user actions.", restParameters = {
+          @RestParameter(name = "id", description = "The episode identifier", isRequired = false, type = Type.STRING),
+          @RestParameter(name = "type", description = "The type of the user action", isRequired = false, type = Type.STRING),
+          @RestParameter(name = "day", description = "The day of creation (format: YYYYMMDD)", isRequired = false, type = Type.STRING) }, reponses = {
+          @RestResponse(responseCode = SC_OK, description = "A JSON representation of the user actions"),
+          @RestResponse(responseCode = SC_BAD_REQUEST, description = "The day is not valid") })
+  public Response exportUserActionsAsJson(@QueryParam("id") String id, @QueryParam("type") String type,
+          @QueryParam("day") String day) {
+    return exportUserActions(UserTrackingExport.Format.JSON, id, type, day);
+  }
+
+  private Response exportUserActions(UserTrackingExport.Format format, String id, String type, String day) {
+    final String mediapackageId = StringUtils.trimToNull(id);
+    final String actionType = StringUtils.trimToNull(type);
+    final String actionDay = StringUtils.trimToNull(day);
+    if (actionDay != null && !actionDay.matches("\\d{8}"))
+      throw new WebApplicationException(Status.BAD_REQUEST);
+    try {
+      List<UserAction> first = usertrackingService.getUserActionsAfter(actionType, mediapackageId, actionDay, null,
+              UserTrackingExport.PAGE_SIZE);
+      return Response.ok(UserTrackingExport.userActions(format, first,
+              last -> usertrackingService.getUserActionsAfter(actionType, mediapackageId, actionDay, last.getId(),
+                      UserTrackingExport.PAGE_SIZE))).build();
+    } catch (UserTrackingException e) {
+      throw new WebApplicationException(e);
+    }
+  }
+
+  @GET
+  @Produces("text/csv")
+  @Path("/report/export.csv")
+  @RestQuery(name = "reportexportcsv", description = "Export a report for a time range as CSV, streamed in the order of the episode identifiers", returnDescription = "The report.", restParameters = {
+          @RestParameter(name = "from", description = "The beginning of the time range", isRequired = false, type = Type.STRING),
+          @RestParameter(name = "to", description = "The end of the time range", isRequired = false, type = Type.STRING),
+          @RestParameter(name = "daily", description = "Whether to report the views of each episode per day", isRequired = false, type = Type.BOOLEAN, defaultValue = "false") }, reponses = {
+          @RestResponse(responseCode = SC_OK, description = "A CSV representation of the report"),
+          @RestResponse(responseCode = SC_BAD_REQUEST, description = "The time range is not valid") })
+  public Response exportReportAsCsv(@QueryParam("from") String from, @QueryParam("to") String to,
+          @QueryParam("daily") boolean daily) {
+    return exportReport(UserTrackingExport.Format.CSV, from, to, daily);
+  }
+
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("/report/export.json")
+  @RestQuery(name = "reportexportjson", description = "Export a report for a time range as JSON, streamed in the order of the episode identifiers", returnDescription = "The report.", restParameters = {
+          @RestParameter(name = "from", description = "The beginning of the time range", isRequired = false, type = Type.STRING),
+          @RestParameter(name = "to", description = "The end of the time range", isRequired = false, type = Type.STRING),
+          @RestParameter(name = "daily", description = "Whether to report the views of each episode per day", isRequired = false, type = Type.BOOLEAN, defaultValue = "false") }, reponses = {
+          @RestResponse(responseCode = SC_OK, description = "A JSON representation of the report"),
+          @RestResponse(responseCode = SC_BAD_REQUEST, description = "The time range is not valid") })
+  public Response exportReportAsJson(@QueryParam("from") String from, @QueryParam("to") String to,
+          @QueryParam("daily") boolean daily) {
+    return exportReport(UserTrackingExport.Format.JSON, from, to, daily);
+  }
+
+  private Response exportReport(UserTrackingExport.Format format, String from, String to, boolean daily) {
+    final String begin = StringUtils.trimToNull(from);
+    final String end = StringUtils.trimToNull(to);
+    try {
+      List<ReportItem> first = usertrackingService.getReportItemsAfter(begin, end, daily, null,
+              UserTrackingExport.PAGE_SIZE);
+      return Response.ok(UserTrackingExport.report(format, first,
+              last -> usertrackingService.getReportItemsAfter(begin, end, daily, last.getEpisodeId(),
+                      UserTrackingExport.PAGE_SIZE))).build();
+    } catch (UserTrackingException e) {
+      throw new WebApplicationException(e);
+    } catch (ParseException e) {
+      throw new WebApplicationException(Status.BAD_REQUEST);
+    }
+  }
+
   @GET
   @Produces(MediaType.TEXT_XML)
   @Path("/stats.xml")
@@ -205,6 +304,36 @@ public class UserTrackingRestService {
     return statsAsXml(mediapackageId); // same logic, different @Produces annotation
   }
 
+  @GET
+  @Produces(MediaType.TEXT_XML)
+  @Path("/stats/list.xml")
+  @RestQuery(name = "statslistasxml", description = "Get the statistics for multiple episodes", returnDescription = "The statistics.", restParameters = { @RestParameter(name = "id", description = "The IDs of the episodes to return the statistics for, may be repeated up to " + MAX_STATS_LIST_SIZE + " times", isRequired = false, type = Type.STRING) }, reponses = { @RestResponse(responseCode = SC_OK, description = "An XML representation of the episodes' statistics"), @RestResponse(responseCode = SC_BAD_REQUEST, description = "Too many episodes have been requested") })
+  public StatsListImpl statsListAsXml(@QueryParam("id") List<String> mediapackageIds) {
+    if (mediapackageIds.size() > MAX_STATS_LIST_SIZE)
+      throw new WebApplicationException(Status.BAD_REQUEST);
+    StatsListImpl list = new StatsListImpl();
+    try {
+      Map<String, Integer> views = usertrackingService.getViews(mediapackageIds);
+      for (String mediapackageId : new LinkedHashSet<>(mediapackageIds)) {
+        StatsImpl s = new StatsImpl();
+        s.setMediapackageId(mediapackageId);
+        s.setViews(views.get(mediapackageId));
+        list.add(s);
+      }
+    } catch (UserTrackingException e) {
+      throw new WebApplicationException(e);
+    }
+    return list;
+  }
+
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("/stats/list.json")
+  @RestQuery(name = "statslistasjson", description = "Get the statistics for multiple episodes", returnDescription = "The statistics.", restParameters = { @RestParameter(name = "id", description = "The IDs of the episodes to return the statistics for, may be repeated up to " + MAX_STATS_LIST_SIZE + " times", isRequired = false, type = Type.STRING) }, reponses = { @RestResponse(responseCode = SC_OK, description = "A JSON representation of the episodes' statistics"), @RestResponse(responseCode = SC_BAD_REQUEST, description = "Too many episodes have been requested") })
+  public StatsListImpl statsListAsJson(@QueryParam("id") List<String> mediapackageIds) {
+    return statsListAsXml(mediapackageIds); // same logic, different @Produces annotation
+  }
+
   @GET
   @Produces(MediaType.TEXT_XML)
   @Path("/report.xml")
@@ -257,7 +386,8 @@ public class UserTrackingRestService {
           @RestParameter(name = "type", description = "The episode identifier", isRequired = true, type = Type.STRING),
           @RestParameter(name = "in", description = "The beginning of the time range", isRequired = true, type = Type.STRING),
           @RestParameter(name = "out", description = "The end of the time range", isRequired = false, type = Type.STRING),
-          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, reponses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action") })
+          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, reponses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action"),
+          @RestResponse(responseCode = SC_ACCEPTED, description = "The footprint has been buffered and will be stored later") })
   public Response addFootprint(@FormParam("id") String mediapackageId, @FormParam("in") String inString,
           @FormParam("out") String outString, @FormParam("type") String type, @FormParam("playing") String isPlaying,
           @Context HttpServletRequest request) {
@@ -326,6 +456,11 @@ public class UserTrackingRestService {
       throw new WebApplicationException(e);
     }
 
+    // buffered footprints are not stored yet
+    if (a.getId() == null) {
+      return Response.accepted(a).build();
+    }
+
     URI uri;
     try {
       uri = new URI(UrlSupport.concat(new String[] { serverUrl, serviceUrl, "action", a.getId().toString(), ".xml" }));
@@ -0,0 +1,197 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.UserAction;
+import org.opencastproject.usertracking.impl.jmx.FootprintBufferMXBean;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects user footprints per session until they are written to the database in a batch. Footprints continuing the
+ * last pending footprint of their session are merged into it, so that a viewer watching a video only results in a
+ * single pending footprint no matter how many heartbeats the player sends.
+ */
+final class FootprintBuffer implements FootprintBufferMXBean {
+
+  /** The pending footprints by session id, in the order they are received */
+  private Map<String, List<UserAction>> pending = new LinkedHashMap<>();
+
+  /** The number of pending footprints */
+  private int size = 0;
+
+  /** The maximum number of pending footprints */
+  private volatile int maxSize;
+
+  private final AtomicLong received = new AtomicLong();
+  private final AtomicLong merged = new AtomicLong();
+  private final AtomicLong flushed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong flushes = new AtomicLong();
+  private final AtomicLong failedFlushes = new AtomicLong();
+  private volatile long lastFlushDuration = 0L;
+
+  FootprintBuffer(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Whether a footprint continues another one, i.e. it has been recorded for the same media package and starts where
+   * the other one ends.
+   */
+  static boolean continues(UserAction last, UserAction footprint) {
+    return last.getMediapackageId().equals(footprint.getMediapackageId()) && last.getType().equals(footprint.getType())
+            && last.getOutpoint() == footprint.getInpoint();
+  }
+
+  /**
+   * Adds a footprint to the buffer.
+   *
+   * @param footprint
+   *          the footprint with its session set
+   * @return the pending footprint the given one has been merged into or the given footprint itself
+   */
+  synchronized UserAction add(UserAction footprint) {
+    received.incrementAndGet();
+    List<UserAction> footprints = pending.computeIfAbsent(footprint.getSession().getSessionId(),
+            sessionId -> new ArrayList<>());
+    if (!footprints.isEmpty()) {
+      UserAction last = footprints.get(footprints.size() - 1);
+      if (continues(last, footprint)) {
+        last.setOutpoint(footprint.getOutpoint());
+        merged.incrementAndGet();
+        return last;
+      }
+    }
+    footprints.add(footprint);
+    size++;
+    return footprint;
+  }
+
+  /** Returns the number of pending footprints. */
+  synchronized int size() {
+    return size;
+  }
+
+  /** Removes and returns all pending footprints grouped by session id. */
+  synchronized Map<String, List<UserAction>> drain() {
+    Map<String, List<UserAction>> footprints = pending;
+    pending = new LinkedHashMap<>();
+    size = 0;
+    return footprints;
+  }
+
+  /**
+   * Records a successful flush.
+   *
+   * @param count
+   *          the number of footprints written
+   * @param duration
+   *          the duration of the flush in milliseconds
+   */
+  void flushed(int count, long duration) {
+    flushed.addAndGet(count);
+    flushes.incrementAndGet();
+    lastFlushDuration = duration;
+  }
+
+  /**
+   * Records a failed flush and puts the footprints back in front of the ones received in the meantime, as long as the
+   * buffer is not full.
+   *
+   * @param footprints
+   *          the footprints which could not be written
+   */
+  synchronized void failed(Map<String, List<UserAction>> footprints) {
+    failedFlushes.incrementAndGet();
+    Map<String, List<UserAction>> requeued = new LinkedHashMap<>();
+    int requeuedSize = 0;
+    for (Map.Entry<String, List<UserAction>> entry : footprints.entrySet()) {
+      for (UserAction footprint : entry.getValue()) {
+        if (requeuedSize + size >= maxSize) {
+          dropped.incrementAndGet();
+          continue;
+        }
+        requeued.computeIfAbsent(entry.getKey(), sessionId -> new ArrayList<>()).add(footprint);
+        requeuedSize++;
+      }
+    }
+    for (Map.Entry<String, List<UserAction>> entry : pending.entrySet()) {
+      requeued.computeIfAbsent(entry.getKey(), sessionId -> new ArrayList<>()).addAll(entry.getValue());
+    }
+    pending = requeued;
+    size += requeuedSize;
+  }
+
+  @Override
+  public int getPendingFootprints() {
+    return size();
+  }
+
+  @Override
+  public long getReceivedFootprints() {
+    return received.get();
+  }
+
+  @Override
+  public long getMergedFootprints() {
+    return merged.get();
+  }
+
+  @Override
+  public long getFlushedFootprints() {
+    return flushed.get();
+  }
+
+  @Override
+  public long getDroppedFootprints() {
+    return dropped.get();
+  }
+
+  @Override
+  public long getFlushes() {
+    return flushes.get();
+  }
+
+  @Override
+  public long getFailedFlushes() {
+    return failedFlushes.get();
+  }
+
+  @Override
+  public long getLastFlushDuration() {
+    return lastFlushDuration;
+  }
+
+}
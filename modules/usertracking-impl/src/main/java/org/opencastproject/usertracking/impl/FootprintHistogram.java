@@ -0,0 +1,153 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.Footprint;
+import org.opencastproject.usertracking.api.FootprintList;
+import org.opencastproject.usertracking.endpoint.FootprintImpl;
+import org.opencastproject.usertracking.endpoint.FootprintsListImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The views of a media package's footprints, stored as difference array: Each footprint from <code>in</code> to
+ * <code>out</code> adds one view at <code>in</code> and removes it again at <code>out</code>. Only positions where the
+ * number of views changes are kept, so adding a footprint is independent of its length and the views of all positions
+ * are obtained in a single pass.
+ */
+final class FootprintHistogram {
+
+  /** The changes of the number of views by position */
+  private final TreeMap<Integer, Integer> deltas = new TreeMap<>();
+
+  /**
+   * Adds a view of the positions from <code>in</code> (inclusive) to <code>out</code> (exclusive). Empty or reversed
+   * ranges are ignored.
+   */
+  void add(int in, int out) {
+    in = Math.max(0, in);
+    if (out <= in)
+      return;
+    addDelta(in, 1);
+    addDelta(out, -1);
+  }
+
+  /** Adds all views of another histogram to this one. */
+  void add(FootprintHistogram histogram) {
+    for (Map.Entry<Integer, Integer> delta : histogram.deltas.entrySet()) {
+      addDelta(delta.getKey(), delta.getValue());
+    }
+  }
+
+  boolean isEmpty() {
+    return deltas.isEmpty();
+  }
+
+  private void addDelta(int position, int delta) {
+    if (deltas.merge(position, delta, Integer::sum) == 0) {
+      deltas.remove(position);
+    }
+  }
+
+  /**
+   * Returns the footprints, i.e. the number of views starting at each position where it changes. Like with the
+   * original footprints, the list always starts at position 0 and ends with 0 views after the last viewed position.
+   */
+  FootprintList toFootprintList() {
+    FootprintList list = new FootprintsListImpl();
+    Footprint first = new FootprintImpl();
+    first.setPosition(0);
+    list.add(first);
+    long views = 0;
+    for (Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+      views += delta.getValue();
+      if (delta.getKey() == 0) {
+        first.setViews(views);
+      } else {
+        Footprint footprint = new FootprintImpl();
+        footprint.setPosition(delta.getKey());
+        footprint.setViews(views);
+        list.add(footprint);
+      }
+    }
+    return list;
+  }
+
+  /** Encodes the histogram as variable-length position gaps followed by zigzag encoded deltas. */
+  byte[] encode() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(deltas.size() * 3);
+    int last = 0;
+    for (Map.Entry<Integer, Integer> delta : deltas.entrySet()) {
+      writeVarInt(out, delta.getKey() - last);
+      writeVarInt(out, (delta.getValue() << 1) ^ (delta.getValue() >> 31));
+      last = delta.getKey();
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decodes a histogram encoded by {@link #encode()}.
+   *
+   * @param data
+   *          the encoded histogram, may be <code>null</code>
+   * @return the histogram
+   * @throws IllegalArgumentException
+   *           if the data is truncated
+   */
+  static FootprintHistogram decode(byte[] data) {
+    FootprintHistogram histogram = new FootprintHistogram();
+    if (data == null)
+      return histogram;
+    int[] offset = { 0 };
+    int position = 0;
+    while (offset[0] < data.length) {
+      position += readVarInt(data, offset);
+      int zigzag = readVarInt(data, offset);
+      histogram.addDelta(position, (zigzag >>> 1) ^ -(zigzag & 1));
+    }
+    return histogram;
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static int readVarInt(byte[] data, int[] offset) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      if (offset[0] >= data.length)
+        throw new IllegalArgumentException("Truncated footprint histogram");
+      byte b = data[offset[0]++];
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0)
+        return value;
+    }
+    throw new IllegalArgumentException("Malformed footprint histogram");
+  }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * The persisted {@link FootprintHistogram} of a media package, either of all users or of a single user.
+ */
+@Entity(name = "FootprintHistogram")
+@IdClass(FootprintHistogramEntityId.class)
+@Access(AccessType.FIELD)
+@Table(name = "oc_user_footprint_histogram")
+public class FootprintHistogramEntity {
+
+  /** The user id of the histogram covering the footprints of all users */
+  public static final String ALL_USERS = "";
+
+  @Id
+  @Column(name = "mediapackage", length = 128)
+  private String mediapackageId;
+
+  @Id
+  @Column(name = "user_id", length = 255)
+  private String userId;
+
+  /**
+   * Whether the histogram covers all footprints. Incomplete histograms are being built from the stored footprints and
+   * must not be used yet.
+   */
+  @Column(name = "complete")
+  private boolean complete = false;
+
+  @Lob
+  @Column(name = "histogram", length = 65535)
+  private byte[] histogram;
+
+  /**
+   * No-arg constructor needed by JPA
+   */
+  public FootprintHistogramEntity() {
+  }
+
+  public FootprintHistogramEntity(String mediapackageId, String userId) {
+    this.mediapackageId = mediapackageId;
+    this.userId = userId;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+
+  public void setComplete(boolean complete) {
+    this.complete = complete;
+  }
+
+  FootprintHistogram getHistogram() {
+    return FootprintHistogram.decode(histogram);
+  }
+
+  void setHistogram(FootprintHistogram histogram) {
+    this.histogram = histogram.encode();
+  }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * IdClass for {@link FootprintHistogramEntity}
+ */
+public class FootprintHistogramEntityId implements Serializable {
+
+  private static final long serialVersionUID = 7207356474427313545L;
+
+  private String mediapackageId;
+  private String userId;
+
+  /**
+   * No-arg constructor needed by JPA
+   */
+  public FootprintHistogramEntityId() {
+  }
+
+  public FootprintHistogramEntityId(String mediapackageId, String userId) {
+    this.mediapackageId = mediapackageId;
+    this.userId = userId;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof FootprintHistogramEntityId))
+      return false;
+    FootprintHistogramEntityId other = (FootprintHistogramEntityId) o;
+    return Objects.equals(mediapackageId, other.mediapackageId) && Objects.equals(userId, other.userId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(mediapackageId, userId);
+  }
+
+}
@@ -59,12 +59,16 @@ import javax.xml.bind.annotation.XmlType;
         @NamedQuery(name = "countSessionsGroupByMediapackage", query = "SELECT a.mediapackageId, COUNT(distinct a.session), SUM(a.length) FROM UserAction a GROUP BY a.mediapackageId"),
         @NamedQuery(name = "countSessionsGroupByMediapackageByIntervall", query = "SELECT a.mediapackageId, COUNT(distinct a.session.sessionId), SUM(a.length) FROM UserAction a WHERE :begin <= a.created AND a.created <= :end GROUP BY a.mediapackageId"),
         @NamedQuery(name = "countSessionsOfMediapackage", query = "SELECT COUNT(distinct a.session) FROM UserAction a WHERE a.mediapackageId = :mediapackageId"),
+        @NamedQuery(name = "countSessionsOfMediapackages", query = "SELECT a.mediapackageId, COUNT(distinct a.session) FROM UserAction a WHERE a.mediapackageId IN :mediapackageIds GROUP BY a.mediapackageId"),
+        @NamedQuery(name = "findUserActionIdsOfSessionAndMediapackage", query = "SELECT a.id FROM UserAction a WHERE a.session = :session AND a.mediapackageId = :mediapackageId"),
         @NamedQuery(name = "findLastUserFootprintOfSession", query = "SELECT a FROM UserAction a  WHERE a.session = :session AND a.type = \'FOOTPRINT\'  ORDER BY a.created DESC"),
         @NamedQuery(name = "findLastUserActionsOfSession", query = "SELECT a FROM UserAction a  WHERE a.session = :session ORDER BY a.created DESC"),
         @NamedQuery(name = "findUserActionsByType", query = "SELECT a FROM UserAction a WHERE a.type = :type"),
         @NamedQuery(name = "findUserActionsByTypeAndMediapackageId", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type"),
         @NamedQuery(name = "findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type ORDER BY a.outpoint DESC"),
         @NamedQuery(name = "findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type AND a.session.userId = :userid ORDER BY a.outpoint DESC"),
+        @NamedQuery(name = "findIntervalsByTypeAndMediapackageId", query = "SELECT a.inpoint, a.outpoint FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type"),
+        @NamedQuery(name = "findIntervalsByTypeAndMediapackageIdByUser", query = "SELECT a.inpoint, a.outpoint FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type AND a.session.userId = :userid"),
         @NamedQuery(name = "findUserActionsByIntervall", query = "SELECT a FROM UserAction a WHERE :begin <= a.created AND a.created <= :end"),
         @NamedQuery(name = "findUserActionsByTypeAndIntervall", query = "SELECT a FROM UserAction a WHERE :begin <= a.created AND a.created <= :end AND a.type = :type"),
         @NamedQuery(name = "findTotal", query = "SELECT COUNT(a) FROM UserAction a"),
@@ -21,7 +21,6 @@
 
 package org.opencastproject.usertracking.impl;
 
-import org.opencastproject.usertracking.api.Footprint;
 import org.opencastproject.usertracking.api.FootprintList;
 import org.opencastproject.usertracking.api.Report;
 import org.opencastproject.usertracking.api.ReportItem;
@@ -30,11 +29,10 @@ import org.opencastproject.usertracking.api.UserActionList;
 import org.opencastproject.usertracking.api.UserSession;
 import org.opencastproject.usertracking.api.UserTrackingException;
 import org.opencastproject.usertracking.api.UserTrackingService;
-import org.opencastproject.usertracking.endpoint.FootprintImpl;
-import org.opencastproject.usertracking.endpoint.FootprintsListImpl;
 import org.opencastproject.usertracking.endpoint.ReportImpl;
 import org.opencastproject.usertracking.endpoint.ReportItemImpl;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.jmx.JmxUtil;
 
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.cm.ConfigurationException;
@@ -44,15 +42,40 @@ import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Dictionary;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.ObjectInstance;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
@@ -73,6 +96,30 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public static final String IP_LOGGING = "org.opencastproject.usertracking.log.ip";
   public static final String USER_LOGGING = "org.opencastproject.usertracking.log.user";
   public static final String SESSION_LOGGING = "org.opencastproject.usertracking.log.session";
+  public static final String FOOTPRINT_FLUSH_INTERVAL = "org.opencastproject.usertracking.footprint.flush.interval";
+  public static final String FOOTPRINT_FLUSH_SIZE = "org.opencastproject.usertracking.footprint.flush.size";
+  public static final String FOOTPRINT_MAX_PENDING = "org.opencastproject.usertracking.footprint.max.pending";
+  public static final String VIEWS_CACHE_TTL = "org.opencastproject.usertracking.views.cache.ttl";
+
+  /** By default, footprints are written immediately */
+  public static final long DEFAULT_FOOTPRINT_FLUSH_INTERVAL = 0L;
+  public static final int DEFAULT_FOOTPRINT_FLUSH_SIZE = 1000;
+  public static final int DEFAULT_FOOTPRINT_MAX_PENDING = 50000;
+
+  /** By default, view counts are cached for 10 seconds */
+  public static final long DEFAULT_VIEWS_CACHE_TTL = 10L;
+
+  /** The maximum number of cached view counts */
+  private static final int VIEW_CACHE_MAX_SIZE = 10000;
+
+  /** The maximum number of remembered footprint histograms and view counts known to exist */
+  private static final int REGISTERED_MAX_SIZE = 10000;
+
+  /** The maximum number of media packages whose view counts are loaded with a single query */
+  private static final int VIEW_QUERY_SIZE = 500;
+
+  /** The JMX type of the footprint buffer */
+  private static final String FOOTPRINT_BUFFER_JMX_TYPE = "UserTrackingFootprints";
 
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingServiceImpl.class);
 
@@ -84,6 +131,66 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   /** The factory used to generate the entity manager */
   protected EntityManagerFactory emf = null;
 
+  /** The interval in milliseconds in which buffered footprints are written, 0 to write them immediately */
+  private volatile long footprintFlushInterval = DEFAULT_FOOTPRINT_FLUSH_INTERVAL;
+
+  /** The number of buffered footprints triggering a flush before the interval has passed */
+  private volatile int footprintFlushSize = DEFAULT_FOOTPRINT_FLUSH_SIZE;
+
+  /** The buffer collecting footprints until they are written */
+  private final FootprintBuffer footprints = new FootprintBuffer(DEFAULT_FOOTPRINT_MAX_PENDING);
+
+  /** Ensures that only one flush runs at a time */
+  private final Object flushLock = new Object();
+
+  /** The footprints waiting to be written if footprints are written immediately */
+  private final Queue<PendingFootprint> writeQueue = new ConcurrentLinkedQueue<>();
+
+  /** Footprint histograms known to exist, which do not need to be registered before footprints are added to them */
+  private final Set<FootprintHistogramEntityId> registeredHistograms = ConcurrentHashMap.newKeySet();
+
+  /** Media packages whose view counts are known to exist */
+  private final Set<String> registeredViewCounts = ConcurrentHashMap.newKeySet();
+
+  /** Whether a flush triggered by the buffer size is already scheduled */
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+  /** Runs the periodic flushes */
+  private ScheduledExecutorService flushExecutor = null;
+
+  /** The periodic flush */
+  private ScheduledFuture<?> flushTask = null;
+
+  /** The JMX registration of the footprint buffer */
+  private ObjectInstance footprintBufferMXBean = null;
+
+  /** The time in milliseconds view counts are cached, 0 to disable the cache */
+  private volatile long viewCacheTtl = TimeUnit.SECONDS.toMillis(DEFAULT_VIEWS_CACHE_TTL);
+
+  /** The cached view counts by media package id */
+  private final Map<String, CachedViews> viewCache = new ConcurrentHashMap<>();
+
+  /** A cached view count */
+  private static final class CachedViews {
+    private final int views;
+    private final long expires;
+
+    CachedViews(int views, long expires) {
+      this.views = views;
+      this.expires = expires;
+    }
+  }
+
+  /** A footprint waiting to be written */
+  private static final class PendingFootprint {
+    private final UserAction footprint;
+    private final CompletableFuture<UserAction> stored = new CompletableFuture<>();
+
+    PendingFootprint(UserAction footprint) {
+      this.footprint = footprint;
+    }
+  }
+
   /** OSGi DI */
 
   /** OSGi DI */
@@ -96,6 +203,23 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
    */
   public void activate() {
     logger.debug("activate()");
+    footprintBufferMXBean = JmxUtil.registerMXBean(footprints, FOOTPRINT_BUFFER_JMX_TYPE);
+  }
+
+  /**
+   * Deactivation callback writing all buffered footprints.
+   */
+  public synchronized void deactivate() {
+    if (flushExecutor != null) {
+      flushExecutor.shutdownNow();
+      flushExecutor = null;
+      flushTask = null;
+    }
+    flushFootprints();
+    if (footprintBufferMXBean != null) {
+      JmxUtil.unregisterMXBean(footprintBufferMXBean);
+      footprintBufferMXBean = null;
+    }
   }
 
   @Override
@@ -122,64 +246,487 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
       logSession = Boolean.valueOf((String) val);
     }
 
+    try {
+      String interval = StringUtils.trimToNull((String) props.get(FOOTPRINT_FLUSH_INTERVAL));
+      String size = StringUtils.trimToNull((String) props.get(FOOTPRINT_FLUSH_SIZE));
+      String maxPending = StringUtils.trimToNull((String) props.get(FOOTPRINT_MAX_PENDING));
+      footprintFlushSize = size == null ? DEFAULT_FOOTPRINT_FLUSH_SIZE : Integer.parseInt(size);
+      footprints.setMaxSize(maxPending == null ? DEFAULT_FOOTPRINT_MAX_PENDING : Integer.parseInt(maxPending));
+      scheduleFootprintFlushes(interval == null ? DEFAULT_FOOTPRINT_FLUSH_INTERVAL : Long.parseLong(interval));
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(FOOTPRINT_FLUSH_INTERVAL, "Invalid footprint buffer configuration", e);
+    }
+
+    try {
+      String ttl = StringUtils.trimToNull((String) props.get(VIEWS_CACHE_TTL));
+      viewCacheTtl = TimeUnit.SECONDS.toMillis(ttl == null ? DEFAULT_VIEWS_CACHE_TTL : Long.parseLong(ttl));
+      viewCache.clear();
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(VIEWS_CACHE_TTL, "Invalid view count cache time to live", e);
+    }
+  }
+
+  /**
+   * Schedules the periodic flush of buffered footprints.
+   *
+   * @param interval
+   *          the interval in milliseconds, 0 to write footprints immediately
+   */
+  private synchronized void scheduleFootprintFlushes(long interval) {
+    if (flushTask != null) {
+      flushTask.cancel(false);
+      flushTask = null;
+    }
+    footprintFlushInterval = interval;
+    if (interval <= 0) {
+      logger.debug("Writing user footprints immediately");
+      if (flushExecutor != null) {
+        flushExecutor.shutdown();
+        flushExecutor = null;
+      }
+      flushFootprints();
+      return;
+    }
+    if (flushExecutor == null) {
+      flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "User tracking footprint flush");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    flushTask = flushExecutor.scheduleWithFixedDelay(this::flushFootprints, interval, interval,
+            TimeUnit.MILLISECONDS);
+    logger.debug("Writing user footprints every {} ms", interval);
   }
 
   public int getViews(String mediapackageId) {
+    return getViews(Collections.singleton(mediapackageId)).get(mediapackageId);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Integer> getViews(Collection<String> mediapackageIds) {
+    Map<String, Integer> views = new HashMap<>();
+    Set<String> missing = new LinkedHashSet<>();
+    long now = System.currentTimeMillis();
+    for (String mediapackageId : mediapackageIds) {
+      CachedViews cached = viewCache.get(mediapackageId);
+      if (cached != null && cached.expires > now) {
+        views.put(mediapackageId, cached.views);
+      } else {
+        missing.add(mediapackageId);
+      }
+    }
+    if (missing.isEmpty()) {
+      return views;
+    }
+
+    Map<String, Integer> loaded = new HashMap<>();
+    Set<String> registered = new HashSet<>();
     EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      Query q = em.createNamedQuery("countSessionsOfMediapackage");
-      q.setParameter("mediapackageId", mediapackageId);
-      return ((Long) q.getSingleResult()).intValue();
+      List<String> ids = new ArrayList<>(missing);
+      for (int i = 0; i < ids.size(); i += VIEW_QUERY_SIZE) {
+        Query q = em.createNamedQuery("findViewCountsOfMediapackages");
+        q.setParameter("mediapackageIds", ids.subList(i, Math.min(i + VIEW_QUERY_SIZE, ids.size())));
+        for (ViewCountEntity count : (List<ViewCountEntity>) q.getResultList()) {
+          registered.add(count.getMediapackageId());
+          if (count.isComplete()) {
+            loaded.put(count.getMediapackageId(), (int) count.getViews());
+          }
+        }
+      }
     } finally {
       if (em != null && em.isOpen()) {
         em.close();
       }
     }
+    SortedSet<String> unknown = new TreeSet<>(missing);
+    unknown.removeAll(loaded.keySet());
+    if (!unknown.isEmpty()) {
+      loaded.putAll(buildViewCounts(unknown, registered));
+    }
+
+    long ttl = viewCacheTtl;
+    if (ttl > 0) {
+      if (viewCache.size() + loaded.size() > VIEW_CACHE_MAX_SIZE) {
+        viewCache.values().removeIf(cached -> cached.expires <= now);
+        if (viewCache.size() + loaded.size() > VIEW_CACHE_MAX_SIZE) {
+          viewCache.clear();
+        }
+      }
+      for (Map.Entry<String, Integer> count : loaded.entrySet()) {
+        viewCache.put(count.getKey(), new CachedViews(count.getValue(), now + ttl));
+      }
+    }
+    views.putAll(loaded);
+    return views;
   }
 
+  /**
+   * Builds the view counts of media packages from the stored user actions. The counts of media packages with user
+   * actions are stored, those of media packages without any are not. Counts are registered before they are built, so
+   * that concurrent writers keep them up to date once they have been built, see {@link #updateViewCounts}.
+   *
+   * @param mediapackageIds
+   *          the media packages without a stored count, sorted to always acquire the locks in the same order
+   * @param registered
+   *          the media packages whose counts have already been registered
+   */
   @SuppressWarnings("unchecked")
-  public UserAction addUserFootprint(UserAction a, UserSession session) throws UserTrackingException {
-    a.setType(FOOTPRINT_KEY);
+  private Map<String, Integer> buildViewCounts(SortedSet<String> mediapackageIds, Set<String> registered) {
+    Map<String, Integer> views;
     EntityManager em = null;
     EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      views = countViews(em, mediapackageIds);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+    List<String> viewed = new ArrayList<>(new TreeSet<>(views.keySet()));
+    for (String mediapackageId : mediapackageIds) {
+      views.putIfAbsent(mediapackageId, 0);
+    }
+    if (viewed.isEmpty()) {
+      return views;
+    }
+    for (String mediapackageId : viewed) {
+      if (!registered.contains(mediapackageId)) {
+        registerViewCount(mediapackageId);
+      }
+    }
+
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      List<ViewCountEntity> entities = new ArrayList<>();
+      for (int i = 0; i < viewed.size(); i += VIEW_QUERY_SIZE) {
+        Query q = em.createNamedQuery("findViewCountsOfMediapackages");
+        q.setParameter("mediapackageIds", viewed.subList(i, Math.min(i + VIEW_QUERY_SIZE, viewed.size())));
+        q.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        entities.addAll(q.getResultList());
+      }
+      Map<String, Integer> counted = countViews(em, viewed);
+      for (ViewCountEntity entity : entities) {
+        int count = counted.getOrDefault(entity.getMediapackageId(), 0);
+        entity.setViews(count);
+        entity.setComplete(true);
+        views.put(entity.getMediapackageId(), count);
+      }
+      tx.commit();
+    } catch (Exception e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      logger.warn("Unable to store view counts of {} media packages", viewed.size(), e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+    return views;
+  }
+
+  /**
+   * Stores an incomplete view count unless it exists already. The count needs to exist before user actions of the
+   * media package are written, see {@link #buildViewCounts(SortedSet, Set)}.
+   */
+  private void registerViewCount(String mediapackageId) {
+    if (mediapackageId == null || registeredViewCounts.contains(mediapackageId)) {
+      return;
+    }
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      if (em.find(ViewCountEntity.class, mediapackageId) == null) {
+        em.persist(new ViewCountEntity(mediapackageId));
+      }
+      tx.commit();
+      if (registeredViewCounts.size() >= REGISTERED_MAX_SIZE) {
+        registeredViewCounts.clear();
+      }
+      registeredViewCounts.add(mediapackageId);
+    } catch (Exception e) {
+      // most likely registered by a concurrent request
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      logger.debug("Unable to register view count of media package {}", mediapackageId, e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /** Counts the sessions which have viewed the given media packages, leaving out those without any. */
+  @SuppressWarnings("unchecked")
+  private Map<String, Integer> countViews(EntityManager em, Collection<String> mediapackageIds) {
+    Map<String, Integer> views = new HashMap<>();
+    List<String> ids = new ArrayList<>(mediapackageIds);
+    for (int i = 0; i < ids.size(); i += VIEW_QUERY_SIZE) {
+      Query q = em.createNamedQuery("countSessionsOfMediapackages");
+      q.setParameter("mediapackageIds", ids.subList(i, Math.min(i + VIEW_QUERY_SIZE, ids.size())));
+      for (Object[] count : (List<Object[]>) q.getResultList()) {
+        views.put((String) count[0], ((Number) count[1]).intValue());
+      }
+    }
+    return views;
+  }
+
+  /**
+   * Checks whether a user action about to be stored is the first one of its session for a media package and thus
+   * counts as a new view.
+   *
+   * @param counted
+   *          the media packages already counted for the session in the current transaction
+   */
+  private void countView(EntityManager em, Map<String, Integer> newViews, Set<String> counted,
+          UserSession userSession, String mediapackageId) {
+    if (mediapackageId == null || !counted.add(mediapackageId)) {
+      return;
+    }
+    Query q = em.createNamedQuery("findUserActionIdsOfSessionAndMediapackage");
+    q.setMaxResults(1);
+    q.setParameter("session", userSession);
+    q.setParameter("mediapackageId", mediapackageId);
+    if (q.getResultList().isEmpty()) {
+      newViews.merge(mediapackageId, 1, Integer::sum);
+    }
+  }
+
+  /**
+   * Adds new views to the stored view counts. Counts which have not been built yet are skipped since they are built
+   * from the stored user actions on the first read anyway. The counts have been registered before, so a count being
+   * built is always locked and either waits for the user actions or is waited for.
+   *
+   * @param newViews
+   *          the new views by media package id, sorted to always acquire the locks in the same order
+   */
+  private void updateViewCounts(EntityManager em, Map<String, Integer> newViews) {
+    if (newViews.isEmpty()) {
+      return;
+    }
+    // store the user actions before waiting for the counts, see buildViewCounts
+    em.flush();
+    for (Map.Entry<String, Integer> view : newViews.entrySet()) {
+      ViewCountEntity entity = em.find(ViewCountEntity.class, view.getKey(), LockModeType.PESSIMISTIC_WRITE);
+      if (entity != null) {
+        entity.setViews(entity.getViews() + view.getValue());
+      }
+    }
+  }
+
+  public UserAction addUserFootprint(UserAction a, UserSession session) throws UserTrackingException {
+    a.setType(FOOTPRINT_KEY);
     if (!logIp) session.setUserIp("-omitted-");
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
+    if (footprintFlushInterval > 0) {
+      return bufferUserFootprint(a, session);
+    }
+    return writeUserFootprint(a, session);
+  }
+
+  /**
+   * Writes a footprint to the database before returning it. Footprints received while another write is running are
+   * written together in the next transaction, so that concurrent viewers of a media package do not each wait for the
+   * lock on its footprint histograms.
+   */
+  private UserAction writeUserFootprint(UserAction a, UserSession session) throws UserTrackingException {
+    a.setSession(session);
+    PendingFootprint pending = new PendingFootprint(a);
+    writeQueue.add(pending);
+    synchronized (flushLock) {
+      // the footprint has already been written if a concurrent write took it from the queue
+      if (!pending.stored.isDone()) {
+        List<PendingFootprint> batch = new ArrayList<>();
+        Map<String, List<UserAction>> sessions = new LinkedHashMap<>();
+        for (PendingFootprint p = writeQueue.poll(); p != null; p = writeQueue.poll()) {
+          batch.add(p);
+          sessions.computeIfAbsent(p.footprint.getSession().getSessionId(), id -> new ArrayList<>()).add(p.footprint);
+        }
+        try {
+          Map<UserAction, UserAction> stored = writeFootprints(sessions);
+          for (PendingFootprint p : batch) {
+            p.stored.complete(stored.get(p.footprint));
+          }
+        } catch (Exception e) {
+          for (PendingFootprint p : batch) {
+            p.stored.completeExceptionally(e);
+          }
+        }
+      }
+    }
+    try {
+      return pending.stored.join();
+    } catch (CompletionException e) {
+      throw new UserTrackingException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+    }
+  }
+
+  /**
+   * Adds a footprint to the buffer of footprints to be written with the next flush. The returned footprint does not
+   * have an identifier yet.
+   */
+  private UserAction bufferUserFootprint(UserAction a, UserSession session) {
+    a.setSession(session);
+    UserAction pending = footprints.add(a);
+    int size = footprints.size();
+    if (size >= footprints.getMaxSize()) {
+      // apply back-pressure on the callers if the database cannot keep up
+      logger.debug("Footprint buffer is full, writing footprints synchronously");
+      flushFootprints();
+    } else if (size >= footprintFlushSize && flushScheduled.compareAndSet(false, true)) {
+      ScheduledExecutorService executor = flushExecutor;
+      if (executor != null) {
+        executor.execute(() -> {
+          flushScheduled.set(false);
+          flushFootprints();
+        });
+      } else {
+        flushScheduled.set(false);
+      }
+    }
+    return pending;
+  }
+
+  /**
+   * Writes all buffered footprints to the database in a single transaction. If the footprints cannot be written, they
+   * are kept in the buffer for the next flush as long as there is room left.
+   */
+  void flushFootprints() {
+    synchronized (flushLock) {
+      Map<String, List<UserAction>> batch = footprints.drain();
+      if (batch.isEmpty()) {
+        return;
+      }
+      long start = System.currentTimeMillis();
+      int count = 0;
+      for (List<UserAction> sessionFootprints : batch.values()) {
+        count += sessionFootprints.size();
+      }
+      try {
+        writeFootprints(batch);
+        footprints.flushed(count, System.currentTimeMillis() - start);
+        logger.debug("Wrote {} footprints of {} sessions", count, batch.size());
+      } catch (Exception e) {
+        footprints.failed(batch);
+        logger.warn("Unable to write buffered footprints of {} sessions", batch.size(), e);
+      }
+    }
+  }
+
+  /**
+   * Writes footprints to the database in a single transaction. Each footprint is either merged into the last footprint
+   * stored for its session or persisted as a new one.
+   *
+   * @param batch
+   *          the footprints grouped by session id
+   * @return the stored footprint each of the given footprints has been merged into or persisted as
+   */
+  private Map<UserAction, UserAction> writeFootprints(Map<String, List<UserAction>> batch) {
+    registerFootprintHistograms(batch);
+    Map<UserAction, UserAction> stored = new IdentityHashMap<>();
+    EntityManager em = null;
+    EntityTransaction tx = null;
     try {
       em = emf.createEntityManager();
       tx = em.getTransaction();
       tx.begin();
-      UserSession userSession = populateSession(em, session);
-
-      Query q = em.createNamedQuery("findLastUserFootprintOfSession");
-      q.setMaxResults(1);
-      q.setParameter("session", userSession);
-      Collection<UserAction> userActions = q.getResultList();
+      Map<String, Map<String, FootprintHistogram>> views = new TreeMap<>();
+      Map<String, Integer> newViews = new TreeMap<>();
+      for (List<UserAction> sessionFootprints : batch.values()) {
+        UserSession userSession = populateSession(em, sessionFootprints.get(0).getSession());
+        UserAction last = findLastUserFootprint(em, userSession);
+        Set<String> counted = new HashSet<>();
+        for (UserAction a : sessionFootprints) {
+          if (last != null && FootprintBuffer.continues(last, a)) {
+            //We are assuming in this case that the sessions match and are unchanged (IP wise, for example)
+            addViews(views, a.getMediapackageId(), userSession.getUserId(), last.getOutpoint(), a.getOutpoint());
+            last.setOutpoint(a.getOutpoint());
+          } else {
+            countView(em, newViews, counted, userSession, a.getMediapackageId());
+            a.setSession(userSession);
+            em.persist(a);
+            addViews(views, a.getMediapackageId(), userSession.getUserId(), a.getInpoint(), a.getOutpoint());
+            last = a;
+          }
+          stored.put(a, last);
+        }
+      }
+      updateFootprintHistograms(em, views);
+      updateViewCounts(em, newViews);
+      tx.commit();
+      viewCache.keySet().removeAll(newViews.keySet());
+      return stored;
+    } catch (RuntimeException e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      throw e;
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
 
-      if (userActions.size() >= 1) {
-        UserAction last = userActions.iterator().next();
-        if (last.getMediapackageId().equals(a.getMediapackageId()) && last.getType().equals(a.getType())
-                && last.getOutpoint() == a.getInpoint()) {
-          //We are assuming in this case that the sessions match and are unchanged (IP wise, for example)
-          last.setOutpoint(a.getOutpoint());
-          a = last;
-          a.setId(last.getId());
-        } else {
-          a.setSession(userSession);
-          em.persist(a);
+  /**
+   * Registers the footprint histograms the given footprints are added to, unless they exist already. The histograms
+   * need to exist before footprints are written, see {@link #buildFootprintHistogram(String, String, boolean)}.
+   */
+  private void registerFootprintHistograms(Map<String, List<UserAction>> batch) {
+    Set<FootprintHistogramEntityId> ids = new LinkedHashSet<>();
+    for (List<UserAction> sessionFootprints : batch.values()) {
+      for (UserAction a : sessionFootprints) {
+        ids.add(new FootprintHistogramEntityId(a.getMediapackageId(), FootprintHistogramEntity.ALL_USERS));
+        String userId = a.getSession().getUserId();
+        if (logUser && StringUtils.isNotBlank(userId)) {
+          ids.add(new FootprintHistogramEntityId(a.getMediapackageId(), userId));
         }
-      } else {
-        a.setSession(userSession);
-        em.persist(a);
+      }
+    }
+    for (FootprintHistogramEntityId id : ids) {
+      if (!registeredHistograms.contains(id)) {
+        registerFootprintHistogram(id);
+      }
+      if (FootprintHistogramEntity.ALL_USERS.equals(id.getUserId())) {
+        registerViewCount(id.getMediapackageId());
+      }
+    }
+  }
+
+  /** Stores an incomplete footprint histogram unless it exists already. */
+  private void registerFootprintHistogram(FootprintHistogramEntityId id) {
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      if (em.find(FootprintHistogramEntity.class, id) == null) {
+        em.persist(new FootprintHistogramEntity(id.getMediapackageId(), id.getUserId()));
       }
       tx.commit();
-      return a;
+      if (registeredHistograms.size() >= REGISTERED_MAX_SIZE) {
+        registeredHistograms.clear();
+      }
+      registeredHistograms.add(id);
     } catch (Exception e) {
+      // most likely registered by a concurrent request
       if (tx != null && tx.isActive()) {
         tx.rollback();
       }
-      throw new UserTrackingException(e);
+      logger.debug("Unable to register footprint histogram of media package {}", id.getMediapackageId(), e);
     } finally {
       if (em != null && em.isOpen()) {
         em.close();
@@ -187,20 +734,76 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
+  /**
+   * Records views of a media package for the histogram of all users and, if users are logged, of the given user.
+   *
+   * @param views
+   *          the views to add to the histograms by media package id and user id
+   */
+  private void addViews(Map<String, Map<String, FootprintHistogram>> views, String mediapackageId, String userId,
+          int in, int out) {
+    Map<String, FootprintHistogram> histograms = views.computeIfAbsent(mediapackageId, id -> new TreeMap<>());
+    histograms.computeIfAbsent(FootprintHistogramEntity.ALL_USERS, id -> new FootprintHistogram()).add(in, out);
+    if (logUser && StringUtils.isNotBlank(userId)) {
+      histograms.computeIfAbsent(userId, id -> new FootprintHistogram()).add(in, out);
+    }
+  }
+
+  /**
+   * Adds views to the stored footprint histograms. Histograms which have not been built yet are skipped since they are
+   * built from the stored footprints on the first read anyway. The histograms have been registered before, so a
+   * histogram being built is always locked and either waits for the footprints or is waited for.
+   *
+   * @param views
+   *          the views to add by media package id and user id, sorted to always acquire the locks in the same order
+   */
+  private void updateFootprintHistograms(EntityManager em, Map<String, Map<String, FootprintHistogram>> views) {
+    // store the footprints before waiting for the histograms, see buildFootprintHistogram
+    em.flush();
+    for (Map.Entry<String, Map<String, FootprintHistogram>> mediapackage : views.entrySet()) {
+      for (Map.Entry<String, FootprintHistogram> user : mediapackage.getValue().entrySet()) {
+        if (user.getValue().isEmpty())
+          continue;
+        FootprintHistogramEntity entity = em.find(FootprintHistogramEntity.class,
+                new FootprintHistogramEntityId(mediapackage.getKey(), user.getKey()), LockModeType.PESSIMISTIC_WRITE);
+        if (entity != null) {
+          FootprintHistogram histogram = entity.getHistogram();
+          histogram.add(user.getValue());
+          entity.setHistogram(histogram);
+        }
+      }
+    }
+  }
+
+  /** Returns the last footprint of a session or <code>null</code> if there is none. */
+  @SuppressWarnings("unchecked")
+  private UserAction findLastUserFootprint(EntityManager em, UserSession userSession) {
+    Query q = em.createNamedQuery("findLastUserFootprintOfSession");
+    q.setMaxResults(1);
+    q.setParameter("session", userSession);
+    Collection<UserAction> userActions = q.getResultList();
+    return userActions.isEmpty() ? null : userActions.iterator().next();
+  }
+
   public UserAction addUserTrackingEvent(UserAction a, UserSession session) throws UserTrackingException {
     EntityManager em = null;
     EntityTransaction tx = null;
     if (!logIp) session.setUserIp("-omitted-");
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
+    registerViewCount(a.getMediapackageId());
     try {
       em = emf.createEntityManager();
       tx = em.getTransaction();
       tx.begin();
       UserSession userSession = populateSession(em, session);
+      Map<String, Integer> newViews = new TreeMap<>();
+      countView(em, newViews, new HashSet<>(), userSession, a.getMediapackageId());
       a.setSession(userSession);
       em.persist(a);
+      updateViewCounts(em, newViews);
       tx.commit();
+      viewCache.keySet().removeAll(newViews.keySet());
       return a;
     } catch (Exception e) {
       if (tx.isActive()) {
@@ -348,14 +951,8 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public UserActionList getUserActionsByTypeAndDay(String type, String day, int offset, int limit) {
     UserActionList result = new UserActionListImpl();
 
-    int year = Integer.parseInt(day.substring(0, 4));
-    int month = Integer.parseInt(day.substring(4, 6)) - 1;
-    int date = Integer.parseInt(day.substring(6, 8));
-
-    Calendar calBegin = new GregorianCalendar();
-    calBegin.set(year, month, date, 0, 0);
-    Calendar calEnd = new GregorianCalendar();
-    calEnd.set(year, month, date, 23, 59);
+    Calendar calBegin = getDayBegin(day);
+    Calendar calEnd = getDayEnd(day);
 
     result.setTotal(getTotal(type, calBegin, calEnd));
     result.setOffset(offset);
@@ -480,14 +1077,8 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public UserActionList getUserActionsByDay(String day, int offset, int limit) {
     UserActionList result = new UserActionListImpl();
 
-    int year = Integer.parseInt(day.substring(0, 4));
-    int month = Integer.parseInt(day.substring(4, 6)) - 1;
-    int date = Integer.parseInt(day.substring(6, 8));
-
-    Calendar calBegin = new GregorianCalendar();
-    calBegin.set(year, month, date, 0, 0);
-    Calendar calEnd = new GregorianCalendar();
-    calEnd.set(year, month, date, 23, 59);
+    Calendar calBegin = getDayBegin(day);
+    Calendar calEnd = getDayEnd(day);
 
     result.setTotal(getTotal(calBegin, calEnd));
     result.setOffset(offset);
@@ -567,24 +1158,8 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     report.setLimit(limit);
     report.setOffset(offset);
 
-    Calendar calBegin = new GregorianCalendar();
-    Calendar calEnd = new GregorianCalendar();
-    SimpleDateFormat complex = new SimpleDateFormat("yyyyMMddhhmm");
-    SimpleDateFormat simple = new SimpleDateFormat("yyyyMMdd");
-
-    //Try to parse the from calendar
-    try {
-      calBegin.setTime(complex.parse(from));
-    } catch (ParseException e) {
-      calBegin.setTime(simple.parse(from));
-    }
-
-    //Try to parse the to calendar
-    try {
-      calEnd.setTime(complex.parse(to));
-    } catch (ParseException e) {
-      calEnd.setTime(simple.parse(to));
-    }
+    Calendar calBegin = parseDayKey(from);
+    Calendar calEnd = parseDayKey(to);
 
     EntityManager em = null;
     try {
@@ -615,55 +1190,281 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
-  public FootprintList getFootprints(String mediapackageId, String userId) {
+  /** Returns the beginning of a day given in the format of YYYYMMDD. */
+  private static Calendar getDayBegin(String day) {
+    Calendar calendar = new GregorianCalendar();
+    calendar.set(Integer.parseInt(day.substring(0, 4)), Integer.parseInt(day.substring(4, 6)) - 1,
+            Integer.parseInt(day.substring(6, 8)), 0, 0);
+    return calendar;
+  }
+
+  /** Returns the end of a day given in the format of YYYYMMDD. */
+  private static Calendar getDayEnd(String day) {
+    Calendar calendar = new GregorianCalendar();
+    calendar.set(Integer.parseInt(day.substring(0, 4)), Integer.parseInt(day.substring(4, 6)) - 1,
+            Integer.parseInt(day.substring(6, 8)), 23, 59);
+    return calendar;
+  }
+
+  /** Parses a day key in the format of YYYYMMDDhhmm or YYYYMMDD. */
+  private static Calendar parseDayKey(String key) throws ParseException {
+    Calendar calendar = new GregorianCalendar();
+    try {
+      calendar.setTime(new SimpleDateFormat("yyyyMMddhhmm").parse(key));
+    } catch (ParseException e) {
+      calendar.setTime(new SimpleDateFormat("yyyyMMdd").parse(key));
+    }
+    return calendar;
+  }
+
+  @Override
+  public List<UserAction> getUserActionsAfter(String type, String mediapackageId, String day, Long after, int limit)
+          throws UserTrackingException {
+    StringBuilder jpql = new StringBuilder("SELECT a FROM UserAction a WHERE a.id > :after");
+    if (type != null)
+      jpql.append(" AND a.type = :type");
+    if (mediapackageId != null)
+      jpql.append(" AND a.mediapackageId = :mediapackageId");
+    if (day != null)
+      jpql.append(" AND :begin <= a.created AND a.created <= :end");
+    jpql.append(" ORDER BY a.id");
+
     EntityManager em = null;
-    if (! logUser) userId = null;
     try {
       em = emf.createEntityManager();
-      Query q = null;
-      if (StringUtils.trimToNull(userId) == null) {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC");
-      } else {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC");
-        q.setParameter("userid", userId);
+      Query q = em.createQuery(jpql.toString());
+      q.setParameter("after", after == null ? Long.MIN_VALUE : after);
+      if (type != null)
+        q.setParameter("type", type);
+      if (mediapackageId != null)
+        q.setParameter("mediapackageId", mediapackageId);
+      if (day != null) {
+        q.setParameter("begin", getDayBegin(day), TemporalType.TIMESTAMP);
+        q.setParameter("end", getDayEnd(day), TemporalType.TIMESTAMP);
       }
-      q.setParameter("type", FOOTPRINT_KEY);
-      q.setParameter("mediapackageId", mediapackageId);
+      q.setMaxResults(limit);
       @SuppressWarnings("unchecked")
-      Collection<UserAction> userActions = q.getResultList();
+      List<UserAction> userActions = q.getResultList();
+      return userActions;
+    } catch (Exception e) {
+      throw new UserTrackingException(e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
 
-      int[] resultArray = new int[1];
-      boolean first = true;
+  @Override
+  public List<ReportItem> getReportItemsAfter(String from, String to, boolean daily, String after, int limit)
+          throws UserTrackingException, ParseException {
+    Calendar calBegin = from == null ? null : parseDayKey(from);
+    Calendar calEnd = to == null ? null : parseDayKey(to);
+    StringBuilder interval = new StringBuilder();
+    if (calBegin != null)
+      interval.append(" AND :begin <= a.created");
+    if (calEnd != null)
+      interval.append(" AND a.created <= :end");
 
-      for (UserAction a : userActions) {
-        if (first) {
-          // Get one more item than the known outpoint to append a footprint of 0 views at the end of the result set
-          resultArray = new int[a.getOutpoint() + 1];
-          first = false;
-        }
-        for (int i = a.getInpoint(); i < a.getOutpoint(); i++) {
-          resultArray[i]++;
-        }
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query q;
+      if (daily) {
+        // select the episodes of this page first to aggregate all of their days
+        q = em.createQuery("SELECT DISTINCT a.mediapackageId FROM UserAction a WHERE a.mediapackageId > :after"
+                + interval + " ORDER BY a.mediapackageId");
+        setReportParameters(q, calBegin, calEnd);
+        q.setParameter("after", StringUtils.defaultString(after));
+        q.setMaxResults(limit);
+        @SuppressWarnings("unchecked")
+        List<String> episodes = q.getResultList();
+        if (episodes.isEmpty())
+          return new ArrayList<>();
+
+        // group by the day in the time zone of the JVM, like the day parameters of the other queries
+        q = em.createQuery("SELECT a.mediapackageId, a.created, a.session.sessionId, a.length FROM UserAction a "
+                + "WHERE a.mediapackageId IN :episodes" + interval);
+        setReportParameters(q, calBegin, calEnd);
+        q.setParameter("episodes", episodes);
+        @SuppressWarnings("unchecked")
+        List<Object[]> actions = q.getResultList();
+        return groupByDay(actions);
+      }
+
+      q = em.createQuery("SELECT a.mediapackageId, COUNT(distinct a.session.sessionId), SUM(a.length) "
+              + "FROM UserAction a WHERE a.mediapackageId > :after" + interval
+              + " GROUP BY a.mediapackageId ORDER BY a.mediapackageId");
+      setReportParameters(q, calBegin, calEnd);
+      q.setParameter("after", StringUtils.defaultString(after));
+      q.setMaxResults(limit);
+
+      @SuppressWarnings("unchecked")
+      List<Object[]> result = q.getResultList();
+      List<ReportItem> items = new ArrayList<>(result.size());
+      for (Object[] a : result) {
+        ReportItem item = new ReportItemImpl();
+        item.setEpisodeId((String) a[0]);
+        item.setViews(((Number) a[1]).longValue());
+        item.setPlayed(a[2] == null ? 0L : ((Number) a[2]).longValue());
+        items.add(item);
+      }
+      return items;
+    } catch (Exception e) {
+      throw new UserTrackingException(e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /**
+   * Aggregates actions given as rows of media package id, creation date, session id and length to daily report items,
+   * sorted by episode and day.
+   */
+  private static List<ReportItem> groupByDay(List<Object[]> actions) {
+    final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyyMMdd");
+    final Map<String, Map<String, Set<String>>> sessions = new TreeMap<>();
+    final Map<String, Map<String, Long>> played = new TreeMap<>();
+    for (Object[] a : actions) {
+      final String episode = (String) a[0];
+      final String day = dayFormat.format((Date) a[1]);
+      sessions.computeIfAbsent(episode, e -> new TreeMap<>()).computeIfAbsent(day, d -> new HashSet<>()).add(
+              (String) a[2]);
+      played.computeIfAbsent(episode, e -> new TreeMap<>()).merge(day,
+              a[3] == null ? 0L : ((Number) a[3]).longValue(), Long::sum);
+    }
+    List<ReportItem> items = new ArrayList<>();
+    for (Map.Entry<String, Map<String, Set<String>>> episode : sessions.entrySet()) {
+      for (Map.Entry<String, Set<String>> day : episode.getValue().entrySet()) {
+        ReportItem item = new ReportItemImpl();
+        item.setEpisodeId(episode.getKey());
+        item.setDay(day.getKey());
+        item.setViews(day.getValue().size());
+        item.setPlayed(played.get(episode.getKey()).get(day.getKey()));
+        items.add(item);
       }
-      FootprintList list = new FootprintsListImpl();
-      int current = -1;
-      int last = -1;
-      for (int i = 0; i < resultArray.length; i++) {
-        current = resultArray[i];
-        if (last != current) {
-          Footprint footprint = new FootprintImpl();
-          footprint.setPosition(i);
-          footprint.setViews(current);
-          list.add(footprint);
+    }
+    return items;
+  }
+
+  private static void setReportParameters(Query q, Calendar calBegin, Calendar calEnd) {
+    if (calBegin != null)
+      q.setParameter("begin", calBegin, TemporalType.TIMESTAMP);
+    if (calEnd != null)
+      q.setParameter("end", calEnd, TemporalType.TIMESTAMP);
+  }
+
+  public FootprintList getFootprints(String mediapackageId, String userId) {
+    if (!logUser || StringUtils.isBlank(userId)) {
+      userId = FootprintHistogramEntity.ALL_USERS;
+    }
+    boolean registered;
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      FootprintHistogramEntity entity = em.find(FootprintHistogramEntity.class,
+              new FootprintHistogramEntityId(mediapackageId, userId));
+      if (entity != null && entity.isComplete()) {
+        return entity.getHistogram().toFootprintList();
+      }
+      registered = entity != null;
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+    return buildFootprintHistogram(mediapackageId, userId, registered).toFootprintList();
+  }
+
+  /**
+   * Builds the footprint histogram of a media package from the stored footprints and stores it. Histograms without any
+   * footprints are not stored.
+   * <p>
+   * Footprints are only written after their histograms have been registered, and they lock the registered histograms
+   * before they are added to them. The histogram is locked while it is built, so footprints written in the meantime
+   * are either visible to the query building the histogram, in which case they have not found it complete and skipped
+   * it, or they wait for the lock and are added to the built histogram afterwards.
+   *
+   * @param registered
+   *          whether the histogram has already been registered
+   */
+  private FootprintHistogram buildFootprintHistogram(String mediapackageId, String userId, boolean registered) {
+    final FootprintHistogramEntityId id = new FootprintHistogramEntityId(mediapackageId, userId);
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    if (!registered) {
+      FootprintHistogram histogram;
+      try {
+        em = emf.createEntityManager();
+        histogram = queryFootprintHistogram(em, mediapackageId, userId);
+      } finally {
+        if (em != null && em.isOpen()) {
+          em.close();
         }
-        last = current;
       }
-      return list;
+      if (histogram.isEmpty()) {
+        return histogram;
+      }
+      registerFootprintHistogram(id);
+    }
+
+    FootprintHistogram histogram = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      FootprintHistogramEntity entity = em.find(FootprintHistogramEntity.class, id, LockModeType.PESSIMISTIC_WRITE);
+      histogram = queryFootprintHistogram(em, mediapackageId, userId);
+      if (entity != null) {
+        entity.setHistogram(histogram);
+        entity.setComplete(true);
+      }
+      tx.commit();
+      return histogram;
+    } catch (Exception e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      logger.warn("Unable to store footprint histogram of media package {}", mediapackageId, e);
     } finally {
       if (em != null && em.isOpen()) {
         em.close();
       }
     }
+    if (histogram != null) {
+      return histogram;
+    }
+    try {
+      em = emf.createEntityManager();
+      return queryFootprintHistogram(em, mediapackageId, userId);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /** Computes a footprint histogram from the stored footprints. */
+  private FootprintHistogram queryFootprintHistogram(EntityManager em, String mediapackageId, String userId) {
+    Query q;
+    if (FootprintHistogramEntity.ALL_USERS.equals(userId)) {
+      q = em.createNamedQuery("findIntervalsByTypeAndMediapackageId");
+    } else {
+      q = em.createNamedQuery("findIntervalsByTypeAndMediapackageIdByUser");
+      q.setParameter("userid", userId);
+    }
+    q.setParameter("type", FOOTPRINT_KEY);
+    q.setParameter("mediapackageId", mediapackageId);
+    @SuppressWarnings("unchecked")
+    List<Object[]> intervals = q.getResultList();
+
+    FootprintHistogram histogram = new FootprintHistogram();
+    for (Object[] interval : intervals) {
+      histogram.add((Integer) interval[0], (Integer) interval[1]);
+    }
+    return histogram;
   }
 
   /**
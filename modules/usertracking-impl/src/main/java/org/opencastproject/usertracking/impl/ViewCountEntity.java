@@ -0,0 +1,87 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * The number of sessions which have viewed a media package, maintained when user actions are stored.
+ */
+@Entity(name = "ViewCount")
+@Access(AccessType.FIELD)
+@Table(name = "oc_user_views")
+@NamedQueries({
+        @NamedQuery(name = "findViewCountsOfMediapackages", query = "SELECT v FROM ViewCount v WHERE v.mediapackageId IN :mediapackageIds") })
+public class ViewCountEntity {
+
+  @Id
+  @Column(name = "mediapackage", length = 128)
+  private String mediapackageId;
+
+  @Column(name = "views")
+  private long views = 0L;
+
+  /**
+   * Whether the count covers all user actions. Incomplete counts are being built from the stored user actions and
+   * must not be used yet.
+   */
+  @Column(name = "complete")
+  private boolean complete = false;
+
+  /**
+   * No-arg constructor needed by JPA
+   */
+  public ViewCountEntity() {
+  }
+
+  public ViewCountEntity(String mediapackageId) {
+    this.mediapackageId = mediapackageId;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public long getViews() {
+    return views;
+  }
+
+  public void setViews(long views) {
+    this.views = views;
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+
+  public void setComplete(boolean complete) {
+    this.complete = complete;
+  }
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl.jmx;
+
+/**
+ * JMX interface of the buffer collecting user footprints before they are written to the database.
+ */
+public interface FootprintBufferMXBean {
+
+  /** Returns the number of footprints waiting to be written */
+  int getPendingFootprints();
+
+  /** Returns the number of footprints received since the service has been started */
+  long getReceivedFootprints();
+
+  /** Returns the number of footprints merged into a pending footprint of the same session */
+  long getMergedFootprints();
+
+  /** Returns the number of footprints written to the database */
+  long getFlushedFootprints();
+
+  /** Returns the number of footprints dropped because the database could not keep up */
+  long getDroppedFootprints();
+
+  /** Returns the number of successful flushes */
+  long getFlushes();
+
+  /** Returns the number of failed flushes */
+  long getFailedFlushes();
+
+  /** Returns the duration of the last successful flush in milliseconds */
+  long getLastFlushDuration();
+
+}
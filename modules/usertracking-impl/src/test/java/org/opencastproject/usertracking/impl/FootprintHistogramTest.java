@@ -0,0 +1,100 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.FootprintList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class FootprintHistogramTest {
+
+  /**
+   * Ensures the histogram yields the same footprints as counting the views of every single position.
+   */
+  @Test
+  public void testFootprints() {
+    Random random = new Random(42);
+    int[] views = new int[1001];
+    FootprintHistogram histogram = new FootprintHistogram();
+    for (int i = 0; i < 500; i++) {
+      int in = random.nextInt(1000);
+      int out = in + random.nextInt(1000 - in + 1);
+      histogram.add(in, out);
+      for (int j = in; j < out; j++) {
+        views[j]++;
+      }
+    }
+
+    FootprintList list = FootprintHistogram.decode(histogram.encode()).toFootprintList();
+    int index = 0;
+    int last = -1;
+    for (int position = 0; position < views.length; position++) {
+      if (views[position] != last) {
+        Assert.assertEquals(position, list.getFootprints().get(index).getPosition());
+        Assert.assertEquals(views[position], list.getFootprints().get(index).getViews());
+        index++;
+      }
+      last = views[position];
+    }
+    Assert.assertEquals(index, list.getTotal());
+  }
+
+  /**
+   * Ensures an empty histogram yields a single footprint without views and invalid ranges are ignored.
+   */
+  @Test
+  public void testEmptyHistogram() {
+    FootprintHistogram histogram = new FootprintHistogram();
+    histogram.add(20, 10);
+    histogram.add(10, 10);
+    Assert.assertTrue(histogram.isEmpty());
+    Assert.assertEquals(0, histogram.encode().length);
+
+    FootprintList list = FootprintHistogram.decode(null).toFootprintList();
+    Assert.assertEquals(1, list.getTotal());
+    Assert.assertEquals(0, list.getFootprints().get(0).getPosition());
+    Assert.assertEquals(0, list.getFootprints().get(0).getViews());
+  }
+
+  /**
+   * Ensures adjoining ranges are merged and histograms can be added to each other.
+   */
+  @Test
+  public void testAddHistograms() {
+    FootprintHistogram histogram = new FootprintHistogram();
+    histogram.add(0, 10);
+    FootprintHistogram other = new FootprintHistogram();
+    other.add(10, 100000);
+    histogram.add(other);
+
+    FootprintList list = FootprintHistogram.decode(histogram.encode()).toFootprintList();
+    Assert.assertEquals(2, list.getTotal());
+    Assert.assertEquals(0, list.getFootprints().get(0).getPosition());
+    Assert.assertEquals(1, list.getFootprints().get(0).getViews());
+    Assert.assertEquals(100000, list.getFootprints().get(1).getPosition());
+    Assert.assertEquals(0, list.getFootprints().get(1).getViews());
+  }
+
+}
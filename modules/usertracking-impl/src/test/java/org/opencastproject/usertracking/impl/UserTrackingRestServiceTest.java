@@ -41,10 +41,12 @@ import org.junit.Test;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
 
+import java.util.Collections;
 import java.util.Dictionary;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 
 public class UserTrackingRestServiceTest {
@@ -139,4 +141,14 @@ public class UserTrackingRestServiceTest {
     Assert.assertEquals(REMOTE_IP, a.getSession().getUserIp());
     Assert.assertEquals(MOCK_USER, a.getSession().getUserId());
   }
+
+  @Test
+  public void testStatsListSize() {
+    try {
+      service.statsListAsXml(Collections.nCopies(UserTrackingRestService.MAX_STATS_LIST_SIZE + 1, "test"));
+      Assert.fail("Too many episodes have been accepted");
+    } catch (WebApplicationException e) {
+      Assert.assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+    }
+  }
 }
@@ -25,6 +25,7 @@ import static org.opencastproject.util.persistence.PersistenceUtil.newTestEntity
 
 import org.opencastproject.usertracking.api.FootprintList;
 import org.opencastproject.usertracking.api.Report;
+import org.opencastproject.usertracking.api.ReportItem;
 import org.opencastproject.usertracking.api.UserAction;
 import org.opencastproject.usertracking.api.UserActionList;
 import org.opencastproject.usertracking.api.UserSession;
@@ -36,9 +37,18 @@ import org.junit.Test;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.persistence.EntityManager;
 
 public class UserTrackingServiceImplTest {
   private UserTrackingServiceImpl service = null;
@@ -178,6 +188,187 @@ public class UserTrackingServiceImplTest {
     verifyFootprintViewsAndPositions(list, 2, 30, 0);
   }
 
+  /**
+   * Test buffering and batched writing of footprints
+   * @throws Exception
+   */
+  @Test
+  public void testBufferedFootprints() throws Exception {
+    Properties props = new Properties();
+    // long enough to not flush automatically during the test
+    props.setProperty(UserTrackingServiceImpl.FOOTPRINT_FLUSH_INTERVAL, "3600000");
+    service.updated(props);
+
+    addFootprint("session123", "mp", "me", 10, 20);
+    addFootprint("session123", "mp", "me", 20, 30);
+    addFootprint("session456", "mp", "someone else", 560, 720);
+    Assert.assertEquals(0, service.getViews("mp"));
+
+    service.flushFootprints();
+    Assert.assertEquals(2, service.getViews("mp"));
+    Assert.assertEquals(2, service.getUserActionsByType(UserTrackingServiceImpl.FOOTPRINT_KEY, 0, 0).getTotal());
+    FootprintList list = getFootprintList("mp", null, 5);
+    verifyFootprintViewsAndPositions(list, 1, 10, 1);
+    verifyFootprintViewsAndPositions(list, 2, 30, 0);
+    verifyFootprintViewsAndPositions(list, 3, 560, 1);
+
+    // continuing footprints of the next flush extend the stored ones
+    addFootprint("session123", "mp", "me", 30, 40);
+    addFootprint("session123", "mp", "me", 950, 960);
+    service.flushFootprints();
+    Assert.assertEquals(3, service.getUserActionsByType(UserTrackingServiceImpl.FOOTPRINT_KEY, 0, 0).getTotal());
+    list = getFootprintList("mp", "me", 5);
+    verifyFootprintViewsAndPositions(list, 1, 10, 1);
+    verifyFootprintViewsAndPositions(list, 2, 40, 0);
+    verifyFootprintViewsAndPositions(list, 3, 950, 1);
+
+    // switching back to synchronous writes flushes the buffer
+    addFootprint("session456", "mp", "someone else", 720, 730);
+    service.updated(new Properties());
+    list = getFootprintList("mp", "someone else", 3);
+    verifyFootprintViewsAndPositions(list, 2, 730, 0);
+  }
+
+  /**
+   * Test building footprint histograms while footprints are written
+   * @throws Exception
+   */
+  @Test
+  public void testFootprintHistogramBuiltWhileWriting() throws Exception {
+    final int viewers = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(viewers);
+    List<Future<Void>> writers = new ArrayList<>();
+    for (int i = 0; i < viewers; i++) {
+      final String sessionId = "session" + i;
+      writers.add(executor.submit(() -> {
+        for (int second = 10; second < 60; second++) {
+          addFootprint(sessionId, "mp", "viewer", second, second + 1);
+        }
+        return null;
+      }));
+    }
+    // build the histograms while the footprints are written
+    while (!writers.stream().allMatch(Future::isDone)) {
+      service.getFootprints("mp", null);
+      service.getFootprints("mp", "viewer");
+    }
+    for (Future<Void> writer : writers) {
+      writer.get();
+    }
+    executor.shutdown();
+
+    for (String userId : Arrays.asList(FootprintHistogramEntity.ALL_USERS, "viewer")) {
+      FootprintList list = getFootprintList("mp", userId, 3);
+      verifyFootprintViewsAndPositions(list, 0, 0, 0);
+      verifyFootprintViewsAndPositions(list, 1, 10, viewers);
+      verifyFootprintViewsAndPositions(list, 2, 60, 0);
+    }
+    EntityManager em = service.emf.createEntityManager();
+    try {
+      Assert.assertTrue(em.find(FootprintHistogramEntity.class,
+              new FootprintHistogramEntityId("mp", FootprintHistogramEntity.ALL_USERS)).isComplete());
+    } finally {
+      em.close();
+    }
+  }
+
+  /**
+   * Test that reading the footprints of a media package without any does not store a histogram
+   * @throws Exception
+   */
+  @Test
+  public void testFootprintHistogramWithoutFootprints() throws Exception {
+    FootprintList list = getFootprintList("unknown", null, 1);
+    verifyFootprintViewsAndPositions(list, 0, 0, 0);
+    EntityManager em = service.emf.createEntityManager();
+    try {
+      Assert.assertNull(em.find(FootprintHistogramEntity.class,
+              new FootprintHistogramEntityId("unknown", FootprintHistogramEntity.ALL_USERS)));
+    } finally {
+      em.close();
+    }
+  }
+
+  @Test
+  public void testBatchedViews() throws Exception {
+    addFootprint("session123", "mp1", "me", 10, 20);
+    addFootprint("session123", "mp1", "me", 20, 30);
+    addFootprint("session456", "mp1", "someone else", 0, 10);
+    Map<String, Integer> views = service.getViews(Arrays.asList("mp1", "mp2"));
+    Assert.assertEquals(2, views.size());
+    Assert.assertEquals(2, views.get("mp1").intValue());
+    Assert.assertEquals(0, views.get("mp2").intValue());
+    // counts of media packages without user actions are not stored
+    EntityManager em = service.emf.createEntityManager();
+    try {
+      Assert.assertTrue(em.find(ViewCountEntity.class, "mp1").isComplete());
+      Assert.assertNull(em.find(ViewCountEntity.class, "mp2"));
+    } finally {
+      em.close();
+    }
+
+    // new views are counted while the user actions are written
+    addFootprint("session123", "mp2", "me", 0, 10);
+    createAndVerifyUserAction("PLAY", "session789", "mp1", "me", "127.0.0.1", 0, 0);
+    createAndVerifyUserAction("PAUSE", "session789", "mp1", "me", "127.0.0.1", 0, 0);
+    views = service.getViews(Arrays.asList("mp1", "mp2", "mp3"));
+    Assert.assertEquals(3, views.get("mp1").intValue());
+    Assert.assertEquals(1, views.get("mp2").intValue());
+    Assert.assertEquals(0, views.get("mp3").intValue());
+    for (Map.Entry<String, Integer> view : views.entrySet()) {
+      Assert.assertEquals(service.getViews(view.getKey()), view.getValue().intValue());
+    }
+  }
+
+  private void addFootprint(String sessionId, String mediapackageId, String userId, int inpoint, int outpoint)
+          throws Exception {
+    UserSession userSession = createUserSession(sessionId, userId, "127.0.0.1");
+    UserAction userAction = createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, mediapackageId, inpoint, outpoint,
+            new Date(), userSession);
+    service.addUserFootprint(userAction, userSession);
+  }
+
+  /**
+   * Tests paging through user actions and reports by keyset
+   * @throws Exception
+   */
+  @Test
+  public void testKeysetPaging() throws Exception {
+    createAndVerifyUserAction("PLAY", "session123", "mp1", "me", "127.0.0.1", 10, 20);
+    createAndVerifyUserAction("PLAY", "session123", "mp2", "me", "127.0.0.1", 20, 30);
+    createAndVerifyUserAction("PAUSE", "session456", "mp2", "someone else", "127.0.0.1", 30, 40);
+    createAndVerifyUserAction("PLAY", "session456", "mp3", "someone else", "127.0.0.1", 40, 60);
+
+    List<UserAction> page = service.getUserActionsAfter(null, null, null, null, 3);
+    Assert.assertEquals(3, page.size());
+    Assert.assertTrue(page.get(0).getId() < page.get(1).getId());
+    page = service.getUserActionsAfter(null, null, null, page.get(2).getId(), 3);
+    Assert.assertEquals(1, page.size());
+    Assert.assertEquals("mp3", page.get(0).getMediapackageId());
+    Assert.assertEquals(2, service.getUserActionsAfter(null, "mp2", null, null, 10).size());
+    Assert.assertEquals(3, service.getUserActionsAfter("PLAY", null, null, null, 10).size());
+    String today = new SimpleDateFormat("yyyyMMdd").format(new Date());
+    Assert.assertEquals(4, service.getUserActionsAfter(null, null, today, null, 10).size());
+
+    List<ReportItem> report = service.getReportItemsAfter(null, null, false, null, 2);
+    Assert.assertEquals(2, report.size());
+    Assert.assertEquals("mp1", report.get(0).getEpisodeId());
+    Assert.assertEquals("mp2", report.get(1).getEpisodeId());
+    Assert.assertEquals(2, report.get(1).getViews());
+    Assert.assertEquals(20, report.get(1).getPlayed());
+    report = service.getReportItemsAfter(null, null, false, "mp2", 2);
+    Assert.assertEquals(1, report.size());
+    Assert.assertEquals("mp3", report.get(0).getEpisodeId());
+
+    report = service.getReportItemsAfter(today, null, true, "mp1", 10);
+    Assert.assertEquals(2, report.size());
+    Assert.assertEquals("mp2", report.get(0).getEpisodeId());
+    Assert.assertEquals(today, report.get(0).getDay());
+    Assert.assertEquals(2, report.get(0).getViews());
+    Assert.assertEquals(20, report.get(0).getPlayed());
+    Assert.assertEquals("mp3", report.get(1).getEpisodeId());
+  }
+
   /**
    * Tests basic user action lists and reports
    * @throws Exception
@@ -0,0 +1,204 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.videosegmenter.ffmpeg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The scene change scores of all frames of a video, as computed by the FFmpeg <code>select</code> filter.
+ * <p>
+ * Keeping the scores of every frame allows to compute the scene changes for any changes threshold without decoding the
+ * video again. Times and scores are stored in primitive arrays to keep the memory footprint small even for long
+ * recordings.
+ */
+public class SceneScores {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(SceneScores.class);
+
+  /** Identifies scene score sidecar files */
+  private static final int SIDECAR_MAGIC = 0x4f435353;
+
+  /** Version of the sidecar file format */
+  private static final int SIDECAR_VERSION = 1;
+
+  /** Pattern to extract the presentation time of a frame from the FFmpeg output */
+  private static final Pattern PTS_TIME = Pattern.compile("pts_time\\:(-?\\d+(\\.\\d+)?)");
+
+  /** Pattern to extract the scene score of a frame from the FFmpeg output */
+  private static final Pattern SCENE_SCORE = Pattern.compile("lavfi\\.scene_score=(\\d+(\\.\\d+)?)");
+
+  /** Frame times in milliseconds */
+  private long[] times;
+
+  /** Scene change scores of the frames */
+  private float[] scores;
+
+  /** Number of frames */
+  private int size = 0;
+
+  /**
+   * Creates an empty list of scene scores.
+   */
+  public SceneScores() {
+    this(1024);
+  }
+
+  private SceneScores(int capacity) {
+    times = new long[capacity];
+    scores = new float[capacity];
+  }
+
+  /**
+   * Adds the scene score of the next frame.
+   *
+   * @param time
+   *          the frame time in milliseconds
+   * @param score
+   *          the scene change score
+   */
+  public void add(long time, float score) {
+    if (size == times.length) {
+      times = Arrays.copyOf(times, size * 2);
+      scores = Arrays.copyOf(scores, size * 2);
+    }
+    times[size] = time;
+    scores[size] = score;
+    size++;
+  }
+
+  /**
+   * Returns the number of frames.
+   *
+   * @return the number of frames
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the times of all frames whose scene score exceeds the given threshold. This corresponds to the frames
+   * passing the FFmpeg filter <code>select=gt(scene\,threshold)</code>.
+   *
+   * @param threshold
+   *          the changes threshold
+   * @return the frame times in milliseconds
+   */
+  public long[] getChanges(float threshold) {
+    long[] changes = new long[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (scores[i] > threshold)
+        changes[count++] = times[i];
+    }
+    return Arrays.copyOf(changes, count);
+  }
+
+  /**
+   * Parses a line of FFmpeg output produced by the <code>metadata=print</code> filter. The filter prints the frame
+   * time and the scene score of each frame on separate lines.
+   *
+   * @param line
+   *          the line of output
+   * @param pendingTime
+   *          the time of the frame whose score is expected next, or -1
+   * @return the time of the frame whose score is expected next, or -1
+   */
+  long parse(String line, long pendingTime) {
+    Matcher matcher = PTS_TIME.matcher(line);
+    if (matcher.find())
+      return Math.round(Float.parseFloat(matcher.group(1)) * 1000);
+    matcher = SCENE_SCORE.matcher(line);
+    if (matcher.find() && pendingTime >= 0) {
+      add(pendingTime, Float.parseFloat(matcher.group(1)));
+      return -1;
+    }
+    return pendingTime;
+  }
+
+  /**
+   * Reads the scene scores from a sidecar file, provided it has been written for the given media file in its current
+   * state.
+   *
+   * @param sidecar
+   *          the sidecar file
+   * @param mediaFile
+   *          the media file the scores have been computed for
+   * @return the scene scores or <code>null</code> if there is no valid sidecar file
+   */
+  public static SceneScores read(File sidecar, File mediaFile) {
+    if (!sidecar.isFile())
+      return null;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+      if (in.readInt() != SIDECAR_MAGIC || in.readInt() != SIDECAR_VERSION || in.readLong() != mediaFile.length()
+              || in.readLong() != mediaFile.lastModified())
+        return null;
+      int size = in.readInt();
+      SceneScores sceneScores = new SceneScores(Math.max(size, 1));
+      for (int i = 0; i < size; i++) {
+        sceneScores.add(in.readLong(), in.readFloat());
+      }
+      return sceneScores;
+    } catch (IOException e) {
+      logger.warn("Unable to read scene scores from {}: {}", sidecar, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Writes the scene scores to a sidecar file for the given media file.
+   *
+   * @param sidecar
+   *          the sidecar file
+   * @param mediaFile
+   *          the media file the scores have been computed for
+   * @throws IOException
+   *           if the file cannot be written
+   */
+  public void write(File sidecar, File mediaFile) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sidecar)))) {
+      out.writeInt(SIDECAR_MAGIC);
+      out.writeInt(SIDECAR_VERSION);
+      out.writeLong(mediaFile.length());
+      out.writeLong(mediaFile.lastModified());
+      out.writeInt(size);
+      for (int i = 0; i < size; i++) {
+        out.writeLong(times[i]);
+        out.writeFloat(scores[i]);
+      }
+    }
+  }
+
+}
@@ -46,6 +46,8 @@ import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.analysis.MediaAnalysisBranch;
+import org.opencastproject.util.analysis.MediaAnalysisPipeline;
 import org.opencastproject.videosegmenter.api.VideoSegmenterException;
 import org.opencastproject.videosegmenter.api.VideoSegmenterService;
 import org.opencastproject.workspace.api.Workspace;
@@ -69,8 +71,6 @@ import java.util.Collections;
 import java.util.Dictionary;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Media analysis plugin that takes a video stream and extracts video segments
@@ -79,8 +79,11 @@ import java.util.regex.Pattern;
  * This plugin runs
  *
  * <pre>
- * ffmpeg -nostats -i in.mp4 -filter:v 'select=gt(scene\,0.04),showinfo' -f null - 2&gt;&amp;1 | grep Parsed_showinfo_1
+ * ffmpeg -nostats -i in.mp4 -filter:v 'select=gte(scene\,0),metadata=print:key=lavfi.scene_score' -f null -
  * </pre>
+ *
+ * once to record the scene change score of every frame. The optimization of the changes threshold then selects the
+ * frames whose score exceeds the threshold from these scores without decoding the video again.
  */
 public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
 VideoSegmenterService, ManagedService {
@@ -147,6 +150,34 @@ VideoSegmenterService, ManagedService {
   /** Default value for the option whether segments numbers depend on track duration */
   public static final boolean DEFAULT_DURATION_DEPENDENT = false;
 
+  /** Name of the constant used to retrieve the option whether scene scores are cached next to the track */
+  public static final String OPT_SCENE_SCORE_SIDECAR = "sceneScoreSidecar";
+
+  /** Default value for the option whether scene scores are cached next to the track */
+  public static final boolean DEFAULT_SCENE_SCORE_SIDECAR = false;
+
+  /** File name extension of scene score sidecar files */
+  public static final String SCENE_SCORE_SIDECAR_EXTENSION = ".scenescores";
+
+  /** Name of the constant used to retrieve the option whether scene scores are part of a shared media analysis */
+  public static final String OPT_SHARED_ANALYSIS = "shared.analysis";
+
+  /** Default value for the option whether scene scores are part of a shared media analysis */
+  public static final boolean DEFAULT_SHARED_ANALYSIS = false;
+
+  /** The FFmpeg filter printing the scene change score of every frame */
+  private static final String SCENE_SCORE_FILTER = "select=gte(scene\\,0),metadata=print:key=lavfi.scene_score";
+
+  /** Prefix of the FFmpeg log lines written by the scene score filter */
+  private static final String SCENE_SCORE_LOG_PREFIX = "[Parsed_metadata";
+
+  /** The scene score branch of shared media analyses */
+  private static final MediaAnalysisBranch SCENE_SCORE_ANALYSIS_BRANCH = MediaAnalysisBranch.log(
+          MediaAnalysisBranch.Input.VIDEO, SCENE_SCORE_FILTER, SCENE_SCORE_LOG_PREFIX);
+
+  /** The name of the scene score branch in shared media analyses */
+  private static final String SHARED_ANALYSIS_NAME = "videosegmenter";
+
   /** The load introduced on the system by a segmentation job */
   public static final float DEFAULT_SEGMENTER_JOB_LOAD = 0.3f;
 
@@ -187,6 +218,12 @@ VideoSegmenterService, ManagedService {
   /** The boolean that defines whether segment numbers are interpreted as absolute or relative to track duration */
   protected boolean durationDependent = DEFAULT_DURATION_DEPENDENT;
 
+  /** Whether the scene scores are cached in a sidecar file next to the track */
+  protected boolean sceneScoreSidecar = DEFAULT_SCENE_SCORE_SIDECAR;
+
+  /** Whether the scene scores are detected as part of a media analysis shared with other services */
+  protected boolean sharedAnalysis = DEFAULT_SHARED_ANALYSIS;
+
   /** Reference to the receipt service */
   protected ServiceRegistry serviceRegistry = null;
 
@@ -222,6 +259,10 @@ VideoSegmenterService, ManagedService {
     logger.debug("Configuration {}: {}", FFMPEG_BINARY_CONFIG, FFMPEG_BINARY_DEFAULT);
   }
 
+  public void deactivate() {
+    MediaAnalysisPipeline.unshare(SHARED_ANALYSIS_NAME);
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -311,6 +352,25 @@ VideoSegmenterService, ManagedService {
       }
     }
 
+    // Scene score sidecar
+    if (properties.get(OPT_SCENE_SCORE_SIDECAR) != null) {
+      String value = (String) properties.get(OPT_SCENE_SCORE_SIDECAR);
+      sceneScoreSidecar = Boolean.parseBoolean(value);
+      logger.info("Caching of scene scores next to the track is set to {}", sceneScoreSidecar);
+    }
+
+    // Shared analysis
+    if (properties.get(OPT_SHARED_ANALYSIS) != null) {
+      String value = (String) properties.get(OPT_SHARED_ANALYSIS);
+      sharedAnalysis = Boolean.parseBoolean(value);
+      logger.info("Detection of scene scores as part of a shared analysis is set to {}", sharedAnalysis);
+    }
+    if (sharedAnalysis) {
+      MediaAnalysisPipeline.share(SHARED_ANALYSIS_NAME, SCENE_SCORE_ANALYSIS_BRANCH);
+    } else {
+      MediaAnalysisPipeline.unshare(SHARED_ANALYSIS_NAME);
+    }
+
     segmenterJobLoad = LoadUtil.getConfiguredLoadValue(properties, SEGMENTER_JOB_LOAD_KEY, DEFAULT_SEGMENTER_JOB_LOAD, serviceRegistry);
   }
 
@@ -415,6 +475,8 @@ VideoSegmenterService, ManagedService {
 
       logger.info("Starting video segmentation of {}", mediaUrl);
 
+      // decode the video only once, all optimization cycles work on the recorded scene scores
+      SceneScores sceneScores = getSceneScores(track, mediaFile);
 
       // optimization loop to get a segmentation with a number of segments close
       // to the desired number of segments
@@ -425,8 +487,8 @@ VideoSegmenterService, ManagedService {
             contentTime, contentLocator);
 
 
-        // run the segmentation with FFmpeg
-        segments = runSegmentationFFmpeg(track, videoContent, mediaFile, changesThresholdLocal);
+        // select the scene changes for the current changes threshold
+        segments = createSegments(track, videoContent, sceneScores, changesThresholdLocal);
 
 
         // calculate errors for "normal" and filtered segmentation
@@ -632,40 +694,124 @@ VideoSegmenterService, ManagedService {
    */
   protected LinkedList<Segment> runSegmentationFFmpeg(Track track, Video videoContent, File mediaFile,
           float changesThreshold) throws IOException, VideoSegmenterException {
+    return createSegments(track, videoContent, getSceneScores(track, mediaFile), changesThreshold);
+  }
+
+  /**
+   * Returns the scene scores of the given media file, either from its sidecar file if caching is enabled and the
+   * sidecar is up to date, from a shared media analysis if enabled, or by running FFmpeg.
+   *
+   * @param track the element to analyze
+   * @param mediaFile the file of the track to analyze
+   * @return the scene change scores of all frames
+   * @throws IOException
+   * @throws VideoSegmenterException
+   */
+  protected SceneScores getSceneScores(Track track, File mediaFile) throws IOException, VideoSegmenterException {
+    File sidecar = new File(mediaFile.getParentFile(), mediaFile.getName() + SCENE_SCORE_SIDECAR_EXTENSION);
+    if (sceneScoreSidecar) {
+      SceneScores sceneScores = SceneScores.read(sidecar, mediaFile);
+      if (sceneScores != null) {
+        logger.info("Using scene scores of {} frames cached in {}", sceneScores.size(), sidecar);
+        return sceneScores;
+      }
+    }
 
+    SceneScores sceneScores = null;
+    if (sharedAnalysis) {
+      try {
+        List<String> log = MediaAnalysisPipeline.analyze(binary, mediaFile, track.hasAudio(), true,
+                SCENE_SCORE_ANALYSIS_BRANCH).getLog();
+        sceneScores = new SceneScores();
+        long pendingTime = -1;
+        for (String line : log) {
+          pendingTime = sceneScores.parse(line, pendingTime);
+        }
+        logger.info("Using scene scores of {} frames of {} from a shared analysis", sceneScores.size(), mediaFile);
+      } catch (IOException e) {
+        logger.warn("Shared analysis of {} failed, detecting scene scores on its own: {}", mediaFile, e.getMessage());
+      } catch (NumberFormatException e) {
+        logger.error("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
+        throw new VideoSegmenterException(e);
+      }
+    }
+    if (sceneScores == null) {
+      sceneScores = extractSceneScores(mediaFile);
+    }
+
+    if (sceneScoreSidecar) {
+      try {
+        sceneScores.write(sidecar, mediaFile);
+      } catch (IOException e) {
+        logger.warn("Unable to cache scene scores in {}: {}", sidecar, e.getMessage());
+      }
+    }
+    return sceneScores;
+  }
+
+  /**
+   * Runs FFmpeg on the given media file to record the scene change score of every frame.
+   *
+   * @param mediaFile the file of the track to analyze
+   * @return the scene change scores of all frames
+   * @throws IOException
+   * @throws VideoSegmenterException
+   */
+  protected SceneScores extractSceneScores(File mediaFile) throws IOException, VideoSegmenterException {
     String[] command = new String[] { binary, "-nostats", "-i", mediaFile.getAbsolutePath(),
-      "-filter:v", "select=gt(scene\\," + changesThreshold + "),showinfo", "-f", "null", "-"};
+      "-filter:v", SCENE_SCORE_FILTER, "-f", "null", "-"};
+
+    logger.info("Detecting scene scores using command: {}", command);
 
-    logger.info("Detecting video segments using command: {}", command);
+    // [Parsed_metadata_1 @ 0x157fb40] frame:12   pts:12      pts_time:0.48
+    // [Parsed_metadata_1 @ 0x157fb40] lavfi.scene_score=0.004123
 
+    SceneScores sceneScores = new SceneScores();
     ProcessBuilder pbuilder = new ProcessBuilder(command);
-    List<String> segmentsStrings = new LinkedList<String>();
     Process process = pbuilder.start();
     BufferedReader reader = new BufferedReader(
             new InputStreamReader(process.getErrorStream()));
     try {
       LineReader lr = new LineReader(reader);
+      long pendingTime = -1;
       String line = lr.readLine();
       while (null != line) {
-        if (line.startsWith("[Parsed_showinfo")) {
-          segmentsStrings.add(line);
+        if (line.startsWith(SCENE_SCORE_LOG_PREFIX)) {
+          pendingTime = sceneScores.parse(line, pendingTime);
         }
         line = lr.readLine();
       }
     } catch (IOException e) {
       logger.error("Error executing ffmpeg: {}", e.getMessage());
+    } catch (NumberFormatException e) {
+      logger.error("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
+      throw new VideoSegmenterException(e);
     } finally {
       reader.close();
     }
 
-    // [Parsed_showinfo_1 @ 0x157fb40] n:0 pts:12 pts_time:12 pos:227495
-    // fmt:rgb24 sar:0/1 s:320x240 i:P iskey:1 type:I checksum:8DF39EA9
-    // plane_checksum:[8DF39EA9]
+    logger.info("Recorded scene scores of {} frames of {}", sceneScores.size(), mediaFile);
+    return sceneScores;
+  }
+
+  /**
+   * Creates the segments for the given changes threshold from the recorded scene scores, adds them to the given
+   * videoContent of a catalog and returns a list with the resulting segments
+   *
+   * @param track the element to analyze
+   * @param videoContent the videoContent of the Mpeg7Catalog that the segments should be added to
+   * @param sceneScores the scene change scores of all frames of the track
+   * @param changesThreshold the changesThreshold a scene score needs to exceed to start a new segment
+   * @return a list of the resulting segments
+   */
+  protected LinkedList<Segment> createSegments(Track track, Video videoContent, SceneScores sceneScores,
+          float changesThreshold) {
+    long[] changes = sceneScores.getChanges(changesThreshold);
 
     int segmentcount = 1;
     LinkedList<Segment> segments = new LinkedList<Segment>();
 
-    if (segmentsStrings.size() == 0) {
+    if (changes.length == 0) {
       Segment s = videoContent.getTemporalDecomposition()
           .createSegment("segment-" + segmentcount);
       s.setMediaTime(new MediaRelTimeImpl(0, track.getDuration()));
@@ -673,24 +819,8 @@ VideoSegmenterService, ManagedService {
     } else {
       long starttime = 0;
       long endtime = 0;
-      Pattern pattern = Pattern.compile("pts_time\\:\\d+(\\.\\d+)?");
-      for (String seginfo : segmentsStrings) {
-        Matcher matcher = pattern.matcher(seginfo);
-        String time = "";
-        while (matcher.find()) {
-          time = matcher.group().substring(9);
-        }
-        if ("".equals(time)) {
-          // continue if the showinfo does not contain any time information. This may happen since the FFmpeg showinfo
-          // filter is used for multiple purposes.
-          continue;
-        }
-        try {
-          endtime = Math.round(Float.parseFloat(time) * 1000);
-        } catch (NumberFormatException e) {
-          logger.error("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
-          throw new VideoSegmenterException(e);
-        }
+      for (long change : changes) {
+        endtime = change;
         long segmentLength = endtime - starttime;
         if (1000 * stabilityThresholdPrefilter < segmentLength) {
           Segment segment = videoContent.getTemporalDecomposition()
@@ -712,8 +842,8 @@ VideoSegmenterService, ManagedService {
       segments.add(s);
     }
 
-   logger.info("Segmentation of {} yields {} segments",
-           mediaFile.toURI().toURL(), segments.size());
+    logger.info("Segmentation of {} with changes threshold {} yields {} segments", track.getURI(), changesThreshold,
+            segments.size());
 
     return segments;
   }
@@ -24,6 +24,7 @@ package org.opencastproject.videosegmenter.ffmpeg;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.opencastproject.job.api.Job;
@@ -420,4 +421,42 @@ public class VideoSegmenterTest {
 
   }
 
+  @Test
+  public void testSceneScoresSelectChanges() throws Exception {
+    SceneScores sceneScores = new SceneScores();
+    long pendingTime = -1;
+    String[] output = new String[] {
+            "[Parsed_metadata_1 @ 0x157fb40] frame:0    pts:0       pts_time:0",
+            "[Parsed_metadata_1 @ 0x157fb40] lavfi.scene_score=0.000000",
+            "[Parsed_metadata_1 @ 0x157fb40] frame:1    pts:1       pts_time:5.5",
+            "[Parsed_metadata_1 @ 0x157fb40] lavfi.scene_score=0.300000",
+            "[Parsed_metadata_1 @ 0x157fb40] frame:2    pts:2       pts_time:12",
+            "[Parsed_metadata_1 @ 0x157fb40] lavfi.scene_score=0.050000" };
+    for (String line : output) {
+      pendingTime = sceneScores.parse(line, pendingTime);
+    }
+    assertEquals(3, sceneScores.size());
+    assertEquals(2, sceneScores.getChanges(0.025f).length);
+    assertEquals(5500L, sceneScores.getChanges(0.1f)[0]);
+    assertEquals(0, sceneScores.getChanges(0.5f).length);
+
+    // segments are created from the scores without running FFmpeg again
+    Video videoContent = mpeg7Service.newInstance().addVideoContent("videosegment",
+            new MediaRelTimeImpl(0, track.getDuration()), new MediaLocatorImpl(track.getURI()));
+    LinkedList<Segment> segments = vsegmenter.createSegments(track, videoContent, sceneScores, 0.1f);
+    assertEquals(2, segments.size());
+    assertEquals(5500L, segments.getLast().getMediaTime().getMediaTimePoint().getTimeInMilliseconds());
+
+    // the sidecar is only valid for the media file it has been written for
+    File media = testFolder.newFile("media.mp4");
+    File sidecar = testFolder.newFile("media.mp4" + VideoSegmenterServiceImpl.SCENE_SCORE_SIDECAR_EXTENSION);
+    sceneScores.write(sidecar, media);
+    SceneScores cached = SceneScores.read(sidecar, media);
+    assertNotNull(cached);
+    assertEquals(3, cached.size());
+    assertEquals(5500L, cached.getChanges(0.1f)[0]);
+    FileUtils.writeStringToFile(media, "changed", "UTF-8");
+    assertNull(SceneScores.read(sidecar, media));
+  }
+
 }
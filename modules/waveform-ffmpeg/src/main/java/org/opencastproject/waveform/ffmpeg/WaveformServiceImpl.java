@@ -38,12 +38,15 @@ import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.IoSupport;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.analysis.MediaAnalysisBranch;
+import org.opencastproject.util.analysis.MediaAnalysisPipeline;
 import org.opencastproject.waveform.api.WaveformService;
 import org.opencastproject.waveform.api.WaveformServiceException;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
@@ -119,6 +122,9 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
   /** The key to look for in the service configuration file to override the DEFAULT_WAVEFORM_FILTER_POST */
   public static final String WAVEFORM_FILTER_POST_CONFIG_KEY = "waveform.filter.post";
 
+  /** The key to look for in the service configuration file to enable shared media analyses */
+  public static final String SHARED_ANALYSIS_CONFIG_KEY = "shared.analysis";
+
   /** Resulting collection in the working file repository */
   public static final String COLLECTION_ID = "waveform";
 
@@ -146,6 +152,9 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
   /** Filter to be appended to the showwavespic filter */
   private String waveformFilterPost = DEFAULT_WAVEFORM_FILTER_POST;
 
+  /** Whether to create waveform images as part of a media analysis shared with other services */
+  private boolean sharedAnalysis = false;
+
   /** Reference to the service registry */
   private ServiceRegistry serviceRegistry = null;
 
@@ -220,6 +229,8 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
     } else {
       waveformFilterPost = null;
     }
+
+    sharedAnalysis = BooleanUtils.toBoolean((String) properties.get(SHARED_ANALYSIS_CONFIG_KEY));
   }
 
   /**
@@ -307,12 +318,58 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
 
     int width = getWaveformImageWidth(track, pixelsPerMinute, minWidth, maxWidth);
 
+    String filter = createWaveformFilter(track, width, height, color);
+    if (!sharedAnalysis || !runSharedAnalysis(track, mediaFile, filter, waveformFilePath)) {
+      runWaveformExtraction(track, mediaFile, filter, waveformFilePath);
+    }
+
+    // put waveform image into workspace
+    FileInputStream waveformFileInputStream = null;
+    URI waveformFileUri;
+    try {
+      waveformFileInputStream = new FileInputStream(waveformFilePath);
+      waveformFileUri = workspace.putInCollection(COLLECTION_ID,
+              FilenameUtils.getName(waveformFilePath), waveformFileInputStream);
+      logger.info("Copied the created waveform to the workspace {}", waveformFileUri);
+    } catch (FileNotFoundException ex) {
+      throw new WaveformServiceException(String.format("Waveform image file '%s' not found", waveformFilePath), ex);
+    } catch (IOException ex) {
+      throw new WaveformServiceException(String.format(
+              "Can't write waveform image file '%s' to workspace", waveformFilePath), ex);
+    } catch (IllegalArgumentException ex) {
+      throw new WaveformServiceException(ex);
+    } finally {
+      IoSupport.closeQuietly(waveformFileInputStream);
+      logger.info("Deleted local waveform image file at {}", waveformFilePath);
+      FileUtils.deleteQuietly(new File(waveformFilePath));
+    }
+
+    // create media package element
+    MediaPackageElementBuilder mpElementBuilder = MediaPackageElementBuilderFactory.newInstance().newElementBuilder();
+    // it is up to the workflow operation handler to set the attachment flavor
+    Attachment waveformMpe = (Attachment) mpElementBuilder.elementFromURI(
+            waveformFileUri, Type.Attachment, track.getFlavor());
+    waveformMpe.setIdentifier(IdBuilderFactory.newInstance().newIdBuilder().createNew().compact());
+    return waveformMpe;
+  }
+
+  /**
+   * Run the waveform extraction ffmpeg command.
+   *
+   * @param track source audio/video track with at least one audio channel
+   * @param mediaFile the source media file
+   * @param filter the waveform filter
+   * @param waveformFilePath the path of the waveform image to create
+   * @throws WaveformServiceException if processing fails
+   */
+  private void runWaveformExtraction(Track track, File mediaFile, String filter, String waveformFilePath)
+          throws WaveformServiceException {
     // create ffmpeg command
     String[] command = new String[] {
       binary,
       "-nostats", "-nostdin", "-hide_banner",
       "-i", mediaFile.getAbsolutePath(),
-      "-lavfi", createWaveformFilter(track, width, height, color),
+      "-lavfi", filter,
       "-frames:v", "1",
       "-an", "-vn", "-sn",
       waveformFilePath
@@ -356,35 +413,31 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
     if (exitCode != 0)
       throw new WaveformServiceException(String.format("The encoder process exited abnormally with exit code %s "
               + "using command\n%s", exitCode, String.join(" ", command)));
+  }
 
-    // put waveform image into workspace
-    FileInputStream waveformFileInputStream = null;
-    URI waveformFileUri;
+  /**
+   * Create the waveform image at the given path as part of a media analysis shared with other services.
+   *
+   * @param track source audio/video track with at least one audio channel
+   * @param mediaFile the source media file
+   * @param filter the waveform filter
+   * @param waveformFilePath the path of the waveform image to create
+   * @return whether the waveform image has been created
+   */
+  private boolean runSharedAnalysis(Track track, File mediaFile, String filter, String waveformFilePath) {
+    MediaAnalysisBranch branch = MediaAnalysisBranch.image(MediaAnalysisBranch.Input.AUDIO, filter, ".png",
+            "-frames:v", "1");
     try {
-      waveformFileInputStream = new FileInputStream(waveformFilePath);
-      waveformFileUri = workspace.putInCollection(COLLECTION_ID,
-              FilenameUtils.getName(waveformFilePath), waveformFileInputStream);
-      logger.info("Copied the created waveform to the workspace {}", waveformFileUri);
-    } catch (FileNotFoundException ex) {
-      throw new WaveformServiceException(String.format("Waveform image file '%s' not found", waveformFilePath), ex);
-    } catch (IOException ex) {
-      throw new WaveformServiceException(String.format(
-              "Can't write waveform image file '%s' to workspace", waveformFilePath), ex);
-    } catch (IllegalArgumentException ex) {
-      throw new WaveformServiceException(ex);
-    } finally {
-      IoSupport.closeQuietly(waveformFileInputStream);
-      logger.info("Deleted local waveform image file at {}", waveformFilePath);
-      FileUtils.deleteQuietly(new File(waveformFilePath));
+      MediaAnalysisPipeline.analyze(binary, mediaFile, track.hasAudio(), track.hasVideo(), branch,
+              new File(waveformFilePath));
+      logger.info("Created waveform image file for track '{}' at {} using a shared analysis", track.getIdentifier(),
+              waveformFilePath);
+      return true;
+    } catch (IOException e) {
+      logger.warn("Shared analysis of track '{}' failed, creating waveform image on its own: {}",
+              track.getIdentifier(), e.getMessage());
+      return false;
     }
-
-    // create media package element
-    MediaPackageElementBuilder mpElementBuilder = MediaPackageElementBuilderFactory.newInstance().newElementBuilder();
-    // it is up to the workflow operation handler to set the attachment flavor
-    Attachment waveformMpe = (Attachment) mpElementBuilder.elementFromURI(
-            waveformFileUri, Type.Attachment, track.getFlavor());
-    waveformMpe.setIdentifier(IdBuilderFactory.newInstance().newIdBuilder().createNew().compact());
-    return waveformMpe;
   }
 
   /**
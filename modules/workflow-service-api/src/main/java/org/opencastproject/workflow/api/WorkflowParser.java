@@ -22,6 +22,7 @@
 package org.opencastproject.workflow.api;
 
 import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.jaxb.JaxbPool;
 
 import org.apache.commons.io.IOUtils;
 
@@ -43,7 +44,10 @@ import javax.xml.transform.stream.StreamSource;
  */
 public final class WorkflowParser {
 
-  private static final JAXBContext jaxbContext;
+  static final JAXBContext jaxbContext;
+
+  /** Pooled marshallers and unmarshallers of {@link #jaxbContext} */
+  private static final JaxbPool jaxbPool;
 
   static {
     StringBuilder sb = new StringBuilder();
@@ -51,6 +55,7 @@ public final class WorkflowParser {
     sb.append(":org.opencastproject.workflow.api");
     try {
       jaxbContext = JAXBContext.newInstance(sb.toString(), WorkflowParser.class.getClassLoader());
+      jaxbPool = JaxbPool.forContext(jaxbContext);
     } catch (JAXBException e) {
       throw new IllegalStateException(e);
     }
@@ -67,8 +72,9 @@ public final class WorkflowParser {
    * @return the list of workflow definitions
    */
   public static List<WorkflowDefinition> parseWorkflowDefinitions(InputStream in) throws WorkflowParsingException {
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+      unmarshaller = jaxbPool.acquireUnmarshaller();
       WorkflowDefinitionImpl[] impls = unmarshaller.unmarshal(new StreamSource(in), WorkflowDefinitionImpl[].class)
               .getValue();
       List<WorkflowDefinition> list = new ArrayList<WorkflowDefinition>();
@@ -79,6 +85,7 @@ public final class WorkflowParser {
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
     } finally {
+      jaxbPool.release(unmarshaller);
       IoSupport.closeQuietly(in);
     }
   }
@@ -93,12 +100,14 @@ public final class WorkflowParser {
    *           if creating the workflow definition fails
    */
   public static WorkflowDefinition parseWorkflowDefinition(InputStream in) throws WorkflowParsingException {
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+      unmarshaller = jaxbPool.acquireUnmarshaller();
       return unmarshaller.unmarshal(new StreamSource(in), WorkflowDefinitionImpl.class).getValue();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
     } finally {
+      jaxbPool.release(unmarshaller);
       IoSupport.closeQuietly(in);
     }
   }
@@ -130,8 +139,9 @@ public final class WorkflowParser {
    *           if creating the workflow instance fails
    */
   public static WorkflowInstanceImpl parseWorkflowInstance(InputStream in) throws WorkflowParsingException {
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+      unmarshaller = jaxbPool.acquireUnmarshaller();
       WorkflowInstanceImpl workflow = unmarshaller.unmarshal(new StreamSource(in), WorkflowInstanceImpl.class)
               .getValue();
       workflow.init();
@@ -139,6 +149,7 @@ public final class WorkflowParser {
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
     } finally {
+      jaxbPool.release(unmarshaller);
       IoSupport.closeQuietly(in);
     }
   }
@@ -170,12 +181,14 @@ public final class WorkflowParser {
    *           if creating the workflow statistics fails
    */
   public static WorkflowStatistics parseWorkflowStatistics(InputStream in) throws WorkflowParsingException {
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+      unmarshaller = jaxbPool.acquireUnmarshaller();
       return unmarshaller.unmarshal(new StreamSource(in), WorkflowStatistics.class).getValue();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
     } finally {
+      jaxbPool.release(unmarshaller);
       IoSupport.closeQuietly(in);
     }
   }
@@ -207,12 +220,14 @@ public final class WorkflowParser {
    *           if creating the workflow instance set fails
    */
   public static WorkflowSet parseWorkflowSet(InputStream in) throws WorkflowParsingException {
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+      unmarshaller = jaxbPool.acquireUnmarshaller();
       return unmarshaller.unmarshal(new StreamSource(in), WorkflowSetImpl.class).getValue();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
     } finally {
+      jaxbPool.release(unmarshaller);
       IoSupport.closeQuietly(in);
     }
   }
@@ -235,58 +250,73 @@ public final class WorkflowParser {
   }
 
   public static String toXml(WorkflowInstance workflowInstance) throws WorkflowParsingException {
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
+      marshaller = jaxbPool.acquireMarshaller();
       Writer writer = new StringWriter();
       marshaller.marshal(workflowInstance, writer);
       return writer.toString();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
+    } finally {
+      jaxbPool.release(marshaller);
     }
 
   }
 
   public static String toXml(WorkflowDefinition workflowDefinition) throws WorkflowParsingException {
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
+      marshaller = jaxbPool.acquireMarshaller();
       Writer writer = new StringWriter();
       marshaller.marshal(workflowDefinition, writer);
       return writer.toString();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
+    } finally {
+      jaxbPool.release(marshaller);
     }
   }
 
   public static String toXml(List<WorkflowDefinition> list) throws WorkflowParsingException {
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
+      marshaller = jaxbPool.acquireMarshaller();
       Writer writer = new StringWriter();
       marshaller.marshal(new WorkflowDefinitionSet(list), writer);
       return writer.toString();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
+    } finally {
+      jaxbPool.release(marshaller);
     }
   }
 
   public static String toXml(WorkflowSet set) throws WorkflowParsingException {
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
+      marshaller = jaxbPool.acquireMarshaller();
       Writer writer = new StringWriter();
       marshaller.marshal(set, writer);
       return writer.toString();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
+    } finally {
+      jaxbPool.release(marshaller);
     }
   }
 
   public static String toXml(WorkflowStatistics stats) throws WorkflowParsingException {
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
+      marshaller = jaxbPool.acquireMarshaller();
       Writer writer = new StringWriter();
       marshaller.marshal(stats, writer);
       return writer.toString();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
+    } finally {
+      jaxbPool.release(marshaller);
     }
   }
 
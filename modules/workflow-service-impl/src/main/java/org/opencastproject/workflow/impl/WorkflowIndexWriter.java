@@ -0,0 +1,308 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workflow.impl;
+
+import org.opencastproject.workflow.impl.jmx.WorkflowIndexMXBean;
+
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes workflow documents to solr using group commits.
+ * <p>
+ * Updates are queued and written by a single background thread. Updates to the same workflow that are queued before
+ * the writer picks them up are coalesced so that only the latest version is written. The writer waits for at most the
+ * configured commit window after the oldest queued update, then adds and removes all queued documents in one batch and
+ * commits once. Each update returns a handle that completes as soon as the update is visible to searches.
+ * <p>
+ * All writes are performed while holding the lock on the solr server so that other writers, like the index rebuild,
+ * can synchronize with the queue.
+ */
+class WorkflowIndexWriter implements WorkflowIndexMXBean {
+
+  /** The logger */
+  private static final Logger logger = LoggerFactory.getLogger(WorkflowIndexWriter.class);
+
+  /** The solr server to write to */
+  private final SolrServer solrServer;
+
+  /** Time in milliseconds to wait for further updates before writing a batch */
+  private final long commitWindow;
+
+  /** Number of queued updates that causes a batch to be written immediately */
+  private final int maxBatchSize;
+
+  /** The thread writing the batches */
+  private final Thread writer;
+
+  /** Guards the queue */
+  private final Object lock = new Object();
+
+  /** Queued updates by workflow id, in the order they were first queued */
+  private Map<Long, Update> queue = new LinkedHashMap<>();
+
+  /** Whether the writer has been asked to stop */
+  private boolean shutdown = false;
+
+  private final AtomicLong writtenUpdates = new AtomicLong();
+  private final AtomicLong coalescedUpdates = new AtomicLong();
+  private final AtomicLong commits = new AtomicLong();
+  private final AtomicLong totalLatency = new AtomicLong();
+  private final AtomicLong maxLatency = new AtomicLong();
+
+  /** A queued update: either a document to add or, if the document is <code>null</code>, a removal */
+  private static final class Update {
+    private final long queued = System.nanoTime();
+    private final CompletableFuture<Void> visible = new CompletableFuture<>();
+    private SolrInputDocument document;
+
+    private Update(SolrInputDocument document) {
+      this.document = document;
+    }
+  }
+
+  /**
+   * Creates and starts the writer.
+   *
+   * @param solrServer
+   *          the solr server
+   * @param commitWindow
+   *          time in milliseconds to wait for further updates before writing a batch
+   * @param maxBatchSize
+   *          number of queued updates that causes a batch to be written immediately
+   */
+  WorkflowIndexWriter(SolrServer solrServer, long commitWindow, int maxBatchSize) {
+    this.solrServer = solrServer;
+    this.commitWindow = commitWindow;
+    this.maxBatchSize = maxBatchSize;
+    this.writer = new Thread(this::run, "Workflow index writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Queues a document to be added to the index. If an update of the same workflow is already queued, it is replaced
+   * and both callers share the same handle.
+   *
+   * @param id
+   *          the workflow identifier
+   * @param document
+   *          the solr document
+   * @return a handle completing once the document is visible in the index
+   */
+  CompletableFuture<Void> add(long id, SolrInputDocument document) {
+    return queue(id, document);
+  }
+
+  /**
+   * Queues the removal of a workflow from the index, replacing any queued update of the same workflow.
+   *
+   * @param id
+   *          the workflow identifier
+   * @return a handle completing once the workflow is no longer visible in the index
+   */
+  CompletableFuture<Void> remove(long id) {
+    return queue(id, null);
+  }
+
+  private CompletableFuture<Void> queue(long id, SolrInputDocument document) {
+    synchronized (lock) {
+      if (shutdown)
+        throw new IllegalStateException("The workflow index writer has been shut down");
+      Update update = queue.get(id);
+      if (update != null) {
+        update.document = document;
+        coalescedUpdates.incrementAndGet();
+      } else {
+        update = new Update(document);
+        queue.put(id, update);
+      }
+      if (queue.size() == 1 || queue.size() >= maxBatchSize)
+        lock.notifyAll();
+      return update.visible;
+    }
+  }
+
+  /**
+   * Discards all queued updates and removes all documents from the index.
+   *
+   * @throws Exception
+   *           if the index cannot be cleared
+   */
+  void clear() throws Exception {
+    synchronized (solrServer) {
+      for (Update update : drain().values()) {
+        update.visible.complete(null);
+      }
+      solrServer.deleteByQuery("*:*");
+      solrServer.commit();
+    }
+  }
+
+  /**
+   * Stops the writer after the queued updates have been written.
+   *
+   * @param timeout
+   *          time in milliseconds to wait for the queue to be written
+   */
+  void shutdown(long timeout) {
+    synchronized (lock) {
+      shutdown = true;
+      lock.notifyAll();
+    }
+    try {
+      writer.join(timeout);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (writer.isAlive()) {
+      logger.warn("Workflow index writer did not finish writing {} queued updates in time", getQueueDepth());
+      writer.interrupt();
+    }
+  }
+
+  private Map<Long, Update> drain() {
+    synchronized (lock) {
+      Map<Long, Update> batch = queue;
+      queue = new LinkedHashMap<>();
+      return batch;
+    }
+  }
+
+  private void run() {
+    while (true) {
+      try {
+        synchronized (lock) {
+          while (queue.isEmpty() && !shutdown) {
+            lock.wait();
+          }
+          if (queue.isEmpty())
+            return;
+          // Wait for further updates to arrive unless the batch is full or the oldest update has waited long enough
+          long deadline = queue.values().iterator().next().queued + TimeUnit.MILLISECONDS.toNanos(commitWindow);
+          long remaining = deadline - System.nanoTime();
+          while (!shutdown && queue.size() < maxBatchSize && remaining > 0) {
+            TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            remaining = deadline - System.nanoTime();
+          }
+        }
+        write();
+      } catch (InterruptedException e) {
+        logger.debug("Workflow index writer has been interrupted");
+        for (Update update : drain().values()) {
+          update.visible.completeExceptionally(e);
+        }
+        return;
+      }
+    }
+  }
+
+  private void write() {
+    Map<Long, Update> batch;
+    List<SolrInputDocument> documents = new ArrayList<>();
+    List<String> removals = new ArrayList<>();
+    Exception error = null;
+    synchronized (solrServer) {
+      batch = drain();
+      if (batch.isEmpty())
+        return;
+      for (Map.Entry<Long, Update> entry : batch.entrySet()) {
+        if (entry.getValue().document != null)
+          documents.add(entry.getValue().document);
+        else
+          removals.add(entry.getKey().toString());
+      }
+      try {
+        if (!documents.isEmpty())
+          solrServer.add(documents);
+        if (!removals.isEmpty())
+          solrServer.deleteById(removals);
+        solrServer.commit();
+        commits.incrementAndGet();
+      } catch (Exception e) {
+        error = e;
+      }
+    }
+
+    if (error != null) {
+      logger.warn("Unable to write {} workflow updates to the index", batch.size(), error);
+      for (Update update : batch.values()) {
+        update.visible.completeExceptionally(error);
+      }
+      return;
+    }
+
+    long now = System.nanoTime();
+    for (Update update : batch.values()) {
+      long latency = TimeUnit.NANOSECONDS.toMillis(now - update.queued);
+      totalLatency.addAndGet(latency);
+      maxLatency.accumulateAndGet(latency, Math::max);
+      update.visible.complete(null);
+    }
+    writtenUpdates.addAndGet(batch.size());
+    logger.debug("Wrote {} workflow documents and {} removals to the index", documents.size(), removals.size());
+  }
+
+  @Override
+  public int getQueueDepth() {
+    synchronized (lock) {
+      return queue.size();
+    }
+  }
+
+  @Override
+  public long getWrittenUpdates() {
+    return writtenUpdates.get();
+  }
+
+  @Override
+  public long getCoalescedUpdates() {
+    return coalescedUpdates.get();
+  }
+
+  @Override
+  public long getCommits() {
+    return commits.get();
+  }
+
+  @Override
+  public long getAverageLatency() {
+    long written = writtenUpdates.get();
+    return written == 0 ? 0 : totalLatency.get() / written;
+  }
+
+  @Override
+  public long getMaxLatency() {
+    return maxLatency.get();
+  }
+
+}
@@ -179,6 +179,9 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** Constant value indicating a <code>null</code> parent id */
   private static final String NULL_PARENT_ID = "-";
 
+  /** Number of workflows loaded at once when repopulating an index */
+  private static final int REPOPULATE_PAGE_SIZE = 100;
+
   /** Workflow statistics JMX type */
   private static final String JMX_WORKFLOWS_STATISTICS_TYPE = "WorkflowsStatistics";
 
@@ -2342,49 +2345,59 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
 
   @Override
   public void repopulate(final String indexName) throws ServiceRegistryException {
-    List<String> workflows =  serviceRegistry.getJobPayloads(Operation.START_WORKFLOW.toString());
+    final String operation = Operation.START_WORKFLOW.toString();
+    final int total = serviceRegistry.getJobCount(operation);
 
     final String destinationId = WorkflowItem.WORKFLOW_QUEUE_PREFIX + indexName.substring(0, 1).toUpperCase()
             + indexName.substring(1);
-    if (workflows.size() > 0) {
-      final int total = workflows.size();
+    if (total > 0) {
       logger.info("Populating index '{}' with {} workflows", indexName, total);
       final int responseInterval = (total < 100) ? 1 : (total / 100);
       int current = 0;
-      for (final String workflow : workflows) {
-        current += 1;
-        if (StringUtils.isEmpty(workflow)) {
-          logger.warn("Skipping restoring of workflow no {}: Payload is empty", current);
-          continue;
-        }
-        WorkflowInstance instance;
-        try {
-          instance = WorkflowParser.parseWorkflowInstance(workflow);
-        } catch (WorkflowParsingException e) {
-          logger.warn("Skipping restoring of workflow. Error parsing: {}", workflow, e);
-          continue;
-        }
-        Organization organization = null;
-        try {
-          organization = organizationDirectoryService.getOrganization(instance.getOrganizationId());
-        } catch (NotFoundException e) {
-          logger.error("Found workflow with non-existing organization {}", instance.getOrganizationId());
-          continue;
-        }
+      Job last = null;
+      while (current < total) {
+        // Load the workflows page by page to not keep all of them in memory at once
+        List<Job> jobs = serviceRegistry.getJobPayloads(operation, REPOPULATE_PAGE_SIZE, last);
+        if (jobs.isEmpty())
+          break;
+        last = jobs.get(jobs.size() - 1);
+        for (Job job : jobs) {
+          final String workflow = job.getPayload();
+          current += 1;
+          if (StringUtils.isEmpty(workflow)) {
+            logger.warn("Skipping restoring of workflow no {}: Payload is empty", current);
+            continue;
+          }
+          WorkflowInstance instance;
+          try {
+            instance = WorkflowParser.parseWorkflowInstance(workflow);
+          } catch (WorkflowParsingException e) {
+            logger.warn("Skipping restoring of workflow. Error parsing: {}", workflow, e);
+            continue;
+          }
+          Organization organization = null;
+          try {
+            organization = organizationDirectoryService.getOrganization(instance.getOrganizationId());
+          } catch (NotFoundException e) {
+            logger.error("Found workflow with non-existing organization {}", instance.getOrganizationId());
+            continue;
+          }
 
-        // get metadata for index update
-        final String dcXml = getEpisodeDublinCoreXml(instance.getMediaPackage());
-        final AccessControlList accessControlList = authorizationService.getActiveAcl(instance.getMediaPackage()).getA();
-
-        SecurityUtil.runAs(securityService, organization,
-                SecurityUtil.createSystemUser(componentContext, organization), () -> {
-                  // Send message to update index item
-                  messageSender.sendObjectMessage(destinationId, MessageSender.DestinationType.Queue,
-                          WorkflowItem.updateInstance(instance, dcXml, accessControlList));
-                });
-        if ((current % responseInterval == 0) || (current == total)) {
-          logger.info("Updating {} workflow index {}/{}: {} percent complete.", indexName, current, total,
-                  current * 100 / total);
+          // get metadata for index update
+          final String dcXml = getEpisodeDublinCoreXml(instance.getMediaPackage());
+          final AccessControlList accessControlList = authorizationService.getActiveAcl(instance.getMediaPackage())
+                  .getA();
+
+          SecurityUtil.runAs(securityService, organization,
+                  SecurityUtil.createSystemUser(componentContext, organization), () -> {
+                    // Send message to update index item
+                    messageSender.sendObjectMessage(destinationId, MessageSender.DestinationType.Queue,
+                            WorkflowItem.updateInstance(instance, dcXml, accessControlList));
+                  });
+          if ((current % responseInterval == 0) || (current == total)) {
+            logger.info("Updating {} workflow index {}/{}: {} percent complete.", indexName, current, total,
+                    current * 100 / total);
+          }
         }
       }
     }
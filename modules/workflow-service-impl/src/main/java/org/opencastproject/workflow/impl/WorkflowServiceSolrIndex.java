@@ -45,12 +45,12 @@ import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.solr.SolrServerFactory;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.SolrUtils;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workflow.api.WorkflowDatabaseException;
 import org.opencastproject.workflow.api.WorkflowInstance;
 import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
 import org.opencastproject.workflow.api.WorkflowOperationInstance;
 import org.opencastproject.workflow.api.WorkflowParser;
-import org.opencastproject.workflow.api.WorkflowParsingException;
 import org.opencastproject.workflow.api.WorkflowQuery;
 import org.opencastproject.workflow.api.WorkflowQuery.QueryTerm;
 import org.opencastproject.workflow.api.WorkflowQuery.Sort;
@@ -76,7 +76,6 @@ import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
-import org.osgi.framework.ServiceException;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -88,13 +87,22 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectInstance;
 
 /**
  * Provides data access to the workflow service through file storage in the workspace, indexed via solr.
@@ -140,6 +148,12 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   /** The key in solr documents representing the workflow's current state */
   private static final String STATE_KEY = "state";
 
+  /** The key in solr documents combining the workflow definition, current operation and state for statistics */
+  protected static final String STATISTICS_KEY = "statistics";
+
+  /** Separator between the parts of the {@link #STATISTICS_KEY} values */
+  private static final String STATISTICS_SEPARATOR = "|";
+
   /** The key in solr documents representing the workflow as xml */
   private static final String XML_KEY = "xml";
 
@@ -200,9 +214,51 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   /** Whether to index workflows synchronously as they are stored */
   protected boolean synchronousIndexing = true;
 
-  /** The thread pool to use in asynchronous indexing */
+  /** The thread pool creating the documents in asynchronous indexing */
   protected ExecutorService indexingExecutor;
 
+  /** Default time in milliseconds the index writer waits for further updates before committing synchronously */
+  private static final long DEFAULT_SYNCHRONOUS_COMMIT_WINDOW = 0;
+
+  /** Default time in milliseconds the index writer waits for further updates before committing asynchronously */
+  private static final long DEFAULT_ASYNCHRONOUS_COMMIT_WINDOW = 1000;
+
+  /** Number of queued updates that are written to the index without waiting for the commit window to pass */
+  private static final int MAX_INDEX_BATCH_SIZE = 500;
+
+  /** Number of milliseconds to wait for queued updates to be written on deactivation */
+  private static final long INDEX_WRITER_SHUTDOWN_TIMEOUT = 30000;
+
+  /** The JMX type of the index writer bean */
+  private static final String JMX_WORKFLOW_INDEX_TYPE = "WorkflowIndex";
+
+  /** Time in milliseconds the index writer waits for further updates before committing, or -1 for the default */
+  protected long commitWindow = -1;
+
+  /** Writes the documents to solr in batches */
+  protected WorkflowIndexWriter indexWriter = null;
+
+  /** The registered index writer bean */
+  private ObjectInstance registeredMXBean = null;
+
+  /** Number of workflow payloads loaded from the service registry at once while populating an empty index */
+  private static final int REBUILD_PAGE_SIZE = 100;
+
+  /** Number of pages after which the documents added while populating an empty index are committed */
+  private static final int REBUILD_COMMIT_INTERVAL = 10;
+
+  /** Number of seconds to wait for the index population to stop on deactivation */
+  private static final long REBUILD_SHUTDOWN_TIMEOUT = 30;
+
+  /** The executor populating an empty index in the background */
+  private ExecutorService rebuildExecutor = null;
+
+  /** The result of populating an empty index, or <code>null</code> if the index was not empty on activation */
+  protected Future<?> indexRebuild = null;
+
+  /** Ids of the workflows updated by regular indexing while the index is being populated */
+  private volatile Set<Long> indexedDuringRebuild = null;
+
   public static final Fn<Job, Boolean> operationIsStartWorkflow = new Fn<Job, Boolean>() {
     @Override
     public Boolean apply(Job job) {
@@ -239,8 +295,17 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
       logger.debug("Workflows will be added to the search index asynchronously");
       indexingExecutor = Executors.newSingleThreadExecutor();
     }
+    Object commitWindowConfig = cc.getProperties().get("commitWindow");
+    if (commitWindowConfig != null) {
+      try {
+        this.commitWindow = Long.parseLong(commitWindowConfig.toString().trim());
+      } catch (NumberFormatException e) {
+        logger.warn("Invalid commit window for the workflow index: {}", commitWindowConfig);
+      }
+    }
     String systemUserName = cc.getBundleContext().getProperty(SecurityUtil.PROPERTY_KEY_SYS_USER);
     activate(systemUserName);
+    registeredMXBean = JmxUtil.registerMXBean(indexWriter, JMX_WORKFLOW_INDEX_TYPE);
   }
 
   private long count() throws WorkflowDatabaseException {
@@ -269,6 +334,10 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
       }
     }
 
+    if (commitWindow < 0)
+      commitWindow = synchronousIndexing ? DEFAULT_SYNCHRONOUS_COMMIT_WINDOW : DEFAULT_ASYNCHRONOUS_COMMIT_WINDOW;
+    indexWriter = new WorkflowIndexWriter(solrServer, commitWindow, MAX_INDEX_BATCH_SIZE);
+
     // If the solr is empty, add all of the existing workflows
     long instancesInSolr = 0;
     try {
@@ -278,18 +347,25 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
     }
 
     if (instancesInSolr == 0) {
-      logger.info("The workflow index is empty, looking for workflows to index");
-      // this may be a new index, so get all of the existing workflows and index them
-      List<String> workflowPayloads;
-
-      try {
-        workflowPayloads =  serviceRegistry.getJobPayloads(WorkflowServiceImpl.Operation.START_WORKFLOW.toString());
-      } catch (ServiceRegistryException e) {
-        logger.error("Unable to load the workflows jobs: {}", e.getMessage());
-        throw new ServiceException(e.getMessage());
-      }
+      logger.info("The workflow index is empty, populating it in the background");
+      indexedDuringRebuild = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+      rebuildExecutor = Executors.newSingleThreadExecutor();
+      indexRebuild = rebuildExecutor.submit(() -> populateIndex(systemUserName));
+    }
+  }
 
-      final int total = workflowPayloads.size();
+  /**
+   * Adds all workflows known to the service registry to the index. Payloads are loaded page by page and parsed in
+   * parallel, and the resulting documents are added to solr in batches.
+   *
+   * @param systemUserName
+   *          the name of the system user used to create the documents
+   */
+  private void populateIndex(final String systemUserName) {
+    final String operation = WorkflowServiceImpl.Operation.START_WORKFLOW.toString();
+    final ExecutorService parser = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    try {
+      final int total = serviceRegistry.getJobCount(operation);
       if (total == 0) {
         logger.info("No workflows found. Repopulating index finished.");
         return;
@@ -298,28 +374,105 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
       logger.info("Populating the workflow index with {} workflows", total);
 
       int current = 0;
-      for (String payload : workflowPayloads) {
-        current++;
-        WorkflowInstance instance = null;
-        try {
-          instance = WorkflowParser.parseWorkflowInstance(payload);
-          Organization organization = orgDirectory.getOrganization(instance.getOrganizationId());
-          securityService.setOrganization(organization);
-          securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
-          index(instance);
-        } catch (WorkflowParsingException | WorkflowDatabaseException | NotFoundException e) {
-          logger.warn("Skipping restoring of workflow {}", payload, e);
+      int page = 0;
+      Job last = null;
+      while (current < total) {
+        if (Thread.currentThread().isInterrupted())
+          throw new InterruptedException();
+
+        List<Job> jobs = serviceRegistry.getJobPayloads(operation, REBUILD_PAGE_SIZE, last);
+        if (jobs.isEmpty())
+          break;
+        last = jobs.get(jobs.size() - 1);
+
+        List<Future<SolrInputDocument>> documents = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+          final String payload = job.getPayload();
+          documents.add(parser.submit(() -> createRebuildDocument(payload, systemUserName)));
+        }
+        List<SolrInputDocument> batch = new ArrayList<>(jobs.size());
+        for (Future<SolrInputDocument> document : documents) {
+          SolrInputDocument doc = document.get();
+          if (doc != null)
+            batch.add(doc);
         }
-        if (current % 100 == 0) {
+
+        current += jobs.size();
+        page++;
+        boolean commit = page % REBUILD_COMMIT_INTERVAL == 0;
+        addRebuildBatch(batch, commit);
+        if (commit) {
           logger.info("Indexing workflow {}/{} ({} percent done)", current, total, current * 100 / total);
         }
       }
-
+      synchronized (solrServer) {
+        solrServer.commit();
+      }
 
       logger.info("Finished populating the workflow search index");
+    } catch (InterruptedException e) {
+      logger.info("Populating the workflow search index has been interrupted");
+      Thread.currentThread().interrupt();
+    } catch (ServiceRegistryException | ExecutionException | SolrServerException | IOException e) {
+      logger.error("Unable to populate the workflow search index", e);
+    } finally {
+      parser.shutdownNow();
+      indexedDuringRebuild = null;
+    }
+  }
+
+  /**
+   * Parses a workflow payload and creates the solr document for it on behalf of the system user of the workflow's
+   * organization.
+   *
+   * @return the document or <code>null</code> if the workflow cannot be restored
+   */
+  private SolrInputDocument createRebuildDocument(String payload, String systemUserName) {
+    try {
+      WorkflowInstance instance = WorkflowParser.parseWorkflowInstance(payload);
+      Organization organization = orgDirectory.getOrganization(instance.getOrganizationId());
+      securityService.setOrganization(organization);
+      securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
+      return createDocument(instance);
+    } catch (Exception e) {
+      logger.warn("Skipping restoring of workflow {}", payload, e);
+      return null;
+    } finally {
+      securityService.setOrganization(null);
+      securityService.setUser(null);
+    }
+  }
+
+  /**
+   * Adds documents created while rebuilding the index. Workflows which have been indexed or removed by regular
+   * updates in the meantime are skipped since the rebuild might otherwise overwrite them with an outdated version.
+   */
+  private void addRebuildBatch(List<SolrInputDocument> batch, boolean commit) throws SolrServerException,
+          IOException {
+    synchronized (solrServer) {
+      Set<Long> indexed = indexedDuringRebuild;
+      List<SolrInputDocument> docs = new ArrayList<>(batch.size());
+      for (SolrInputDocument doc : batch) {
+        if (indexed == null || !indexed.contains(Long.valueOf(doc.getFieldValue(ID_KEY).toString())))
+          docs.add(doc);
+      }
+      if (!docs.isEmpty())
+        solrServer.add(docs);
+      if (commit)
+        solrServer.commit();
     }
   }
 
+  /**
+   * Records that a workflow has been updated by regular indexing while the index is being rebuilt. Must be called
+   * before the update is queued.
+   */
+  private void markIndexed(long id) {
+    Set<Long> indexed = indexedDuringRebuild;
+    if (indexed != null)
+      indexed.add(id);
+  }
+
   /**
    * Prepares the embedded solr environment.
    *
@@ -366,6 +519,21 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
    * Shuts down the solr index.
    */
   public void deactivate() {
+    if (rebuildExecutor != null) {
+      rebuildExecutor.shutdownNow();
+      try {
+        if (!rebuildExecutor.awaitTermination(REBUILD_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS))
+          logger.warn("Populating the workflow search index did not stop in time");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (registeredMXBean != null)
+      JmxUtil.unregisterMXBean(registeredMXBean);
+    if (indexingExecutor != null)
+      indexingExecutor.shutdown();
+    if (indexWriter != null)
+      indexWriter.shutdown(INDEX_WRITER_SHUTDOWN_TIMEOUT);
     SolrServerFactory.shutdown(solrServer);
   }
 
@@ -388,34 +556,62 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   }
 
   public void index(final WorkflowInstance instance) throws WorkflowDatabaseException {
+    Future<Void> visible = queue(instance);
+    if (synchronousIndexing)
+      waitUntilVisible(visible, "Unable to index workflow");
+  }
+
+  /**
+   * Queues the workflow instance for indexing. Updates are written in batches by the index writer, and updates to the
+   * same workflow queued in quick succession are coalesced. In asynchronous mode, the document is created in the
+   * background as well.
+   *
+   * @param instance
+   *          the workflow instance
+   * @return a handle completing once the instance is visible to searches
+   * @throws WorkflowDatabaseException
+   *           if the document for the workflow instance cannot be created
+   */
+  public CompletableFuture<Void> queue(final WorkflowInstance instance) throws WorkflowDatabaseException {
     if (synchronousIndexing) {
+      SolrInputDocument doc;
       try {
-        SolrInputDocument doc = createDocument(instance);
-        synchronized (solrServer) {
-          solrServer.add(doc);
-          solrServer.commit();
-        }
+        doc = createDocument(instance);
       } catch (Exception e) {
         throw new WorkflowDatabaseException("Unable to index workflow", e);
       }
-    } else {
-      indexingExecutor.submit(new Runnable() {
-        @Override
-        public void run() {
-          try {
-            SolrInputDocument doc = createDocument(instance);
-            synchronized (solrServer) {
-              solrServer.add(doc);
-              // Use solr's autoCommit feature instead of committing on each document addition.
-              // See http://opencast.jira.com/browse/MH-7040 and
-              // http://osdir.com/ml/solr-user.lucene.apache.org/2009-09/msg00744.html
-              // solrServer.commit();
-            }
-          } catch (Exception e) {
-            WorkflowServiceSolrIndex.logger.warn("Unable to index {}: {}", instance, e);
-          }
-        }
-      });
+      markIndexed(instance.getId());
+      return indexWriter.add(instance.getId(), doc);
+    }
+
+    CompletableFuture<Void> visible = CompletableFuture.supplyAsync(() -> {
+      try {
+        return createDocument(instance);
+      } catch (Exception e) {
+        throw new CompletionException(e);
+      }
+    }, indexingExecutor).thenCompose(doc -> {
+      markIndexed(instance.getId());
+      return indexWriter.add(instance.getId(), doc);
+    });
+    visible.exceptionally(e -> {
+      logger.warn("Unable to index {}: {}", instance, e);
+      return null;
+    });
+    return visible;
+  }
+
+  /**
+   * Waits for a queued update to become visible in the index.
+   */
+  private void waitUntilVisible(Future<Void> visible, String message) throws WorkflowDatabaseException {
+    try {
+      visible.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WorkflowDatabaseException(message, e);
+    } catch (ExecutionException e) {
+      throw new WorkflowDatabaseException(message, e.getCause());
     }
   }
 
@@ -438,11 +634,9 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
     // index the current operation if there is one. If the workflow is finished, there is no current operation, so use a
     // constant
     WorkflowOperationInstance op = instance.getCurrentOperation();
-    if (op == null) {
-      doc.addField(OPERATION_KEY, NO_OPERATION_KEY);
-    } else {
-      doc.addField(OPERATION_KEY, op.getTemplate());
-    }
+    String operation = op == null ? NO_OPERATION_KEY : op.getTemplate();
+    doc.addField(OPERATION_KEY, operation);
+    doc.addField(STATISTICS_KEY, createStatisticsValue(instance.getTemplate(), operation, instance.getState()));
 
     MediaPackage mp = instance.getMediaPackage();
     doc.addField(MEDIAPACKAGE_KEY, mp.getIdentifier().toString());
@@ -623,21 +817,42 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
 
     WorkflowStatistics stats = new WorkflowStatistics();
 
-    // Get all definitions and then query for the numbers and the current operation per definition
+    // Get all definitions and operations along with the number of workflows per definition, operation and state
     try {
       String orgId = securityService.getOrganization().getId();
       StringBuilder queryString = new StringBuilder().append(ORG_KEY).append(":").append(escapeQueryChars(orgId));
       appendSolrAuthFragment(queryString, Permissions.Action.WRITE.toString());
       SolrQuery solrQuery = new SolrQuery(queryString.toString());
+      solrQuery.setRows(0);
       solrQuery.addFacetField(WORKFLOW_DEFINITION_KEY);
       solrQuery.addFacetField(OPERATION_KEY);
+      solrQuery.addFacetField(STATISTICS_KEY);
       solrQuery.setFacetMinCount(0);
+      solrQuery.set("f." + STATISTICS_KEY + ".facet.mincount", 1);
+      solrQuery.set("f." + STATISTICS_KEY + ".facet.limit", -1);
       solrQuery.setFacet(true);
       QueryResponse response = solrServer.query(solrQuery);
 
       FacetField templateFacet = response.getFacetField(WORKFLOW_DEFINITION_KEY);
       FacetField operationFacet = response.getFacetField(OPERATION_KEY);
 
+      Map<String, Long> counts = new HashMap<String, Long>();
+      long counted = 0;
+      FacetField statisticsFacet = response.getFacetField(STATISTICS_KEY);
+      if (statisticsFacet != null && statisticsFacet.getValues() != null) {
+        for (Count count : statisticsFacet.getValues()) {
+          counts.put(count.getName(), count.getCount());
+          counted += count.getCount();
+        }
+      }
+
+      // Documents indexed before the statistics field was introduced are not covered by the facet. Fall back to
+      // querying the states for every definition and operation until the index has been rebuilt.
+      if (counted != response.getResults().getNumFound()) {
+        logger.info("Workflow index is missing statistics data, consider rebuilding it");
+        counts = countStatesPerOperation(queryString.toString(), templateFacet, operationFacet);
+      }
+
       // For every template and every operation
       if (templateFacet != null && templateFacet.getValues() != null) {
 
@@ -662,66 +877,48 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
               OperationReport operationReport = new OperationReport();
               operationReport.setId(operation.getName());
 
-              StringBuilder baseSolrQuery = new StringBuilder().append(ORG_KEY).append(":")
-                      .append(escapeQueryChars(orgId));
-              appendSolrAuthFragment(baseSolrQuery, Permissions.Action.WRITE.toString());
-              solrQuery = new SolrQuery(baseSolrQuery.toString());
-              solrQuery.addFacetField(STATE_KEY);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.FAILED);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.FAILING);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.INSTANTIATED);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.PAUSED);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.RUNNING);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.STOPPED);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.SUCCEEDED);
-              solrQuery.addFilterQuery(WORKFLOW_DEFINITION_KEY + ":" + template.getName());
-              solrQuery.addFilterQuery(OPERATION_KEY + ":" + operation.getName());
-              solrQuery.setFacetMinCount(0);
-              solrQuery.setFacet(true);
-
-              response = solrServer.query(solrQuery);
-
               // Add the states
-              FacetField stateFacet = response.getFacetField(STATE_KEY);
-              for (Count stateValue : stateFacet.getValues()) {
-                WorkflowState state = WorkflowState.valueOf(stateValue.getName().toUpperCase());
-                templateTotal += stateValue.getCount();
-                total += stateValue.getCount();
+              for (WorkflowState state : WorkflowState.values()) {
+                Long stateCount = counts.get(createStatisticsValue(template.getName(), operation.getName(), state));
+                if (stateCount == null)
+                  continue;
+                templateTotal += stateCount;
+                total += stateCount;
                 switch (state) {
                   case FAILED:
-                    operationReport.setFailed(stateValue.getCount());
-                    templateFailed += stateValue.getCount();
-                    failed += stateValue.getCount();
+                    operationReport.setFailed(stateCount);
+                    templateFailed += stateCount;
+                    failed += stateCount;
                     break;
                   case FAILING:
-                    operationReport.setFailing(stateValue.getCount());
-                    templateFailing += stateValue.getCount();
-                    failing += stateValue.getCount();
+                    operationReport.setFailing(stateCount);
+                    templateFailing += stateCount;
+                    failing += stateCount;
                     break;
                   case INSTANTIATED:
-                    operationReport.setInstantiated(stateValue.getCount());
-                    templateInstantiated += stateValue.getCount();
-                    instantiated += stateValue.getCount();
+                    operationReport.setInstantiated(stateCount);
+                    templateInstantiated += stateCount;
+                    instantiated += stateCount;
                     break;
                   case PAUSED:
-                    operationReport.setPaused(stateValue.getCount());
-                    templatePaused += stateValue.getCount();
-                    paused += stateValue.getCount();
+                    operationReport.setPaused(stateCount);
+                    templatePaused += stateCount;
+                    paused += stateCount;
                     break;
                   case RUNNING:
-                    operationReport.setRunning(stateValue.getCount());
-                    templateRunning += stateValue.getCount();
-                    running += stateValue.getCount();
+                    operationReport.setRunning(stateCount);
+                    templateRunning += stateCount;
+                    running += stateCount;
                     break;
                   case STOPPED:
-                    operationReport.setStopped(stateValue.getCount());
-                    templateStopped += stateValue.getCount();
-                    stopped += stateValue.getCount();
+                    operationReport.setStopped(stateCount);
+                    templateStopped += stateCount;
+                    stopped += stateCount;
                     break;
                   case SUCCEEDED:
-                    operationReport.setFinished(stateValue.getCount());
-                    templateSucceeded += stateValue.getCount();
-                    succeeded += stateValue.getCount();
+                    operationReport.setFinished(stateCount);
+                    templateSucceeded += stateCount;
+                    succeeded += stateCount;
                     break;
                   default:
                     throw new IllegalStateException("State '" + state + "' is not handled");
@@ -764,6 +961,58 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
     return stats;
   }
 
+  /**
+   * Counts the workflows per definition, operation and state by issuing a state facet query for every combination of
+   * definition and operation. This is only used as long as the index contains documents without the
+   * {@link #STATISTICS_KEY} field.
+   *
+   * @param queryString
+   *          the base query, limiting the result to the current organization and user
+   * @param templateFacet
+   *          the workflow definition facet
+   * @param operationFacet
+   *          the operation facet
+   * @return the number of workflows, keyed by {@link #createStatisticsValue(String, String, WorkflowState)}
+   */
+  private Map<String, Long> countStatesPerOperation(String queryString, FacetField templateFacet,
+          FacetField operationFacet) throws SolrServerException {
+    Map<String, Long> counts = new HashMap<String, Long>();
+    if (templateFacet == null || templateFacet.getValues() == null || operationFacet == null
+            || operationFacet.getValues() == null)
+      return counts;
+
+    for (Count template : templateFacet.getValues()) {
+      for (Count operation : operationFacet.getValues()) {
+        SolrQuery solrQuery = new SolrQuery(queryString);
+        solrQuery.setRows(0);
+        solrQuery.addFacetField(STATE_KEY);
+        solrQuery.addFilterQuery(WORKFLOW_DEFINITION_KEY + ":" + template.getName());
+        solrQuery.addFilterQuery(OPERATION_KEY + ":" + operation.getName());
+        solrQuery.setFacetMinCount(1);
+        solrQuery.setFacet(true);
+
+        QueryResponse response = solrServer.query(solrQuery);
+        FacetField stateFacet = response.getFacetField(STATE_KEY);
+        if (stateFacet == null || stateFacet.getValues() == null)
+          continue;
+        for (Count stateValue : stateFacet.getValues()) {
+          WorkflowState state = WorkflowState.valueOf(stateValue.getName().toUpperCase());
+          counts.put(createStatisticsValue(template.getName(), operation.getName(), state), stateValue.getCount());
+        }
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Creates the value of the {@link #STATISTICS_KEY} field, combining the workflow definition, the current operation
+   * and the state of a workflow so that a single facet on that field yields the statistics for all combinations.
+   * Values are lower cased to match the facet values of the case insensitive field.
+   */
+  static String createStatisticsValue(String template, String operation, WorkflowState state) {
+    return StringUtils.lowerCase(template + STATISTICS_SEPARATOR + operation + STATISTICS_SEPARATOR + state);
+  }
+
   /**
    * Appends query parameters to a solr query
    *
@@ -1054,14 +1303,8 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
    */
   @Override
   public void remove(long id) throws WorkflowDatabaseException, NotFoundException {
-    try {
-      synchronized (solrServer) {
-        solrServer.deleteById(Long.toString(id));
-        solrServer.commit();
-      }
-    } catch (Exception e) {
-      throw new WorkflowDatabaseException(e);
-    }
+    markIndexed(id);
+    waitUntilVisible(indexWriter.remove(id), "Unable to remove workflow " + id + " from the index");
   }
 
   /**
@@ -1079,10 +1322,7 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
    */
   public void clear() throws WorkflowDatabaseException {
     try {
-      synchronized (solrServer) {
-        solrServer.deleteByQuery("*:*");
-        solrServer.commit();
-      }
+      indexWriter.clear();
     } catch (Exception e) {
       throw new WorkflowDatabaseException(e);
     }
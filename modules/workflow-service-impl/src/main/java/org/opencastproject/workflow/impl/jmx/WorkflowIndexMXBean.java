@@ -0,0 +1,71 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workflow.impl.jmx;
+
+/**
+ * JMX Bean interface exposing the state of the workflow index writer.
+ */
+public interface WorkflowIndexMXBean {
+
+  /**
+   * Gets the number of workflow updates waiting to be written to the index
+   *
+   * @return the number of queued updates
+   */
+  int getQueueDepth();
+
+  /**
+   * Gets the number of workflow updates written to the index
+   *
+   * @return the number of written updates
+   */
+  long getWrittenUpdates();
+
+  /**
+   * Gets the number of updates that have been merged with a newer update of the same workflow before being written
+   *
+   * @return the number of coalesced updates
+   */
+  long getCoalescedUpdates();
+
+  /**
+   * Gets the number of commits issued to the index
+   *
+   * @return the number of commits
+   */
+  long getCommits();
+
+  /**
+   * Gets the average time between queuing an update and the update becoming visible in the index
+   *
+   * @return the average indexing latency in milliseconds
+   */
+  long getAverageLatency();
+
+  /**
+   * Gets the longest time between queuing an update and the update becoming visible in the index
+   *
+   * @return the maximum indexing latency in milliseconds
+   */
+  long getMaxLatency();
+
+}
@@ -52,6 +52,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * Test cases for the implementation at {@link WorkflowServiceSolrIndex}.
@@ -92,8 +93,9 @@ public class WorkflowServiceSolrIndexTest {
     EasyMock.expect(serviceRegistry.count(WorkflowService.JOB_TYPE, null)).andReturn(1L);
     EasyMock.expect(serviceRegistry.getJobs(WorkflowService.JOB_TYPE, null)).andReturn(jobs);
     EasyMock.expect(serviceRegistry.getJob(123)).andReturn(job);
-    EasyMock.expect(serviceRegistry.getJobPayloads("START_WORKFLOW"))
-            .andReturn(Collections.singletonList(jobPayload));
+    EasyMock.expect(serviceRegistry.getJobCount("START_WORKFLOW")).andReturn(1);
+    EasyMock.expect(serviceRegistry.getJobPayloads(EasyMock.eq("START_WORKFLOW"), EasyMock.anyInt(),
+            EasyMock.isNull(Job.class))).andReturn(Collections.singletonList(job));
     EasyMock.replay(serviceRegistry);
 
     MessageSender messageSender = EasyMock.createNiceMock(MessageSender.class);
@@ -115,6 +117,41 @@ public class WorkflowServiceSolrIndexTest {
     dao = null;
   }
 
+  /**
+   * Tests whether the initially empty index is populated in the background
+   */
+  @Test
+  public void testIndexRebuild() throws Exception {
+    dao.indexRebuild.get();
+    assertEquals(1, dao.countWorkflowInstances(null, null));
+  }
+
+  /**
+   * Tests whether queued updates are visible once their handles complete
+   */
+  @Test
+  public void testQueuedUpdatesBecomeVisible() throws Exception {
+    dao.indexRebuild.get();
+    WorkflowInstanceImpl workflow = new WorkflowInstanceImpl();
+    workflow.setId(456);
+    workflow.setCreator(SecurityServiceStub.DEFAULT_ORG_ADMIN);
+    workflow.setOrganizationId(DefaultOrganization.DEFAULT_ORGANIZATION_ID);
+    workflow.setState(WorkflowState.INSTANTIATED);
+    workflow.setMediaPackage(MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew());
+
+    Future<Void> instantiated = dao.queue(workflow);
+    workflow.setState(WorkflowState.RUNNING);
+    Future<Void> running = dao.queue(workflow);
+    running.get();
+    instantiated.get();
+    assertEquals(0, dao.indexWriter.getQueueDepth());
+    assertEquals(2, dao.countWorkflowInstances(null, null));
+    assertEquals(1, dao.countWorkflowInstances(WorkflowState.RUNNING, null));
+
+    dao.remove(456);
+    assertEquals(1, dao.countWorkflowInstances(null, null));
+  }
+
   /**
    * Tests whether a simple query is built correctly
    */
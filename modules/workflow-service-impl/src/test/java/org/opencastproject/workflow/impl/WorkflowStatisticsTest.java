@@ -379,11 +379,21 @@ public class WorkflowStatisticsTest {
     assertEquals(stopped, stats.getStopped());
     assertEquals(total, stats.getTotal());
 
-    // TODO: Test the operations
-    // Make sure they are as expected
-    // for (WorkflowDefinitionReport report : stats.getDefinitions()) {
-    //
-    // }
+    // Make sure the definition and operation reports add up to the totals
+    assertEquals(WORKFLOW_DEFINITION_COUNT, stats.getDefinitions().size());
+    long definitionTotal = 0;
+    for (WorkflowDefinitionReport report : stats.getDefinitions()) {
+      long operationTotal = 0;
+      for (OperationReport operation : report.getOperations()) {
+        operationTotal += operation.getFailed() + operation.getFailing() + operation.getFinished()
+                + operation.getInstantiated() + operation.getPaused() + operation.getRunning()
+                + operation.getStopped();
+      }
+      assertEquals(report.getTotal(), operationTotal);
+      assertEquals(OPERATION_COUNT, report.getTotal());
+      definitionTotal += report.getTotal();
+    }
+    assertEquals(total, definitionTotal);
 
   }
 
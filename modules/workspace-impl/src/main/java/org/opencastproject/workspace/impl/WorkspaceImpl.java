@@ -37,6 +37,8 @@ import static org.opencastproject.util.data.Prelude.sleep;
 import static org.opencastproject.util.data.Tuple.tuple;
 
 import org.opencastproject.assetmanager.util.AssetPathUtils;
+import org.opencastproject.job.api.JobLifecycleMetrics;
+import org.opencastproject.job.api.JobLifecycleMetrics.Phase;
 import org.opencastproject.mediapackage.identifier.Id;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.TrustedHttpClient;
@@ -84,6 +86,7 @@ import java.nio.file.StandardCopyOption;
 import java.util.Date;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.ObjectInstance;
 import javax.servlet.http.HttpServletResponse;
@@ -314,6 +317,8 @@ public final class WorkspaceImpl implements Workspace {
 
   @Override
   public File get(final URI uri, final boolean uniqueFilename) throws NotFoundException, IOException {
+    // only the bytes actually downloaded or copied are recorded as transferred, not those of up to date or linked files
+    final long start = JobLifecycleMetrics.start();
     File inWs = toWorkspaceFile(uri);
 
     if (uniqueFilename) {
@@ -335,8 +340,10 @@ public final class WorkspaceImpl implements Workspace {
           if (workspaceFileLastModified < wfrCopy.lastModified()) {
             logger.debug("Replacing {} with an updated version from the file repository", inWs.getAbsolutePath());
             locked(inWs, copyOrLink(wfrCopy));
+            JobLifecycleMetrics.stop(Phase.WORKSPACE_GET, start, linkingEnabled ? 0L : inWs.length());
           } else {
             logger.debug("{} is up to date", inWs);
+            JobLifecycleMetrics.stop(Phase.WORKSPACE_GET, start);
           }
           logger.debug("Getting {} directly from working file repository root at {}", uri, inWs);
           return new File(inWs.getAbsolutePath());
@@ -352,11 +359,15 @@ public final class WorkspaceImpl implements Workspace {
     if (asset != null) {
       logger.debug("Copy local file {} from asset manager to workspace", asset);
       Files.copy(asset.toPath(), inWs.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      JobLifecycleMetrics.stop(Phase.WORKSPACE_GET, start, inWs.length());
       return new File(inWs.getAbsolutePath());
     }
 
     // do HTTP transfer
-    return locked(inWs, downloadIfNecessary(uri));
+    final AtomicLong downloaded = new AtomicLong();
+    final File file = locked(inWs, downloadIfNecessary(uri, downloaded));
+    JobLifecycleMetrics.stop(Phase.WORKSPACE_GET, start, downloaded.get());
+    return file;
   }
 
   @Override
@@ -408,14 +419,14 @@ public final class WorkspaceImpl implements Workspace {
   }
 
   /**
-   * Handle the HTTP response.
+   * Handle the HTTP response, adding the number of bytes downloaded to <code>downloaded</code>.
    *
    * @return either a token to initiate a follow-up request or a file or none if the requested URI cannot be found
    * @throws IOException
    *           in case of any IO related issues
    */
-  private Either<String, Option<File>> handleDownloadResponse(HttpResponse response, URI src, File dst)
-          throws IOException {
+  private Either<String, Option<File>> handleDownloadResponse(HttpResponse response, URI src, File dst,
+          AtomicLong downloaded) throws IOException {
     final String url = src.toString();
     final int status = response.getStatusLine().getStatusCode();
     switch (status) {
@@ -429,7 +440,8 @@ public final class WorkspaceImpl implements Workspace {
         return left(response.getHeaders("token")[0].getValue());
       case HttpServletResponse.SC_OK:
         logger.debug("Downloading {} to {}", url, dst.getAbsolutePath());
-        return right(some(downloadTo(response, dst)));
+        downloaded.addAndGet(downloadTo(response, dst));
+        return right(some(dst));
       default:
         logger.warn("Received unexpected response status {} while trying to download from {}", status, url);
         FileUtils.deleteQuietly(dst);
@@ -438,14 +450,15 @@ public final class WorkspaceImpl implements Workspace {
   }
 
   /**
-   * {@link #handleDownloadResponse(org.apache.http.HttpResponse, java.net.URI, java.io.File)} as a function.
+   * {@link #handleDownloadResponse(HttpResponse, URI, File, AtomicLong)} as a function.
    * <code>(URI, dst_file) -> HttpResponse -> Either token (Option File)</code>
    */
-  private Function<HttpResponse, Either<String, Option<File>>> handleDownloadResponse(final URI src, final File dst) {
+  private Function<HttpResponse, Either<String, Option<File>>> handleDownloadResponse(final URI src, final File dst,
+          final AtomicLong downloaded) {
     return new Function.X<HttpResponse, Either<String, Option<File>>>() {
       @Override
       public Either<String, Option<File>> xapply(HttpResponse response) throws Exception {
-        return handleDownloadResponse(response, src, dst);
+        return handleDownloadResponse(response, src, dst, downloaded);
       }
     };
   }
@@ -470,16 +483,18 @@ public final class WorkspaceImpl implements Workspace {
 
   /**
    * Download content of <code>uri</code> to file <code>dst</code> only if necessary, i.e. either the file does not yet
-   * exist in the workspace or a newer version is available at <code>uri</code>.
+   * exist in the workspace or a newer version is available at <code>uri</code>. The number of bytes downloaded is
+   * added to <code>downloaded</code>.
    *
    * @return the file
    */
-  private File downloadIfNecessary(final URI src, final File dst) throws IOException, NotFoundException {
+  private File downloadIfNecessary(final URI src, final File dst, final AtomicLong downloaded)
+          throws IOException, NotFoundException {
     HttpGet get = createGetRequest(src, dst);
     while (true) {
       // run the http request and handle its response
       final Either<Exception, Either<String, Option<File>>> result = trustedHttpClient
-              .<Either<String, Option<File>>> runner(get).run(handleDownloadResponse(src, dst));
+              .<Either<String, Option<File>>> runner(get).run(handleDownloadResponse(src, dst, downloaded));
       // handle to result of response processing
       // right: there's an expected result
       for (Either<String, Option<File>> a : result.right()) {
@@ -508,14 +523,14 @@ public final class WorkspaceImpl implements Workspace {
   }
 
   /**
-   * {@link #downloadIfNecessary(java.net.URI, java.io.File)} as a function.
+   * {@link #downloadIfNecessary(URI, File, AtomicLong)} as a function.
    * <code>src_uri -&gt; dst_file -&gt; dst_file</code>
    */
-  private Function<File, File> downloadIfNecessary(final URI src) {
+  private Function<File, File> downloadIfNecessary(final URI src, final AtomicLong downloaded) {
     return new Function.X<File, File>() {
       @Override
       public File xapply(final File dst) throws Exception {
-        return downloadIfNecessary(src, dst);
+        return downloadIfNecessary(src, dst, downloaded);
       }
     };
   }
@@ -523,17 +538,16 @@ public final class WorkspaceImpl implements Workspace {
   /**
    * Download content of an HTTP response to a file.
    *
-   * @return the destination file
+   * @return the number of bytes downloaded
    */
-  private static File downloadTo(final HttpResponse response, final File dst) throws IOException {
+  private static long downloadTo(final HttpResponse response, final File dst) throws IOException {
     // ignore return value
     dst.createNewFile();
     try (InputStream in = response.getEntity().getContent()) {
       try (OutputStream out = new FileOutputStream(dst)) {
-        IOUtils.copyLarge(in, out);
+        return IOUtils.copyLarge(in, out);
       }
     }
-    return dst;
   }
 
   /**
@@ -622,6 +636,7 @@ public final class WorkspaceImpl implements Workspace {
   @Override
   public URI put(String mediaPackageID, String mediaPackageElementID, String fileName, InputStream in)
           throws IOException {
+    final long start = JobLifecycleMetrics.start();
     String safeFileName = PathSupport.toSafeName(fileName);
     final URI uri = wfr.getURI(mediaPackageID, mediaPackageElementID, fileName);
     notNull(in, "in");
@@ -634,6 +649,7 @@ public final class WorkspaceImpl implements Workspace {
     }
 
     // Try hard linking first and fall back to tee-ing to both the working file repository and the workspace
+    long copied;
     if (linkingEnabled) {
       // The WFR stores an md5 hash along with the file, so we need to use the API and not try to write (link) the file
       // there ourselves
@@ -642,20 +658,24 @@ public final class WorkspaceImpl implements Workspace {
               mediaPackageID, mediaPackageElementID);
       File workingFileRepoCopy = new File(workingFileRepoDirectory, safeFileName);
       FileSupport.link(workingFileRepoCopy, workspaceFile, true);
+      copied = getCopiedBytes(workingFileRepoCopy, workspaceFile);
     } else {
       try (FileOutputStream out = new FileOutputStream(workspaceFile)) {
         try (InputStream tee = new TeeInputStream(in, out, true)) {
           wfr.put(mediaPackageID, mediaPackageElementID, fileName, tee);
         }
       }
+      copied = workspaceFile.length();
     }
     // wait until the file appears on the WFR node
     waitForResource(uri, HttpServletResponse.SC_OK, "File %s does not appear in WFR");
+    JobLifecycleMetrics.stop(Phase.WORKSPACE_PUT, start, copied);
     return uri;
   }
 
   @Override
   public URI putInCollection(String collectionId, String fileName, InputStream in) throws IOException {
+    final long start = JobLifecycleMetrics.start();
     String safeFileName = PathSupport.toSafeName(fileName);
     URI uri = wfr.getCollectionURI(collectionId, fileName);
 
@@ -663,6 +683,7 @@ public final class WorkspaceImpl implements Workspace {
     InputStream tee = null;
     File tempFile = null;
     FileOutputStream out = null;
+    long copied;
     try {
       synchronized (lock) {
         tempFile = toWorkspaceFile(uri);
@@ -679,9 +700,11 @@ public final class WorkspaceImpl implements Workspace {
                 collectionId);
         File workingFileRepoCopy = new File(workingFileRepoDirectory, safeFileName);
         FileSupport.link(workingFileRepoCopy, tempFile, true);
+        copied = getCopiedBytes(workingFileRepoCopy, tempFile);
       } else {
         tee = new TeeInputStream(in, out, true);
         wfr.putInCollection(collectionId, fileName, tee);
+        copied = tempFile.length();
       }
     } catch (IOException e) {
       FileUtils.deleteQuietly(tempFile);
@@ -691,9 +714,18 @@ public final class WorkspaceImpl implements Workspace {
       IoSupport.closeQuietly(out);
     }
     waitForResource(uri, HttpServletResponse.SC_OK, "File %s does not appear in WFR");
+    JobLifecycleMetrics.stop(Phase.WORKSPACE_PUT, start, copied);
     return uri;
   }
 
+  /**
+   * Returns the number of bytes copied by {@link FileSupport#link(File, File, boolean)}, which is zero if the file was
+   * actually linked.
+   */
+  private static long getCopiedBytes(File source, File target) throws IOException {
+    return Files.isSameFile(source.toPath(), target.toPath()) ? 0L : target.length();
+  }
+
   @Override
   public URI getURI(String mediaPackageID, String mediaPackageElementID) {
     return wfr.getURI(mediaPackageID, mediaPackageElementID);
@@ -21,6 +21,8 @@
 
 package org.opencastproject.workspace.impl;
 
+import org.opencastproject.job.api.JobLifecycleMetrics;
+import org.opencastproject.job.api.JobLifecycleMetrics.Phase;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.TrustedHttpClient;
@@ -176,6 +178,8 @@ public class WorkspaceImplTest {
     EasyMock.expect(repo.getBaseUri()).andReturn(new URI("http://localhost:8080/files")).anyTimes();
     EasyMock.replay(repo);
     workspace.setRepository(repo);
+    JobLifecycleMetrics metrics = JobLifecycleMetrics.getInstance();
+    metrics.reset();
 
     // Put a stream into the workspace (and hence, the repository)
     try (InputStream in = getClass().getResourceAsStream("/opencast_header.gif")) {
@@ -190,6 +194,10 @@ public class WorkspaceImplTest {
     File file = new File(PathSupport.concat(new String[] { workspaceRoot,
             WorkingFileRepository.MEDIAPACKAGE_PATH_PREFIX, "foo", "bar", "header.gif" }));
     Assert.assertTrue(file.exists());
+
+    // The file was copied into the workspace rather than linked
+    Assert.assertEquals(1, metrics.getCount(Phase.WORKSPACE_PUT));
+    Assert.assertEquals(file.length(), metrics.getBytes().get(Phase.WORKSPACE_PUT.label()).longValue());
   }
 
   @Test
@@ -270,6 +278,59 @@ public class WorkspaceImplTest {
     Assert.assertEquals(expectedFile, resultingFile);
   }
 
+  @Test
+  public void testGetRecordsDownloadedBytes() throws Exception {
+    WorkingFileRepository repo = EasyMock.createNiceMock(WorkingFileRepository.class);
+    EasyMock.expect(repo.getBaseUri()).andReturn(new URI("http://localhost:8080/files")).anyTimes();
+    EasyMock.replay(repo);
+    workspace.setRepository(repo);
+
+    Organization organization = EasyMock.createMock(Organization.class);
+    EasyMock.expect(organization.getId()).andReturn("org1").anyTimes();
+    SecurityService securityService = EasyMock.createMock(SecurityService.class);
+    EasyMock.expect(securityService.getOrganization()).andReturn(organization).anyTimes();
+    EasyMock.replay(securityService, organization);
+    workspace.setSecurityService(securityService);
+
+    // The file is downloaded once and not modified afterwards
+    File source = new File(getClass().getResource("/opencast_header.gif").toURI());
+    HttpEntity entity = EasyMock.createNiceMock(HttpEntity.class);
+    EasyMock.expect(entity.getContent()).andReturn(new FileInputStream(source));
+    StatusLine ok = EasyMock.createNiceMock(StatusLine.class);
+    EasyMock.expect(ok.getStatusCode()).andReturn(HttpServletResponse.SC_OK).anyTimes();
+    HttpResponse downloaded = EasyMock.createNiceMock(HttpResponse.class);
+    EasyMock.expect(downloaded.getEntity()).andReturn(entity).anyTimes();
+    EasyMock.expect(downloaded.getStatusLine()).andReturn(ok).anyTimes();
+    StatusLine notModified = EasyMock.createNiceMock(StatusLine.class);
+    EasyMock.expect(notModified.getStatusCode()).andReturn(HttpServletResponse.SC_NOT_MODIFIED).anyTimes();
+    HttpResponse upToDate = EasyMock.createNiceMock(HttpResponse.class);
+    EasyMock.expect(upToDate.getStatusLine()).andReturn(notModified).anyTimes();
+    EasyMock.replay(entity, ok, downloaded, notModified, upToDate);
+
+    final TrustedHttpClient httpClient = EasyMock.createNiceMock(TrustedHttpClient.class);
+    EasyMock.expect(httpClient.execute(EasyMock.anyObject(HttpUriRequest.class))).andReturn(downloaded);
+    EasyMock.expect(httpClient.execute(EasyMock.anyObject(HttpUriRequest.class))).andReturn(upToDate);
+    EasyMock.expect(httpClient.runner(EasyMock.anyObject(HttpUriRequest.class))).andAnswer(() -> {
+      HttpUriRequest req = (HttpUriRequest) EasyMock.getCurrentArguments()[0];
+      return StandAloneTrustedHttpClientImpl.runner(httpClient, req);
+    }).anyTimes();
+    EasyMock.replay(httpClient);
+    workspace.setTrustedHttpClient(httpClient);
+
+    JobLifecycleMetrics metrics = JobLifecycleMetrics.getInstance();
+    metrics.reset();
+    URI uri = new URI("http://foo.com/myaccount/images/header.gif");
+
+    Assert.assertEquals(source.length(), workspace.get(uri).length());
+    Assert.assertEquals(1, metrics.getCount(Phase.WORKSPACE_GET));
+    Assert.assertEquals(source.length(), metrics.getBytes().get(Phase.WORKSPACE_GET.label()).longValue());
+
+    // An up to date file is not counted as transferred
+    Assert.assertEquals(source.length(), workspace.get(uri).length());
+    Assert.assertEquals(2, metrics.getCount(Phase.WORKSPACE_GET));
+    Assert.assertEquals(source.length(), metrics.getBytes().get(Phase.WORKSPACE_GET.label()).longValue());
+  }
+
   @Test
   public void testCleanup() throws Exception {
     workspace.cleanup(-1);